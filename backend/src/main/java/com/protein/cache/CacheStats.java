@@ -0,0 +1,68 @@
+package com.protein.cache;
+
+// 缓存统计的快照
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions; // 因容量不足被淘汰的条目数
+    private final long invalidations; // 因写入新数据而整体失效的次数
+    private final long rejections; // 过大或计算期间已失效而没有写入的结果数
+    private final int entries;
+    private final long weightBytes;
+    private final long maxWeightBytes;
+    private final long generation;
+
+    public CacheStats(long hits, long misses, long evictions, long invalidations, long rejections,
+                      int entries, long weightBytes, long maxWeightBytes, long generation) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+        this.rejections = rejections;
+        this.entries = entries;
+        this.weightBytes = weightBytes;
+        this.maxWeightBytes = maxWeightBytes;
+        this.generation = generation;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests > 0 ? (double) hits / requests : 0.0;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public long getRejections() {
+        return rejections;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public long getWeightBytes() {
+        return weightBytes;
+    }
+
+    public long getMaxWeightBytes() {
+        return maxWeightBytes;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+}
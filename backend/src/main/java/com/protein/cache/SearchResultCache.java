@@ -0,0 +1,176 @@
+package com.protein.cache;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.protein.data.Sequence;
+import com.protein.data.SequencePage;
+import com.protein.data.SequenceWriteListener;
+import com.protein.export.SequencePageSource;
+import com.protein.query.QueryParser;
+import com.protein.query.SearchField;
+
+// 搜索结果缓存，键为（规范化后的查询, 类别, 游标, 页大小, 读取的列）。
+// 分页搜索缓存整页结果；不分页的搜索和“导出全部”共用同一份缓存的完整 id 集合。
+// 每批导入数据提交后整体失效。
+@Component
+public class SearchResultCache implements SequenceWriteListener {
+    private static final long PAGE_OVERHEAD = 64;
+    private static final long ROW_OVERHEAD = 96;
+    private static final long STRING_OVERHEAD = 40;
+
+    @Value("${protein.cache.max-weight-mb:64}")
+    private long maxWeightMb;
+
+    private WeightedLruCache<Key, Object> cache;
+
+    @PostConstruct
+    public void start() {
+        cache = new WeightedLruCache<>(maxWeightMb * 1024 * 1024, SearchResultCache::weigh);
+    }
+
+    @Override
+    public void onBatchCommitted(List<Sequence> sequences) {
+        cache.invalidateAll();
+    }
+
+    public long generation() {
+        return cache.generation();
+    }
+
+    // columns 为这一页读取的列（见 SequenceStore.parseColumns），只读取部分列的页与完整的页分别缓存
+    public SequencePage getPage(String query, String category, String pageToken, int size, Set<SearchField> columns) {
+        return (SequencePage) cache.get(Key.page(query, category, pageToken, size, columns));
+    }
+
+    public void putPage(String query, String category, String pageToken, int size, Set<SearchField> columns,
+                        SequencePage page, long computedAtGeneration) {
+        cache.put(Key.page(query, category, pageToken, size, columns), page, computedAtGeneration);
+    }
+
+    // 完整结果的 id 集合（升序），未缓存时返回 null
+    public long[] getIds(String query, String category) {
+        return (long[]) cache.get(Key.ids(query, category));
+    }
+
+    public void putIds(String query, String category, long[] ids, long computedAtGeneration) {
+        cache.put(Key.ids(query, category), ids, computedAtGeneration);
+    }
+
+    // 包装按页读取的数据源：完整读完（读到空页）后把读到的所有 id 作为 (query, category) 的完整结果写入缓存
+    public SequencePageSource recording(String query, String category, SequencePageSource source) {
+        long generation = generation();
+        long maxIds = maxWeightMb * 1024 * 1024 / 4 / 8;
+        return new SequencePageSource() {
+            private long[] ids = new long[1024];
+            private int size;
+
+            @Override
+            public List<Sequence> fetchPage(long lastId, int limit) {
+                List<Sequence> rows = source.fetchPage(lastId, limit);
+                if (size < 0) {
+                    return rows;
+                }
+                if (rows.isEmpty()) {
+                    long[] result = Arrays.copyOf(ids, size);
+                    Arrays.sort(result);
+                    putIds(query, category, result, generation);
+                    size = -1;
+                } else if (size + rows.size() > maxIds) {
+                    // 结果太大，反正不会被缓存，不再记录
+                    ids = null;
+                    size = -1;
+                } else {
+                    if (size + rows.size() > ids.length) {
+                        ids = Arrays.copyOf(ids, Math.max(ids.length * 2, size + rows.size()));
+                    }
+                    for (Sequence row : rows) {
+                        ids[size++] = row.getId();
+                    }
+                }
+                return rows;
+            }
+        };
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // 规范化查询：只去掉首尾空白。不能转换大小写，因为查询语法中的 AND / OR 区分大小写
+    public static String normalizeQuery(String query) {
+        return query != null ? query.trim() : "";
+    }
+
+    private static long weigh(Object value) {
+        if (value instanceof long[]) {
+            return PAGE_OVERHEAD + 8L * ((long[]) value).length;
+        }
+        SequencePage page = (SequencePage) value;
+        long weight = PAGE_OVERHEAD;
+        for (Sequence sequence : page.getContent()) {
+            weight += ROW_OVERHEAD + weigh(sequence.getProteins()) + weigh(sequence.getAccessions())
+                    + weighResidues(sequence) + weigh(sequence.getAnnotations()) + weigh(sequence.getInterpros());
+        }
+        return weight;
+    }
+
+    // 压缩保存的序列按压缩后的字节数计算，不为了估算大小而解码
+    private static long weighResidues(Sequence sequence) {
+        byte[] residues = sequence.getResidues();
+        return residues != null ? STRING_OVERHEAD + residues.length : weigh(sequence.getSequence());
+    }
+
+    private static long weigh(String value) {
+        return value != null ? STRING_OVERHEAD + value.length() : 0;
+    }
+
+    private static final class Key {
+        private final String query;
+        private final String category;
+        private final String cursor; // 分页游标；完整 id 集合为 null
+        private final int size; // 页大小；完整 id 集合为 0
+        private final Set<SearchField> columns; // 页中读取的列；完整 id 集合为 null
+
+        private Key(String query, String category, String cursor, int size, Set<SearchField> columns) {
+            this.query = normalizeQuery(query);
+            this.category = QueryParser.normalizeCategory(category);
+            this.cursor = cursor;
+            this.size = size;
+            this.columns = columns;
+        }
+
+        static Key page(String query, String category, String pageToken, int size, Set<SearchField> columns) {
+            return new Key(query, category, pageToken != null ? pageToken : "", size, columns);
+        }
+
+        static Key ids(String query, String category) {
+            return new Key(query, category, null, 0, null);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return size == other.size && query.equals(other.query) && category.equals(other.category)
+                    && Objects.equals(cursor, other.cursor) && Objects.equals(columns, other.columns);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, category, cursor, size, columns);
+        }
+    }
+}
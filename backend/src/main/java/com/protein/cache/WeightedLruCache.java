@@ -0,0 +1,85 @@
+package com.protein.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+// 按权重（估算的字节数）限制大小的 LRU 缓存。
+// 失效用代数实现：invalidateAll 只需代数加一并清空；put 时带上计算开始时的代数，
+// 计算期间发生过失效的结果不会写入缓存，避免把旧数据当成新数据缓存下来。
+public class WeightedLruCache<K, V> {
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long weight;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private long rejections;
+
+    public WeightedLruCache(long maxWeight, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    // 当前代数，调用方在开始计算前读取，计算完成后传给 put
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void put(K key, V value, long computedAtGeneration) {
+        long valueWeight = weigher.applyAsLong(value);
+        // 超过总容量四分之一的结果不缓存，否则一条结果就会把其他常用结果全部挤出去
+        if (computedAtGeneration != generation || valueWeight > maxWeight / 4) {
+            rejections++;
+            return;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, valueWeight));
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += valueWeight;
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Entry<V> eldest = iterator.next().getValue();
+            iterator.remove();
+            weight -= eldest.weight;
+            evictions++;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations++;
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, invalidations, rejections,
+                entries.size(), weight, maxWeight, generation);
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long weight;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
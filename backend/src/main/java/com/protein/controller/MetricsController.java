@@ -0,0 +1,30 @@
+package com.protein.controller;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.protein.metrics.MetricsRegistry;
+
+// 指标接口：以 Prometheus 文本格式输出导入、搜索、导出和连接池的指标，供本地 Prometheus 抓取
+@RestController
+@RequestMapping("/api")
+public class MetricsController {
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @GetMapping("/metrics")
+    public ResponseEntity<String> scrape() throws IOException {
+        StringWriter out = new StringWriter();
+        metricsRegistry.scrape(out);
+        return ResponseEntity.ok().header(HttpHeaders.CONTENT_TYPE, PROMETHEUS_TEXT).body(out.toString());
+    }
+}
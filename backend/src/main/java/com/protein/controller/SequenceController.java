@@ -1,5 +1,7 @@
 package com.protein.controller;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -7,377 +9,518 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.protein.cache.CacheStats;
+import com.protein.cache.SearchResultCache;
+import com.protein.data.DuplicatePolicy;
 import com.protein.data.Sequence;
+import com.protein.data.SequencePage;
 import com.protein.data.SequenceRepository;
-import com.protein.parser.SequenceParser;
+import com.protein.data.SequenceTerms;
+import com.protein.export.CompactSequenceWriter;
+import com.protein.export.CompactSequences;
+import com.protein.export.ResponseEncoding;
+import com.protein.export.SequenceExporter;
+import com.protein.export.SequencePageSource;
+import com.protein.export.SequenceRowWriter;
+import com.protein.export.TsvRowWriter;
+import com.protein.export.TxtRowWriter;
+import com.protein.index.FullTextPage;
+import com.protein.index.FullTextSearchService;
+import com.protein.index.TermIndexService;
+import com.protein.query.MalformedQueryException;
+import com.protein.query.Predicate;
+import com.protein.query.QueryEngine;
+import com.protein.query.QueryParser;
+import com.protein.query.SearchField;
+import com.protein.similarity.SimilarityResult;
+import com.protein.similarity.SimilarityService;
+import com.protein.ingest.IngestJob;
+import com.protein.ingest.IngestJobService;
+import com.protein.store.FacetCounts;
+import com.protein.store.SequenceStore;
+import com.protein.store.SqliteSequenceStore;
+import com.protein.store.StoreCount;
 
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 // RESTful API 控制器，处理与蛋白质序列相关的请求
 @RestController
 @RequestMapping("/api/sequences")
 public class SequenceController {
+    private static final Logger log = LoggerFactory.getLogger(SequenceController.class);
+
+    // 分页接口的默认页大小和最大页大小
+    private static final int DEFAULT_PAGE_SIZE = 12;
+    private static final int MAX_PAGE_SIZE = 1000;
+    // 分组计数的默认组数和最大组数
+    private static final int DEFAULT_GROUP_LIMIT = 20;
+    private static final int MAX_GROUP_LIMIT = 1000;
+    // 长度直方图的默认区间宽度（残基数）
+    private static final int DEFAULT_LENGTH_BUCKET_WIDTH = 100;
+    // /{ids}/detail 默认返回的大字段，列表和搜索页用 fields 排除它们
+    private static final Set<SearchField> DETAIL_COLUMNS =
+            EnumSet.of(SearchField.ID, SearchField.SEQUENCE, SearchField.ANNOTATIONS, SearchField.INTERPROS);
 
     @Autowired
     private SequenceRepository sequenceRepository;
 
+    @Autowired
+    private SequenceExporter sequenceExporter;
+
+    @Autowired
+    private IngestJobService ingestJobService;
+
+    @Autowired
+    private FullTextSearchService fullTextSearchService;
+
+    @Autowired
+    private TermIndexService termIndexService;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private QueryEngine queryEngine;
+
+    @Autowired
+    private SimilarityService similarityService;
+
+    @Autowired
+    private SequenceStore sequenceStore;
+
+    @Autowired
+    private SqliteSequenceStore sqliteStore;
+
     // 获取所有序列
     @GetMapping
     public List<Sequence> getAllSequences() {
         return sequenceRepository.findAll();
     }
 
-    // 处理多个文件上传，解析并保存序列数据
-    @PostMapping("/upload")
-    public ResponseEntity<String> uploadFiles(@RequestParam("files") MultipartFile[] files) {
-        for (MultipartFile file : files) {
-            try {
-                List<Sequence> sequences = SequenceParser.parse(file.getInputStream(), file.getOriginalFilename());
-                sequenceRepository.saveAll(sequences);
-            } catch (IOException e) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body("Error processing file: " + file.getOriginalFilename());
-            }
+    // 按键集分页获取序列，pageToken 为上一页返回的 nextPageToken。
+    // fields 为逗号分隔的列名（例如 proteins,accessions），只读取并返回这些列，缺省时返回全部列
+    @GetMapping("/page")
+    public ResponseEntity<SequencePage> getSequencesPage(@RequestParam(required = false) String pageToken,
+                                                         @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+                                                         @RequestParam(required = false) String fields) {
+        long lastId;
+        Set<SearchField> columns;
+        try {
+            lastId = SequencePage.decodeToken(pageToken);
+            columns = SequenceStore.parseColumns(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.ok("Files uploaded successfully");
+        int pageSize = clampPageSize(size);
+        Predicate all = new Predicate.MatchAll();
+        List<Sequence> rows = sequenceStore.findPage(all, lastId, pageSize + 1, columns);
+        // 只在第一页计算总数，翻页时客户端沿用第一页的结果
+        Long total = lastId == 0L ? sequenceStore.count(all) : null;
+        return ResponseEntity.ok(SequencePage.of(rows, pageSize, total));
     }
 
-    // 根据查询条件搜索序列
-    @GetMapping("/search")
-    public List<Sequence> searchSequences(@RequestParam String query, @RequestParam(required = false) String category) {
-        // 标准化类别名称（忽略大小写）
-        String normalizedCategory = (category != null) ? category.trim().toLowerCase() : "";
-
-        // 当选择“全部类别”或未指定类别时
-        if (normalizedCategory.equals("") || normalizedCategory.equals("全部类别") || normalizedCategory.equals("all")) {
-            if (query == null || query.trim().isEmpty()) {
-                // 空输入，查找所有至少有一个非空字段的记录
-                return sequenceRepository.findAllNonEmpty();
-            } else {
-                // 非空输入，在所有类别中搜索包含查询的记录
-                return sequenceRepository.searchInAllCategories(query.trim());
+    // 满足查询条件的记录数，查询语法和类别与 /search/page 相同。
+    // groupBy 为 index、proteins、orgs 或 length 时，同时按该列的取值分组计数，返回记录最多的 limit 组
+    @GetMapping("/count")
+    public ResponseEntity<StoreCount> countSequences(@RequestParam(defaultValue = "") String query,
+                                                     @RequestParam(required = false) String category,
+                                                     @RequestParam(required = false) String groupBy,
+                                                     @RequestParam(defaultValue = "" + DEFAULT_GROUP_LIMIT) int limit) {
+        SearchField groupColumn = null;
+        if (groupBy != null && !groupBy.isBlank()) {
+            groupColumn = SearchField.parse(groupBy.trim());
+            if (groupColumn == null || !SequenceStore.FACET_COLUMNS.contains(groupColumn)) {
+                return ResponseEntity.badRequest().build();
             }
         }
+        Predicate predicate = QueryParser.parse(query, category);
+        long total = sequenceStore.count(predicate);
+        return ResponseEntity.ok(new StoreCount(total, groupColumn == null ? null
+                : sequenceStore.facet(predicate, groupColumn, Math.max(1, Math.min(limit, MAX_GROUP_LIMIT)))));
+    }
 
-        // 当选择特定类别时
-        switch (normalizedCategory) {
-            case "id":
-                if (query == null || query.trim().isEmpty()) {
-                    // 空输入，查找ID非空的记录
-                    return sequenceRepository.findByIdIsNotEmpty();
-                } else {
-                    // 非空输入，按ID字符串搜索
-                    return sequenceRepository.findByIdLike(query.trim());
-                }
-            case "index":
-                if (query == null || query.trim().isEmpty()) {
-                    // 空输入，查找IndexNumber非空的记录
-                    return sequenceRepository.findByIndexNumberIsNotEmpty();
-                } else {
-                    // 非空输入，按IndexNumber搜索
-                    return sequenceRepository.findByIndexNumberLike(query.trim());
-                }
-            case "proteins":
-                if (query == null || query.trim().isEmpty()) {
-                    // 空输入，查找Proteins非空的记录
-                    return sequenceRepository.findByProteinsIsNotEmpty();
-                } else {
-                    // 非空输入，按Proteins搜索
-                    return sequenceRepository.findByProteinsLike(query.trim());
-                }
-            case "accessions":
-                if (query == null || query.trim().isEmpty()) {
-                    // 空输入，查找Accessions非空的记录
-                    return sequenceRepository.findByAccessionsIsNotEmpty();
-                } else {
-                    // 非空输入，按Accessions搜索
-                    return sequenceRepository.findByAccessionsLike(query.trim());
-                }
-            case "sequences":
-                if (query == null || query.trim().isEmpty()) {
-                    // 空输入，查找Sequences非空的记录
-                    return sequenceRepository.findBySequenceIsNotEmpty();
-                } else {
-                    // 非空输入，按Sequences搜索
-                    return sequenceRepository.findBySequenceLike(query.trim());
-                }
-            case "annotations":
-                if (query == null || query.trim().isEmpty()) {
-                    // 空输入，查找Annotations非空的记录
-                    return sequenceRepository.findByAnnotationsIsNotEmpty();
-                } else {
-                    // 非空输入，按Annotations搜索
-                    return sequenceRepository.findByAnnotationsLike(query.trim());
-                }
-            case "interpros":
-                if (query == null || query.trim().isEmpty()) {
-                    // 空输入，查找Interpros非空的记录
-                    return sequenceRepository.findByInterprosIsNotEmpty();
-                } else {
-                    // 非空输入，按Interpros搜索
-                    return sequenceRepository.findByInterprosLike(query.trim());
-                }
-            case "orgs":
-                if (query == null || query.trim().isEmpty()) {
-                    // 空输入，查找Orgs非空的记录
-                    return sequenceRepository.findByOrgsIsNotEmpty();
-                } else {
-                    // 非空输入，按Orgs搜索
-                    return sequenceRepository.findByOrgsLike(query.trim());
-                }
-            default:
-                // 如果类别不匹配，返回空列表
-                return List.of();
+    // 满足查询条件的记录按 orgs、单个 InterPro 条目和注释词条分组计数（各取记录最多的 limit 组），
+    // 以及序列长度的直方图（每 bucketWidth 个残基一个区间），查询语法和类别与 /search/page 相同
+    @GetMapping("/facets")
+    public ResponseEntity<FacetCounts> facetSequences(@RequestParam(defaultValue = "") String query,
+                                                      @RequestParam(required = false) String category,
+                                                      @RequestParam(defaultValue = "" + DEFAULT_GROUP_LIMIT) int limit,
+                                                      @RequestParam(defaultValue = "" + DEFAULT_LENGTH_BUCKET_WIDTH) int bucketWidth) {
+        if (bucketWidth < 1) {
+            return ResponseEntity.badRequest().build();
         }
+        Predicate predicate = QueryParser.parse(query, category);
+        return ResponseEntity.ok(sequenceStore.facets(predicate, Math.max(1, Math.min(limit, MAX_GROUP_LIMIT)),
+                bucketWidth));
     }
 
-    // 导出选定序列为TSV格式
-    @PostMapping("/export")
-    public ResponseEntity<byte[]> exportSequences(@RequestBody List<Long> ids) {
-        List<Sequence> sequences = sequenceRepository.findByIdIn(ids);
-        StringBuilder sb = new StringBuilder();
-
-        if (sequences.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
-        }
-
-        // 生成TSV格式的表头和数据
-        sb.append("ID\tIndex\tProteins\tAccessions\tSequences\tAnnotations\tInterpros\tOrgs\n");
-        for (Sequence sequence : sequences) {
-            // 拼接每个序列的数据，使用制表符分隔
-            sb.append(sequence.getId()).append("\t")
-              .append(sequence.getIndexNumber() != null ? sequence.getIndexNumber() : "").append("\t")
-              .append(sequence.getProteins() != null ? sequence.getProteins() : "").append("\t")
-              .append(sequence.getAccessions() != null ? sequence.getAccessions() : "").append("\t")
-              .append(sequence.getSequence() != null ? sequence.getSequence() : "").append("\t")
-              .append(sequence.getAnnotations() != null ? sequence.getAnnotations() : "").append("\t")
-              .append(sequence.getInterpros() != null ? sequence.getInterpros() : "").append("\t")
-              .append(sequence.getOrgs() != null ? sequence.getOrgs() : "").append("\n");
-        }
-        byte[] data = sb.toString().getBytes();
-
-        // 设置响应头，指定文件类型和下载文件名
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.TEXT_PLAIN);
-        headers.setContentDispositionFormData("attachment", "sequences_current.tsv");
-        headers.setContentLength(data.length);
-        return new ResponseEntity<>(data, headers, HttpStatus.OK);
+    // 处理多个文件上传：文件落盘后立即返回导入任务，由后台线程解析并写入数据库。
+    // dedup 指定重复记录的处理方式：none、skip、replace 或 merge（merge-annotations），缺省时使用配置的默认值
+    @PostMapping("/upload")
+    public ResponseEntity<?> uploadFiles(@RequestParam("files") MultipartFile[] files,
+                                         @RequestParam(required = false) String dedup) {
+        DuplicatePolicy duplicatePolicy = dedup == null || dedup.isBlank()
+                ? ingestJobService.getDefaultDuplicatePolicy() : DuplicatePolicy.parse(dedup);
+        if (duplicatePolicy == null) {
+            return ResponseEntity.badRequest().body("Unknown dedup policy: " + dedup);
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ingestJobService.submit(files, duplicatePolicy));
+        } catch (IOException | RuntimeException e) {
+            log.error("Error saving uploaded files", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error saving uploaded files: " + e.getMessage());
+        }
     }
 
-    // 导出选定序列为TXT格式
-    @PostMapping("/export-txt")
-    public ResponseEntity<byte[]> exportSequencesTxt(@RequestBody List<Long> ids) {
-        List<Sequence> sequences = sequenceRepository.findByIdIn(ids);
-        StringBuilder sb = new StringBuilder();
-
-        if (sequences.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
-        }
-
-        // 生成TXT格式的数据，每个字段单独一行
-        for (Sequence sequence : sequences) {
-            sb.append("ID: ").append(sequence.getId()).append("\n")
-              .append("Index: ").append(sequence.getIndexNumber() != null ? sequence.getIndexNumber() : "N/A").append("\n")
-              .append("Proteins: ").append(sequence.getProteins() != null ? sequence.getProteins() : "N/A").append("\n")
-              .append("Accessions: ").append(sequence.getAccessions() != null ? sequence.getAccessions() : "N/A").append("\n")
-              .append("Sequences: ").append(sequence.getSequence() != null ? sequence.getSequence() : "N/A").append("\n")
-              .append("Annotations: ").append(sequence.getAnnotations() != null ? sequence.getAnnotations() : "N/A").append("\n")
-              .append("Interpros: ").append(sequence.getInterpros() != null ? sequence.getInterpros() : "N/A").append("\n")
-              .append("Orgs: ").append(sequence.getOrgs() != null ? sequence.getOrgs() : "N/A").append("\n")
-              .append("----\n"); // 使用分隔符区分不同序列
-        }
-        byte[] data = sb.toString().getBytes();
-
-        // 设置响应头，指定文件类型和下载文件名
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.TEXT_PLAIN);
-        headers.setContentDispositionFormData("attachment", "sequences_current.txt");
-        headers.setContentLength(data.length);
-        return new ResponseEntity<>(data, headers, HttpStatus.OK);
+    // 导入服务器本地的文件（管理用，需要配置 protein.ingest.import-root）：path 是文件、目录或 glob，不受上传大小限制。
+    // 中断后用同样的 path 再次调用会从断点继续；中断时只写入了一部分的片段会重新读取，所以缺省的 dedup 为 skip
+    @PostMapping("/import")
+    public ResponseEntity<?> importLocalFiles(@RequestParam String path,
+                                              @RequestParam(required = false) String dedup) {
+        if (!ingestJobService.isLocalImportEnabled()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Local import is disabled");
+        }
+        DuplicatePolicy duplicatePolicy = dedup == null || dedup.isBlank()
+                ? DuplicatePolicy.SKIP : DuplicatePolicy.parse(dedup);
+        if (duplicatePolicy == null) {
+            return ResponseEntity.badRequest().body("Unknown dedup policy: " + dedup);
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ingestJobService.submitLocal(path, duplicatePolicy));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.badRequest().body("No such file: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            log.error("Error starting import of {}", path, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error starting import: " + e.getMessage());
+        }
     }
 
-    // 导出所有序列（可选过滤）为TSV格式
-    @PostMapping("/export-all")
-    public ResponseEntity<byte[]> exportAllSequences(@RequestBody FilterRequest filterRequest) {
-        List<Sequence> sequences;
-        // 根据过滤条件查询序列
-        if (filterRequest.getQuery() != null && !filterRequest.getQuery().isEmpty()) {
-            // 根据当前搜索类别和查询进行搜索
-            sequences = searchWithCategory(filterRequest.getQuery(), filterRequest.getCategory());
-        } else {
-            // 查询所有非空字段的记录
-            sequences = sequenceRepository.findAllNonEmpty();
+    // 查询导入任务的状态和进度
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<IngestJob> getIngestJob(@PathVariable String id) {
+        IngestJob job = ingestJobService.get(id);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    // 根据查询条件搜索序列。完整结果的 id 集合会被缓存，再次查询时只需按主键取回记录。
+    // 指定 fields、format 或 layout，或者 Accept 为 application/cbor、application/x-jackson-smile 时返回紧凑编码，
+    // 见 CompactSequenceWriter。指定 fields 时只从数据库读取这些列，序列、注释等大字段可以之后用 /{ids}/detail 取回
+    @GetMapping("/search")
+    public ResponseEntity<?> searchSequences(@RequestParam String query, @RequestParam(required = false) String category,
+                                             @RequestParam(required = false) String fields,
+                                             @RequestParam(required = false) String format,
+                                             @RequestParam(required = false) String layout,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Set<SearchField> columns;
+        CompactSequenceWriter writer;
+        try {
+            columns = SequenceStore.parseColumns(fields);
+            writer = compactWriter(fields, format, layout, accept);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        List<Sequence> rows = search(query, category, columns);
+        if (writer == null) {
+            return ResponseEntity.ok(rows);
         }
+        return compact(CompactSequences.of(writer, rows));
+    }
 
-        StringBuilder sb = new StringBuilder();
+    private List<Sequence> search(String query, String category, Set<SearchField> columns) {
+        long[] ids = searchResultCache.getIds(query, category);
+        if (ids != null && columns != SequenceStore.ALL_COLUMNS) {
+            return sqliteStore.findByIds(ids, columns);
+        }
+        if (ids != null) {
+            SequencePageSource source = SequencePageSource.ofSortedIds(sequenceRepository, ids);
+            List<Sequence> rows = new ArrayList<>(ids.length);
+            List<Sequence> page;
+            long lastId = 0L;
+            while (!(page = source.fetchPage(lastId, SequenceExporter.PAGE_SIZE)).isEmpty()) {
+                rows.addAll(page);
+                lastId = page.get(page.size() - 1).getId();
+            }
+            return rows;
+        }
+        long generation = searchResultCache.generation();
+        List<Sequence> rows = queryEngine.search(query, category, 0L, Integer.MAX_VALUE, projection(columns));
+        searchResultCache.putIds(query, category,
+                rows.stream().mapToLong(Sequence::getId).sorted().toArray(), generation);
+        return rows;
+    }
 
-        if (sequences.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
+    // 根据查询条件分页搜索序列，类别含义与 /search 相同，查询语法见 QueryParser。
+    // explain=true 时不读缓存，返回选定的执行计划、实际执行的 SQL 和耗时，结果页放在 page 字段中
+    @GetMapping("/search/page")
+    public ResponseEntity<?> searchSequencesPage(@RequestParam(defaultValue = "") String query,
+                                                 @RequestParam(required = false) String category,
+                                                 @RequestParam(required = false) String pageToken,
+                                                 @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+                                                 @RequestParam(defaultValue = "false") boolean explain,
+                                                 @RequestParam(required = false) String fields,
+                                                 @RequestParam(required = false) String format,
+                                                 @RequestParam(required = false) String layout,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        long lastId;
+        Set<SearchField> columns;
+        CompactSequenceWriter writer;
+        try {
+            lastId = SequencePage.decodeToken(pageToken);
+            columns = SequenceStore.parseColumns(fields);
+            writer = compactWriter(fields, format, layout, accept);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = clampPageSize(size);
+        if (explain) {
+            return ResponseEntity.ok(queryEngine.explain(query, category, lastId, pageSize));
+        }
+        SequencePage page = searchResultCache.getPage(query, category, pageToken, pageSize, columns);
+        if (page == null) {
+            long generation = searchResultCache.generation();
+            List<Sequence> rows = queryEngine.search(query, category, lastId, pageSize + 1, projection(columns));
+            // 搜索结果的总数需要全表扫描才能得到，这里只在第一页就是最后一页时给出精确值
+            Long total = (lastId == 0L && rows.size() <= pageSize) ? Long.valueOf(rows.size()) : null;
+            page = SequencePage.of(rows, pageSize, total);
+            searchResultCache.putPage(query, category, pageToken, pageSize, columns, page, generation);
+        }
+        if (writer == null) {
+            return ResponseEntity.ok(page);
         }
+        return compact(CompactSequences.of(writer, page));
+    }
 
-        // 生成TSV格式的表头和数据
-        sb.append("ID\tIndex\tProteins\tAccessions\tSequences\tAnnotations\tInterpros\tOrgs\n");
-        for (Sequence sequence : sequences) {
-            // 拼接每个序列的数据，使用制表符分隔
-            sb.append(sequence.getId()).append("\t")
-              .append(sequence.getIndexNumber() != null ? sequence.getIndexNumber() : "").append("\t")
-              .append(sequence.getProteins() != null ? sequence.getProteins() : "").append("\t")
-              .append(sequence.getAccessions() != null ? sequence.getAccessions() : "").append("\t")
-              .append(sequence.getSequence() != null ? sequence.getSequence() : "").append("\t")
-              .append(sequence.getAnnotations() != null ? sequence.getAnnotations() : "").append("\t")
-              .append(sequence.getInterpros() != null ? sequence.getInterpros() : "").append("\t")
-              .append(sequence.getOrgs() != null ? sequence.getOrgs() : "").append("\n");
+    // 按逗号分隔的 id（至多 MAX_PAGE_SIZE 个）批量取回记录的大字段，供列表和搜索页按 fields 读取轻量的列之后补全当前页。
+    // 默认返回 id、sequence、annotations、interpros，可以用 fields 指定其他列；结果按 id 升序，不存在的 id 跳过。
+    // 总是按 CompactSequenceWriter 编码（省略值为 null 的字段），format、layout 和 Accept 的含义与 /search 相同
+    @GetMapping("/{ids}/detail")
+    public ResponseEntity<?> getSequenceDetails(@PathVariable String ids,
+                                                @RequestParam(required = false) String fields,
+                                                @RequestParam(required = false) String format,
+                                                @RequestParam(required = false) String layout,
+                                                @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        long[] sortedIds;
+        Set<SearchField> columns;
+        CompactSequenceWriter writer;
+        try {
+            sortedIds = Arrays.stream(ids.split(",")).map(String::trim).filter(id -> !id.isEmpty())
+                    .mapToLong(Long::parseLong).sorted().distinct().toArray();
+            columns = fields == null || fields.isBlank() ? DETAIL_COLUMNS
+                    : SequenceStore.parseColumns(fields);
+            ResponseEncoding encoding = ResponseEncoding.negotiate(format, accept);
+            writer = new CompactSequenceWriter(encoding != null ? encoding : ResponseEncoding.JSON, columns,
+                    CompactSequenceWriter.Layout.parse(layout));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (sortedIds.length > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("At most " + MAX_PAGE_SIZE + " ids per request");
         }
-        byte[] data = sb.toString().getBytes();
+        return compact(CompactSequences.of(writer, sqliteStore.findByIds(sortedIds, columns)));
+    }
 
-        // 设置响应头，指定文件类型和下载文件名
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.TEXT_PLAIN);
-        headers.setContentDispositionFormData("attachment", "sequences_all.tsv");
-        headers.setContentLength(data.length);
-        return new ResponseEntity<>(data, headers, HttpStatus.OK);
+    // 投影不是全部列时交给 QueryEngine 只读取这些列，否则为 null（读取全部列）
+    private static Set<SearchField> projection(Set<SearchField> columns) {
+        return columns != SequenceStore.ALL_COLUMNS ? columns : null;
     }
 
-    // 导出所有序列（可选过滤）为TXT格式
-    @PostMapping("/export-all-txt")
-    public ResponseEntity<byte[]> exportAllSequencesTxt(@RequestBody FilterRequest filterRequest) {
-        List<Sequence> sequences;
-        // 根据过滤条件查询序列
-        if (filterRequest.getQuery() != null && !filterRequest.getQuery().isEmpty()) {
-            // 根据当前搜索类别和查询进行搜索
-            sequences = searchWithCategory(filterRequest.getQuery(), filterRequest.getCategory());
-        } else {
-            // 查询所有非空字段的记录
-            sequences = sequenceRepository.findAllNonEmpty();
+    // 紧凑编码的写入器；fields、format、layout 都没有指定且 Accept 不要求二进制编码时返回 null，使用默认的 JSON。
+    // 参数无法识别时抛出 IllegalArgumentException
+    private static CompactSequenceWriter compactWriter(String fields, String format, String layout, String accept) {
+        ResponseEncoding encoding = ResponseEncoding.negotiate(format, accept);
+        if (encoding == null && (fields == null || fields.isBlank()) && (layout == null || layout.isBlank())) {
+            return null;
         }
+        return new CompactSequenceWriter(encoding != null ? encoding : ResponseEncoding.JSON,
+                SequenceStore.parseColumns(fields), CompactSequenceWriter.Layout.parse(layout));
+    }
 
-        StringBuilder sb = new StringBuilder();
+    // 响应体由 CompactSequenceMessageConverter 按 Content-Type 写出
+    private static ResponseEntity<CompactSequences> compact(CompactSequences body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(body.getMediaType()))
+                .body(body);
+    }
 
-        if (sequences.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
+    // 全文检索，结果按相关度（BM25）排序。prefix 为 true 时最后一个词按前缀匹配；highlight 为 true 时返回高亮片段
+    @GetMapping("/search/fulltext")
+    public ResponseEntity<FullTextPage> searchFullText(@RequestParam(defaultValue = "") String query,
+                                                       @RequestParam(required = false) String pageToken,
+                                                       @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+                                                       @RequestParam(defaultValue = "true") boolean prefix,
+                                                       @RequestParam(defaultValue = "true") boolean highlight) {
+        long offset;
+        try {
+            offset = SequencePage.decodeToken(pageToken);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(fullTextSearchService.search(query, offset, clampPageSize(size), prefix, highlight));
+    }
+
+    // 按多值字段（accessions、annotations、interpros）的词条精确查找，不区分大小写。
+    // 可以传多个 term，match=all 要求包含全部词条，match=any 包含任一即可
+    @GetMapping("/terms")
+    public ResponseEntity<SequencePage> searchByTerms(@RequestParam String field,
+                                                      @RequestParam("term") List<String> terms,
+                                                      @RequestParam(defaultValue = "all") String match,
+                                                      @RequestParam(required = false) String pageToken,
+                                                      @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size) {
+        SequenceTerms.Field termField = SequenceTerms.Field.parse(field);
+        if (termField == null || terms.isEmpty() || terms.size() > TermIndexService.MAX_TERMS
+                || !("all".equals(match) || "any".equals(match))) {
+            return ResponseEntity.badRequest().build();
+        }
+        long lastId;
+        try {
+            lastId = SequencePage.decodeToken(pageToken);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
+        int pageSize = clampPageSize(size);
+        List<Sequence> rows = termIndexService.searchPage(termField, terms, "all".equals(match), lastId, pageSize + 1);
+        return ResponseEntity.ok(SequencePage.of(rows, pageSize, null));
+    }
 
-        // 生成TXT格式的数据，每个字段单独一行
-        for (Sequence sequence : sequences) {
-            sb.append("ID: ").append(sequence.getId()).append("\n")
-              .append("Index: ").append(sequence.getIndexNumber() != null ? sequence.getIndexNumber() : "N/A").append("\n")
-              .append("Proteins: ").append(sequence.getProteins() != null ? sequence.getProteins() : "N/A").append("\n")
-              .append("Accessions: ").append(sequence.getAccessions() != null ? sequence.getAccessions() : "N/A").append("\n")
-              .append("Sequences: ").append(sequence.getSequence() != null ? sequence.getSequence() : "N/A").append("\n")
-              .append("Annotations: ").append(sequence.getAnnotations() != null ? sequence.getAnnotations() : "N/A").append("\n")
-              .append("Interpros: ").append(sequence.getInterpros() != null ? sequence.getInterpros() : "N/A").append("\n")
-              .append("Orgs: ").append(sequence.getOrgs() != null ? sequence.getOrgs() : "N/A").append("\n")
-              .append("----\n"); // 使用分隔符区分不同序列
+    // 相似序列搜索：查询序列由 sequence 给出，或用 id 指定库中的一条记录（结果中不含该记录本身）。
+    // 返回 BLOSUM62 局部比对得分最高的 top 条；k-mer 索引未就绪时返回 503
+    @GetMapping("/similar")
+    public ResponseEntity<?> findSimilar(@RequestParam(required = false) String sequence,
+                                         @RequestParam(required = false) Long id,
+                                         @RequestParam(defaultValue = "10") int top) {
+        if (id != null) {
+            Optional<Sequence> record = sequenceRepository.findById(id);
+            if (record.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return similar(record.get().getSequence(), top, id);
         }
-        byte[] data = sb.toString().getBytes();
+        return similar(sequence, top, null);
+    }
 
-        // 设置响应头，指定文件类型和下载文件名
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.TEXT_PLAIN);
-        headers.setContentDispositionFormData("attachment", "sequences_all.txt");
-        headers.setContentLength(data.length);
-        return new ResponseEntity<>(data, headers, HttpStatus.OK);
+    // 与 GET /similar 相同，查询序列较长时可以放在请求体中提交
+    @PostMapping("/similar")
+    public ResponseEntity<?> findSimilar(@RequestBody SimilarRequest request) {
+        return similar(request.getSequence(), request.getTop() != null ? request.getTop() : 10, null);
     }
 
-    // 辅助方法，根据类别和查询内容进行搜索
-    private List<Sequence> searchWithCategory(String query, String category) {
-        String normalizedCategory = (category != null) ? category.trim().toLowerCase() : "";
-
-        switch (normalizedCategory) {
-            case "id":
-                return sequenceRepository.findByIdLike(query.trim());
-            case "index":
-                return sequenceRepository.findByIndexNumberLike(query.trim());
-            case "proteins":
-                return sequenceRepository.findByProteinsLike(query.trim());
-            case "accessions":
-                return sequenceRepository.findByAccessionsLike(query.trim());
-            case "sequences":
-                return sequenceRepository.findBySequenceLike(query.trim());
-            case "annotations":
-                return sequenceRepository.findByAnnotationsLike(query.trim());
-            case "interpros":
-                return sequenceRepository.findByInterprosLike(query.trim());
-            case "orgs":
-                return sequenceRepository.findByOrgsLike(query.trim());
-            default:
-                // 如果类别不匹配，返回空列表
-                return List.of();
+    private ResponseEntity<?> similar(String sequence, int top, Long excludeId) {
+        if (!SimilarityService.isSearchable(sequence)) {
+            return ResponseEntity.badRequest().body("Query sequence must contain at least 3 consecutive residues");
+        }
+        SimilarityResult result = similarityService.search(sequence,
+                Math.max(1, Math.min(top, SimilarityService.MAX_TOP)), excludeId);
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("K-mer index is not ready");
         }
+        return ResponseEntity.ok(result);
+    }
+
+    // 所有接受 query 参数的接口：查询语法错误时返回 400 和错误说明
+    @ExceptionHandler(MalformedQueryException.class)
+    public ResponseEntity<String> handleMalformedQuery(MalformedQueryException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    // 将请求的页大小限制在 [1, MAX_PAGE_SIZE] 范围内
+    private static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    // 导出选定序列为TSV格式
+    @PostMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportSequences(@RequestBody List<Long> ids) {
+        return sequenceExporter.export(SequencePageSource.ofIds(sequenceRepository, ids),
+                new TsvRowWriter(), "sequences_current.tsv");
+    }
+
+    // 导出选定序列为TXT格式
+    @PostMapping("/export-txt")
+    public ResponseEntity<StreamingResponseBody> exportSequencesTxt(@RequestBody List<Long> ids) {
+        return sequenceExporter.export(SequencePageSource.ofIds(sequenceRepository, ids),
+                new TxtRowWriter(), "sequences_current.txt");
+    }
+
+    // 导出所有序列（可选过滤）为TSV格式
+    @PostMapping("/export-all")
+    public ResponseEntity<StreamingResponseBody> exportAllSequences(@RequestBody FilterRequest filterRequest) {
+        return sequenceExporter.export(filteredSource(filterRequest.getQuery(), filterRequest.getCategory()),
+                new TsvRowWriter(), "sequences_all.tsv");
+    }
+
+    // 导出所有序列（可选过滤）为TXT格式
+    @PostMapping("/export-all-txt")
+    public ResponseEntity<StreamingResponseBody> exportAllSequencesTxt(@RequestBody FilterRequest filterRequest) {
+        return sequenceExporter.export(filteredSource(filterRequest.getQuery(), filterRequest.getCategory()),
+                new TxtRowWriter(), "sequences_all.txt");
+    }
+
+    // 辅助方法，根据过滤条件构造按页读取的数据源。
+    // 与 /search 共用缓存的完整 id 集合；未缓存时边导出边记录 id，导出完成后写入缓存
+    private SequencePageSource filteredSource(String query, String category) {
+        boolean emptyQuery = query == null || query.isEmpty();
+        // 空查询不区分类别，与 /search 的“全部类别”空查询结果相同
+        String cacheQuery = emptyQuery ? "" : query;
+        String cacheCategory = emptyQuery ? "" : category;
+        long[] ids = searchResultCache.getIds(cacheQuery, cacheCategory);
+        if (ids != null) {
+            return SequencePageSource.ofSortedIds(sequenceRepository, ids);
+        }
+        SequencePageSource source;
+        if (!emptyQuery) {
+            // 数据源在开始写出响应之后才执行查询，先解析一次，语法错误时还能返回 400
+            QueryParser.parse(query, category);
+            // 根据当前搜索类别和查询进行搜索
+            source = (lastId, limit) -> queryEngine.search(query, category, lastId, limit);
+        } else {
+            // 查询所有非空字段的记录
+            source = (lastId, limit) -> queryEngine.search("", "", lastId, limit);
+        }
+        return searchResultCache.recording(cacheQuery, cacheCategory, source);
+    }
+
+    // 搜索结果缓存的命中、淘汰等统计
+    @GetMapping("/cache/stats")
+    public CacheStats getCacheStats() {
+        return searchResultCache.stats();
     }
 
     // 导出选定序列为TSV或TXT格式的共用方法
     @PostMapping("/export-data")
-    public ResponseEntity<byte[]> exportData(@RequestBody ExportRequest exportRequest) {
-        List<Sequence> sequences;
+    public ResponseEntity<StreamingResponseBody> exportData(@RequestBody ExportRequest exportRequest) {
+        SequencePageSource source;
 
-        if (exportRequest.getType().equals("current")) {
+        if ("current".equals(exportRequest.getType())) {
             // 导出当前页数据
-            sequences = sequenceRepository.findAllById(exportRequest.getIds());
-        } else if (exportRequest.getType().equals("all")) {
+            source = SequencePageSource.ofIds(sequenceRepository,
+                    exportRequest.getIds() != null ? exportRequest.getIds() : List.of());
+        } else if ("all".equals(exportRequest.getType())) {
             // 导出所有匹配的数据
-            if (exportRequest.getQuery() != null && !exportRequest.getQuery().isEmpty()) {
-                sequences = searchWithCategory(exportRequest.getQuery(), exportRequest.getCategory());
-            } else {
-                sequences = sequenceRepository.findAllNonEmpty();
-            }
+            source = filteredSource(exportRequest.getQuery(), exportRequest.getCategory());
         } else {
             // 未定义的导出类型，返回错误
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
-        }
-
-        if (sequences.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
-        }
-
-        StringBuilder sb = new StringBuilder();
-        MediaType mediaType;
-        String filename;
-
-        if (exportRequest.getFormat().equals("txt")) {
-            // TXT 格式
-            sb.append("Exported Sequences:\n");
-            for (Sequence sequence : sequences) {
-                sb.append("ID: ").append(sequence.getId()).append("\n")
-                  .append("Index: ").append(sequence.getIndexNumber() != null ? sequence.getIndexNumber() : "N/A").append("\n")
-                  .append("Proteins: ").append(sequence.getProteins() != null ? sequence.getProteins() : "N/A").append("\n")
-                  .append("Accessions: ").append(sequence.getAccessions() != null ? sequence.getAccessions() : "N/A").append("\n")
-                  .append("Sequences: ").append(sequence.getSequence() != null ? sequence.getSequence() : "N/A").append("\n")
-                  .append("Annotations: ").append(sequence.getAnnotations() != null ? sequence.getAnnotations() : "N/A").append("\n")
-                  .append("Interpros: ").append(sequence.getInterpros() != null ? sequence.getInterpros() : "N/A").append("\n")
-                  .append("Orgs: ").append(sequence.getOrgs() != null ? sequence.getOrgs() : "N/A").append("\n")
-                  .append("----\n"); // 使用分隔符区分不同序列
-            }
-            mediaType = MediaType.TEXT_PLAIN;
-            filename = exportRequest.getType().equals("current") ? "sequences_current.txt" : "sequences_all.txt";
-        } else {
-            // TSV 格式
-            sb.append("ID\tIndex\tProteins\tAccessions\tSequences\tAnnotations\tInterpros\tOrgs\n");
-            for (Sequence sequence : sequences) {
-                sb.append(sequence.getId()).append("\t")
-                  .append(sequence.getIndexNumber() != null ? sequence.getIndexNumber() : "").append("\t")
-                  .append(sequence.getProteins() != null ? sequence.getProteins() : "").append("\t")
-                  .append(sequence.getAccessions() != null ? sequence.getAccessions() : "").append("\t")
-                  .append(sequence.getSequence() != null ? sequence.getSequence() : "").append("\t")
-                  .append(sequence.getAnnotations() != null ? sequence.getAnnotations() : "").append("\t")
-                  .append(sequence.getInterpros() != null ? sequence.getInterpros() : "").append("\t")
-                  .append(sequence.getOrgs() != null ? sequence.getOrgs() : "").append("\n");
-            }
-            mediaType = MediaType.TEXT_PLAIN;
-            filename = exportRequest.getType().equals("current") ? "sequences_current.tsv" : "sequences_all.tsv";
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
 
-        byte[] data = sb.toString().getBytes();
-
-        // 设置响应头，指定文件类型和下载文件名
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(mediaType);
-        headers.setContentDispositionFormData("attachment", filename);
-        headers.setContentLength(data.length);
-        return new ResponseEntity<>(data, headers, HttpStatus.OK);
+        String suffix = "txt".equals(exportRequest.getFormat()) ? ".txt" : ".tsv";
+        SequenceRowWriter rowWriter = "txt".equals(exportRequest.getFormat())
+                ? new TxtRowWriter("Exported Sequences:")
+                : new TsvRowWriter();
+        String filename = ("current".equals(exportRequest.getType()) ? "sequences_current" : "sequences_all") + suffix;
+        return sequenceExporter.export(source, rowWriter, filename);
     }
 
     // 接收过滤请求的内部类
@@ -402,6 +545,28 @@ public class SequenceController {
         }
     }
 
+    // 相似序列搜索请求的内部类
+    public static class SimilarRequest {
+        private String sequence;
+        private Integer top;
+
+        public String getSequence() {
+            return sequence;
+        }
+
+        public void setSequence(String sequence) {
+            this.sequence = sequence;
+        }
+
+        public Integer getTop() {
+            return top;
+        }
+
+        public void setTop(Integer top) {
+            this.top = top;
+        }
+    }
+
     // 导出请求的内部类
     public static class ExportRequest {
         private String type; // "current" 或 "all"
@@ -0,0 +1,65 @@
+package com.protein.data;
+
+// 64 位键的布隆过滤器。mightContain 为 false 时键一定不存在；为 true 时可能存在，误判率约为创建时给定的值。
+// 键先经过混合函数再派生 k 个位置（Kirsch-Mitzenmacher 双重哈希），所以 CRC 这类低位分布不均的键也可以直接使用。
+// 不是线程安全的，由调用方同步
+public class BloomFilter {
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private long size;
+
+    public BloomFilter(long capacity, double falsePositiveRate) {
+        this.capacity = Math.max(capacity, 1);
+        long m = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new long[(int) Math.min((m + 63) / 64, Integer.MAX_VALUE - 8)];
+        this.bitCount = (long) bits.length * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / this.capacity * Math.log(2)));
+    }
+
+    public void add(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+        size++;
+    }
+
+    public boolean mightContain(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 加入的键数超过容量后误判率会迅速上升，调用方应按更大的容量重建
+    public boolean isFull() {
+        return size > capacity;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    // MurmurHash3 的 64 位混合函数
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
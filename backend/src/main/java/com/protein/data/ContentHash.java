@@ -0,0 +1,57 @@
+package com.protein.data;
+
+// 记录内容的 64 位哈希，用于导入时识别重复记录。
+// 使用 UniProt / SwissProt 序列校验和所用的 CRC64（ISO 3309 多项式），依次计算残基序列、分隔符和登录号；
+// 只含残基部分时结果与 UniProt 的 CRC64 相同。CRC64 有已知的碰撞，哈希相同只说明可能重复，还要比较内容
+public final class ContentHash {
+    private static final long POLY64_REVERSED = 0xD800000000000000L;
+    private static final long[] TABLE = new long[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            long part = i;
+            for (int j = 0; j < 8; j++) {
+                part = (part & 1) != 0 ? (part >>> 1) ^ POLY64_REVERSED : part >>> 1;
+            }
+            TABLE[i] = part;
+        }
+    }
+
+    private ContentHash() {
+    }
+
+    public static long of(Sequence sequence) {
+        long crc = update(0L, sequence.getSequence());
+        crc = TABLE[(int) (crc & 0xFF)] ^ (crc >>> 8); // 分隔符 0，避免 "AB"+"C" 与 "A"+"BC" 相同
+        return update(crc, normalizeAccessions(sequence.getAccessions()));
+    }
+
+    // 判断两条记录的内容是否相同（与哈希使用同样的字段和规范化方式）
+    public static boolean sameContent(Sequence a, Sequence b) {
+        return nullToEmpty(a.getSequence()).equals(nullToEmpty(b.getSequence()))
+                && normalizeAccessions(a.getAccessions()).equals(normalizeAccessions(b.getAccessions()));
+    }
+
+    private static long update(long crc, String value) {
+        if (value == null) {
+            return crc;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            crc = TABLE[(int) ((crc ^ c) & 0xFF)] ^ (crc >>> 8);
+            if (c >= 0x80) {
+                crc = TABLE[(int) ((crc ^ (c >>> 8)) & 0xFF)] ^ (crc >>> 8);
+            }
+        }
+        return crc;
+    }
+
+    // 登录号只去掉首尾空白，大小写和顺序不同视为不同的记录
+    private static String normalizeAccessions(String accessions) {
+        return accessions != null ? accessions.trim() : "";
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,92 @@
+package com.protein.data;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// 数据源：SQLite 同一时刻只允许一个写入者，读写分开使用两个连接池。
+//   写连接池只有一个连接，使用 WAL 日志：写入（包括长时间的批量导入）不阻塞读取，读取也不阻塞写入；
+//   读连接池有多个只读连接，供搜索、分页和导出并发使用。
+// 默认数据源（JPA、JdbcTemplate 使用的）按当前事务路由：非只读事务中的语句使用写连接，
+// 只读事务和事务之外的语句使用读连接。需要直接写数据库的组件（导入、迁移）注入 WRITE_DATA_SOURCE。
+// 所有连接上都注册了 ResidueFunctions 中的函数
+@Configuration
+public class DataConfiguration {
+    public static final String WRITE_DATA_SOURCE = "writeDataSource";
+    public static final String READ_DATA_SOURCE = "readDataSource";
+
+    @Value("${protein.datasource.read-pool-size:0}")
+    private int readPoolSize;
+
+    @Value("${protein.datasource.busy-timeout-ms:5000}")
+    private int busyTimeoutMillis;
+
+    @Value("${protein.datasource.cache-size-kb:16384}")
+    private int cacheSizeKb;
+
+    @Value("${protein.datasource.mmap-size-mb:256}")
+    private long mmapSizeMb;
+
+    @Value("${protein.datasource.write-wait-seconds:600}")
+    private long writeWaitSeconds;
+
+    @Bean(name = WRITE_DATA_SOURCE)
+    public DataSource writeDataSource(DataSourceProperties properties) {
+        SQLiteConfig config = sqliteConfig();
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        HikariDataSource pool = pool("sqlite-write", properties, config);
+        pool.setMaximumPoolSize(1);
+        // 导入会话在整个导入期间占用写连接，其他写入等待它结束
+        pool.setConnectionTimeout(writeWaitSeconds * 1000);
+        return new ResidueFunctionsDataSource(pool);
+    }
+
+    @Bean(name = READ_DATA_SOURCE)
+    public DataSource readDataSource(DataSourceProperties properties) {
+        SQLiteConfig config = sqliteConfig();
+        config.setReadOnly(true);
+        HikariDataSource pool = pool("sqlite-read", properties, config);
+        // 未配置时与 CPU 核心数相同，至少 4 个
+        pool.setMaximumPoolSize(readPoolSize > 0 ? readPoolSize : Math.max(4, Runtime.getRuntime().availableProcessors()));
+        pool.setReadOnly(true);
+        return new ResidueFunctionsDataSource(pool);
+    }
+
+    // 按需取得物理连接：事务开始时还不知道是否只读，等第一条语句执行时再按事务属性选择连接池
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier(WRITE_DATA_SOURCE) DataSource writeDataSource,
+                                 @Qualifier(READ_DATA_SOURCE) DataSource readDataSource) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(writeDataSource, readDataSource));
+    }
+
+    // 两个连接池共用的连接设置：等待数据库锁的时间、每个连接的页缓存和内存映射大小
+    private SQLiteConfig sqliteConfig() {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setBusyTimeout(busyTimeoutMillis);
+        config.setCacheSize(-cacheSizeKb);
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, Long.toString(mmapSizeMb * 1024 * 1024));
+        return config;
+    }
+
+    // 连接池在第一次取得连接时才启动：数据库文件由写连接（迁移）创建之后，只读连接才能打开它
+    private static HikariDataSource pool(String name, DataSourceProperties properties, SQLiteConfig config) {
+        SQLiteDataSource sqlite = new SQLiteDataSource(config);
+        sqlite.setUrl(properties.determineUrl());
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setDataSource(sqlite);
+        return pool;
+    }
+}
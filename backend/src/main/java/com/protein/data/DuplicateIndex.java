@@ -0,0 +1,64 @@
+package com.protein.data;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// 已有记录内容哈希（sequence.content_hash）的布隆过滤器，导入时用来排除“肯定不重复”的记录：
+// 绝大多数新记录只需一次内存探测，只有过滤器判断可能重复的记录才到数据库中按哈希索引确认。
+// 过滤器在第一次需要去重时从数据库建立，之后每批提交的记录由写入监听器加入；已删除的记录不会移除，
+// 只会多一次数据库确认，不影响结果。
+@Component
+public class DuplicateIndex implements SequenceWriteListener {
+    private static final Logger log = LoggerFactory.getLogger(DuplicateIndex.class);
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_CAPACITY = 1 << 20;
+
+    private BloomFilter filter;
+
+    // 确保过滤器可用：还没有建立或已经装满时从数据库（重新）建立。connection 是调用方的导入连接
+    public synchronized void prepare(Connection connection) throws SQLException {
+        if (filter == null || filter.isFull()) {
+            long start = System.nanoTime();
+            try (Statement statement = connection.createStatement()) {
+                long count;
+                try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM sequence")) {
+                    count = resultSet.next() ? resultSet.getLong(1) : 0;
+                }
+                // 预留一倍的余量，导入一批同样大小的数据不需要重建
+                BloomFilter rebuilt = new BloomFilter(Math.max(count * 2, MIN_CAPACITY), FALSE_POSITIVE_RATE);
+                try (ResultSet resultSet = statement.executeQuery(
+                        "SELECT content_hash FROM sequence WHERE content_hash IS NOT NULL")) {
+                    while (resultSet.next()) {
+                        rebuilt.add(resultSet.getLong(1));
+                    }
+                }
+                filter = rebuilt;
+            }
+            log.info("Built duplicate filter for {} sequences (capacity {}) in {} ms",
+                    filter.getSize(), filter.getCapacity(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    // 过滤器还没有建立时保守地返回 true
+    public synchronized boolean mightContain(long hash) {
+        return filter == null || filter.mightContain(hash);
+    }
+
+    @Override
+    public synchronized void onBatchCommitted(List<Sequence> sequences) {
+        // 还没有建立时不需要维护，建立时会从数据库读取全部哈希
+        if (filter == null) {
+            return;
+        }
+        for (Sequence sequence : sequences) {
+            filter.add(ContentHash.of(sequence));
+        }
+    }
+}
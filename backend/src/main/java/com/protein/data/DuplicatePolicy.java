@@ -0,0 +1,26 @@
+package com.protein.data;
+
+// 导入时遇到重复记录（残基序列和登录号都相同）的处理方式
+public enum DuplicatePolicy {
+    NONE,    // 不检查，全部追加（原来的行为）
+    SKIP,    // 跳过重复的记录，保留已有的
+    REPLACE, // 用导入的记录覆盖已有记录的各个字段，id 不变
+    MERGE;   // 保留已有记录，把导入记录中新的注释和 InterPro 条目合并进去
+
+    // 按名称解析，忽略大小写，merge-annotations 等同于 merge；无法识别时返回 null
+    public static DuplicatePolicy parse(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.trim().toUpperCase().replace('-', '_');
+        if (normalized.equals("MERGE_ANNOTATIONS")) {
+            return MERGE;
+        }
+        for (DuplicatePolicy policy : values()) {
+            if (policy.name().equals(normalized)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+}
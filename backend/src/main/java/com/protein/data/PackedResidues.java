@@ -0,0 +1,166 @@
+package com.protein.data;
+
+import java.util.Locale;
+
+// 残基序列的压缩编码，保存在 sequence.residues 列（BLOB）中。
+// 第 1 个字节是格式标记：'0' + 格式 * 8 + 末尾填充的位数，格式 0 为蛋白质（每个残基 5 位），1 为核酸（每个碱基 2 位）；
+// 标记是 ASCII 字符，SQL 中用 unicode(residues) 即可取得，残基个数由长度和标记算出，不需要另外保存。
+// 之后是按高位在前连续排列的残基编码：蛋白质 A..Z、*、- 编码为 1..28（与 KmerIndex 的字母编码相同），核酸 A、C、G、T 编码为 0..3。
+// 只压缩全部由这些大写字符组成的序列，其他序列（含小写字母、数字等）仍以原文保存，保证读出的内容与导入的完全相同。
+public final class PackedResidues {
+    private static final String PROTEIN_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ*-";
+    private static final String NUCLEOTIDE_ALPHABET = "ACGT";
+    private static final int PROTEIN = 0;
+    private static final int NUCLEOTIDE = 1;
+    private static final int TAG_BASE = '0';
+
+    private PackedResidues() {
+    }
+
+    // 压缩 residues，无法压缩（空值或含有字母表以外的字符）时返回 null
+    public static byte[] pack(String residues) {
+        if (residues == null || residues.isEmpty()) {
+            return null;
+        }
+        int format = NUCLEOTIDE;
+        for (int i = 0; i < residues.length(); i++) {
+            char c = residues.charAt(i);
+            if (NUCLEOTIDE_ALPHABET.indexOf(c) < 0) {
+                if (encode(PROTEIN, c) < 0) {
+                    return null;
+                }
+                format = PROTEIN;
+            }
+        }
+        int bits = bitsPerResidue(format);
+        long totalBits = (long) residues.length() * bits;
+        int padding = (int) ((8 - totalBits % 8) % 8);
+        byte[] packed = new byte[1 + (int) ((totalBits + 7) / 8)];
+        packed[0] = (byte) (TAG_BASE + format * 8 + padding);
+        int position = 8;
+        for (int i = 0; i < residues.length(); i++) {
+            int code = encode(format, residues.charAt(i));
+            // 编码最多跨两个字节
+            int shift = 16 - (position & 7) - bits;
+            int index = position >>> 3;
+            packed[index] |= (byte) ((code << shift) >>> 8);
+            if (index + 1 < packed.length) {
+                packed[index + 1] |= (byte) (code << shift);
+            }
+            position += bits;
+        }
+        return packed;
+    }
+
+    public static String unpack(byte[] packed) {
+        int format = format(packed);
+        int bits = bitsPerResidue(format);
+        String alphabet = format == PROTEIN ? PROTEIN_ALPHABET : NUCLEOTIDE_ALPHABET;
+        int offset = format == PROTEIN ? 1 : 0;
+        char[] residues = new char[length(packed)];
+        for (int i = 0; i < residues.length; i++) {
+            residues[i] = alphabet.charAt(code(packed, bits, i) - offset);
+        }
+        return new String(residues);
+    }
+
+    // 残基个数
+    public static int length(byte[] packed) {
+        int padding = (packed[0] - TAG_BASE) & 7;
+        return ((packed.length - 1) * 8 - padding) / bitsPerResidue(format(packed));
+    }
+
+    // 在压缩的序列中查找 pattern（不区分大小写），返回第一次出现的位置（从 0 开始），没有时返回 -1。
+    // 直接比较编码，不解码整条序列：把最近的若干个残基编码移入一个 64 位的窗口，与 pattern 开头同样长度的编码比较，
+    // 窗口相等时再逐个比较 pattern 剩下的部分
+    public static int indexOf(byte[] packed, String pattern) {
+        int format = format(packed);
+        int bits = bitsPerResidue(format);
+        int length = length(packed);
+        int patternLength = pattern.length();
+        if (patternLength == 0) {
+            return 0;
+        }
+        if (patternLength > length) {
+            return -1;
+        }
+        int[] codes = new int[patternLength];
+        for (int i = 0; i < patternLength; i++) {
+            codes[i] = encode(format, Character.toUpperCase(pattern.charAt(i)));
+            if (codes[i] < 0) {
+                return -1;
+            }
+        }
+        int window = Math.min(patternLength, 64 / bits);
+        long mask = window * bits == 64 ? -1L : (1L << (window * bits)) - 1;
+        long target = 0;
+        for (int i = 0; i < window; i++) {
+            target = (target << bits) | codes[i];
+        }
+        long current = 0;
+        for (int i = 0; i <= length - patternLength + window - 1; i++) {
+            current = ((current << bits) | code(packed, bits, i)) & mask;
+            int start = i - window + 1;
+            if (start >= 0 && current == target && matchesFrom(packed, bits, codes, start, window)) {
+                return start;
+            }
+        }
+        return -1;
+    }
+
+    // 压缩的序列是否以 pattern 开头（不区分大小写），只比较开头的编码
+    public static boolean startsWith(byte[] packed, String pattern) {
+        int format = format(packed);
+        int bits = bitsPerResidue(format);
+        if (pattern.length() > length(packed)) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length(); i++) {
+            if (code(packed, bits, i) != encode(format, Character.toUpperCase(pattern.charAt(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 按大写压缩查询中的序列，结果可以直接与 residues 列比较是否相等（同样的内容总是得到同样的编码）；无法压缩时返回 null
+    public static byte[] packIgnoreCase(String residues) {
+        return residues != null ? pack(residues.toUpperCase(Locale.ROOT)) : null;
+    }
+
+    private static boolean matchesFrom(byte[] packed, int bits, int[] codes, int start, int from) {
+        for (int i = from; i < codes.length; i++) {
+            if (code(packed, bits, start + i) != codes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 第 index 个残基的编码
+    private static int code(byte[] packed, int bits, int index) {
+        int position = 8 + index * bits;
+        int byteIndex = position >>> 3;
+        int value = (packed[byteIndex] & 0xFF) << 8;
+        if (byteIndex + 1 < packed.length) {
+            value |= packed[byteIndex + 1] & 0xFF;
+        }
+        return (value >>> (16 - (position & 7) - bits)) & ((1 << bits) - 1);
+    }
+
+    private static int encode(int format, char c) {
+        if (format == NUCLEOTIDE) {
+            return NUCLEOTIDE_ALPHABET.indexOf(c);
+        }
+        int index = PROTEIN_ALPHABET.indexOf(c);
+        return index >= 0 ? index + 1 : -1;
+    }
+
+    private static int format(byte[] packed) {
+        return ((packed[0] - TAG_BASE) >> 3) & 1;
+    }
+
+    private static int bitsPerResidue(int format) {
+        return format == PROTEIN ? 5 : 2;
+    }
+}
@@ -0,0 +1,27 @@
+package com.protein.data;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// 按当前事务选择连接池：非只读事务使用写连接池，只读事务和事务之外使用读连接池。
+// 需要配合 LazyConnectionDataSourceProxy 使用，事务的只读属性在事务开始之后才能读到
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    private static final String WRITE = "write";
+    private static final String READ = "read";
+
+    public ReadWriteRoutingDataSource(DataSource writeDataSource, DataSource readDataSource) {
+        setTargetDataSources(Map.of(WRITE, writeDataSource, READ, readDataSource));
+        setDefaultTargetDataSource(readDataSource);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? WRITE : READ;
+    }
+}
@@ -0,0 +1,46 @@
+package com.protein.data;
+
+import java.sql.SQLException;
+
+import org.sqlite.Function;
+import org.sqlite.SQLiteConnection;
+
+// 处理压缩序列（sequence.residues，见 PackedResidues）的 SQL 函数：
+//   residues_find(residues, pattern) 与 instr 相同，返回 pattern 第一次出现的位置（从 1 开始，不区分大小写），
+//   没有出现或 residues 为 NULL 时返回 0；
+//   residues_starts_with(residues, pattern) 在序列以 pattern 开头时返回 1，否则返回 0，只比较开头的残基。
+// 查找直接在压缩的编码上进行，不解码整条序列。
+// 应用定义的函数只对注册过的连接有效，由 ResidueFunctionsDataSource 在每个物理连接第一次取出时注册
+public final class ResidueFunctions {
+    private ResidueFunctions() {
+    }
+
+    // 只能注册在底层的 SQLiteConnection 上，不能是连接池的代理连接
+    public static void register(SQLiteConnection connection) throws SQLException {
+        Function.create(connection, "residues_find", new Find(), 2, Function.FLAG_DETERMINISTIC);
+        Function.create(connection, "residues_starts_with", new StartsWith(), 2, Function.FLAG_DETERMINISTIC);
+    }
+
+    private static class Find extends Function {
+        @Override
+        protected void xFunc() throws SQLException {
+            byte[] packed = value_blob(0);
+            String pattern = value_text(1);
+            if (packed == null || packed.length == 0 || pattern == null) {
+                result(0);
+                return;
+            }
+            result(PackedResidues.indexOf(packed, pattern) + 1);
+        }
+    }
+
+    private static class StartsWith extends Function {
+        @Override
+        protected void xFunc() throws SQLException {
+            byte[] packed = value_blob(0);
+            String pattern = value_text(1);
+            result(packed != null && packed.length > 0 && pattern != null
+                    && PackedResidues.startsWith(packed, pattern) ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.protein.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.sqlite.SQLiteConnection;
+
+// 包装连接池，保证取出的每个连接上都注册了 ResidueFunctions 中的函数。
+// 连接池复用物理连接，按底层的 SQLiteConnection 记录已经注册过的连接，同一个连接只注册一次
+public class ResidueFunctionsDataSource extends DelegatingDataSource implements Closeable {
+    private final Set<SQLiteConnection> registered = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+    public ResidueFunctionsDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return prepare(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return prepare(super.getConnection(username, password));
+    }
+
+    // 关闭应用时一并关闭底层的连接池（HikariDataSource 实现了 Closeable）
+    @Override
+    public void close() throws IOException {
+        if (getTargetDataSource() instanceof Closeable) {
+            ((Closeable) getTargetDataSource()).close();
+        }
+    }
+
+    private Connection prepare(Connection connection) throws SQLException {
+        try {
+            SQLiteConnection sqliteConnection = connection.unwrap(SQLiteConnection.class);
+            if (registered.add(sqliteConnection)) {
+                ResidueFunctions.register(sqliteConnection);
+            }
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.protein.data;
 
 import javax.persistence.*;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.List;
-import java.util.Arrays;
 import java.util.stream.Collectors;
 
 @Entity
@@ -17,9 +19,12 @@ public class Sequence {
     @Column(length = 1000)
     private String accessions; // 存储为分号分隔的字符串
 
-    @Column(length = 5000)
+    // 以原文保存的残基序列；压缩保存时为 null，内容在 residues 中。SQLite 不限制长度
     private String sequence;
 
+    // 压缩保存的残基序列（见 PackedResidues），getSequence 每次调用时解码，不在对象中保留解码后的字符串
+    private byte[] residues;
+
     @Column(length = 5000)
     private String annotations; // 存储为逗号分隔的字符串
 
@@ -28,6 +33,20 @@ public class Sequence {
 
     private Integer orgs;
 
+    // 列表形式的缓存，对应字段被重新赋值（或由 Hibernate 直接写入字段）后重新拆分
+    @Transient
+    private List<String> accessionsList;
+    @Transient
+    private String accessionsListSource;
+    @Transient
+    private List<String> annotationsList;
+    @Transient
+    private String annotationsListSource;
+    @Transient
+    private List<String> interprosList;
+    @Transient
+    private String interprosListSource;
+
     // 标准的 Getter 和 Setter 方法
 
     public Long getId() {
@@ -63,11 +82,22 @@ public class Sequence {
     }
 
     public String getSequence() {
-        return sequence;
+        return sequence == null && residues != null ? PackedResidues.unpack(residues) : sequence;
     }
 
     public void setSequence(String sequence) {
         this.sequence = sequence;
+        this.residues = null;
+    }
+
+    @JsonIgnore
+    public byte[] getResidues() {
+        return residues;
+    }
+
+    public void setResidues(byte[] residues) {
+        this.residues = residues;
+        this.sequence = null;
     }
 
     public String getAnnotations() {
@@ -97,10 +127,11 @@ public class Sequence {
     // 基于列表的 Getter 和 Setter 方法
 
     public List<String> getAccessionsList() {
-        if (this.accessions != null && !this.accessions.isEmpty()) {
-            return Arrays.asList(this.accessions.split(";\\s*"));
+        if (this.accessions != this.accessionsListSource) {
+            this.accessionsList = SequenceTerms.split(this.accessions, ';');
+            this.accessionsListSource = this.accessions;
         }
-        return null;
+        return this.accessionsList;
     }
 
     public void setAccessionsList(List<String> accessionsList) {
@@ -112,10 +143,11 @@ public class Sequence {
     }
 
     public List<String> getAnnotationsList() {
-        if (this.annotations != null && !this.annotations.isEmpty()) {
-            return Arrays.asList(this.annotations.split(",\\s*"));
+        if (this.annotations != this.annotationsListSource) {
+            this.annotationsList = SequenceTerms.split(this.annotations, ',');
+            this.annotationsListSource = this.annotations;
         }
-        return null;
+        return this.annotationsList;
     }
 
     public void setAnnotationsList(List<String> annotationsList) {
@@ -127,10 +159,11 @@ public class Sequence {
     }
 
     public List<String> getInterprosList() {
-        if (this.interpros != null && !this.interpros.isEmpty()) {
-            return Arrays.asList(this.interpros.split(",\\s*"));
+        if (this.interpros != this.interprosListSource) {
+            this.interprosList = SequenceTerms.split(this.interpros, ',');
+            this.interprosListSource = this.interpros;
         }
-        return null;
+        return this.interprosList;
     }
 
     public void setInterprosList(List<String> interprosList) {
@@ -0,0 +1,436 @@
+package com.protein.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.protein.metrics.Histogram;
+import com.protein.metrics.MetricsRegistry;
+
+// 批量导入序列的 JDBC 写入器。
+// Sequence.id 使用 IDENTITY 主键，Hibernate 无法对插入做批处理，saveAll 会逐行 INSERT 并把所有实体留在一级缓存中。
+// 这里直接用 PreparedStatement 批处理，每 batchSize 行提交一次事务，提交后不再持有任何已写入的实体。
+@Component
+public class SequenceBulkWriter {
+    private static final String INSERT_SQL =
+            "INSERT INTO sequence (index_number, proteins, accessions, sequence, annotations, interpros, orgs, content_hash, " +
+            "residues) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // 带 id 的记录（例如导出后再导入的 TXT）按 id 覆盖已有记录。
+    // 用 ON CONFLICT DO UPDATE 而不是 INSERT OR REPLACE：REPLACE 删除旧行时不触发 DELETE 触发器，全文索引会残留旧内容
+    private static final String UPSERT_SQL =
+            "INSERT INTO sequence (id, index_number, proteins, accessions, sequence, annotations, interpros, orgs, content_hash, " +
+            "residues) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT(id) DO UPDATE SET " +
+            "index_number = excluded.index_number, proteins = excluded.proteins, accessions = excluded.accessions, " +
+            "sequence = excluded.sequence, annotations = excluded.annotations, interpros = excluded.interpros, " +
+            "orgs = excluded.orgs, content_hash = excluded.content_hash, residues = excluded.residues";
+    // 多值字段的词条写入 sequence_term 表（见 SequenceTerms），覆盖已有记录时先删除旧词条
+    private static final String TERM_INSERT_SQL =
+            "INSERT OR IGNORE INTO sequence_term (field, term, sequence_id) VALUES (?, ?, ?)";
+    private static final String TERM_DELETE_SQL = "DELETE FROM sequence_term WHERE sequence_id = ?";
+    // 按内容哈希查找已有记录时，每条 SQL 中的哈希个数
+    private static final int HASH_LOOKUP_CHUNK_SIZE = 500;
+
+    // 导入会话在整个导入期间独占唯一的写连接
+    @Autowired
+    @Qualifier(DataConfiguration.WRITE_DATA_SOURCE)
+    private DataSource dataSource;
+
+    @Autowired(required = false)
+    private List<SequenceWriteListener> listeners = List.of();
+
+    @Autowired
+    private DuplicateIndex duplicateIndex;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Value("${protein.ingest.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${protein.ingest.cache-size-kb:65536}")
+    private int cacheSizeKb;
+
+    // 是否压缩保存残基序列，见 PackedResidues
+    @Value("${protein.storage.pack-residues:false}")
+    private boolean packResidues;
+
+    // 打开一个导入会话，调用方负责关闭
+    public Session openSession() throws SQLException {
+        return openSession(DuplicatePolicy.NONE);
+    }
+
+    // 打开一个按 duplicatePolicy 处理重复记录的导入会话
+    public Session openSession(DuplicatePolicy duplicatePolicy) throws SQLException {
+        return new Session(dataSource.getConnection(), batchSize, cacheSizeKb, packResidues, listeners,
+                duplicatePolicy, duplicateIndex,
+                metricsRegistry.histogram("protein_ingest_write_batch_seconds",
+                        "Time to write and commit one ingest batch, including duplicate checks and term rows",
+                        Histogram.SECONDS),
+                metricsRegistry.histogram("protein_ingest_write_batch_rows", "Rows committed per ingest batch",
+                        Histogram.COUNTS));
+    }
+
+    // 一次导入会话，独占一个连接，关闭时提交剩余的行并恢复连接设置。
+    // 没有 id 的记录按 duplicatePolicy 去重：同一批内的重复用内存中的哈希表识别，与已有记录的重复先查
+    // DuplicateIndex 的布隆过滤器，只有可能重复的记录才按 content_hash 索引到数据库中确认，每批一次查询
+    public static class Session implements AutoCloseable {
+        private final Connection connection;
+        private final int batchSize;
+        private final boolean packResidues;
+        private final List<SequenceWriteListener> listeners;
+        private final DuplicatePolicy duplicatePolicy;
+        private final DuplicateIndex duplicateIndex;
+        private final Histogram batchSeconds;
+        private final Histogram batchRows;
+        // 当前批次的记录，只在提交前保留，用于回填 id 并通知监听器
+        private final List<Sequence> pendingInserts = new ArrayList<>();
+        private final List<Sequence> pendingUpserts = new ArrayList<>();
+        private final String previousCacheSize;
+        private final PreparedStatement insert;
+        private final PreparedStatement upsert;
+        private final PreparedStatement termInsert;
+        private final PreparedStatement termDelete;
+        private final long startNanos = System.nanoTime();
+        private int pendingRows;
+        private long rowsWritten;
+        private long duplicatesSkipped;
+        private long duplicatesReplaced;
+        private long duplicatesMerged;
+        private boolean failed;
+
+        private Session(Connection connection, int batchSize, int cacheSizeKb, boolean packResidues,
+                        List<SequenceWriteListener> listeners, DuplicatePolicy duplicatePolicy,
+                        DuplicateIndex duplicateIndex, Histogram batchSeconds, Histogram batchRows) throws SQLException {
+            this.connection = connection;
+            this.batchSize = batchSize;
+            this.packResidues = packResidues;
+            this.listeners = listeners;
+            this.duplicatePolicy = duplicatePolicy;
+            this.duplicateIndex = duplicateIndex;
+            this.batchSeconds = batchSeconds;
+            this.batchRows = batchRows;
+            try {
+                previousCacheSize = queryPragma("cache_size");
+                // 写连接已经是 WAL 日志和 NORMAL 同步级别（见 DataConfiguration），导入期间再加大页缓存
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA cache_size=-" + cacheSizeKb);
+                }
+                connection.setAutoCommit(false);
+                insert = connection.prepareStatement(INSERT_SQL);
+                upsert = connection.prepareStatement(UPSERT_SQL);
+                termInsert = connection.prepareStatement(TERM_INSERT_SQL);
+                termDelete = connection.prepareStatement(TERM_DELETE_SQL);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        public void add(Sequence sequence) throws SQLException {
+            if (sequence.getId() == null) {
+                pendingInserts.add(sequence);
+            } else {
+                pendingUpserts.add(sequence);
+            }
+            if (++pendingRows >= batchSize) {
+                flush();
+            }
+        }
+
+        // 执行当前批次并提交事务
+        public void flush() throws SQLException {
+            if (pendingRows == 0) {
+                return;
+            }
+            long start = System.nanoTime();
+            List<Sequence> committed = new ArrayList<>(pendingRows);
+            try {
+                if (duplicatePolicy != DuplicatePolicy.NONE && !pendingInserts.isEmpty()) {
+                    resolveDuplicates();
+                }
+                if (!pendingInserts.isEmpty()) {
+                    for (Sequence sequence : pendingInserts) {
+                        bindColumns(insert, 1, sequence);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    assignInsertedIds();
+                    committed.addAll(pendingInserts);
+                }
+                if (!pendingUpserts.isEmpty()) {
+                    for (Sequence sequence : pendingUpserts) {
+                        upsert.setLong(1, sequence.getId());
+                        bindColumns(upsert, 2, sequence);
+                        upsert.addBatch();
+                    }
+                    upsert.executeBatch();
+                    committed.addAll(pendingUpserts);
+                    for (Sequence sequence : pendingUpserts) {
+                        termDelete.setLong(1, sequence.getId());
+                        termDelete.addBatch();
+                    }
+                    termDelete.executeBatch();
+                }
+                for (Sequence sequence : committed) {
+                    addTerms(sequence);
+                }
+                termInsert.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                failed = true;
+                connection.rollback();
+                throw e;
+            } finally {
+                pendingInserts.clear();
+                pendingUpserts.clear();
+            }
+            rowsWritten += committed.size();
+            pendingRows = 0;
+            batchSeconds.observeNanos(System.nanoTime() - start);
+            batchRows.observe(committed.size());
+            // 整批都是被跳过的重复记录时没有写入任何数据，不通知监听器（避免无谓地清空搜索缓存）
+            if (committed.isEmpty()) {
+                return;
+            }
+            for (SequenceWriteListener listener : listeners) {
+                listener.onBatchCommitted(committed);
+            }
+        }
+
+        // 回填刚插入的记录的 id。写入者独占数据库写锁，同一批插入得到的 rowid 是连续的 max(id)+1, max(id)+2, ...，
+        // 所以由最后一个 rowid 倒推即可
+        private void assignInsertedIds() throws SQLException {
+            long lastId;
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT last_insert_rowid()")) {
+                resultSet.next();
+                lastId = resultSet.getLong(1);
+            }
+            long id = lastId - pendingInserts.size() + 1;
+            for (Sequence sequence : pendingInserts) {
+                sequence.setId(id++);
+            }
+        }
+
+        private void addTerms(Sequence sequence) throws SQLException {
+            for (SequenceTerms.Field field : SequenceTerms.Field.values()) {
+                for (String term : SequenceTerms.terms(field.valueOf(sequence), field)) {
+                    termInsert.setInt(1, field.getCode());
+                    termInsert.setString(2, term);
+                    termInsert.setLong(3, sequence.getId());
+                    termInsert.addBatch();
+                }
+            }
+        }
+
+        // 处理本批中没有 id 的记录里的重复：跳过的记录从批中移除，覆盖和合并的记录带上已有的 id 改为按 id 更新
+        private void resolveDuplicates() throws SQLException {
+            duplicateIndex.prepare(connection);
+            // 同一批内的重复：后出现的记录按策略并入先出现的那条
+            Map<Long, List<Sequence>> batchByHash = new HashMap<>();
+            List<Sequence> unique = new ArrayList<>(pendingInserts.size());
+            List<Long> uniqueHashes = new ArrayList<>(pendingInserts.size());
+            for (Sequence sequence : pendingInserts) {
+                long hash = ContentHash.of(sequence);
+                List<Sequence> sameHash = batchByHash.computeIfAbsent(hash, key -> new ArrayList<>(1));
+                Sequence earlier = findSameContent(sameHash, sequence);
+                if (earlier == null) {
+                    sameHash.add(sequence);
+                    unique.add(sequence);
+                    uniqueHashes.add(hash);
+                } else {
+                    applyPolicy(earlier, sequence);
+                }
+            }
+
+            // 与已有记录重复：布隆过滤器排除肯定不重复的，其余按哈希一次查出
+            List<Long> candidates = new ArrayList<>();
+            for (Long hash : uniqueHashes) {
+                if (duplicateIndex.mightContain(hash)) {
+                    candidates.add(hash);
+                }
+            }
+            Map<Long, List<Sequence>> existingByHash = findByContentHash(candidates);
+            pendingInserts.clear();
+            for (int i = 0; i < unique.size(); i++) {
+                Sequence sequence = unique.get(i);
+                Sequence existing = findSameContent(existingByHash.get(uniqueHashes.get(i)), sequence);
+                if (existing == null) {
+                    pendingInserts.add(sequence);
+                } else if (duplicatePolicy == DuplicatePolicy.REPLACE) {
+                    sequence.setId(existing.getId());
+                    pendingUpserts.add(sequence);
+                    duplicatesReplaced++;
+                } else if (duplicatePolicy == DuplicatePolicy.MERGE) {
+                    // 没有新的词条时已有记录不变，不需要写入
+                    if (mergeInto(existing, sequence)) {
+                        pendingUpserts.add(existing);
+                    }
+                    duplicatesMerged++;
+                } else {
+                    duplicatesSkipped++;
+                }
+            }
+        }
+
+        // 本批中 duplicate 与 kept 重复，kept 仍然留在批中
+        private void applyPolicy(Sequence kept, Sequence duplicate) {
+            if (duplicatePolicy == DuplicatePolicy.REPLACE) {
+                // 序列和登录号相同，其余字段以后出现的为准
+                kept.setIndexNumber(duplicate.getIndexNumber());
+                kept.setProteins(duplicate.getProteins());
+                kept.setAnnotations(duplicate.getAnnotations());
+                kept.setInterpros(duplicate.getInterpros());
+                kept.setOrgs(duplicate.getOrgs());
+                duplicatesReplaced++;
+            } else if (duplicatePolicy == DuplicatePolicy.MERGE) {
+                mergeInto(kept, duplicate);
+                duplicatesMerged++;
+            } else {
+                duplicatesSkipped++;
+            }
+        }
+
+        // 把 source 中新的注释和 InterPro 条目合并到 target，返回 target 是否有变化
+        private static boolean mergeInto(Sequence target, Sequence source) {
+            String annotations = SequenceTerms.merge(target.getAnnotations(), source.getAnnotations(),
+                    SequenceTerms.Field.ANNOTATIONS);
+            String interpros = SequenceTerms.merge(target.getInterpros(), source.getInterpros(),
+                    SequenceTerms.Field.INTERPROS);
+            boolean changed = !equal(annotations, target.getAnnotations()) || !equal(interpros, target.getInterpros());
+            target.setAnnotations(annotations);
+            target.setInterpros(interpros);
+            return changed;
+        }
+
+        // 哈希相同的记录中内容也相同的第一条（id 最小），没有时返回 null
+        private static Sequence findSameContent(List<Sequence> candidates, Sequence sequence) {
+            if (candidates != null) {
+                for (Sequence candidate : candidates) {
+                    if (ContentHash.sameContent(candidate, sequence)) {
+                        return candidate;
+                    }
+                }
+            }
+            return null;
+        }
+
+        // 按 content_hash 查找已有记录，结果按哈希分组、组内按 id 升序
+        private Map<Long, List<Sequence>> findByContentHash(List<Long> hashes) throws SQLException {
+            Map<Long, List<Sequence>> result = new HashMap<>();
+            for (int start = 0; start < hashes.size(); start += HASH_LOOKUP_CHUNK_SIZE) {
+                StringJoiner in = new StringJoiner(", ", "(", ")");
+                for (Long hash : hashes.subList(start, Math.min(start + HASH_LOOKUP_CHUNK_SIZE, hashes.size()))) {
+                    in.add(hash.toString());
+                }
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery("SELECT " + SequenceRowMapper.COLUMNS +
+                             ", s.content_hash FROM sequence s WHERE s.content_hash IN " + in + " ORDER BY s.id")) {
+                    int row = 0;
+                    while (resultSet.next()) {
+                        Sequence sequence = SequenceRowMapper.INSTANCE.mapRow(resultSet, row++);
+                        result.computeIfAbsent(resultSet.getLong(SequenceRowMapper.COLUMN_COUNT + 1), key -> new ArrayList<>(1)).add(sequence);
+                    }
+                }
+            }
+            return result;
+        }
+
+        public long getRowsWritten() {
+            return rowsWritten;
+        }
+
+        public long getDuplicatesSkipped() {
+            return duplicatesSkipped;
+        }
+
+        public long getDuplicatesReplaced() {
+            return duplicatesReplaced;
+        }
+
+        public long getDuplicatesMerged() {
+            return duplicatesMerged;
+        }
+
+        public long getElapsedMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        public double getRowsPerSecond() {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            return elapsedNanos > 0 ? rowsWritten * 1_000_000_000.0 / elapsedNanos : 0.0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (!failed) {
+                    flush();
+                }
+            } finally {
+                try {
+                    insert.close();
+                    upsert.close();
+                    termInsert.close();
+                    termDelete.close();
+                    connection.setAutoCommit(true);
+                    // 连接会回到连接池，恢复原来的缓存大小
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("PRAGMA cache_size=" + previousCacheSize);
+                    }
+                } finally {
+                    connection.close();
+                }
+            }
+        }
+
+        private String queryPragma(String name) throws SQLException {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("PRAGMA " + name)) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+
+        private void bindColumns(PreparedStatement statement, int offset, Sequence sequence) throws SQLException {
+            String residues = sequence.getSequence();
+            // 无法压缩的序列（含有字母表以外的字符）仍以原文保存
+            byte[] packed = packResidues ? PackedResidues.pack(residues) : null;
+            setInteger(statement, offset, sequence.getIndexNumber());
+            statement.setString(offset + 1, sequence.getProteins());
+            statement.setString(offset + 2, sequence.getAccessions());
+            statement.setString(offset + 3, packed == null ? residues : null);
+            statement.setString(offset + 4, sequence.getAnnotations());
+            statement.setString(offset + 5, sequence.getInterpros());
+            setInteger(statement, offset + 6, sequence.getOrgs());
+            statement.setLong(offset + 7, ContentHash.of(sequence));
+            statement.setBytes(offset + 8, packed);
+        }
+
+        private static boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+
+        private static void setInteger(PreparedStatement statement, int index, Integer value) throws SQLException {
+            if (value != null) {
+                statement.setInt(index, value);
+            } else {
+                statement.setNull(index, Types.INTEGER);
+            }
+        }
+    }
+}
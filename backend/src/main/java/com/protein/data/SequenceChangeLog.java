@@ -0,0 +1,127 @@
+package com.protein.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// sequence_change 表（由迁移 8、9 的触发器填写）：改写、删除和插入到中间的 id，按自增的 seq 排列。
+// 在磁盘上保存派生数据的组件（k-mer 索引、列式存储）各自记录已经反映到文件中的 seq，启动时和定期按 seq 重放之后的改动。
+// 这些组件在初始化时调用 register，每次保存后调用 saved；所有注册的组件都保存过之后，删除它们共同不再需要的行。
+// 读取使用默认数据源（读连接），删除需要写连接，在单独的线程中执行，导入占用写连接时不阻塞调用方
+@Component
+public class SequenceChangeLog {
+    private static final Logger log = LoggerFactory.getLogger(SequenceChangeLog.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Qualifier(DataConfiguration.WRITE_DATA_SOURCE)
+    private DataSource writeDataSource;
+
+    // 各组件最近一次保存到文件中的 seq，尚未保存过的为 -1
+    private final Map<String, Long> savedSequences = new ConcurrentHashMap<>();
+    private final AtomicBoolean pruneQueued = new AtomicBoolean();
+    private volatile long prunedSequence;
+
+    private final ExecutorService pruner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sequence-change-prune");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void stop() {
+        pruner.shutdownNow();
+    }
+
+    // 声明 consumer 会读取改动记录，在它第一次调用 saved 之前不删除任何行。应在 bean 初始化时调用
+    public void register(String consumer) {
+        savedSequences.putIfAbsent(consumer, -1L);
+    }
+
+    // 已提交的最大 seq，从数据库重建派生数据时以此作为起点
+    public long lastSequence() {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM sequence_change", Long.class);
+        return max != null ? max : 0L;
+    }
+
+    // seq 大于 afterSequence 的至多 limit 条改动，没有时返回 null。residuesOnly 为 true 时只返回残基序列改变的 id，
+    // 但 lastSequence 仍然是读到的最后一条的 seq，其他改动也算作已处理
+    public Changes read(long afterSequence, int limit, boolean residuesOnly) {
+        long[] last = {afterSequence};
+        List<Long> ids = new ArrayList<>();
+        jdbcTemplate.query("SELECT seq, sequence_id, residues_changed FROM sequence_change WHERE seq > ? "
+                + "ORDER BY seq LIMIT ?", resultSet -> {
+            last[0] = resultSet.getLong(1);
+            if (!residuesOnly || resultSet.getBoolean(3)) {
+                ids.add(resultSet.getLong(2));
+            }
+        }, afterSequence, limit);
+        if (last[0] == afterSequence) {
+            return null;
+        }
+        return new Changes(ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray(), last[0]);
+    }
+
+    // consumer 已经把 seq 不大于 sequence 的改动保存到文件中
+    public void saved(String consumer, long sequence) {
+        savedSequences.merge(consumer, sequence, Math::max);
+        long prunable = prunableSequence();
+        if (prunable > prunedSequence && pruneQueued.compareAndSet(false, true)) {
+            pruner.execute(this::prune);
+        }
+    }
+
+    private long prunableSequence() {
+        return savedSequences.values().stream().mapToLong(Long::longValue).min().orElse(-1L);
+    }
+
+    private void prune() {
+        pruneQueued.set(false);
+        long prunable = prunableSequence();
+        if (prunable <= prunedSequence) {
+            return;
+        }
+        try {
+            new JdbcTemplate(writeDataSource).update("DELETE FROM sequence_change WHERE seq <= ?", prunable);
+            prunedSequence = prunable;
+        } catch (DataAccessException e) {
+            log.warn("Failed to prune sequence_change up to seq {}", prunable, e);
+        }
+    }
+
+    // 一批改动：去重后升序的 id，以及其中最大的 seq
+    public static final class Changes {
+        private final long[] ids;
+        private final long lastSequence;
+
+        Changes(long[] ids, long lastSequence) {
+            this.ids = ids;
+            this.lastSequence = lastSequence;
+        }
+
+        public long[] getIds() {
+            return ids;
+        }
+
+        public long getLastSequence() {
+            return lastSequence;
+        }
+    }
+}
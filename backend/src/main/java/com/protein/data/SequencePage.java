@@ -0,0 +1,71 @@
+package com.protein.data;
+
+import java.util.List;
+
+// 键集分页的一页结果
+public class SequencePage {
+    private List<Sequence> content;
+    private String nextPageToken; // 下一页的游标，为 null 表示已经是最后一页
+    private Long approximateTotal; // 近似总数，可能为 null（未计算）
+
+    public SequencePage() {
+    }
+
+    public SequencePage(List<Sequence> content, String nextPageToken, Long approximateTotal) {
+        this.content = content;
+        this.nextPageToken = nextPageToken;
+        this.approximateTotal = approximateTotal;
+    }
+
+    // 根据查询到的数据构造分页结果。调用方应多查一行（pageSize + 1），
+    // 多出的那一行只用来判断是否还有下一页，不返回给客户端
+    public static SequencePage of(List<Sequence> rows, int pageSize, Long approximateTotal) {
+        if (rows.size() <= pageSize) {
+            return new SequencePage(rows, null, approximateTotal);
+        }
+        List<Sequence> content = rows.subList(0, pageSize);
+        String nextPageToken = encodeToken(content.get(pageSize - 1).getId());
+        return new SequencePage(content, nextPageToken, approximateTotal);
+    }
+
+    // 游标就是上一页最后一行的 id，客户端应把它当作不透明字符串原样传回
+    public static String encodeToken(Long lastId) {
+        return Long.toString(lastId);
+    }
+
+    // 解析游标，空游标表示第一页
+    public static long decodeToken(String pageToken) {
+        if (pageToken == null || pageToken.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(pageToken);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page token: " + pageToken);
+        }
+    }
+
+    public List<Sequence> getContent() {
+        return content;
+    }
+
+    public void setContent(List<Sequence> content) {
+        this.content = content;
+    }
+
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public void setNextPageToken(String nextPageToken) {
+        this.nextPageToken = nextPageToken;
+    }
+
+    public Long getApproximateTotal() {
+        return approximateTotal;
+    }
+
+    public void setApproximateTotal(Long approximateTotal) {
+        this.approximateTotal = approximateTotal;
+    }
+}
@@ -1,5 +1,6 @@
 package com.protein.data;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -18,79 +19,10 @@ public interface SequenceRepository extends JpaRepository<Sequence, Long> {
     List<Sequence> findByOrgsContaining(String orgs);
     List<Sequence> findByIndexNumberContaining(String indexNumber); // 假设IndexNumber为字符串类型
 
-    // 复合搜索方法，用于同时搜索多个字段（非空输入）
-    @Query("SELECT s FROM Sequence s WHERE " +
-           "s.id LIKE CONCAT('%', :query, '%') OR " +
-           "s.indexNumber LIKE CONCAT('%', :query, '%') OR " +
-           "s.proteins LIKE CONCAT('%', :query, '%') OR " +
-           "s.accessions LIKE CONCAT('%', :query, '%') OR " +
-           "s.sequence LIKE CONCAT('%', :query, '%') OR " +
-           "s.annotations LIKE CONCAT('%', :query, '%') OR " +
-           "s.interpros LIKE CONCAT('%', :query, '%') OR " +
-           "s.orgs LIKE CONCAT('%', :query, '%')")
-    List<Sequence> searchInAllCategories(@Param("query") String query);
-
-    // 方法用于搜索所有非空字段（空输入）
-    @Query("SELECT s FROM Sequence s WHERE " +
-           "s.id IS NOT NULL OR " +
-           "s.indexNumber IS NOT NULL OR " +
-           "s.proteins IS NOT NULL OR " +
-           "s.accessions IS NOT NULL OR " +
-           "s.sequence IS NOT NULL OR " +
-           "s.annotations IS NOT NULL OR " +
-           "s.interpros IS NOT NULL OR " +
-           "s.orgs IS NOT NULL")
-    List<Sequence> findAllNonEmpty();
-
-    // 特定类别的搜索方法（非空输入）
-    @Query("SELECT s FROM Sequence s WHERE s.id LIKE CONCAT('%', :query, '%')")
-    List<Sequence> findByIdLike(@Param("query") String query);
-
-    @Query("SELECT s FROM Sequence s WHERE s.indexNumber LIKE CONCAT('%', :query, '%')")
-    List<Sequence> findByIndexNumberLike(@Param("query") String query);
-
-    @Query("SELECT s FROM Sequence s WHERE s.proteins LIKE CONCAT('%', :query, '%')")
-    List<Sequence> findByProteinsLike(@Param("query") String query);
-
-    @Query("SELECT s FROM Sequence s WHERE s.accessions LIKE CONCAT('%', :query, '%')")
-    List<Sequence> findByAccessionsLike(@Param("query") String query);
-
-    @Query("SELECT s FROM Sequence s WHERE s.sequence LIKE CONCAT('%', :query, '%')")
-    List<Sequence> findBySequenceLike(@Param("query") String query);
-
-    @Query("SELECT s FROM Sequence s WHERE s.annotations LIKE CONCAT('%', :query, '%')")
-    List<Sequence> findByAnnotationsLike(@Param("query") String query);
-
-    @Query("SELECT s FROM Sequence s WHERE s.interpros LIKE CONCAT('%', :query, '%')")
-    List<Sequence> findByInterprosLike(@Param("query") String query);
-
-    @Query("SELECT s FROM Sequence s WHERE s.orgs LIKE CONCAT('%', :query, '%')")
-    List<Sequence> findByOrgsLike(@Param("query") String query);
-
-    // 特定类别的非空匹配方法（空输入）
-    @Query("SELECT s FROM Sequence s WHERE s.id IS NOT NULL")
-    List<Sequence> findByIdIsNotEmpty();
-
-    @Query("SELECT s FROM Sequence s WHERE s.indexNumber IS NOT NULL AND s.indexNumber <> ''")
-    List<Sequence> findByIndexNumberIsNotEmpty();
-
-    @Query("SELECT s FROM Sequence s WHERE s.proteins IS NOT NULL AND s.proteins <> ''")
-    List<Sequence> findByProteinsIsNotEmpty();
-
-    @Query("SELECT s FROM Sequence s WHERE s.accessions IS NOT NULL AND s.accessions <> ''")
-    List<Sequence> findByAccessionsIsNotEmpty();
-
-    @Query("SELECT s FROM Sequence s WHERE s.sequence IS NOT NULL AND s.sequence <> ''")
-    List<Sequence> findBySequenceIsNotEmpty();
-
-    @Query("SELECT s FROM Sequence s WHERE s.annotations IS NOT NULL AND s.annotations <> ''")
-    List<Sequence> findByAnnotationsIsNotEmpty();
-
-    @Query("SELECT s FROM Sequence s WHERE s.interpros IS NOT NULL AND s.interpros <> ''")
-    List<Sequence> findByInterprosIsNotEmpty();
-
-    @Query("SELECT s FROM Sequence s WHERE s.orgs IS NOT NULL AND s.orgs <> ''")
-    List<Sequence> findByOrgsIsNotEmpty();
+    // 键集分页方法：以 id > lastId 作为游标，按 id 升序返回一页，页大小由 Pageable 限定
+    // 深翻页时只需沿主键索引定位，不像 OFFSET 那样扫描并丢弃前面的行
+    @Query("SELECT s FROM Sequence s WHERE s.id > :lastId ORDER BY s.id")
+    List<Sequence> findPageAfter(@Param("lastId") Long lastId, Pageable pageable);
 
     // 批量导出方法
     List<Sequence> findByIdIn(List<Long> ids);
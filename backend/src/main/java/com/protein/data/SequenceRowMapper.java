@@ -0,0 +1,39 @@
+package com.protein.data;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+
+// 把 JDBC 查询结果映射为 Sequence，列顺序与 COLUMNS 相同（表别名为 s）
+public class SequenceRowMapper implements RowMapper<Sequence> {
+    public static final String COLUMNS =
+            "s.id, s.index_number, s.proteins, s.accessions, s.sequence, s.annotations, s.interpros, s.orgs, s.residues";
+    // COLUMNS 中的列数，查询中跟在 COLUMNS 后面的列从 COLUMN_COUNT + 1 开始
+    public static final int COLUMN_COUNT = 9;
+    public static final SequenceRowMapper INSTANCE = new SequenceRowMapper();
+
+    @Override
+    public Sequence mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        Sequence sequence = new Sequence();
+        sequence.setId(resultSet.getLong(1));
+        sequence.setIndexNumber(getInteger(resultSet, 2));
+        sequence.setProteins(resultSet.getString(3));
+        sequence.setAccessions(resultSet.getString(4));
+        byte[] residues = resultSet.getBytes(9);
+        if (residues != null) {
+            sequence.setResidues(residues);
+        } else {
+            sequence.setSequence(resultSet.getString(5));
+        }
+        sequence.setAnnotations(resultSet.getString(6));
+        sequence.setInterpros(resultSet.getString(7));
+        sequence.setOrgs(getInteger(resultSet, 8));
+        return sequence;
+    }
+
+    private static Integer getInteger(ResultSet resultSet, int column) throws SQLException {
+        int value = resultSet.getInt(column);
+        return resultSet.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,162 @@
+package com.protein.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+// 多值字段（accessions、annotations、interpros）的拆分。
+// split 与原来的 value.split(";\\s*") / value.split(",\\s*") 结果相同，但不用正则；
+// terms 在此基础上去掉方括号、引号和首尾空白并去重，得到写入 sequence_term 表、用于精确查找的词条。
+public final class SequenceTerms {
+    // 字段编号写入数据库，不能修改已有的值
+    public enum Field {
+        ACCESSIONS(1, ';'),
+        ANNOTATIONS(2, ','),
+        INTERPROS(3, ',');
+
+        private final int code;
+        private final char separator;
+
+        Field(int code, char separator) {
+            this.code = code;
+            this.separator = separator;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public char getSeparator() {
+            return separator;
+        }
+
+        public String valueOf(Sequence sequence) {
+            switch (this) {
+                case ACCESSIONS: return sequence.getAccessions();
+                case ANNOTATIONS: return sequence.getAnnotations();
+                default: return sequence.getInterpros();
+            }
+        }
+
+        // 按名称解析，忽略大小写，无法识别时返回 null
+        public static Field parse(String name) {
+            for (Field field : values()) {
+                if (field.name().equalsIgnoreCase(name)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    private SequenceTerms() {
+    }
+
+    // 按分隔符拆分，分隔符后的空白一并去掉，末尾的空串丢弃；空值返回 null
+    public static List<String> split(String value, char separator) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < value.length()) {
+            if (value.charAt(i) == separator) {
+                parts.add(value.substring(start, i));
+                i++;
+                while (i < value.length() && isRegexSpace(value.charAt(i))) {
+                    i++;
+                }
+                start = i;
+            } else {
+                i++;
+            }
+        }
+        parts.add(value.substring(start));
+        while (!parts.isEmpty() && parts.get(parts.size() - 1).isEmpty()) {
+            parts.remove(parts.size() - 1);
+        }
+        return Collections.unmodifiableList(parts);
+    }
+
+    // 字段中的词条。兼容 "['kinase', 'ATP binding']" 这种 Python 列表格式的取值
+    public static Set<String> terms(String value, Field field) {
+        Set<String> terms = new LinkedHashSet<>();
+        List<String> parts = split(value, field.getSeparator());
+        if (parts == null) {
+            return terms;
+        }
+        for (String part : parts) {
+            String term = normalize(part);
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    // 把 incoming 中 existing 还没有的词条（忽略大小写，与 sequence_term 的比较方式相同）追加到 existing 后面，
+    // 保持 existing 原来的格式：Python 列表格式仍然写成列表，否则用分隔符连接
+    public static String merge(String existing, String incoming, Field field) {
+        Set<String> existingTerms = terms(existing, field);
+        if (existingTerms.isEmpty()) {
+            return incoming != null && !incoming.isEmpty() ? incoming : existing;
+        }
+        Set<String> seen = new HashSet<>();
+        for (String term : existingTerms) {
+            seen.add(term.toLowerCase());
+        }
+        List<String> added = new ArrayList<>();
+        for (String term : terms(incoming, field)) {
+            if (seen.add(term.toLowerCase())) {
+                added.add(term);
+            }
+        }
+        if (added.isEmpty()) {
+            return existing;
+        }
+        String delimiter = field.getSeparator() + " ";
+        if (existing.trim().startsWith("[")) {
+            StringJoiner list = new StringJoiner(delimiter, "[", "]");
+            for (String term : existingTerms) {
+                list.add(quote(term));
+            }
+            for (String term : added) {
+                list.add(quote(term));
+            }
+            return list.toString();
+        }
+        return existing + delimiter + String.join(delimiter, added);
+    }
+
+    private static String quote(String term) {
+        return term.indexOf('\'') >= 0 ? "\"" + term + "\"" : "'" + term + "'";
+    }
+
+    private static String normalize(String part) {
+        String term = part.trim();
+        if (term.startsWith("[")) {
+            term = term.substring(1).trim();
+        }
+        if (term.endsWith("]")) {
+            term = term.substring(0, term.length() - 1).trim();
+        }
+        if (term.length() >= 2) {
+            char first = term.charAt(0);
+            char last = term.charAt(term.length() - 1);
+            if ((first == '\'' || first == '"') && last == first) {
+                term = term.substring(1, term.length() - 1).trim();
+            }
+        }
+        return term;
+    }
+
+    // 正则 \s 匹配的字符
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
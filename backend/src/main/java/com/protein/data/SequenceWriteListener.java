@@ -0,0 +1,9 @@
+package com.protein.data;
+
+import java.util.List;
+
+// 批量写入提交后的回调，供索引等派生数据增量更新。
+// 传入的序列都已带有数据库 id；回调在写入线程中执行，应尽快返回。
+public interface SequenceWriteListener {
+    void onBatchCommitted(List<Sequence> sequences);
+}
@@ -0,0 +1,44 @@
+package com.protein.export;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+// 写出 CompactSequences。作为 HttpMessageConverter bean 注册，Spring Boot 把它排在默认转换器之前，
+// 这样 application/json 的紧凑结果也不会被 Jackson 当成普通对象序列化。只用于写出响应，不读取请求体
+@Component
+public class CompactSequenceMessageConverter extends AbstractHttpMessageConverter<CompactSequences> {
+    public CompactSequenceMessageConverter() {
+        super(Arrays.stream(ResponseEncoding.values())
+                .map(encoding -> MediaType.parseMediaType(encoding.getMediaType()))
+                .toArray(MediaType[]::new));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return CompactSequences.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected CompactSequences readInternal(Class<? extends CompactSequences> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Compact sequences cannot be read", inputMessage);
+    }
+
+    // 写出后由 AbstractHttpMessageConverter 刷新输出流，这里不能让生成器关闭它
+    @Override
+    protected void writeInternal(CompactSequences body, HttpOutputMessage outputMessage) throws IOException {
+        body.writeTo(StreamUtils.nonClosing(outputMessage.getBody()));
+    }
+}
@@ -0,0 +1,146 @@
+package com.protein.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.protein.data.Sequence;
+import com.protein.data.SequencePage;
+import com.protein.query.SearchField;
+import com.protein.store.SequenceStore;
+
+// 搜索结果的紧凑编码：只写出投影中的列，不写 accessionsList 等由字符串字段派生的列表属性，值为 null 的字段省略。
+// ROWS 布局与默认的 JSON 结构相同（每条记录一个对象）；COLUMNS 布局每列一个数组，同一下标对应同一条记录，
+// 字段名只出现一次。直接用 JsonGenerator 逐条写出，不经过 ObjectMapper 的反射和中间对象
+public final class CompactSequenceWriter {
+    public enum Layout {
+        ROWS, COLUMNS;
+
+        // 按名称解析，忽略大小写，空值为 ROWS；无法识别时抛出 IllegalArgumentException
+        public static Layout parse(String name) {
+            if (name == null || name.isBlank()) {
+                return ROWS;
+            }
+            for (Layout layout : values()) {
+                if (layout.name().equalsIgnoreCase(name.trim())) {
+                    return layout;
+                }
+            }
+            throw new IllegalArgumentException("Unknown layout: " + name);
+        }
+    }
+
+    private final ResponseEncoding encoding;
+    private final List<SearchField> fields = new ArrayList<>();
+    private final Layout layout;
+
+    // columns 为 SequenceStore.parseColumns 的结果，id 总是写出
+    public CompactSequenceWriter(ResponseEncoding encoding, Set<SearchField> columns, Layout layout) {
+        this.encoding = encoding;
+        this.layout = layout;
+        fields.add(SearchField.ID);
+        for (SearchField field : columns) {
+            if (field != SearchField.ID && SequenceStore.ALL_COLUMNS.contains(field)) {
+                fields.add(field);
+            }
+        }
+    }
+
+    public String getMediaType() {
+        return encoding.getMediaType();
+    }
+
+    // 写出记录列表：ROWS 布局为对象数组，COLUMNS 布局为以列名为键的对象
+    public void writeList(OutputStream out, List<Sequence> rows) throws IOException {
+        try (JsonGenerator generator = encoding.factory().createGenerator(out)) {
+            writeRows(generator, rows);
+        }
+    }
+
+    // 写出一页结果，结构与 SequencePage 相同，content 按 layout 编码
+    public void writePage(OutputStream out, SequencePage page) throws IOException {
+        try (JsonGenerator generator = encoding.factory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeFieldName("content");
+            writeRows(generator, page.getContent());
+            if (page.getNextPageToken() != null) {
+                generator.writeStringField("nextPageToken", page.getNextPageToken());
+            }
+            if (page.getApproximateTotal() != null) {
+                generator.writeNumberField("approximateTotal", page.getApproximateTotal());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeRows(JsonGenerator generator, List<Sequence> rows) throws IOException {
+        if (layout == Layout.ROWS) {
+            generator.writeStartArray();
+            for (Sequence sequence : rows) {
+                generator.writeStartObject();
+                for (SearchField field : fields) {
+                    Object value = valueOf(sequence, field);
+                    if (value != null) {
+                        generator.writeFieldName(propertyName(field));
+                        writeValue(generator, value);
+                    }
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeStartObject();
+            for (SearchField field : fields) {
+                generator.writeArrayFieldStart(propertyName(field));
+                for (Sequence sequence : rows) {
+                    writeValue(generator, valueOf(sequence, field));
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Integer) {
+            generator.writeNumber((Integer) value);
+        } else {
+            generator.writeString((String) value);
+        }
+    }
+
+    private static Object valueOf(Sequence sequence, SearchField field) {
+        switch (field) {
+            case ID: return sequence.getId();
+            case INDEX: return sequence.getIndexNumber();
+            case PROTEINS: return sequence.getProteins();
+            case ACCESSIONS: return sequence.getAccessions();
+            case SEQUENCE: return sequence.getSequence();
+            case ANNOTATIONS: return sequence.getAnnotations();
+            case INTERPROS: return sequence.getInterpros();
+            case ORGS: return sequence.getOrgs();
+            default: return null;
+        }
+    }
+
+    // 与默认 JSON 中 Sequence 的属性名相同
+    private static String propertyName(SearchField field) {
+        switch (field) {
+            case ID: return "id";
+            case INDEX: return "indexNumber";
+            case PROTEINS: return "proteins";
+            case ACCESSIONS: return "accessions";
+            case SEQUENCE: return "sequence";
+            case ANNOTATIONS: return "annotations";
+            case INTERPROS: return "interpros";
+            default: return "orgs";
+        }
+    }
+}
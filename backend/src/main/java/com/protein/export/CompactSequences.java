@@ -0,0 +1,42 @@
+package com.protein.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import com.protein.data.Sequence;
+import com.protein.data.SequencePage;
+
+// 按紧凑编码返回的响应体：记录列表或一页结果，连同写出它们的 CompactSequenceWriter。
+// 由 CompactSequenceMessageConverter 写出，控制器的其他返回值仍然交给默认的 JSON 转换器
+public final class CompactSequences {
+    private final CompactSequenceWriter writer;
+    private final List<Sequence> rows;
+    private final SequencePage page;
+
+    private CompactSequences(CompactSequenceWriter writer, List<Sequence> rows, SequencePage page) {
+        this.writer = writer;
+        this.rows = rows;
+        this.page = page;
+    }
+
+    public static CompactSequences of(CompactSequenceWriter writer, List<Sequence> rows) {
+        return new CompactSequences(writer, rows, null);
+    }
+
+    public static CompactSequences of(CompactSequenceWriter writer, SequencePage page) {
+        return new CompactSequences(writer, null, page);
+    }
+
+    public String getMediaType() {
+        return writer.getMediaType();
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        if (page != null) {
+            writer.writePage(out, page);
+        } else {
+            writer.writeList(out, rows);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.protein.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+// 紧凑响应的编码：JSON 文本，或者二进制的 CBOR、Smile（数值和短字符串不必转成文本，字段名和字符串按长度前缀编码）
+public enum ResponseEncoding {
+    JSON("application/json", new JsonFactory()),
+    CBOR("application/cbor", new CBORFactory()),
+    SMILE("application/x-jackson-smile", new SmileFactory());
+
+    private final String mediaType;
+    private final JsonFactory factory;
+
+    ResponseEncoding(String mediaType, JsonFactory factory) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    // JsonFactory 是线程安全的，所有请求共用
+    JsonFactory factory() {
+        return factory;
+    }
+
+    // format 参数（json、cbor、smile）优先，否则看 Accept 头中是否要求 CBOR 或 Smile；都没有时返回 null。
+    // format 无法识别时抛出 IllegalArgumentException
+    public static ResponseEncoding negotiate(String format, String accept) {
+        if (format != null && !format.isBlank()) {
+            for (ResponseEncoding encoding : values()) {
+                if (encoding.name().equalsIgnoreCase(format.trim())) {
+                    return encoding;
+                }
+            }
+            throw new IllegalArgumentException("Unknown format: " + format);
+        }
+        if (accept != null) {
+            if (accept.contains(CBOR.mediaType)) {
+                return CBOR;
+            }
+            if (accept.contains(SMILE.mediaType)) {
+                return SMILE;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,90 @@
+package com.protein.export;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.protein.data.Sequence;
+import com.protein.metrics.Histogram;
+import com.protein.metrics.MetricsRegistry;
+
+// 流式导出：按页从数据源读取序列，逐行写入响应输出流，
+// 不拼接整个文件，堆内存占用只与一页的大小有关
+@Component
+public class SequenceExporter {
+    private static final Logger log = LoggerFactory.getLogger(SequenceExporter.class);
+    public static final int PAGE_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    public ResponseEntity<StreamingResponseBody> export(SequencePageSource source, SequenceRowWriter rowWriter, String filename) {
+        // 第一页在请求线程中读取，没有数据时直接返回 204
+        List<Sequence> firstPage = source.fetchPage(0L, PAGE_SIZE);
+        if (firstPage.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+        }
+
+        String format = filename.endsWith(".txt") ? "txt" : filename.endsWith(".tsv") ? "tsv" : "other";
+        StreamingResponseBody body = outputStream -> {
+            long start = System.nanoTime();
+            CountingOutputStream counting = new CountingOutputStream(outputStream);
+            Writer out = new BufferedWriter(new OutputStreamWriter(counting, StandardCharsets.UTF_8), BUFFER_SIZE);
+            rowWriter.writeHeader(out);
+            List<Sequence> page = firstPage;
+            long rows = 0;
+            while (!page.isEmpty()) {
+                for (Sequence sequence : page) {
+                    rowWriter.writeRow(out, sequence);
+                }
+                rows += page.size();
+                // 每页写完就把数据推给客户端，并释放持久化上下文中已写出的实体
+                out.flush();
+                long lastId = page.get(page.size() - 1).getId();
+                entityManager.clear();
+                page = source.fetchPage(lastId, PAGE_SIZE);
+            }
+            out.flush();
+            record(format, rows, counting.getCount(), System.nanoTime() - start);
+        };
+
+        // 不设置 Content-Length，响应以分块传输编码发送
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(TEXT_PLAIN_UTF8);
+        headers.setContentDispositionFormData("attachment", filename);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    // 导出速度受客户端接收速度影响，字节数和耗时分别记录，字节/秒由两者相除得到
+    private void record(String format, long rows, long bytes, long nanos) {
+        metricsRegistry.histogram("protein_export_seconds", "Time to stream one export", Histogram.SECONDS,
+                "format", format).observeNanos(nanos);
+        metricsRegistry.counter("protein_export_bytes_total", "Bytes written by exports", "format", format)
+                .increment(bytes);
+        metricsRegistry.counter("protein_export_rows_total", "Rows written by exports", "format", format)
+                .increment(rows);
+        double seconds = nanos / 1e9;
+        log.info("Exported {} rows ({} bytes, {}) in {} ms, {} MB/s", rows, bytes, format, nanos / 1_000_000,
+                String.format("%.1f", bytes / (1024.0 * 1024) / Math.max(seconds, 1e-9)));
+    }
+}
@@ -0,0 +1,48 @@
+package com.protein.export;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.protein.data.Sequence;
+import com.protein.data.SequenceRepository;
+
+// 按 id 升序、以 id > lastId 为游标逐页提供序列的数据源
+@FunctionalInterface
+public interface SequencePageSource {
+    List<Sequence> fetchPage(long lastId, int limit);
+
+    // 由一组指定 id 构造数据源：先排序去重，再按游标分批用 IN 查询
+    static SequencePageSource ofIds(SequenceRepository repository, List<Long> ids) {
+        long[] sorted = ids.stream().filter(id -> id != null).mapToLong(Long::longValue).distinct().sorted().toArray();
+        return ofSortedIds(repository, sorted);
+    }
+
+    // 由已经升序排列且无重复的 id 构造数据源。
+    // 一批 id 可能都已经被删除（缓存的搜索结果过期），这时继续取下一批，只有 id 用完时才返回空页，
+    // 否则调用方会把空页当作结束，导出提前截断或返回 204
+    static SequencePageSource ofSortedIds(SequenceRepository repository, long[] sorted) {
+        return (lastId, limit) -> {
+            int from = Arrays.binarySearch(sorted, lastId);
+            from = from >= 0 ? from + 1 : -from - 1;
+            while (from < sorted.length) {
+                int to = Math.min(sorted.length, from + limit);
+                List<Long> batch = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    batch.add(sorted[i]);
+                }
+                List<Sequence> page = repository.findByIdIn(batch);
+                if (!page.isEmpty()) {
+                    // IN 查询不保证顺序，调用方以最后一条的 id 作为游标
+                    page = new ArrayList<>(page);
+                    page.sort(Comparator.comparing(Sequence::getId));
+                    return page;
+                }
+                from = to;
+            }
+            return Collections.emptyList();
+        };
+    }
+}
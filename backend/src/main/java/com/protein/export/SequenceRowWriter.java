@@ -0,0 +1,13 @@
+package com.protein.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.protein.data.Sequence;
+
+// 导出格式的行写入器，每种格式只实现表头和单行两个方法
+public interface SequenceRowWriter {
+    void writeHeader(Writer out) throws IOException;
+
+    void writeRow(Writer out, Sequence sequence) throws IOException;
+}
@@ -0,0 +1,42 @@
+package com.protein.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.protein.data.Sequence;
+
+// TSV 格式：一行表头，之后每个序列一行，字段之间用制表符分隔，空值写为空字符串
+public class TsvRowWriter implements SequenceRowWriter {
+    private static final String HEADER = "ID\tIndex\tProteins\tAccessions\tSequences\tAnnotations\tInterpros\tOrgs\n";
+
+    @Override
+    public void writeHeader(Writer out) throws IOException {
+        out.write(HEADER);
+    }
+
+    @Override
+    public void writeRow(Writer out, Sequence sequence) throws IOException {
+        writeField(out, sequence.getId());
+        out.write('\t');
+        writeField(out, sequence.getIndexNumber());
+        out.write('\t');
+        writeField(out, sequence.getProteins());
+        out.write('\t');
+        writeField(out, sequence.getAccessions());
+        out.write('\t');
+        writeField(out, sequence.getSequence());
+        out.write('\t');
+        writeField(out, sequence.getAnnotations());
+        out.write('\t');
+        writeField(out, sequence.getInterpros());
+        out.write('\t');
+        writeField(out, sequence.getOrgs());
+        out.write('\n');
+    }
+
+    private static void writeField(Writer out, Object value) throws IOException {
+        if (value != null) {
+            out.write(value.toString());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.protein.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.protein.data.Sequence;
+
+// TXT 格式：每个字段单独一行，空值写为 N/A，序列之间用 ---- 分隔
+public class TxtRowWriter implements SequenceRowWriter {
+    private final String title; // 可选的标题行，为 null 时不输出
+
+    public TxtRowWriter() {
+        this(null);
+    }
+
+    public TxtRowWriter(String title) {
+        this.title = title;
+    }
+
+    @Override
+    public void writeHeader(Writer out) throws IOException {
+        if (title != null) {
+            out.write(title);
+            out.write('\n');
+        }
+    }
+
+    @Override
+    public void writeRow(Writer out, Sequence sequence) throws IOException {
+        writeLine(out, "ID: ", sequence.getId());
+        writeLine(out, "Index: ", sequence.getIndexNumber());
+        writeLine(out, "Proteins: ", sequence.getProteins());
+        writeLine(out, "Accessions: ", sequence.getAccessions());
+        writeLine(out, "Sequences: ", sequence.getSequence());
+        writeLine(out, "Annotations: ", sequence.getAnnotations());
+        writeLine(out, "Interpros: ", sequence.getInterpros());
+        writeLine(out, "Orgs: ", sequence.getOrgs());
+        out.write("----\n"); // 使用分隔符区分不同序列
+    }
+
+    private static void writeLine(Writer out, String label, Object value) throws IOException {
+        out.write(label);
+        out.write(value != null ? value.toString() : "N/A");
+        out.write('\n');
+    }
+}
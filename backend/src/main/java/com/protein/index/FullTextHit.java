@@ -0,0 +1,45 @@
+package com.protein.index;
+
+import java.util.Map;
+
+import com.protein.data.Sequence;
+
+// 全文检索的一条结果：记录本身、相关度得分（越大越相关）以及各文本字段的高亮片段
+public class FullTextHit {
+    private Sequence sequence;
+    private double score;
+    private Map<String, String> highlights; // 字段名 -> 已转义的 HTML，匹配的词用 <mark> 包围；未请求高亮时为 null
+
+    public FullTextHit() {
+    }
+
+    public FullTextHit(Sequence sequence, double score, Map<String, String> highlights) {
+        this.sequence = sequence;
+        this.score = score;
+        this.highlights = highlights;
+    }
+
+    public Sequence getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Sequence sequence) {
+        this.sequence = sequence;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public Map<String, String> getHighlights() {
+        return highlights;
+    }
+
+    public void setHighlights(Map<String, String> highlights) {
+        this.highlights = highlights;
+    }
+}
@@ -0,0 +1,43 @@
+package com.protein.index;
+
+import java.util.List;
+
+// 按相关度排序的全文检索结果的一页，nextPageToken 的含义与 SequencePage 相同：不透明，原样传回即可
+public class FullTextPage {
+    private List<FullTextHit> content;
+    private String nextPageToken;
+    private Long approximateTotal;
+
+    public FullTextPage() {
+    }
+
+    public FullTextPage(List<FullTextHit> content, String nextPageToken, Long approximateTotal) {
+        this.content = content;
+        this.nextPageToken = nextPageToken;
+        this.approximateTotal = approximateTotal;
+    }
+
+    public List<FullTextHit> getContent() {
+        return content;
+    }
+
+    public void setContent(List<FullTextHit> content) {
+        this.content = content;
+    }
+
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public void setNextPageToken(String nextPageToken) {
+        this.nextPageToken = nextPageToken;
+    }
+
+    public Long getApproximateTotal() {
+        return approximateTotal;
+    }
+
+    public void setApproximateTotal(Long approximateTotal) {
+        this.approximateTotal = approximateTotal;
+    }
+}
@@ -0,0 +1,132 @@
+package com.protein.index;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.protein.data.SequenceRowMapper;
+
+// 基于 SQLite FTS5 的全文检索，覆盖 proteins、accessions、annotations、interpros 四个文本字段。
+// sequence_fts 是以 sequence 表为内容表的外部内容索引（见 SchemaMigrations），由触发器在同一事务中同步，任何写入途径都不会漏掉。
+// 纯数字的查询按 id、index_number、orgs 精确匹配，走主键和 B-tree 索引，不再把数字转成文本做 LIKE。
+@Service
+public class FullTextSearchService {
+    private static final String[] TEXT_COLUMNS = {"proteins", "accessions", "annotations", "interpros"};
+    // bm25 中各字段的权重，顺序与 TEXT_COLUMNS 相同：名称和登录号命中比注释中的普通词更有区分度
+    private static final String BM25 = "bm25(sequence_fts, 4.0, 4.0, 1.0, 2.0)";
+    // 高亮标记先用控制字符占位，转义 HTML 之后再替换成 <mark>
+    private static final char MARK_START = '\u0002';
+    private static final char MARK_END = '\u0003';
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 按相关度排序搜索，offset 为已返回的条数。prefixLast 为 true 时最后一个词按前缀匹配，适合边输入边搜索
+    public FullTextPage search(String query, long offset, int pageSize, boolean prefixLast, boolean highlight) {
+        Long number = parseNumber(query);
+        List<FullTextHit> hits;
+        Long total = null;
+        if (number != null) {
+            hits = jdbcTemplate.query("SELECT " + SequenceRowMapper.COLUMNS + " FROM sequence s " +
+                            "WHERE s.id = ? OR s.index_number = ? OR s.orgs = ? ORDER BY s.id LIMIT ? OFFSET ?",
+                    (resultSet, rowNum) -> new FullTextHit(SequenceRowMapper.INSTANCE.mapRow(resultSet, rowNum), 0.0, null),
+                    number, number, number, pageSize + 1, offset);
+        } else {
+            String match = toMatchExpression(query, prefixLast);
+            if (match.isEmpty()) {
+                return new FullTextPage(List.of(), null, 0L);
+            }
+            StringBuilder sql = new StringBuilder("SELECT ").append(SequenceRowMapper.COLUMNS)
+                    .append(", ").append(BM25).append(" AS score");
+            if (highlight) {
+                for (int i = 0; i < TEXT_COLUMNS.length; i++) {
+                    sql.append(", highlight(sequence_fts, ").append(i).append(", char(2), char(3))");
+                }
+            }
+            sql.append(" FROM sequence_fts JOIN sequence s ON s.id = sequence_fts.rowid")
+                    .append(" WHERE sequence_fts MATCH ? ORDER BY score, s.id LIMIT ? OFFSET ?");
+            hits = jdbcTemplate.query(sql.toString(), (resultSet, rowNum) -> {
+                Map<String, String> highlights = null;
+                if (highlight) {
+                    highlights = new LinkedHashMap<>();
+                    for (int i = 0; i < TEXT_COLUMNS.length; i++) {
+                        String fragment = resultSet.getString(SequenceRowMapper.COLUMN_COUNT + 2 + i);
+                        highlights.put(TEXT_COLUMNS[i], fragment != null ? toHtml(fragment) : null);
+                    }
+                }
+                // bm25 越小越相关，取反后越大越相关
+                return new FullTextHit(SequenceRowMapper.INSTANCE.mapRow(resultSet, rowNum), -resultSet.getDouble(SequenceRowMapper.COLUMN_COUNT + 1), highlights);
+            }, match, pageSize + 1, offset);
+            if (offset == 0) {
+                total = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM sequence_fts WHERE sequence_fts MATCH ?", Long.class, match);
+            }
+        }
+        String nextPageToken = null;
+        if (hits.size() > pageSize) {
+            hits = hits.subList(0, pageSize);
+            nextPageToken = Long.toString(offset + pageSize);
+        }
+        if (number != null && offset == 0 && nextPageToken == null) {
+            total = (long) hits.size();
+        }
+        return new FullTextPage(new ArrayList<>(hits), nextPageToken, total);
+    }
+
+    // 把用户输入转换为 FTS5 查询：每个词加引号（不会被当作 FTS5 语法），词之间为 AND，以 * 结尾的词按前缀匹配
+    public static String toMatchExpression(String query, boolean prefixLast) {
+        String[] terms = query.trim().split("\\s+");
+        StringBuilder match = new StringBuilder();
+        for (int i = 0; i < terms.length; i++) {
+            String term = terms[i];
+            boolean prefix = term.endsWith("*") || (prefixLast && i == terms.length - 1);
+            while (term.endsWith("*")) {
+                term = term.substring(0, term.length() - 1);
+            }
+            // 没有字母或数字的词经过分词后为空，FTS5 会报语法错误
+            if (term.codePoints().noneMatch(Character::isLetterOrDigit)) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append('"').append(term.replace("\"", "\"\"")).append('"');
+            if (prefix) {
+                match.append('*');
+            }
+        }
+        return match.toString();
+    }
+
+    private static Long parseNumber(String query) {
+        String trimmed = query.trim();
+        if (trimmed.isEmpty() || trimmed.length() > 18 || !trimmed.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return null;
+        }
+        return Long.parseLong(trimmed);
+    }
+
+    private static String toHtml(String fragment) {
+        StringBuilder html = new StringBuilder(fragment.length() + 16);
+        for (int i = 0; i < fragment.length(); i++) {
+            char c = fragment.charAt(i);
+            switch (c) {
+                case MARK_START: html.append("<mark>"); break;
+                case MARK_END: html.append("</mark>"); break;
+                case '<': html.append("&lt;"); break;
+                case '>': html.append("&gt;"); break;
+                case '&': html.append("&amp;"); break;
+                case '"': html.append("&quot;"); break;
+                case '\'': html.append("&#39;"); break;
+                default: html.append(c);
+            }
+        }
+        return html.toString();
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.protein.index;
+
+// KmerIndex.mostShared 的结果：候选记录的 id 和各自与查询共有的不同 k-mer 个数，按共有个数降序排列
+public final class KmerCandidates {
+    private final long[] ids;
+    private final int[] sharedKmers;
+
+    KmerCandidates(long[] ids, int[] sharedKmers) {
+        this.ids = ids;
+        this.sharedKmers = sharedKmers;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long getId(int i) {
+        return ids[i];
+    }
+
+    public int getSharedKmers(int i) {
+        return sharedKmers[i];
+    }
+}
@@ -0,0 +1,285 @@
+package com.protein.index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// 序列的 k-mer（k = 3）倒排索引：每个 3-mer 对应包含它的序列 id 列表。
+// 残基字母不区分大小写，每个字母编码为 5 位，一个 3-mer 正好是 15 位的整数，直接用作数组下标。
+// 含有非字母字符的 k-mer 不进索引。
+// 本类不是线程安全的，由 KmerIndexService 加锁访问。
+public class KmerIndex {
+    public static final int K = 3;
+    private static final int BITS_PER_RESIDUE = 5;
+    private static final int KMER_MASK = (1 << (BITS_PER_RESIDUE * K)) - 1;
+    private static final int FILE_MAGIC = 0x4B4D4552; // "KMER"
+    // 版本 2 增加了 changeSequence
+    private static final int FILE_VERSION = 2;
+    // mostShared 每次计数的 id 范围
+    private static final int COUNT_WINDOW = 1 << 16;
+    private static final long ID_MASK = (1L << 40) - 1;
+
+    private final PostingList[] postings = new PostingList[KMER_MASK + 1];
+    // 同一条序列中重复出现的 k-mer 只记一次：seen[code] == stamp 表示本条序列已经记过
+    private final int[] seen = new int[KMER_MASK + 1];
+    private int stamp;
+    private long maxIndexedId;
+    // 已经反映到索引中的 sequence_change 的最大 seq，见 KmerIndexService
+    private long changeSequence;
+
+    public void add(long id, String sequence) {
+        if (sequence == null || sequence.length() < K) {
+            return;
+        }
+        if (++stamp == 0) {
+            Arrays.fill(seen, 0);
+            stamp = 1;
+        }
+        int code = 0;
+        int valid = 0; // 当前窗口中连续的有效字母个数
+        for (int i = 0; i < sequence.length(); i++) {
+            int residue = encode(sequence.charAt(i));
+            if (residue == 0) {
+                valid = 0;
+                continue;
+            }
+            code = ((code << BITS_PER_RESIDUE) | residue) & KMER_MASK;
+            if (++valid >= K && seen[code] != stamp) {
+                seen[code] = stamp;
+                PostingList list = postings[code];
+                if (list == null) {
+                    list = new PostingList();
+                    postings[code] = list;
+                }
+                list.add(id);
+            }
+        }
+        if (id > maxIndexedId) {
+            maxIndexedId = id;
+        }
+    }
+
+    // 按新的内容重建 ids（升序、不重复）的倒排项：从所有倒排表中删除这些 id，再加入 sequences 中对应内容的 k-mer
+    // （内容为 null 表示记录已不存在）。每个倒排表只解码、重写一次，代价与整个索引的大小成正比，适合成批调用。
+    // 不改变 maxIndexedId：比它大的 id 仍然由之后的 add 补上
+    public void reindex(long[] ids, String[] sequences) {
+        if (ids.length == 0) {
+            return;
+        }
+        long[][] added = new long[postings.length][];
+        int[] addedCounts = new int[postings.length];
+        for (int i = 0; i < ids.length; i++) {
+            String sequence = sequences[i];
+            if (sequence == null) {
+                continue;
+            }
+            if (++stamp == 0) {
+                Arrays.fill(seen, 0);
+                stamp = 1;
+            }
+            int code = 0;
+            int valid = 0;
+            for (int j = 0; j < sequence.length(); j++) {
+                int residue = encode(sequence.charAt(j));
+                if (residue == 0) {
+                    valid = 0;
+                    continue;
+                }
+                code = ((code << BITS_PER_RESIDUE) | residue) & KMER_MASK;
+                if (++valid >= K && seen[code] != stamp) {
+                    seen[code] = stamp;
+                    if (added[code] == null) {
+                        added[code] = new long[4];
+                    } else if (addedCounts[code] == added[code].length) {
+                        added[code] = Arrays.copyOf(added[code], addedCounts[code] * 2);
+                    }
+                    added[code][addedCounts[code]++] = ids[i];
+                }
+            }
+        }
+        for (int code = 0; code < postings.length; code++) {
+            PostingList list = postings[code];
+            if (list == null && added[code] == null) {
+                continue;
+            }
+            if (list == null) {
+                list = new PostingList();
+                postings[code] = list;
+            }
+            list.replace(ids, added[code], addedCounts[code]);
+            if (list.count() == 0) {
+                postings[code] = null;
+            }
+        }
+    }
+
+    // 返回可能包含 query 的序列 id（升序），结果还需要逐条验证。
+    // query 中没有任何可用的 k-mer 时返回 null，表示索引无法缩小范围
+    public long[] candidates(String query) {
+        int[] codes = distinctKmers(query);
+        if (codes.length == 0) {
+            return null;
+        }
+        PostingList[] lists = new PostingList[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            lists[i] = postings[codes[i]];
+            if (lists[i] == null) {
+                return new long[0];
+            }
+        }
+        // 从最短的倒排表开始求交集，候选集合最快缩小
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.count(), b.count()));
+        long[] ids = lists[0].decode();
+        int size = ids.length;
+        for (int i = 1; i < lists.length && size > 0; i++) {
+            size = lists[i].retainAll(ids, size);
+        }
+        return Arrays.copyOf(ids, size);
+    }
+
+    // 与 query 共有的不同 k-mer 最多的序列，最多 limit 条，共有个数少于 minShared 的不算。用作相似序列搜索的种子候选，
+    // 结果按共有个数降序排列（相同时 id 小的在前）。
+    // 按 id 分段计数：每段只统计一个 id 范围内的命中，计数数组很小且反复使用，每个倒排表只顺序扫描一遍
+    public KmerCandidates mostShared(String query, int limit, int minShared) {
+        List<PostingList.Cursor> cursors = new ArrayList<>();
+        for (int code : distinctKmers(query)) {
+            if (postings[code] != null) {
+                PostingList.Cursor cursor = postings[code].cursor();
+                if (cursor.next()) {
+                    cursors.add(cursor);
+                }
+            }
+        }
+        // 按 (共有个数, -id) 打包成一个 long，堆顶是当前保留的结果中最差的
+        PriorityQueue<Long> best = new PriorityQueue<>();
+        int[] counts = new int[COUNT_WINDOW];
+        for (long base = 0; base <= maxIndexedId && !cursors.isEmpty(); base += COUNT_WINDOW) {
+            long end = base + COUNT_WINDOW;
+            for (int i = cursors.size() - 1; i >= 0; i--) {
+                PostingList.Cursor cursor = cursors.get(i);
+                boolean more = true;
+                while (more && cursor.id() < end) {
+                    counts[(int) (cursor.id() - base)]++;
+                    more = cursor.next();
+                }
+                if (!more) {
+                    cursors.remove(i);
+                }
+            }
+            for (int offset = 0; offset < COUNT_WINDOW; offset++) {
+                int count = counts[offset];
+                if (count == 0) {
+                    continue;
+                }
+                counts[offset] = 0;
+                if (count >= minShared) {
+                    long packed = ((long) count << 40) | (ID_MASK - (base + offset));
+                    if (best.size() < limit) {
+                        best.add(packed);
+                    } else if (packed > best.peek()) {
+                        best.poll();
+                        best.add(packed);
+                    }
+                }
+            }
+        }
+        long[] ids = new long[best.size()];
+        int[] shared = new int[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            long packed = best.poll();
+            ids[i] = ID_MASK - (packed & ID_MASK);
+            shared[i] = (int) (packed >>> 40);
+        }
+        return new KmerCandidates(ids, shared);
+    }
+
+    // query 能否用索引缩小范围
+    public static boolean isSearchable(String query) {
+        return query != null && distinctKmers(query).length > 0;
+    }
+
+    public long getMaxIndexedId() {
+        return maxIndexedId;
+    }
+
+    public long getChangeSequence() {
+        return changeSequence;
+    }
+
+    public void setChangeSequence(long changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(FILE_MAGIC);
+        out.writeInt(FILE_VERSION);
+        out.writeInt(K);
+        out.writeLong(maxIndexedId);
+        out.writeLong(changeSequence);
+        int lists = 0;
+        for (PostingList list : postings) {
+            if (list != null) {
+                lists++;
+            }
+        }
+        out.writeInt(lists);
+        for (int code = 0; code < postings.length; code++) {
+            if (postings[code] != null) {
+                out.writeShort(code);
+                postings[code].write(out);
+            }
+        }
+    }
+
+    public static KmerIndex read(DataInputStream in) throws IOException {
+        if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION || in.readInt() != K) {
+            throw new IOException("Unsupported k-mer index file");
+        }
+        KmerIndex index = new KmerIndex();
+        index.maxIndexedId = in.readLong();
+        index.changeSequence = in.readLong();
+        int lists = in.readInt();
+        for (int i = 0; i < lists; i++) {
+            int code = in.readUnsignedShort();
+            if (code > KMER_MASK) {
+                throw new IOException("Corrupt k-mer index file");
+            }
+            index.postings[code] = PostingList.read(in);
+        }
+        return index;
+    }
+
+    private static int[] distinctKmers(String query) {
+        int[] codes = new int[Math.max(query.length() - K + 1, 0)];
+        int size = 0;
+        int code = 0;
+        int valid = 0;
+        for (int i = 0; i < query.length(); i++) {
+            int residue = encode(query.charAt(i));
+            if (residue == 0) {
+                valid = 0;
+                continue;
+            }
+            code = ((code << BITS_PER_RESIDUE) | residue) & KMER_MASK;
+            if (++valid >= K) {
+                codes[size++] = code;
+            }
+        }
+        return Arrays.stream(codes, 0, size).distinct().toArray();
+    }
+
+    // 字母编码为 1..26（不区分大小写），其他字符为 0
+    private static int encode(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 1;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        return 0;
+    }
+}
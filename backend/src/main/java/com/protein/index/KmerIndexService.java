@@ -0,0 +1,280 @@
+package com.protein.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.protein.data.PackedResidues;
+import com.protein.data.Sequence;
+import com.protein.data.SequenceChangeLog;
+import com.protein.data.SequenceWriteListener;
+
+// 序列子串搜索的 k-mer 索引服务。
+// 查询时用 query 的所有 3-mer 的倒排表求交集得到候选 id，由调用方在候选范围内验证，只有候选需要做子串比较。
+// 索引随批量导入增量更新，定期保存到磁盘，启动时加载并补上文件保存之后新增的记录；没有索引文件时从数据库重建。
+// 覆盖已有记录时导入线程只加入新内容的倒排项；改写、删除和插入到中间的 id 记在 SequenceChangeLog 中，
+// 每次保存之前和启动时按其中的 seq 成批重建这些 id 的倒排项，删除旧内容的倒排项。
+// 索引文件中记录已处理到的 seq，文件保存之后的改动即使进程崩溃也会在下次启动时补上。
+// 索引未就绪或 query 无法使用索引（不含 3 个连续字母）时，调用方应回退到 LIKE 查询。
+@Service
+public class KmerIndexService implements SequenceWriteListener {
+    private static final Logger log = LoggerFactory.getLogger(KmerIndexService.class);
+    private static final String CHANGE_LOG_CONSUMER = "kmer-index";
+    // 重建改动记录时每批处理的 id 个数，每批要遍历一次整个索引
+    private static final int CHANGE_BATCH_SIZE = 100_000;
+    private static final int ID_CHUNK_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SequenceChangeLog changeLog;
+
+    @Value("${protein.index.kmer.enabled:true}")
+    private boolean enabled;
+
+    @Value("${protein.index.kmer.path:sequences.kmer}")
+    private String indexPath;
+
+    @Value("${protein.index.kmer.save-interval-seconds:30}")
+    private long saveIntervalSeconds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private KmerIndex index = new KmerIndex();
+    private volatile boolean ready;
+    private volatile boolean dirty;
+
+    private final ScheduledExecutorService background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kmer-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 在任何组件保存之前注册，加载之前改动记录不会被其他组件的保存删除
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            changeLog.register(CHANGE_LOG_CONSUMER);
+        }
+    }
+
+    // 等数据库表结构就绪后在后台加载索引，加载期间搜索回退到 LIKE
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        background.execute(this::load);
+        background.scheduleWithFixedDelay(this::refresh, saveIntervalSeconds, saveIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        background.shutdownNow();
+        saveIfDirty();
+    }
+
+    @Override
+    public void onBatchCommitted(List<Sequence> sequences) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Sequence sequence : sequences) {
+                index.add(sequence.getId(), sequence.getSequence());
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // 可能包含 query 的记录 id（升序），需要调用方再逐条验证（不区分大小写的子串匹配）。
+    // 索引未就绪或 query 中没有可用的 k-mer 时返回 null
+    public long[] candidates(String query) {
+        if (!ready) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return index.candidates(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 与 query 共有 k-mer 最多的记录，见 KmerIndex.mostShared。索引未就绪时返回 null
+    public KmerCandidates mostShared(String query, int limit, int minShared) {
+        if (!ready) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return index.mostShared(query, limit, minShared);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 加载索引文件并补上之后新增的记录。加载期间持有写锁，导入线程的增量更新会等待加载完成，不会丢失
+    private void load() {
+        lock.writeLock().lock();
+        try {
+            Path path = Path.of(indexPath);
+            KmerIndex loaded = null;
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+                loaded = KmerIndex.read(new DataInputStream(in));
+            } catch (NoSuchFileException e) {
+                log.info("K-mer index file {} not found, rebuilding from database", path);
+            } catch (IOException e) {
+                log.warn("Failed to read k-mer index file {}, rebuilding from database", path, e);
+            }
+            // 数据库中的最大 id 比索引中的还小，说明数据库被替换过，索引已失效
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM sequence", Long.class);
+            if (loaded != null && maxId != null && maxId < loaded.getMaxIndexedId()) {
+                log.info("K-mer index file {} is newer than the database, rebuilding", path);
+                loaded = null;
+            }
+            long startNanos = System.nanoTime();
+            if (loaded != null) {
+                index = loaded;
+                // 文件中已经包含这个位置之前的改动
+                changeLog.saved(CHANGE_LOG_CONSUMER, loaded.getChangeSequence());
+            } else {
+                // 重建时读到的都是最新内容，已有的改动记录都不需要再处理
+                index = new KmerIndex();
+                index.setChangeSequence(changeLog.lastSequence());
+            }
+            long added = catchUp(index.getMaxIndexedId());
+            long changed = loaded != null ? applyChanges() : 0;
+            if (loaded == null || added > 0 || changed > 0) {
+                dirty = true;
+            }
+            ready = true;
+            log.info("K-mer index ready up to id {} ({} sequences added and {} changed sequences re-indexed "
+                    + "from database in {} ms)", index.getMaxIndexedId(), added, changed,
+                    (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (DataAccessException e) {
+            log.warn("Failed to build k-mer index, sequence search falls back to LIKE", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        saveIfDirty();
+    }
+
+    // 定期任务：重建改动过的记录的倒排项，再保存索引
+    private void refresh() {
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (applyChanges() > 0) {
+                dirty = true;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to re-index changed sequences, retrying at the next save", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        saveIfDirty();
+    }
+
+    // 重建 sequence_change 中 seq 大于索引已处理位置、残基序列改变的记录的倒排项，按数据库中的当前内容，返回处理的 id 个数。
+    // 只读取已提交的改动，导入线程之后提交的改动 seq 更大，下次再处理。调用方持有写锁
+    private long applyChanges() {
+        long total = 0;
+        SequenceChangeLog.Changes changes;
+        while ((changes = changeLog.read(index.getChangeSequence(), CHANGE_BATCH_SIZE, true)) != null) {
+            long[] ids = changes.getIds();
+            String[] sequences = new String[ids.length];
+            for (int from = 0; from < ids.length; from += ID_CHUNK_SIZE) {
+                StringJoiner in = new StringJoiner(",", "(", ")");
+                for (int i = from; i < Math.min(ids.length, from + ID_CHUNK_SIZE); i++) {
+                    in.add(Long.toString(ids[i]));
+                }
+                jdbcTemplate.query("SELECT id, sequence, residues FROM sequence WHERE id IN " + in, resultSet -> {
+                    byte[] residues = resultSet.getBytes(3);
+                    sequences[Arrays.binarySearch(ids, resultSet.getLong(1))] =
+                            residues != null ? PackedResidues.unpack(residues) : resultSet.getString(2);
+                });
+            }
+            index.reindex(ids, sequences);
+            index.setChangeSequence(changes.getLastSequence());
+            // 只有其他列改变时也要保存新的位置，之前的改动记录才能删除
+            dirty = true;
+            total += ids.length;
+        }
+        return total;
+    }
+
+    // 把 id > afterId 的记录加入索引，调用方持有写锁
+    private long catchUp(long afterId) {
+        long[] added = new long[1];
+        jdbcTemplate.query("SELECT id, sequence, residues FROM sequence WHERE id > ? ORDER BY id", resultSet -> {
+            byte[] residues = resultSet.getBytes(3);
+            index.add(resultSet.getLong(1), residues != null ? PackedResidues.unpack(residues) : resultSet.getString(2));
+            added[0]++;
+        }, afterId);
+        return added[0];
+    }
+
+    // 在读锁下写入临时文件再原子替换，避免保存到一半时进程退出留下损坏的索引文件
+    private void saveIfDirty() {
+        if (!dirty || !ready) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            dirty = false;
+            Path path = Path.of(indexPath).toAbsolutePath();
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            long changeSequence = index.getChangeSequence();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+                index.write(new DataOutputStream(out));
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            changeLog.saved(CHANGE_LOG_CONSUMER, changeSequence);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Failed to save k-mer index to {}", indexPath, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.protein.index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+// 一个 k-mer 的倒排表：按 id 升序保存，相邻 id 的差值用变长整数（每字节 7 位）编码。
+// 蛋白质 3-mer 的倒排表很密，差值通常只占 1~2 个字节。
+final class PostingList {
+    private byte[] data = new byte[8];
+    private int length;
+    private int count;
+    private long lastId;
+
+    int count() {
+        return count;
+    }
+
+    long lastId() {
+        return lastId;
+    }
+
+    // 追加一个 id；按 id 递增导入时总是走快速路径，id 不大于已有最大值时（覆盖已有记录）退化为解码后合并
+    void add(long id) {
+        if (count == 0 || id > lastId) {
+            writeVarLong(count == 0 ? id : id - lastId);
+            lastId = id;
+            count++;
+        } else if (id != lastId) {
+            long[] ids = decode();
+            int position = Arrays.binarySearch(ids, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            long[] merged = new long[ids.length + 1];
+            System.arraycopy(ids, 0, merged, 0, position);
+            merged[position] = id;
+            System.arraycopy(ids, position, merged, position + 1, ids.length - position);
+            reset();
+            for (long value : merged) {
+                add(value);
+            }
+        }
+    }
+
+    // 删除 removed（升序）中的 id，再合并 added 的前 addedCount 个 id（升序，可以为 null），整个倒排表只重写一次
+    void replace(long[] removed, long[] added, int addedCount) {
+        if (addedCount == 0 && (count == 0 || removed.length == 0 || removed[0] > lastId)) {
+            return;
+        }
+        long[] ids = decode();
+        long[] merged = new long[ids.length + addedCount];
+        int size = 0;
+        int r = 0;
+        int a = 0;
+        for (long id : ids) {
+            while (a < addedCount && added[a] < id) {
+                merged[size++] = added[a++];
+            }
+            while (r < removed.length && removed[r] < id) {
+                r++;
+            }
+            if (r < removed.length && removed[r] == id) {
+                continue;
+            }
+            if (a < addedCount && added[a] == id) {
+                a++;
+            }
+            merged[size++] = id;
+        }
+        while (a < addedCount) {
+            merged[size++] = added[a++];
+        }
+        reset();
+        for (int i = 0; i < size; i++) {
+            add(merged[i]);
+        }
+    }
+
+    long[] decode() {
+        long[] ids = new long[count];
+        long id = 0;
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            id += value;
+            ids[i] = id;
+        }
+        return ids;
+    }
+
+    // 保留 ids 中同时出现在本倒排表中的 id，返回保留的个数（结果写回 ids 的前部）。
+    // 两边都是升序的，一次顺序扫描即可，不需要把本表完整解码出来
+    int retainAll(long[] ids, int size) {
+        int kept = 0;
+        int i = 0;
+        long id = 0;
+        int position = 0;
+        for (int n = 0; n < count && i < size; n++) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            id += value;
+            while (i < size && ids[i] < id) {
+                i++;
+            }
+            if (i < size && ids[i] == id) {
+                ids[kept++] = id;
+                i++;
+            }
+        }
+        return kept;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    // 按 id 升序逐个读取，不需要把整个倒排表解码出来
+    final class Cursor {
+        private int position;
+        private int remaining = count;
+        private long id;
+
+        // 移到下一个 id，没有更多 id 时返回 false
+        boolean next() {
+            if (remaining == 0) {
+                return false;
+            }
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            id += value;
+            remaining--;
+            return true;
+        }
+
+        long id() {
+            return id;
+        }
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(count);
+        out.writeLong(lastId);
+        out.writeInt(length);
+        out.write(data, 0, length);
+    }
+
+    static PostingList read(DataInputStream in) throws IOException {
+        PostingList list = new PostingList();
+        list.count = in.readInt();
+        list.lastId = in.readLong();
+        list.length = in.readInt();
+        list.data = new byte[Math.max(list.length, 8)];
+        in.readFully(list.data, 0, list.length);
+        return list;
+    }
+
+    private void reset() {
+        length = 0;
+        count = 0;
+        lastId = 0;
+    }
+
+    private void writeVarLong(long value) {
+        if (length + 10 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+        }
+        while ((value & ~0x7FL) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+}
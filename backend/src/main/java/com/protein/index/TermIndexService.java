@@ -0,0 +1,53 @@
+package com.protein.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.protein.data.Sequence;
+import com.protein.data.SequenceRepository;
+import com.protein.data.SequenceTerms;
+
+// 多值字段的词条索引。sequence_term 表以 (field, term, sequence_id) 为主键，
+// 按词条精确查找就是一次 B-tree 范围查找，结果天然按 sequence_id 有序，不会像 LIKE 那样把 IPR0007190 当成 IPR000719。
+// 表结构见 SchemaMigrations。词条由 SequenceBulkWriter 在写入记录的同一事务中维护；删除记录时由触发器清理。
+@Service
+public class TermIndexService {
+    // 一次查询最多的词条数
+    public static final int MAX_TERMS = 32;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SequenceRepository sequenceRepository;
+
+    // 按 id 升序返回 id > lastId 的记录：matchAll 为 true 时要求包含全部词条，否则包含任一词条即可
+    public List<Sequence> searchPage(SequenceTerms.Field field, List<String> terms, boolean matchAll,
+                                     long lastId, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder();
+        for (String term : terms) {
+            if (sql.length() > 0) {
+                sql.append(matchAll ? " INTERSECT " : " UNION ");
+            }
+            sql.append("SELECT sequence_id FROM sequence_term WHERE field = ? AND term = ? AND sequence_id > ?");
+            args.add(field.getCode());
+            args.add(term.trim());
+            args.add(lastId);
+        }
+        sql.append(" ORDER BY 1 LIMIT ?");
+        args.add(limit);
+        List<Long> ids = jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Sequence> rows = new ArrayList<>(sequenceRepository.findByIdIn(ids));
+        rows.sort(Comparator.comparing(Sequence::getId));
+        return rows;
+    }
+}
@@ -0,0 +1,40 @@
+package com.protein.ingest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// 统计已读取字节数的输入流，用于报告导入进度
+class CountingInputStream extends FilterInputStream {
+    private final IngestStats stats;
+
+    CountingInputStream(InputStream in, IngestStats stats) {
+        super(in);
+        this.stats = stats;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+        if (value >= 0) {
+            stats.addBytesRead(1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            stats.addBytesRead(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        stats.addBytesRead(skipped);
+        return skipped;
+    }
+}
@@ -0,0 +1,57 @@
+package com.protein.ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// 把 FASTA 文件按记录边界切成若干片段：每个片段都从行首的 '>' 开始，可以独立解析
+final class FastaSplitter {
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private FastaSplitter() {
+    }
+
+    // 返回片段的边界偏移量，第 i 个片段为 [offsets[i], offsets[i + 1])
+    static long[] split(Path path, int parts) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Long> offsets = new ArrayList<>();
+            offsets.add(0L);
+            for (int i = 1; i < parts; i++) {
+                long boundary = nextRecordStart(channel, size * i / parts, size);
+                if (boundary > offsets.get(offsets.size() - 1) && boundary < size) {
+                    offsets.add(boundary);
+                }
+            }
+            offsets.add(size);
+            return offsets.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+
+    // 从 from 开始查找下一个 "\n>"，返回 '>' 的位置；找不到时返回文件大小
+    private static long nextRecordStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = Math.max(0L, from - 1);
+        byte previous = 0;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte current = buffer.get(i);
+                if (current == '>' && previous == '\n') {
+                    return position + i;
+                }
+                previous = current;
+            }
+            position += read;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,89 @@
+package com.protein.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// 只读取文件中 [start, end) 范围的输入流，供多个线程分别解析同一文件的不同片段。
+// 按窗口用 FileChannel.map 映射文件，读取时直接从页缓存复制到解析器的缓冲区，不经过内核到用户态的 read 调用；
+// 每次只映射一个窗口，多 GB 的文件也不会占满地址空间
+class FileRangeInputStream extends InputStream {
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private long position; // 下一个窗口在文件中的起点
+    private final long end;
+    private MappedByteBuffer window;
+
+    FileRangeInputStream(Path path, long start, long end) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.position = start;
+        this.end = Math.min(end, channel.size());
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureWindow()) {
+            return -1;
+        }
+        return window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureWindow()) {
+            return -1;
+        }
+        int count = Math.min(length, window.remaining());
+        window.get(buffer, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long remainingInWindow = window != null ? window.remaining() : 0;
+        if (n < remainingInWindow) {
+            window.position(window.position() + (int) n);
+            return n;
+        }
+        // 跳过当前窗口剩下的部分，下一个窗口从跳过之后的位置开始映射
+        long skipped = Math.min(n - remainingInWindow, end - position) + remainingInWindow;
+        position += skipped - remainingInWindow;
+        window = null;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return window != null ? window.remaining() : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    // 当前窗口读完时映射下一个窗口，范围已经读完时返回 false
+    private boolean ensureWindow() throws IOException {
+        if (window != null && window.hasRemaining()) {
+            return true;
+        }
+        if (position >= end) {
+            return false;
+        }
+        long size = Math.min(WINDOW_SIZE, end - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        position += size;
+        return true;
+    }
+}
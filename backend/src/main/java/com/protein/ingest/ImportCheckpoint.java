@@ -0,0 +1,86 @@
+package com.protein.ingest;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// 服务器本地导入的断点：记录已经提交到数据库的文件片段（文件路径和字节范围 [start, end)）。
+// 断点文件按导入的文件集合（路径、大小和修改时间）命名，文件有变化时不会沿用旧的断点；
+// 再次导入同样的文件时跳过已完成的片段，全部完成后删除断点文件
+final class ImportCheckpoint {
+    private final Path file;
+    private final Set<String> done = new HashSet<>();
+
+    private ImportCheckpoint(Path file) {
+        this.file = file;
+    }
+
+    // 打开 directory 中这组文件对应的断点，没有时返回一个空的断点
+    static ImportCheckpoint open(Path directory, List<Path> files) throws IOException {
+        Files.createDirectories(directory);
+        ImportCheckpoint checkpoint = new ImportCheckpoint(directory.resolve(fingerprint(files) + ".checkpoint"));
+        if (Files.exists(checkpoint.file)) {
+            checkpoint.done.addAll(Files.readAllLines(checkpoint.file, StandardCharsets.UTF_8));
+        }
+        return checkpoint;
+    }
+
+    synchronized boolean isDone(Path path, long start, long end) {
+        return done.contains(key(path, start, end));
+    }
+
+    // 片段的记录都已提交后调用，先写临时文件再替换，进程中途退出时不会留下不完整的断点文件
+    synchronized void markDone(Path path, long start, long end) throws IOException {
+        if (!done.add(key(path, start, end))) {
+            return;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (String line : done) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    synchronized boolean isEmpty() {
+        return done.isEmpty();
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static String key(Path path, long start, long end) {
+        return start + "\t" + end + "\t" + path;
+    }
+
+    private static String fingerprint(List<Path> files) throws IOException {
+        StringBuilder description = new StringBuilder();
+        for (Path path : files.stream().sorted().collect(Collectors.toList())) {
+            description.append(path).append('\t').append(Files.size(path)).append('\t')
+                    .append(Files.getLastModifiedTime(path).toMillis()).append('\n');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(description.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.protein.ingest;
+
+// 导入失败，消息中包含出错的文件名或写入错误
+public class IngestException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public IngestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
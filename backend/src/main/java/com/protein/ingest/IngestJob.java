@@ -0,0 +1,79 @@
+package com.protein.ingest;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.protein.data.DuplicatePolicy;
+
+// 一个后台导入任务，客户端通过 id 轮询其状态和进度
+public class IngestJob {
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    private final String id;
+    private final List<String> fileNames;
+    private final DuplicatePolicy duplicatePolicy;
+    private final Instant submittedAt = Instant.now();
+    private final IngestStats stats = new IngestStats();
+    private volatile State state = State.QUEUED;
+    private volatile Instant finishedAt;
+    private volatile String error; // 导致整个任务失败的错误
+
+    IngestJob(String id, List<String> fileNames, DuplicatePolicy duplicatePolicy) {
+        this.id = id;
+        this.fileNames = fileNames;
+        this.duplicatePolicy = duplicatePolicy;
+    }
+
+    void markRunning() {
+        state = State.RUNNING;
+    }
+
+    void markSucceeded() {
+        finishedAt = Instant.now();
+        state = State.SUCCEEDED;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    public boolean isFinished() {
+        return state == State.SUCCEEDED || state == State.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<String> getFileNames() {
+        return fileNames;
+    }
+
+    public DuplicatePolicy getDuplicatePolicy() {
+        return duplicatePolicy;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public IngestStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,285 @@
+package com.protein.ingest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.protein.data.DuplicatePolicy;
+import com.protein.metrics.Histogram;
+import com.protein.metrics.MetricsRegistry;
+import com.protein.parser.SequenceParser;
+import com.protein.schema.SchemaManager;
+
+// 后台导入任务：上传的文件先落盘，立即返回任务 id，再由后台线程依次导入。
+// 同一时刻只运行一个任务，因为 SQLite 只允许一个写入者；单个任务内部仍然并行解析。
+@Service
+public class IngestJobService {
+    private static final Logger log = LoggerFactory.getLogger(IngestJobService.class);
+    private static final int MAX_RETAINED_JOBS = 100;
+
+    @Autowired
+    private IngestPipeline ingestPipeline;
+
+    @Autowired
+    private SchemaManager schemaManager;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Value("${protein.ingest.dedup:none}")
+    private String defaultDedup;
+
+    @Value("${protein.ingest.import-root:}")
+    private String importRoot;
+
+    @Value("${protein.ingest.checkpoint-dir:import-checkpoints}")
+    private String checkpointDirectory;
+
+    private DuplicatePolicy defaultDuplicatePolicy;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ingest-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 按提交顺序保存最近的任务，超出上限时丢弃最早的已结束任务
+    private final Map<String, IngestJob> jobs = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        defaultDuplicatePolicy = DuplicatePolicy.parse(defaultDedup);
+        if (defaultDuplicatePolicy == null) {
+            throw new IllegalStateException("Unknown protein.ingest.dedup value: " + defaultDedup);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        runner.shutdownNow();
+    }
+
+    // 把上传的文件保存到任务目录并提交任务；请求结束后 MultipartFile 的临时文件会被删除，所以必须在请求线程中落盘。
+    // duplicatePolicy 决定与已有记录内容相同的记录如何处理
+    public IngestJob submit(MultipartFile[] files, DuplicatePolicy duplicatePolicy) throws IOException {
+        Path directory = Files.createTempDirectory("ingest-job-");
+        List<IngestSource> sources = new ArrayList<>();
+        List<String> fileNames = new ArrayList<>();
+        try {
+            for (int i = 0; i < files.length; i++) {
+                String name = files[i].getOriginalFilename() != null ? files[i].getOriginalFilename() : "";
+                // 只取文件名部分，避免路径穿越；序号前缀避免同名文件互相覆盖
+                Path target = directory.resolve(i + "-" + Path.of(name).getFileName());
+                files[i].transferTo(target);
+                sources.add(IngestSource.of(target, name));
+                fileNames.add(name);
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteDirectory(directory);
+            throw e;
+        }
+
+        IngestJob job = new IngestJob(UUID.randomUUID().toString(), fileNames, duplicatePolicy);
+        register(job);
+        runner.submit(() -> run(job, sources, directory, null));
+        return job;
+    }
+
+    // 是否允许导入服务器本地的文件（配置了 protein.ingest.import-root）
+    public boolean isLocalImportEnabled() {
+        return !importRoot.isBlank();
+    }
+
+    // 导入服务器本地的文件，不经过上传：location 可以是文件、目录（导入其中支持格式的文件）或 glob（例如 /data/uniprot/*.fa.gz），
+    // 相对路径相对于 import-root，只能导入 import-root 之下的文件。
+    // 同样的文件中断后再次导入时从断点继续，跳过已经提交的片段
+    public IngestJob submitLocal(String location, DuplicatePolicy duplicatePolicy) throws IOException {
+        List<Path> files = resolveLocal(location);
+        List<IngestSource> sources = new ArrayList<>();
+        List<String> fileNames = new ArrayList<>();
+        for (Path file : files) {
+            sources.add(IngestSource.of(file, file.getFileName().toString()));
+            fileNames.add(file.toString());
+        }
+        IngestJob job = new IngestJob(UUID.randomUUID().toString(), fileNames, duplicatePolicy);
+        register(job);
+        runner.submit(() -> run(job, sources, null, files));
+        return job;
+    }
+
+    // 找出 location 对应的文件，按路径排序；找不到文件或文件不在 import-root 之下时抛出 IllegalArgumentException
+    private List<Path> resolveLocal(String location) throws IOException {
+        if (!isLocalImportEnabled()) {
+            throw new IllegalStateException("Local import is disabled, set protein.ingest.import-root");
+        }
+        Path root = Path.of(importRoot).toRealPath();
+        int glob = indexOfGlob(location);
+        List<Path> candidates;
+        if (glob < 0) {
+            Path path = root.resolve(location);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> children = Files.list(path)) {
+                    candidates = children.filter(Files::isRegularFile)
+                            .filter(child -> !SequenceParser.formatOf(child.getFileName().toString()).equals("other"))
+                            .collect(Collectors.toList());
+                }
+            } else {
+                candidates = List.of(path);
+            }
+        } else {
+            // glob 之前最后一个目录作为起点向下查找，按完整路径匹配
+            int separator = location.lastIndexOf('/', glob);
+            Path base = root.resolve(separator < 0 ? "" : location.substring(0, separator + 1));
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + root.resolve(location));
+            if (!Files.isDirectory(base)) {
+                candidates = List.of();
+            } else {
+                try (Stream<Path> paths = Files.walk(base)) {
+                    candidates = paths.filter(Files::isRegularFile).filter(matcher::matches)
+                            .collect(Collectors.toList());
+                }
+            }
+        }
+        List<Path> files = new ArrayList<>();
+        for (Path candidate : candidates) {
+            if (!Files.isRegularFile(candidate)) {
+                throw new IllegalArgumentException("Not a file: " + candidate);
+            }
+            // 解析符号链接和 .. 之后再检查，避免导入 import-root 之外的文件
+            Path real = candidate.toRealPath();
+            if (!real.startsWith(root)) {
+                throw new IllegalArgumentException("Not under protein.ingest.import-root: " + candidate);
+            }
+            files.add(real);
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No files match " + location);
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private static int indexOfGlob(String location) {
+        for (int i = 0; i < location.length(); i++) {
+            if ("*?[{".indexOf(location.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // 上传时没有指定 dedup 参数时使用的策略
+    public DuplicatePolicy getDefaultDuplicatePolicy() {
+        return defaultDuplicatePolicy;
+    }
+
+    public IngestJob get(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    // directory 是上传文件所在的临时目录，导入结束后删除；checkpointFiles 不为 null 时按片段续传，全部成功后删除断点。
+    // 断点在任务开始运行时才打开：排在前面的任务可能正在导入同样的文件，打开得早会读到它运行之前的断点，重复导入已提交的片段
+    private void run(IngestJob job, List<IngestSource> sources, Path directory, List<Path> checkpointFiles) {
+        job.markRunning();
+        long start = System.nanoTime();
+        String outcome = "succeeded";
+        try {
+            ImportCheckpoint checkpoint = null;
+            if (checkpointFiles != null) {
+                checkpoint = ImportCheckpoint.open(Path.of(checkpointDirectory), checkpointFiles);
+                if (!checkpoint.isEmpty()) {
+                    log.info("Ingest job {} resumes from checkpoint", job.getId());
+                }
+            }
+            ingestPipeline.ingest(sources, job.getStats(), job.getDuplicatePolicy(), checkpoint);
+            if (checkpoint != null && job.getStats().getFileErrors().isEmpty()) {
+                deleteCheckpoint(checkpoint);
+            }
+            if (job.getStats().getRows() > 0) {
+                // 批量导入后数据分布可能变化很大，更新统计信息让 SQLite 在索引之间做出正确选择
+                schemaManager.analyze();
+            }
+            job.markSucceeded();
+        } catch (IngestException | IOException | RuntimeException e) {
+            outcome = "failed";
+            log.error("Ingest job {} failed", job.getId(), e);
+            job.markFailed(e.getMessage());
+        } finally {
+            if (directory != null) {
+                deleteDirectory(directory);
+            }
+            IngestStats stats = job.getStats();
+            metricsRegistry.counter("protein_ingest_jobs_total", "Finished ingest jobs by outcome",
+                    "outcome", outcome).increment();
+            metricsRegistry.histogram("protein_ingest_job_seconds", "Duration of ingest jobs including ANALYZE",
+                    Histogram.SECONDS).observeNanos(System.nanoTime() - start);
+            metricsRegistry.counter("protein_ingest_rows_written_total", "Rows written by ingest jobs")
+                    .increment(stats.getRows());
+            metricsRegistry.counter("protein_ingest_bytes_read_total", "Bytes read by ingest jobs")
+                    .increment(stats.getBytesRead());
+            metricsRegistry.counter("protein_ingest_file_errors_total", "Files that could not be ingested")
+                    .increment(stats.getFileErrors().size());
+        }
+    }
+
+    // 断点删除失败时再次导入同样的文件会跳过全部片段，不会重复写入
+    private static void deleteCheckpoint(ImportCheckpoint checkpoint) {
+        try {
+            checkpoint.delete();
+        } catch (IOException e) {
+            log.warn("Failed to delete import checkpoint", e);
+        }
+    }
+
+    private void register(IngestJob job) {
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            if (jobs.size() > MAX_RETAINED_JOBS) {
+                jobs.values().stream()
+                        .filter(IngestJob::isFinished)
+                        .findFirst()
+                        .ifPresent(oldest -> jobs.remove(oldest.getId()));
+            }
+        }
+    }
+
+    private static void deleteDirectory(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException ignored) {
+            // 临时文件删除失败不影响导入结果
+        }
+    }
+}
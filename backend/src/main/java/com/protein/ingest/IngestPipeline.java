@@ -0,0 +1,395 @@
+package com.protein.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.protein.data.DuplicatePolicy;
+import com.protein.data.Sequence;
+import com.protein.data.SequenceBulkWriter;
+import com.protein.metrics.Histogram;
+import com.protein.metrics.MetricsRegistry;
+import com.protein.parser.Compression;
+import com.protein.parser.SequenceParser;
+import com.protein.parser.SequenceReader;
+
+// 生产者/消费者导入流水线：
+// 多个解析线程并行解析文件（大的 FASTA 文件按记录边界切成多段分别解析），
+// 解析结果按批放入有界队列，由调用线程作为唯一的写入者批量写入 SQLite（SQLite 同一时刻只允许一个写入者）。
+// 队列满时解析线程等待，从而限制内存中未写入的记录数。
+// 某个文件解析出错时只记录该文件的错误，其余文件继续导入；但出错之前已经交给写入者的记录无法撤回，
+// 这种部分导入的文件在错误中记下已导入的记录数，并使整个导入失败。写入数据库出错则终止整个导入。
+@Component
+public class IngestPipeline {
+    private static final Logger log = LoggerFactory.getLogger(IngestPipeline.class);
+    private static final int PARSE_BATCH_SIZE = 1000;
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    @Autowired
+    private SequenceBulkWriter sequenceBulkWriter;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Value("${protein.ingest.parallelism:0}")
+    private int configuredParallelism;
+
+    @Value("${protein.ingest.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${protein.ingest.split-threshold-mb:32}")
+    private long splitThresholdMb;
+
+    @Value("${protein.ingest.checkpoint-segment-mb:64}")
+    private long checkpointSegmentMb;
+
+    private int parallelism;
+    private ExecutorService parsers;
+
+    @PostConstruct
+    public void start() {
+        // 未配置时使用全部 CPU 核心
+        parallelism = configuredParallelism > 0 ? configuredParallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "ingest-parser-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        parsers = Executors.newFixedThreadPool(parallelism, threadFactory);
+    }
+
+    @PreDestroy
+    public void stop() {
+        parsers.shutdownNow();
+    }
+
+    // 导入所有文件，stats 在导入过程中持续更新，可供其他线程读取进度
+    public IngestStats ingest(List<IngestSource> sources, IngestStats stats) throws IngestException {
+        return ingest(sources, stats, DuplicatePolicy.NONE);
+    }
+
+    // 导入所有文件，与已有记录（及本次导入中更早的记录）内容相同的记录按 duplicatePolicy 处理
+    public IngestStats ingest(List<IngestSource> sources, IngestStats stats, DuplicatePolicy duplicatePolicy)
+            throws IngestException {
+        return ingest(sources, stats, duplicatePolicy, null);
+    }
+
+    // 带断点的导入：磁盘上的文件按片段导入，跳过 checkpoint 中已完成的片段，每个片段的记录全部提交后记入 checkpoint
+    IngestStats ingest(List<IngestSource> sources, IngestStats stats, DuplicatePolicy duplicatePolicy,
+                       ImportCheckpoint checkpoint) throws IngestException {
+        stats.setFiles(sources.size());
+        stats.setParallelism(parallelism);
+        List<Path> tempFiles = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        AtomicReference<IngestException> failure = new AtomicReference<>();
+        Map<Integer, IngestStats.FileError> parseErrors = new ConcurrentHashMap<>();
+        long[] recordsBySource = new long[sources.size()];
+        try {
+            List<ParseTask> tasks = planTasks(sources, stats, tempFiles, checkpoint);
+            BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+            AtomicInteger remaining = new AtomicInteger(tasks.size());
+            for (ParseTask task : tasks) {
+                futures.add(parsers.submit(() -> parse(task, queue, remaining, failure, stats, parseErrors)));
+            }
+            write(queue, remaining, failure, stats, duplicatePolicy, checkpoint, recordsBySource);
+            checkPartialFiles(parseErrors, recordsBySource);
+            return stats;
+        } finally {
+            if (failure.get() != null) {
+                futures.forEach(future -> future.cancel(true));
+            }
+            for (Path tempFile : tempFiles) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignored) {
+                    // 临时文件删除失败不影响导入结果
+                }
+            }
+            stats.finish();
+        }
+    }
+
+    // 解析出错的文件中已经有记录写入时，在错误中记下记录数并让导入失败，而不是当作只是跳过了这个文件
+    private static void checkPartialFiles(Map<Integer, IngestStats.FileError> parseErrors, long[] recordsBySource)
+            throws IngestException {
+        List<String> partial = new ArrayList<>();
+        parseErrors.forEach((source, error) -> {
+            if (recordsBySource[source] > 0) {
+                error.setRecordsImported(recordsBySource[source]);
+                partial.add(error.getFile() + " (" + recordsBySource[source] + " records)");
+            }
+        });
+        if (!partial.isEmpty()) {
+            throw new IngestException("Files failed to parse after some of their records were imported: "
+                    + String.join(", ", partial), null);
+        }
+    }
+
+    // 为每个文件生成解析任务；足够大的未压缩 FASTA 文件按记录边界切成 parallelism 段。
+    // 带断点时磁盘上的文件都按片段导入：未压缩的 FASTA 文件按 checkpoint-segment-mb 切分，其他文件整个作为一段
+    private List<ParseTask> planTasks(List<IngestSource> sources, IngestStats stats, List<Path> tempFiles,
+                                      ImportCheckpoint checkpoint) {
+        List<ParseTask> tasks = new ArrayList<>();
+        for (int index = 0; index < sources.size(); index++) {
+            IngestSource source = sources.get(index);
+            int sourceIndex = index;
+            String name = source.getName();
+            long size = source.getSize();
+            stats.addBytesTotal(size);
+            boolean fasta = name != null && SequenceParser.isFasta(name);
+            try {
+                if (checkpoint != null && source.getPath() != null) {
+                    Path file = source.getPath();
+                    // 片段数只由文件大小决定，修改解析线程数后仍然能沿用断点
+                    long segmentBytes = checkpointSegmentMb * 1024 * 1024;
+                    long[] offsets = fasta && Compression.detect(file) == Compression.NONE
+                            ? FastaSplitter.split(file, (int) Math.max(1, (size + segmentBytes - 1) / segmentBytes))
+                            : new long[] {0, size};
+                    for (int i = 0; i + 1 < offsets.length; i++) {
+                        long start = offsets[i];
+                        long end = offsets[i + 1];
+                        if (checkpoint.isDone(file, start, end)) {
+                            stats.addBytesSkipped(end - start);
+                        } else {
+                            tasks.add(new ParseTask(sourceIndex, name, () -> new FileRangeInputStream(file, start, end),
+                                    file, start, end));
+                        }
+                    }
+                } else if (parallelism > 1 && fasta && size >= splitThresholdMb * 1024 * 1024) {
+                    Path path = source.getPath();
+                    if (path == null) {
+                        // 上传的文件先落盘，才能按偏移量并行读取
+                        path = Files.createTempFile("ingest-", ".fasta");
+                        tempFiles.add(path);
+                        source.transferTo(path);
+                    }
+                    Path file = path;
+                    if (Compression.detect(file) != Compression.NONE) {
+                        // 压缩文件不能按字节偏移量切分，整个文件由一个解析线程读取（bgzip 的块仍然并行解压）
+                        tasks.add(new ParseTask(sourceIndex, name, () -> new FileRangeInputStream(file, 0, Long.MAX_VALUE)));
+                        continue;
+                    }
+                    long[] offsets = FastaSplitter.split(file, parallelism);
+                    for (int i = 0; i + 1 < offsets.length; i++) {
+                        long start = offsets[i];
+                        long end = offsets[i + 1];
+                        tasks.add(new ParseTask(sourceIndex, name, () -> new FileRangeInputStream(file, start, end)));
+                    }
+                } else {
+                    tasks.add(new ParseTask(sourceIndex, name, source::openStream));
+                }
+            } catch (IOException e) {
+                stats.addFileError(name, describe(e));
+            }
+        }
+        return tasks;
+    }
+
+    // 解析线程：逐条读取记录，凑满一批后放入队列
+    private void parse(ParseTask task, BlockingQueue<Batch> queue, AtomicInteger remaining,
+                       AtomicReference<IngestException> failure, IngestStats stats,
+                       Map<Integer, IngestStats.FileError> parseErrors) {
+        // 解析耗时不含等待队列的时间
+        long parseNanos = 0;
+        long records = 0;
+        String format = SequenceParser.formatOf(task.fileName);
+        try (SequenceReader reader = SequenceParser.open(new CountingInputStream(task.opener.open(), stats), task.fileName)) {
+            List<Sequence> batch = new ArrayList<>(PARSE_BATCH_SIZE);
+            long batchStart = System.nanoTime();
+            Sequence sequence;
+            while ((sequence = reader.read()) != null) {
+                batch.add(sequence);
+                if (batch.size() == PARSE_BATCH_SIZE) {
+                    long elapsed = System.nanoTime() - batchStart;
+                    stats.addParsed(batch.size(), elapsed);
+                    parseNanos += elapsed;
+                    records += batch.size();
+                    if (!offer(queue, new Batch(task, batch, false), failure, stats)) {
+                        return;
+                    }
+                    batch = new ArrayList<>(PARSE_BATCH_SIZE);
+                    batchStart = System.nanoTime();
+                }
+            }
+            long elapsed = System.nanoTime() - batchStart;
+            stats.addParsed(batch.size(), elapsed);
+            parseNanos += elapsed;
+            records += batch.size();
+            // 最后一批（可能为空）带上结束标记，写入者提交后把片段记入断点
+            offer(queue, new Batch(task, batch, true), failure, stats);
+        } catch (IOException | RuntimeException e) {
+            // 切分的文件只记录第一个出错的片段
+            parseErrors.computeIfAbsent(task.source, source -> stats.addFileError(task.fileName, describe(e)));
+            metricsRegistry.counter("protein_ingest_parse_errors_total", "Files that failed to parse",
+                    "format", format).increment();
+        } finally {
+            remaining.decrementAndGet();
+            metricsRegistry.histogram("protein_ingest_parse_seconds",
+                    "Parse time per file (or per segment of a split FASTA file), excluding queue waits",
+                    Histogram.SECONDS, "format", format).observeNanos(parseNanos);
+            metricsRegistry.histogram("protein_ingest_parse_records",
+                    "Records parsed per file (or per segment of a split FASTA file)",
+                    Histogram.COUNTS, "format", format).observe(records);
+            metricsRegistry.counter("protein_ingest_records_parsed_total", "Records parsed",
+                    "format", format).increment(records);
+        }
+    }
+
+    // 放入队列，队列满时等待；导入已经失败时放弃并返回 false
+    private static boolean offer(BlockingQueue<Batch> queue, Batch batch,
+                                 AtomicReference<IngestException> failure, IngestStats stats) {
+        long waitStart = System.nanoTime();
+        try {
+            while (failure.get() == null) {
+                if (queue.offer(batch, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            stats.addProducerBlocked(System.nanoTime() - waitStart);
+        }
+    }
+
+    // 写入者：从队列中取出批次写入数据库，直到所有解析任务结束且队列为空。recordsBySource 按文件累计交给写入会话的记录数
+    private void write(BlockingQueue<Batch> queue, AtomicInteger remaining,
+                       AtomicReference<IngestException> failure, IngestStats stats,
+                       DuplicatePolicy duplicatePolicy, ImportCheckpoint checkpoint,
+                       long[] recordsBySource) throws IngestException {
+        try (SequenceBulkWriter.Session session = sequenceBulkWriter.openSession(duplicatePolicy)) {
+            while (failure.get() == null) {
+                long idleStart = System.nanoTime();
+                Batch batch = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch == null && remaining.get() == 0) {
+                    // 所有解析任务都已结束，取完队列中剩下的批次
+                    batch = queue.poll();
+                    if (batch == null) {
+                        stats.addWriterIdle(System.nanoTime() - idleStart);
+                        break;
+                    }
+                }
+                stats.addWriterIdle(System.nanoTime() - idleStart);
+                if (batch == null) {
+                    continue;
+                }
+                long writeStart = System.nanoTime();
+                long writtenBefore = session.getRowsWritten();
+                for (Sequence sequence : batch.sequences) {
+                    session.add(sequence);
+                }
+                recordsBySource[batch.task.source] += batch.sequences.size();
+                if (batch.last && checkpoint != null && batch.task.file != null) {
+                    // 提交这个片段剩下的记录（同时也提交了其他片段已经加入的记录，它们的片段还没有完成，不记入断点）
+                    session.flush();
+                    markDone(checkpoint, batch.task);
+                }
+                stats.addWritten(session.getRowsWritten() - writtenBefore, System.nanoTime() - writeStart);
+                recordDuplicates(session, stats);
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            long writeStart = System.nanoTime();
+            long writtenBefore = session.getRowsWritten();
+            session.flush();
+            stats.addWritten(session.getRowsWritten() - writtenBefore, System.nanoTime() - writeStart);
+            recordDuplicates(session, stats);
+        } catch (SQLException e) {
+            IngestException exception = new IngestException("Error writing sequences: " + e.getMessage(), e);
+            failure.compareAndSet(null, exception);
+            throw exception;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            IngestException exception = new IngestException("Ingest interrupted", e);
+            failure.compareAndSet(null, exception);
+            throw exception;
+        }
+    }
+
+    // 断点写不进去时只影响中断后的续传，导入本身继续
+    private static void markDone(ImportCheckpoint checkpoint, ParseTask task) {
+        try {
+            checkpoint.markDone(task.file, task.start, task.end);
+        } catch (IOException e) {
+            log.warn("Failed to record import checkpoint for {} [{}, {})", task.file, task.start, task.end, e);
+        }
+    }
+
+    private static void recordDuplicates(SequenceBulkWriter.Session session, IngestStats stats) {
+        stats.setDuplicates(session.getDuplicatesSkipped(), session.getDuplicatesReplaced(),
+                session.getDuplicatesMerged());
+    }
+
+    private static String describe(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+
+    @FunctionalInterface
+    private interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+
+    // 一个解析任务：整个文件或文件中的一段。带断点导入时 file 和 [start, end) 是片段在磁盘上的位置，否则 file 为 null
+    private static class ParseTask {
+        private final int source; // 所属文件在 sources 中的下标
+        private final String fileName;
+        private final StreamOpener opener;
+        private final Path file;
+        private final long start;
+        private final long end;
+
+        private ParseTask(int source, String fileName, StreamOpener opener) {
+            this(source, fileName, opener, null, 0, 0);
+        }
+
+        private ParseTask(int source, String fileName, StreamOpener opener, Path file, long start, long end) {
+            this.source = source;
+            this.fileName = fileName;
+            this.opener = opener;
+            this.file = file;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    // 解析线程交给写入者的一批记录，last 表示这是该解析任务的最后一批
+    private static class Batch {
+        private final ParseTask task;
+        private final List<Sequence> sequences;
+        private final boolean last;
+
+        private Batch(ParseTask task, List<Sequence> sequences, boolean last) {
+            this.task = task;
+            this.sequences = sequences;
+            this.last = last;
+        }
+    }
+}
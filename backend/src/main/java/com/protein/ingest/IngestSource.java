@@ -0,0 +1,83 @@
+package com.protein.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.web.multipart.MultipartFile;
+
+// 待导入的一个文件，可以来自上传的 MultipartFile，也可以是服务器磁盘上的文件
+public interface IngestSource {
+    // 文件名，用于按后缀识别格式
+    String getName();
+
+    long getSize();
+
+    InputStream openStream() throws IOException;
+
+    // 文件在磁盘上的路径，可以按记录边界切分并行解析；不在磁盘上时返回 null
+    default Path getPath() {
+        return null;
+    }
+
+    // 把内容写到磁盘上的 target 文件
+    default void transferTo(Path target) throws IOException {
+        try (InputStream inputStream = openStream()) {
+            Files.copy(inputStream, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static IngestSource of(MultipartFile file) {
+        return new IngestSource() {
+            @Override
+            public String getName() {
+                return file.getOriginalFilename();
+            }
+
+            @Override
+            public long getSize() {
+                return file.getSize();
+            }
+
+            @Override
+            public InputStream openStream() throws IOException {
+                return file.getInputStream();
+            }
+
+            @Override
+            public void transferTo(Path target) throws IOException {
+                file.transferTo(target);
+            }
+        };
+    }
+
+    static IngestSource of(Path path, String name) {
+        return new IngestSource() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public long getSize() {
+                try {
+                    return Files.size(path);
+                } catch (IOException e) {
+                    return 0L;
+                }
+            }
+
+            @Override
+            public InputStream openStream() throws IOException {
+                return new FileRangeInputStream(path, 0, Long.MAX_VALUE);
+            }
+
+            @Override
+            public Path getPath() {
+                return path;
+            }
+        };
+    }
+}
@@ -0,0 +1,190 @@
+package com.protein.ingest;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 一次导入各阶段的计数器，解析线程和写入线程并发更新
+public class IngestStats {
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong bytesTotal = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong bytesSkipped = new AtomicLong(); // 断点续传时跳过的已完成片段的字节数
+    private final AtomicLong recordsParsed = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong(); // 所有解析线程累计的解析耗时
+    private final AtomicLong producerBlockedNanos = new AtomicLong(); // 解析线程因队列已满而等待的累计时间
+    private final AtomicLong recordsWritten = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong(); // 写入线程实际写数据库的耗时
+    private final AtomicLong writerIdleNanos = new AtomicLong(); // 写入线程等待解析结果的时间
+    private volatile long duplicatesSkipped;
+    private volatile long duplicatesReplaced;
+    private volatile long duplicatesMerged;
+    private final List<FileError> fileErrors = new CopyOnWriteArrayList<>();
+    private volatile long finishNanos;
+    private volatile int files;
+    private volatile int parallelism;
+
+    void addBytesTotal(long bytes) {
+        bytesTotal.addAndGet(bytes);
+    }
+
+    void addBytesRead(long bytes) {
+        bytesRead.addAndGet(bytes);
+    }
+
+    void addBytesSkipped(long bytes) {
+        bytesSkipped.addAndGet(bytes);
+    }
+
+    FileError addFileError(String file, String message) {
+        FileError error = new FileError(file, message);
+        fileErrors.add(error);
+        return error;
+    }
+
+    void addParsed(long records, long nanos) {
+        recordsParsed.addAndGet(records);
+        parseNanos.addAndGet(nanos);
+    }
+
+    void addProducerBlocked(long nanos) {
+        producerBlockedNanos.addAndGet(nanos);
+    }
+
+    void addWritten(long records, long nanos) {
+        recordsWritten.addAndGet(records);
+        writeNanos.addAndGet(nanos);
+    }
+
+    void addWriterIdle(long nanos) {
+        writerIdleNanos.addAndGet(nanos);
+    }
+
+    // 只有写入线程更新，直接使用写入会话中的累计值
+    void setDuplicates(long skipped, long replaced, long merged) {
+        duplicatesSkipped = skipped;
+        duplicatesReplaced = replaced;
+        duplicatesMerged = merged;
+    }
+
+    void setFiles(int files) {
+        this.files = files;
+    }
+
+    void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    void finish() {
+        finishNanos = System.nanoTime();
+    }
+
+    public int getFiles() {
+        return files;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getBytesTotal() {
+        return bytesTotal.get();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    public long getBytesSkipped() {
+        return bytesSkipped.get();
+    }
+
+    public List<FileError> getFileErrors() {
+        return fileErrors;
+    }
+
+    public long getRecordsParsed() {
+        return recordsParsed.get();
+    }
+
+    public long getRows() {
+        return recordsWritten.get();
+    }
+
+    public long getDuplicatesSkipped() {
+        return duplicatesSkipped;
+    }
+
+    public long getDuplicatesReplaced() {
+        return duplicatesReplaced;
+    }
+
+    public long getDuplicatesMerged() {
+        return duplicatesMerged;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos() / 1_000_000;
+    }
+
+    // 端到端的写入速度
+    public double getRowsPerSecond() {
+        return perSecond(recordsWritten.get(), elapsedNanos());
+    }
+
+    // 单个解析线程的平均解析速度
+    public double getParseRecordsPerSecondPerWorker() {
+        return perSecond(recordsParsed.get(), parseNanos.get());
+    }
+
+    // 写入线程忙碌时的写入速度
+    public double getWriteRowsPerSecond() {
+        return perSecond(recordsWritten.get(), writeNanos.get());
+    }
+
+    public long getProducerBlockedMillis() {
+        return producerBlockedNanos.get() / 1_000_000;
+    }
+
+    public long getWriterIdleMillis() {
+        return writerIdleNanos.get() / 1_000_000;
+    }
+
+    private long elapsedNanos() {
+        long end = finishNanos != 0 ? finishNanos : System.nanoTime();
+        return end - startNanos;
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos > 0 ? count * 1_000_000_000.0 / nanos : 0.0;
+    }
+
+    // 单个文件的解析错误，出错的文件不影响其他文件的导入。
+    // recordsImported 是出错之前已经写入的该文件的记录数，不为 0 时整个导入失败
+    public static class FileError {
+        private final String file;
+        private final String message;
+        private volatile long recordsImported;
+
+        public FileError(String file, String message) {
+            this.file = file;
+            this.message = message;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getRecordsImported() {
+            return recordsImported;
+        }
+
+        void setRecordsImported(long recordsImported) {
+            this.recordsImported = recordsImported;
+        }
+    }
+}
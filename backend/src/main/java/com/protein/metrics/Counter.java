@@ -0,0 +1,23 @@
+package com.protein.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// 只增不减的计数器
+public final class Counter {
+    private final LongAdder value = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void increment(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
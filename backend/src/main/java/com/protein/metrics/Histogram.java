@@ -0,0 +1,55 @@
+package com.protein.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// 直方图：按固定的桶上界统计观测值的分布，以及观测次数和总和，与 Prometheus 的 histogram 类型对应。
+// 耗时一律以秒为单位记录
+public final class Histogram {
+    // 耗时（秒）的桶上界，覆盖 1 毫秒到 5 分钟
+    public static final double[] SECONDS = {
+            0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300};
+    // 行数、记录数等数量的桶上界，按 10 倍递增
+    public static final double[] COUNTS = {0, 1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+
+    private final double[] bounds;
+    private final AtomicLongArray buckets; // 每个桶单独计数，最后一个是 +Inf；输出时再累加
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(double[] bounds) {
+        this.bounds = bounds;
+        this.buckets = new AtomicLongArray(bounds.length + 1);
+    }
+
+    public void observe(double value) {
+        int i = 0;
+        while (i < bounds.length && value > bounds[i]) {
+            i++;
+        }
+        buckets.incrementAndGet(i);
+        count.increment();
+        sum.add(value);
+    }
+
+    public void observeNanos(long nanos) {
+        observe(nanos / 1e9);
+    }
+
+    double[] getBounds() {
+        return bounds;
+    }
+
+    long getBucket(int i) {
+        return buckets.get(i);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+}
@@ -0,0 +1,87 @@
+package com.protein.metrics;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+// 连接池（HikariCP）的指标：取得连接的等待时间、连接的占用时间、等待超时次数，以及抓取时的活动、空闲连接数和等待线程数。
+// 等待时间长说明连接池太小，或者有长时间占用连接的操作（例如导入会话独占写连接）。读、写两个连接池分别统计
+@Component
+public class JdbcPoolMetrics {
+    private static final Logger log = LoggerFactory.getLogger(JdbcPoolMetrics.class);
+
+    @Autowired
+    private List<DataSource> dataSources;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @PostConstruct
+    public void register() {
+        // 路由数据源和各个连接池都是 DataSource bean，同一个连接池只注册一次
+        Set<HikariDataSource> pools = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (DataSource dataSource : dataSources) {
+            HikariDataSource hikari = unwrap(dataSource);
+            if (hikari != null && pools.add(hikari)) {
+                hikari.setMetricsTrackerFactory(this::tracker);
+            }
+        }
+        if (pools.isEmpty()) {
+            log.info("Data source is not a HikariCP pool, connection metrics disabled");
+        }
+    }
+
+    private static HikariDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private IMetricsTracker tracker(String poolName, PoolStats poolStats) {
+        String[] pool = {"pool", poolName};
+        Histogram acquire = metricsRegistry.histogram("protein_jdbc_connection_acquire_seconds",
+                "Time spent waiting for a pooled JDBC connection", Histogram.SECONDS, pool);
+        Histogram usage = metricsRegistry.histogram("protein_jdbc_connection_usage_seconds",
+                "Time a JDBC connection was held before being returned to the pool", Histogram.SECONDS, pool);
+        Counter timeouts = metricsRegistry.counter("protein_jdbc_connection_timeouts_total",
+                "Connection requests that timed out waiting for the pool", pool);
+        metricsRegistry.gauge("protein_jdbc_connections_active", "Connections currently in use",
+                poolStats::getActiveConnections, pool);
+        metricsRegistry.gauge("protein_jdbc_connections_idle", "Idle connections in the pool",
+                poolStats::getIdleConnections, pool);
+        metricsRegistry.gauge("protein_jdbc_connections_pending", "Threads waiting for a connection",
+                poolStats::getPendingThreads, pool);
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquire.observeNanos(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usage.observe(elapsedBorrowedMillis / 1000.0);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+}
@@ -0,0 +1,146 @@
+package com.protein.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+// 进程内的指标注册表，按 Prometheus 文本格式（0.0.4）输出，由 /api/metrics 提供给 Prometheus 抓取。
+// 同名指标构成一族，族内按标签取值区分；同样的名称和标签总是返回同一个对象，调用方可以保存起来反复使用。
+// 标签取值应当来自有限的集合（格式、类别、访问路径等），不要把用户输入的内容作为标签
+@Component
+public class MetricsRegistry {
+    private enum Type {
+        COUNTER, GAUGE, HISTOGRAM
+    }
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final Type type;
+        final String[] labelNames;
+        final double[] bounds;
+        final Map<List<String>, Object> children = new ConcurrentHashMap<>();
+
+        Family(String name, String help, Type type, String[] labelNames, double[] bounds) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.labelNames = labelNames;
+            this.bounds = bounds;
+        }
+    }
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    // labels 依次是标签名和取值，例如 counter(name, help, "format", "tsv")
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) child(name, help, Type.COUNTER, null, labels, Counter::new);
+    }
+
+    public Histogram histogram(String name, String help, double[] bounds, String... labels) {
+        return (Histogram) child(name, help, Type.HISTOGRAM, bounds, labels, () -> new Histogram(bounds));
+    }
+
+    // 抓取时才读取取值的指标，例如连接池中的活动连接数
+    public void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        child(name, help, Type.GAUGE, null, labels, () -> supplier);
+    }
+
+    private Object child(String name, String help, Type type, double[] bounds, String[] labels,
+                         Supplier<Object> factory) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs: " + Arrays.toString(labels));
+        }
+        String[] labelNames = new String[labels.length / 2];
+        List<String> labelValues = new ArrayList<>(labels.length / 2);
+        for (int i = 0; i < labels.length; i += 2) {
+            labelNames[i / 2] = labels[i];
+            labelValues.add(labels[i + 1] != null ? labels[i + 1] : "");
+        }
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type, labelNames, bounds));
+        if (family.type != type || !Arrays.equals(family.labelNames, labelNames)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered with different type or labels");
+        }
+        return family.children.computeIfAbsent(labelValues, key -> factory.get());
+    }
+
+    // 以 Prometheus 文本格式写出全部指标
+    public void scrape(Writer out) throws IOException {
+        for (Family family : families.values()) {
+            out.write("# HELP " + family.name + " " + escapeHelp(family.help) + "\n");
+            out.write("# TYPE " + family.name + " " + family.type.name().toLowerCase() + "\n");
+            for (Map.Entry<List<String>, Object> entry : family.children.entrySet()) {
+                String labels = labels(family.labelNames, entry.getKey(), null);
+                switch (family.type) {
+                    case COUNTER:
+                        sample(out, family.name, labels, ((Counter) entry.getValue()).get());
+                        break;
+                    case GAUGE:
+                        sample(out, family.name, labels, ((DoubleSupplier) entry.getValue()).getAsDouble());
+                        break;
+                    default:
+                        Histogram histogram = (Histogram) entry.getValue();
+                        long cumulative = 0;
+                        double[] bounds = histogram.getBounds();
+                        for (int i = 0; i <= bounds.length; i++) {
+                            cumulative += histogram.getBucket(i);
+                            String le = i < bounds.length ? format(bounds[i]) : "+Inf";
+                            sample(out, family.name + "_bucket", labels(family.labelNames, entry.getKey(), le), cumulative);
+                        }
+                        sample(out, family.name + "_sum", labels, histogram.getSum());
+                        sample(out, family.name + "_count", labels, histogram.getCount());
+                        break;
+                }
+            }
+        }
+    }
+
+    private static void sample(Writer out, String name, String labels, double value) throws IOException {
+        out.write(name);
+        out.write(labels);
+        out.write(' ');
+        out.write(format(value));
+        out.write('\n');
+    }
+
+    private static String labels(String[] names, List<String> values, String le) {
+        if (names.length == 0 && le == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(names[i]).append("=\"").append(escapeLabel(values.get(i))).append('"');
+        }
+        if (le != null) {
+            builder.append(names.length > 0 ? "," : "").append("le=\"").append(le).append('"');
+        }
+        return builder.append('}').toString();
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,201 @@
+package com.protein.parser;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// 解压 BGZF（bgzip）文件的输入流。BGZF 文件由一串独立的 gzip 块组成，块头的 BC 子字段记录块的总长度，
+// 所以读取线程只需按长度切出压缩块，解压交给线程池并行执行；按块的顺序取回结果，保证输出顺序不变。
+// 同时在解压中的块数有上限，限制占用的内存
+class BgzipInputStream extends InputStream {
+    // gzip 固定头 10 字节加上 XLEN 2 字节
+    private static final int FIXED_HEADER_LENGTH = 12;
+    // 块尾的 CRC32 和 ISIZE
+    private static final int TRAILER_LENGTH = 8;
+    private static final int FLAG_EXTRA = 4;
+
+    private final InputStream in;
+    private final ExecutorService inflaters;
+    private final int readAhead;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final byte[] fixedHeader = new byte[FIXED_HEADER_LENGTH];
+    private byte[] current = new byte[0];
+    private int position;
+    private boolean eof;
+
+    BgzipInputStream(InputStream in, ExecutorService inflaters) {
+        this.in = in;
+        this.inflaters = inflaters;
+        this.readAhead = 2 * Runtime.getRuntime().availableProcessors();
+    }
+
+    // 文件头是否是 BGZF 块头：gzip 头带有 FEXTRA 标志，第一个子字段是长度为 2 的 BC
+    static boolean isBlockHeader(byte[] header, int length) {
+        return length >= Compression.HEADER_LENGTH && (header[3] & FLAG_EXTRA) != 0
+                && header[12] == 'B' && header[13] == 'C' && header[14] == 2 && header[15] == 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Future<byte[]> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+        in.close();
+    }
+
+    // 当前块读完时取下一个解压好的块（跳过空块），没有更多数据时返回 false
+    private boolean ensureData() throws IOException {
+        while (position >= current.length) {
+            submitBlocks();
+            Future<byte[]> next = pending.poll();
+            if (next == null) {
+                return false;
+            }
+            current = await(next);
+            position = 0;
+        }
+        return true;
+    }
+
+    // 切出压缩块提交解压，直到解压中的块数达到上限或读完输入
+    private void submitBlocks() throws IOException {
+        while (!eof && pending.size() < readAhead) {
+            byte[] block = readBlock();
+            if (block == null) {
+                eof = true;
+            } else {
+                pending.add(inflaters.submit(() -> inflate(block)));
+            }
+        }
+    }
+
+    // 读取下一个块去掉块头后的部分（压缩数据和块尾），输入结束时返回 null
+    private byte[] readBlock() throws IOException {
+        int read = in.readNBytes(fixedHeader, 0, FIXED_HEADER_LENGTH);
+        if (read == 0) {
+            return null;
+        }
+        if (read < FIXED_HEADER_LENGTH) {
+            throw new EOFException("Truncated BGZF block header");
+        }
+        if ((fixedHeader[0] & 0xFF) != 0x1F || (fixedHeader[1] & 0xFF) != 0x8B || fixedHeader[2] != 8
+                || (fixedHeader[3] & FLAG_EXTRA) == 0) {
+            throw new IOException("Not a BGZF block");
+        }
+        int extraLength = unsignedShort(fixedHeader, 10);
+        byte[] extra = readFully(extraLength);
+        int blockSize = -1;
+        for (int i = 0; i + 4 <= extraLength; i += 4 + unsignedShort(extra, i + 2)) {
+            if (extra[i] == 'B' && extra[i + 1] == 'C' && unsignedShort(extra, i + 2) == 2 && i + 6 <= extraLength) {
+                // BSIZE 是块的总长度减一
+                blockSize = unsignedShort(extra, i + 4) + 1;
+                break;
+            }
+        }
+        int remaining = blockSize - FIXED_HEADER_LENGTH - extraLength;
+        if (blockSize < 0 || remaining < TRAILER_LENGTH) {
+            throw new IOException("Not a BGZF block");
+        }
+        return readFully(remaining);
+    }
+
+    private byte[] readFully(int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length < length) {
+            throw new EOFException("Truncated BGZF block");
+        }
+        return bytes;
+    }
+
+    // 在线程池中执行：解压一个块并校验长度和 CRC32
+    private static byte[] inflate(byte[] block) throws IOException {
+        int compressedLength = block.length - TRAILER_LENGTH;
+        long expectedCrc = unsignedInt(block, compressedLength);
+        int size = (int) unsignedInt(block, compressedLength + 4);
+        byte[] output = new byte[size];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(block, 0, compressedLength);
+            int inflated = 0;
+            while (inflated < size && !inflater.finished()) {
+                int count = inflater.inflate(output, inflated, size - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != size) {
+                throw new IOException("Corrupt BGZF block: expected " + size + " bytes, got " + inflated);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt BGZF block: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(output, 0, size);
+        if (crc.getValue() != expectedCrc) {
+            throw new IOException("Corrupt BGZF block: CRC mismatch");
+        }
+        return output;
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while decompressing BGZF block", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to decompress BGZF block: " + cause, cause);
+        }
+    }
+
+    private static int unsignedShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+    }
+
+    private static long unsignedInt(byte[] bytes, int offset) {
+        return (unsignedShort(bytes, offset) | (long) unsignedShort(bytes, offset + 2) << 16);
+    }
+}
@@ -0,0 +1,89 @@
+package com.protein.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+// 按字节读取行的读取器。每次 nextLine() 后，当前行位于 buffer() 的 [lineStart(), lineEnd()) 中，
+// 不包含行尾的 \n 或 \r\n。行数据只在下一次调用 nextLine() 之前有效。
+class ByteLineReader {
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream inputStream;
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int position; // 下一行的起点
+    private int limit; // 缓冲区中有效数据的终点
+    private boolean eof;
+    private int lineStart;
+    private int lineEnd;
+
+    ByteLineReader(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    // 读取下一行，没有更多行时返回 false
+    boolean nextLine() throws IOException {
+        int scanned = 0; // 当前行中已经确认不含换行符的字节数，补充数据后不必重复扫描
+        while (true) {
+            int newline = ByteScanner.indexOf(buffer, position + scanned, limit, (byte) '\n');
+            if (newline >= 0) {
+                setLine(position, newline);
+                position = newline + 1;
+                return true;
+            }
+            if (eof) {
+                if (position < limit) {
+                    // 最后一行没有换行符
+                    setLine(position, limit);
+                    position = limit;
+                    return true;
+                }
+                return false;
+            }
+            scanned = limit - position;
+            fill();
+        }
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    int lineStart() {
+        return lineStart;
+    }
+
+    int lineEnd() {
+        return lineEnd;
+    }
+
+    void close() throws IOException {
+        inputStream.close();
+    }
+
+    private void setLine(int start, int end) {
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+        lineStart = start;
+        lineEnd = end;
+    }
+
+    // 把未处理的数据移到缓冲区开头，必要时扩容，再从输入流读取更多数据
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        } else if (remaining == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2); // 超长行
+        }
+        position = 0;
+        limit = remaining;
+        int read = inputStream.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.protein.parser;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// 直接在字节数组上工作的扫描工具，避免为每一行、每个字段创建中间字符串
+final class ByteScanner {
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+
+    private ByteScanner() {
+    }
+
+    // 在 [from, to) 中查找字节 target，找不到返回 -1。
+    // 每次比较 8 个字节（SWAR）：异或后某个字节为 0 即表示命中
+    static int indexOf(byte[] buffer, int from, int to, byte target) {
+        long pattern = (target & 0xFFL) * ONES;
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            long word = (long) LONG_VIEW.get(buffer, i) ^ pattern;
+            long found = (word - ONES) & ~word & HIGHS;
+            if (found != 0) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (buffer[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // 与 String.trim() 相同，去掉两端 <= ' ' 的字节，返回新的起点
+    static int trimStart(byte[] buffer, int from, int to) {
+        while (from < to && (buffer[from] & 0xFF) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    // 去掉末尾 <= ' ' 的字节，返回新的终点
+    static int trimEnd(byte[] buffer, int from, int to) {
+        while (to > from && (buffer[to - 1] & 0xFF) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    // 解析十进制整数，格式不合法或溢出时返回 null（对应 Integer.parseInt 抛出 NumberFormatException 的情况）
+    static Integer parseInteger(byte[] buffer, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        boolean negative = buffer[from] == '-';
+        if (negative || buffer[from] == '+') {
+            from++;
+            if (from == to) {
+                return null;
+            }
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return null;
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            return null;
+        }
+        return (int) value;
+    }
+
+    // 解码为字符串：纯 ASCII 时按单字节直接拷贝，否则按 UTF-8 解码
+    static String decode(byte[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] < 0) {
+                return new String(buffer, from, to - from, StandardCharsets.UTF_8);
+            }
+        }
+        return new String(buffer, from, to - from, StandardCharsets.ISO_8859_1);
+    }
+
+    // 比较字节片段与 ASCII 字符串是否相等
+    static boolean equalsAscii(byte[] buffer, int from, int to, String text) {
+        if (to - from != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (buffer[from + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
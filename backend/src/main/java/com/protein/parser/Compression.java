@@ -0,0 +1,94 @@
+package com.protein.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+// 导入文件的压缩格式。按文件开头的魔数识别，文件名后缀（.gz、.bgz、.zst）只用于去掉后得到内部的格式后缀，
+// 所以后缀与内容不符（例如客户端已经解压过的 .gz 文件）时仍按实际内容处理
+public enum Compression {
+    NONE,
+    GZIP,
+    // BGZF：由独立的 gzip 块组成，每块不超过 64KB，可以并行解压
+    BGZIP,
+    ZSTD;
+
+    // 识别 BGZF 需要的文件头长度：gzip 固定头 10 字节、XLEN 2 字节、BC 子字段 6 字节
+    static final int HEADER_LENGTH = 18;
+
+    private static final String[] SUFFIXES = {".gz", ".bgz", ".zst"};
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    // 并行解压 BGZF 块的线程池，所有导入共用
+    private static final ExecutorService INFLATERS = createInflaters();
+
+    // 根据文件开头的字节识别压缩格式，length 是 header 中有效的字节数
+    static Compression detect(byte[] header, int length) {
+        if (length >= 4 && (header[0] & 0xFF) == 0x28 && (header[1] & 0xFF) == 0xB5
+                && (header[2] & 0xFF) == 0x2F && (header[3] & 0xFF) == 0xFD) {
+            return ZSTD;
+        }
+        if (length >= 3 && (header[0] & 0xFF) == 0x1F && (header[1] & 0xFF) == 0x8B && header[2] == 8) {
+            return BgzipInputStream.isBlockHeader(header, length) ? BGZIP : GZIP;
+        }
+        return NONE;
+    }
+
+    // 读取磁盘上文件的开头识别压缩格式
+    public static Compression detect(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH);
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // 读满文件头或读到文件末尾为止
+            }
+            return detect(buffer.array(), buffer.position());
+        }
+    }
+
+    // 去掉压缩格式的后缀，例如 uniprot.fa.gz 得到 uniprot.fa
+    public static String stripSuffix(String fileName) {
+        for (String suffix : SUFFIXES) {
+            if (fileName.endsWith(suffix)) {
+                return fileName.substring(0, fileName.length() - suffix.length());
+            }
+        }
+        return fileName;
+    }
+
+    // 查看输入流开头的字节，返回解压后的流；没有压缩时返回原来的数据
+    static InputStream decompress(InputStream inputStream) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(inputStream, HEADER_LENGTH);
+        byte[] header = pushback.readNBytes(HEADER_LENGTH);
+        pushback.unread(header);
+        switch (detect(header, header.length)) {
+            case GZIP:
+                // GZIPInputStream 会继续读取拼接在后面的 gzip 成员
+                return new GZIPInputStream(pushback, GZIP_BUFFER_SIZE);
+            case BGZIP:
+                return new BgzipInputStream(pushback, INFLATERS);
+            case ZSTD:
+                return new ZstdInputStream(pushback);
+            default:
+                return pushback;
+        }
+    }
+
+    private static ExecutorService createInflaters() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "bgzip-inflater-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
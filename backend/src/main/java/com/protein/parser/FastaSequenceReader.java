@@ -0,0 +1,75 @@
+package com.protein.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.protein.data.Sequence;
+
+// FASTA 格式的读取器：以 '>' 开头的行是名称，之后直到下一个 '>' 的行拼接为序列。
+// 序列行直接以字节追加到可复用的缓冲区，每条记录只在最后创建一次字符串
+class FastaSequenceReader implements SequenceReader {
+    private final ByteLineReader reader;
+    private String currentName; // 已读到但尚未返回的记录名称
+    private boolean finished;
+    private byte[] residues = new byte[4096];
+    private int residueLength;
+
+    FastaSequenceReader(InputStream inputStream) {
+        reader = new ByteLineReader(inputStream);
+    }
+
+    @Override
+    public Sequence read() throws IOException {
+        if (finished) {
+            return null;
+        }
+        residueLength = 0;
+        while (reader.nextLine()) {
+            byte[] buffer = reader.buffer();
+            int start = ByteScanner.trimStart(buffer, reader.lineStart(), reader.lineEnd());
+            int end = ByteScanner.trimEnd(buffer, start, reader.lineEnd());
+            if (start == end) {
+                continue;
+            }
+            if (buffer[start] == '>') {
+                String name = currentName;
+                int nameStart = ByteScanner.trimStart(buffer, start + 1, end);
+                currentName = ByteScanner.decode(buffer, nameStart, end);
+                if (name != null) {
+                    return newSequence(name);
+                }
+            } else {
+                appendResidues(buffer, start, end);
+            }
+        }
+
+        // 文件结束，返回最后一条非空记录
+        finished = true;
+        if (currentName != null && residueLength > 0) {
+            return newSequence(currentName);
+        }
+        return null;
+    }
+
+    private void appendResidues(byte[] buffer, int start, int end) {
+        int length = end - start;
+        if (residueLength + length > residues.length) {
+            residues = Arrays.copyOf(residues, Math.max(residues.length * 2, residueLength + length));
+        }
+        System.arraycopy(buffer, start, residues, residueLength, length);
+        residueLength += length;
+    }
+
+    private Sequence newSequence(String name) {
+        Sequence sequence = new Sequence();
+        sequence.setProteins(name);
+        sequence.setSequence(ByteScanner.decode(residues, 0, residueLength));
+        return sequence;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
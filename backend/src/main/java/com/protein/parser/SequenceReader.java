@@ -0,0 +1,13 @@
+package com.protein.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import com.protein.data.Sequence;
+
+// 拉取式的序列读取器：每次调用 read() 只解析出下一条记录，
+// 调用方可以边读边写入数据库，也可以在出错时立即停止，不需要把整个文件读进内存
+public interface SequenceReader extends Closeable {
+    // 读取下一条序列，没有更多记录时返回 null
+    Sequence read() throws IOException;
+}
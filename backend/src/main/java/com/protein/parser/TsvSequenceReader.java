@@ -0,0 +1,143 @@
+package com.protein.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import com.protein.data.Sequence;
+
+// TSV 格式的读取器，支持两种表头：
+// 第一种：proteins, sequences, annotations
+// 第二种：index, proteins, accessions, sequences, annotations, interpros, orgs
+// 表头只解析一次，得到每一列对应的字段；数据行直接在字节上按制表符切分，不经过 String.split
+class TsvSequenceReader implements SequenceReader {
+    // 表头列对应的 Sequence 字段
+    private enum Column {
+        INDEX, PROTEINS, ACCESSIONS, SEQUENCES, ANNOTATIONS, INTERPROS, ORGS, IGNORED
+    }
+
+    private final ByteLineReader reader;
+    private Column[] columns; // 为 null 表示空文件
+    private int[] fieldStarts;
+    private int[] fieldEnds;
+
+    TsvSequenceReader(InputStream inputStream) throws IOException {
+        reader = new ByteLineReader(inputStream);
+        if (reader.nextLine()) { // 读取表头
+            String headerLine = ByteScanner.decode(reader.buffer(), reader.lineStart(), reader.lineEnd());
+            String[] headers = headerLine.split("\t");
+            List<String> headerList = Arrays.asList(headers);
+            boolean isType2 = headerList.contains("index") && headerList.contains("accessions") && headerList.contains("interpros") && headerList.contains("orgs");
+
+            columns = new Column[headers.length];
+            for (int i = 0; i < headers.length; i++) {
+                columns[i] = resolveColumn(headers[i].trim().toLowerCase(), isType2);
+            }
+            fieldStarts = new int[headers.length];
+            fieldEnds = new int[headers.length];
+        }
+    }
+
+    // 第一种 TSV 类型只读取 proteins、sequences、annotations 三列
+    private static Column resolveColumn(String header, boolean isType2) {
+        switch (header) {
+            case "proteins":
+                return Column.PROTEINS;
+            case "sequences":
+                return Column.SEQUENCES;
+            case "annotations":
+                return Column.ANNOTATIONS;
+            case "index":
+                return isType2 ? Column.INDEX : Column.IGNORED;
+            case "accessions":
+                return isType2 ? Column.ACCESSIONS : Column.IGNORED;
+            case "interpros":
+                return isType2 ? Column.INTERPROS : Column.IGNORED;
+            case "orgs":
+                return isType2 ? Column.ORGS : Column.IGNORED;
+            default:
+                return Column.IGNORED;
+        }
+    }
+
+    @Override
+    public Sequence read() throws IOException {
+        if (columns == null) {
+            return null; // 空文件
+        }
+        while (reader.nextLine()) {
+            if (splitFields(reader.buffer(), reader.lineStart(), reader.lineEnd()) != columns.length) {
+                // 行的列数与表头不匹配，跳过
+                continue;
+            }
+            return toSequence(reader.buffer());
+        }
+        return null;
+    }
+
+    // 按制表符切分当前行（保留空字段），返回字段数；只记录不超过表头列数的字段位置
+    private int splitFields(byte[] buffer, int start, int end) {
+        int count = 0;
+        while (true) {
+            int tab = ByteScanner.indexOf(buffer, start, end, (byte) '\t');
+            int fieldEnd = tab >= 0 ? tab : end;
+            if (count < fieldStarts.length) {
+                fieldStarts[count] = start;
+                fieldEnds[count] = fieldEnd;
+            }
+            count++;
+            if (tab < 0) {
+                return count;
+            }
+            start = tab + 1;
+        }
+    }
+
+    private Sequence toSequence(byte[] buffer) {
+        Sequence sequence = new Sequence();
+        for (int i = 0; i < columns.length; i++) {
+            Column column = columns[i];
+            if (column == Column.IGNORED) {
+                continue;
+            }
+            int start = ByteScanner.trimStart(buffer, fieldStarts[i], fieldEnds[i]);
+            int end = ByteScanner.trimEnd(buffer, start, fieldEnds[i]);
+            switch (column) {
+                case INDEX:
+                    sequence.setIndexNumber(ByteScanner.parseInteger(buffer, start, end));
+                    break;
+                case PROTEINS:
+                    sequence.setProteins(ByteScanner.decode(buffer, start, end));
+                    break;
+                case ACCESSIONS:
+                    // 移除末尾的分号（如果有）
+                    if (end > start && buffer[end - 1] == ';') {
+                        end--;
+                    }
+                    sequence.setAccessions(ByteScanner.decode(buffer, start, end));
+                    break;
+                case SEQUENCES:
+                    sequence.setSequence(ByteScanner.decode(buffer, start, end));
+                    break;
+                case ANNOTATIONS:
+                    sequence.setAnnotations(ByteScanner.decode(buffer, start, end));
+                    break;
+                case INTERPROS:
+                    sequence.setInterpros(ByteScanner.decode(buffer, start, end));
+                    break;
+                case ORGS:
+                    sequence.setOrgs(ByteScanner.parseInteger(buffer, start, end));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return sequence;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
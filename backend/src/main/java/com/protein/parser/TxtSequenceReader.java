@@ -0,0 +1,105 @@
+package com.protein.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.protein.data.Sequence;
+
+// TXT 格式的读取器：制表符分隔，列数由表头决定（8 列或 3 列）
+class TxtSequenceReader implements SequenceReader {
+    private final ByteLineReader reader;
+    private final int columnCount; // 为 0 表示空文件
+    private int[] fieldStarts = new int[8];
+    private int[] fieldEnds = new int[8];
+    private long lineNumber = 1;
+
+    TxtSequenceReader(InputStream inputStream) throws IOException {
+        reader = new ByteLineReader(inputStream);
+        columnCount = reader.nextLine()
+                ? ByteScanner.decode(reader.buffer(), reader.lineStart(), reader.lineEnd()).split("\t").length
+                : 0;
+    }
+
+    @Override
+    public Sequence read() throws IOException {
+        if (columnCount == 0) {
+            return null;
+        }
+        while (reader.nextLine()) {
+            lineNumber++;
+            byte[] buffer = reader.buffer();
+            int count = splitFields(buffer, reader.lineStart(), reader.lineEnd());
+            if (count >= 2) {
+                try {
+                    return toSequence(buffer, count);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    throw new IOException("Malformed line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return null;
+    }
+
+    private Sequence toSequence(byte[] buffer, int count) {
+        Sequence sequence = new Sequence();
+        if (columnCount == 8) { // TSV 类型1 (8列)
+            // 假设列顺序为：ID、index、proteins、accessions、sequences、annotations、interpros、orgs
+            checkFieldCount(count, 8);
+            sequence.setId(Long.parseLong(field(buffer, 0)));
+            sequence.setIndexNumber(Integer.parseInt(field(buffer, 1)));
+            sequence.setProteins(field(buffer, 2));
+            sequence.setAccessions(field(buffer, 3));
+            sequence.setSequence(field(buffer, 4));
+            sequence.setAnnotations(field(buffer, 5));
+            sequence.setInterpros(field(buffer, 6));
+            sequence.setOrgs(Integer.parseInt(field(buffer, 7)));
+        } else if (columnCount == 3) { // TSV 类型2 (3列)
+            // 假设列顺序为：proteins、sequences、annotations
+            checkFieldCount(count, 3);
+            sequence.setProteins(field(buffer, 0));
+            sequence.setSequence(field(buffer, 1));
+            sequence.setAnnotations(field(buffer, 2));
+        }
+        return sequence;
+    }
+
+    private static void checkFieldCount(int count, int expected) {
+        if (count < expected) {
+            throw new ArrayIndexOutOfBoundsException("expected " + expected + " columns but found " + count);
+        }
+    }
+
+    private String field(byte[] buffer, int index) {
+        return ByteScanner.decode(buffer, fieldStarts[index], fieldEnds[index]);
+    }
+
+    // 与 String.split("\t") 一致：按制表符切分，并去掉末尾的空字段
+    private int splitFields(byte[] buffer, int start, int end) {
+        int count = 0;
+        while (true) {
+            int tab = ByteScanner.indexOf(buffer, start, end, (byte) '\t');
+            int fieldEnd = tab >= 0 ? tab : end;
+            if (count == fieldStarts.length) {
+                fieldStarts = Arrays.copyOf(fieldStarts, count * 2);
+                fieldEnds = Arrays.copyOf(fieldEnds, count * 2);
+            }
+            fieldStarts[count] = start;
+            fieldEnds[count] = fieldEnd;
+            count++;
+            if (tab < 0) {
+                break;
+            }
+            start = tab + 1;
+        }
+        while (count > 0 && fieldStarts[count - 1] == fieldEnds[count - 1]) {
+            count--;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,15 @@
+package com.protein.query;
+
+// 访问路径，按代价从低到高排列
+public enum AccessPath {
+    PRIMARY_KEY,     // 主键等值或范围查找
+    BTREE_INDEX,     // index_number、orgs、proteins 上的 B-tree 索引
+    TERM_INDEX,      // sequence_term 词条索引
+    FULL_TEXT_INDEX, // sequence_fts 全文索引
+    KMER_INDEX,      // 内存中的 k-mer 倒排索引，候选记录再由 SQL 验证
+    SCAN;            // 按主键顺序扫描并逐行过滤
+
+    public boolean cheaperThan(AccessPath other) {
+        return ordinal() < other.ordinal();
+    }
+}
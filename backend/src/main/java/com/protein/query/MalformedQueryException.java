@@ -0,0 +1,10 @@
+package com.protein.query;
+
+// 查询不符合 QueryParser 的语法（例如引号不成对、AND / OR 缺少操作数），接口返回 400
+public class MalformedQueryException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    public MalformedQueryException(String message) {
+        super(message);
+    }
+}
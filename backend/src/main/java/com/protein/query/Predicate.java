@@ -0,0 +1,242 @@
+package com.protein.query;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.protein.data.PackedResidues;
+
+// 解析后的查询条件。每种条件都能生成对应的 SQL 片段（表别名为 s），参数按顺序追加到 params
+public abstract class Predicate {
+    abstract void appendSql(StringBuilder sql, List<Object> params);
+
+    // 所有记录（空查询、全部类别）
+    public static final class MatchAll extends Predicate {
+        @Override
+        void appendSql(StringBuilder sql, List<Object> params) {
+            sql.append("1");
+        }
+
+        @Override
+        public String toString() {
+            return "TRUE";
+        }
+    }
+
+    // 不匹配任何记录（未知的类别、数值字段上的非数字查询等）
+    public static final class MatchNone extends Predicate {
+        @Override
+        void appendSql(StringBuilder sql, List<Object> params) {
+            sql.append("0");
+        }
+
+        @Override
+        public String toString() {
+            return "FALSE";
+        }
+    }
+
+    // 单个字段上的条件
+    public static final class FieldPredicate extends Predicate {
+        public enum Kind {
+            EXACT,     // 等值；多值字段表示包含该词条
+            PREFIX,    // 前缀
+            SUBSTRING, // 子串（与原来的 LIKE '%q%' 相同，但 % 和 _ 按字面匹配）
+            RANGE,     // 数值范围，两端都包含
+            NOT_EMPTY  // 非空
+        }
+
+        private final SearchField field;
+        private final Kind kind;
+        private final String text;
+        private final long from;
+        private final long to;
+
+        private FieldPredicate(SearchField field, Kind kind, String text, long from, long to) {
+            this.field = field;
+            this.kind = kind;
+            this.text = text;
+            this.from = from;
+            this.to = to;
+        }
+
+        public static FieldPredicate text(SearchField field, Kind kind, String text) {
+            return new FieldPredicate(field, kind, text, 0, 0);
+        }
+
+        public static FieldPredicate range(SearchField field, long from, long to) {
+            return new FieldPredicate(field, Kind.RANGE, null, from, to);
+        }
+
+        public static FieldPredicate notEmpty(SearchField field) {
+            return new FieldPredicate(field, Kind.NOT_EMPTY, null, 0, 0);
+        }
+
+        public SearchField getField() {
+            return field;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public long getFrom() {
+            return from;
+        }
+
+        public long getTo() {
+            return to;
+        }
+
+        @Override
+        void appendSql(StringBuilder sql, List<Object> params) {
+            if (field == SearchField.SEQUENCE) {
+                appendSequenceSql(sql, params);
+                return;
+            }
+            String column = "s." + field.getColumn();
+            // 数值列做文本匹配时先转为文本，与原来 JPQL 中对数值列使用 LIKE 的效果相同
+            String textColumn = field.isNumeric() ? "CAST(" + column + " AS TEXT)" : column;
+            switch (kind) {
+                case EXACT:
+                    if (field.isNumeric()) {
+                        sql.append(column).append(" = ?");
+                        params.add(Long.parseLong(text));
+                    } else if (field.getTermField() != null) {
+                        sql.append("s.id IN (SELECT sequence_id FROM sequence_term WHERE field = ? AND term = ?)");
+                        params.add(field.getTermField().getCode());
+                        params.add(text);
+                    } else {
+                        sql.append(column).append(" = ? COLLATE NOCASE");
+                        params.add(text);
+                    }
+                    break;
+                case PREFIX:
+                    if (field.getTermField() != null) {
+                        sql.append("s.id IN (SELECT sequence_id FROM sequence_term WHERE field = ? AND term LIKE ? ESCAPE '\\')");
+                        params.add(field.getTermField().getCode());
+                    } else {
+                        sql.append(textColumn).append(" LIKE ? ESCAPE '\\'");
+                    }
+                    params.add(escapeLike(text) + "%");
+                    break;
+                case SUBSTRING:
+                    sql.append(textColumn).append(" LIKE ? ESCAPE '\\'");
+                    params.add("%" + escapeLike(text) + "%");
+                    break;
+                case RANGE:
+                    sql.append(column).append(" BETWEEN ? AND ?");
+                    params.add(from);
+                    params.add(to);
+                    break;
+                default:
+                    sql.append(column).append(" IS NOT NULL");
+                    if (!field.isNumeric()) {
+                        sql.append(" AND ").append(column).append(" <> ''");
+                    }
+            }
+        }
+
+        // 序列以原文保存在 sequence 列，或压缩保存在 residues 列（见 PackedResidues），两种形式都要匹配。
+        // 压缩的序列由 residues_find 直接在编码上查找，精确匹配把查询按同样的方式压缩后直接比较
+        private void appendSequenceSql(StringBuilder sql, List<Object> params) {
+            switch (kind) {
+                case EXACT:
+                    sql.append("(s.sequence = ? COLLATE NOCASE OR s.residues = ?)");
+                    params.add(text);
+                    params.add(PackedResidues.packIgnoreCase(text));
+                    break;
+                case PREFIX:
+                    sql.append("(s.sequence LIKE ? ESCAPE '\\' OR residues_starts_with(s.residues, ?) = 1)");
+                    params.add(escapeLike(text) + "%");
+                    params.add(text);
+                    break;
+                case SUBSTRING:
+                    sql.append("(s.sequence LIKE ? ESCAPE '\\' OR residues_find(s.residues, ?) > 0)");
+                    params.add("%" + escapeLike(text) + "%");
+                    params.add(text);
+                    break;
+                default:
+                    sql.append("(s.sequence <> '' OR s.residues IS NOT NULL)");
+            }
+        }
+
+        @Override
+        public String toString() {
+            String name = field.name().toLowerCase();
+            switch (kind) {
+                case EXACT: return name + " = '" + text + "'";
+                case PREFIX: return name + " STARTS WITH '" + text + "'";
+                case SUBSTRING: return name + " CONTAINS '" + text + "'";
+                case RANGE: return name + " BETWEEN " + from + " AND " + to;
+                default: return name + " IS NOT EMPTY";
+            }
+        }
+
+        private static String escapeLike(String value) {
+            return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        }
+    }
+
+    // FTS5 全文匹配，match 为已经转换好的 FTS5 查询表达式
+    public static final class FullText extends Predicate {
+        private final String match;
+
+        public FullText(String match) {
+            this.match = match;
+        }
+
+        @Override
+        void appendSql(StringBuilder sql, List<Object> params) {
+            sql.append("s.id IN (SELECT rowid FROM sequence_fts WHERE sequence_fts MATCH ?)");
+            params.add(match);
+        }
+
+        @Override
+        public String toString() {
+            return "MATCH '" + match + "'";
+        }
+    }
+
+    // 多个条件的 AND / OR
+    public static final class Bool extends Predicate {
+        private final boolean and;
+        private final List<Predicate> operands;
+
+        public Bool(boolean and, List<Predicate> operands) {
+            this.and = and;
+            this.operands = operands;
+        }
+
+        public boolean isAnd() {
+            return and;
+        }
+
+        public List<Predicate> getOperands() {
+            return operands;
+        }
+
+        @Override
+        void appendSql(StringBuilder sql, List<Object> params) {
+            sql.append('(');
+            for (int i = 0; i < operands.size(); i++) {
+                if (i > 0) {
+                    sql.append(and ? " AND " : " OR ");
+                }
+                sql.append('(');
+                operands.get(i).appendSql(sql, params);
+                sql.append(')');
+            }
+            sql.append(')');
+        }
+
+        @Override
+        public String toString() {
+            return operands.stream().map(Object::toString)
+                    .collect(Collectors.joining(and ? " AND " : " OR ", "(", ")"));
+        }
+    }
+}
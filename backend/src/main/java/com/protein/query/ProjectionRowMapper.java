@@ -0,0 +1,84 @@
+package com.protein.query;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import com.protein.data.Sequence;
+
+// 把按投影查询的结果映射为 Sequence：只读取投影中的列（表别名为 s），未投影的字段保持为 null，LENGTH 不是 Sequence 的字段，忽略。
+// id 总是第一列，残基序列要同时读取 sequence 和 residues 两列
+public final class ProjectionRowMapper implements RowMapper<Sequence> {
+    private final List<SearchField> fields = new ArrayList<>();
+
+    public ProjectionRowMapper(Set<SearchField> columns) {
+        for (SearchField field : columns) {
+            if (field != SearchField.ID && field != SearchField.LENGTH) {
+                fields.add(field);
+            }
+        }
+    }
+
+    public String selectList() {
+        StringJoiner select = new StringJoiner(", ");
+        select.add("s.id");
+        for (SearchField field : fields) {
+            select.add("s." + field.getColumn());
+            if (field == SearchField.SEQUENCE) {
+                select.add("s.residues");
+            }
+        }
+        return select.toString();
+    }
+
+    @Override
+    public Sequence mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        Sequence sequence = new Sequence();
+        sequence.setId(resultSet.getLong(1));
+        int column = 2;
+        for (SearchField field : fields) {
+            switch (field) {
+                case INDEX:
+                    sequence.setIndexNumber(getInteger(resultSet, column));
+                    break;
+                case PROTEINS:
+                    sequence.setProteins(resultSet.getString(column));
+                    break;
+                case ACCESSIONS:
+                    sequence.setAccessions(resultSet.getString(column));
+                    break;
+                case SEQUENCE:
+                    byte[] residues = resultSet.getBytes(++column);
+                    if (residues != null) {
+                        sequence.setResidues(residues);
+                    } else {
+                        sequence.setSequence(resultSet.getString(column - 1));
+                    }
+                    break;
+                case ANNOTATIONS:
+                    sequence.setAnnotations(resultSet.getString(column));
+                    break;
+                case INTERPROS:
+                    sequence.setInterpros(resultSet.getString(column));
+                    break;
+                case ORGS:
+                    sequence.setOrgs(getInteger(resultSet, column));
+                    break;
+                default:
+                    break;
+            }
+            column++;
+        }
+        return sequence;
+    }
+
+    private static Integer getInteger(ResultSet resultSet, int column) throws SQLException {
+        int value = resultSet.getInt(column);
+        return resultSet.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,149 @@
+package com.protein.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import com.protein.data.Sequence;
+import com.protein.data.SequencePage;
+import com.protein.data.SequenceRowMapper;
+import com.protein.index.KmerIndexService;
+import com.protein.metrics.Histogram;
+import com.protein.metrics.MetricsRegistry;
+
+// 搜索查询引擎：解析查询 -> 选择访问路径 -> 按 id 键集分页执行。
+// 结果总是按 id 升序，id > lastId，至多 limit 条，与原来各个 findPageBy*Like 方法的约定相同。
+@Service
+public class QueryEngine {
+    private static final Logger log = LoggerFactory.getLogger(QueryEngine.class);
+    // k-mer 候选每次送进 SQL 验证的个数
+    private static final int KMER_CHUNK_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QueryPlanner queryPlanner;
+
+    @Autowired
+    private KmerIndexService kmerIndexService;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    // 超过这个耗时（毫秒）的查询记录到日志中，0 表示不记录
+    @Value("${protein.metrics.slow-query-ms:500}")
+    private long slowQueryMillis;
+
+    public List<Sequence> search(String query, String category, long lastId, int limit) {
+        return search(query, category, lastId, limit, null);
+    }
+
+    // 只读取并填充 columns 中的列（id 总是读取），columns 为 null 时读取全部列
+    public List<Sequence> search(String query, String category, long lastId, int limit, Set<SearchField> columns) {
+        long start = System.nanoTime();
+        QueryPlan plan = queryPlanner.plan(QueryParser.parse(query, category));
+        Trace trace = new Trace();
+        List<Sequence> rows = execute(plan, lastId, limit, columns, trace);
+        record(query, category, plan, trace, rows.size(), System.nanoTime() - start);
+        return rows;
+    }
+
+    // 执行查询并返回计划和耗时，limit 中包含用来判断是否有下一页的那一行
+    public QueryExplain explain(String query, String category, long lastId, int pageSize) {
+        long start = System.nanoTime();
+        QueryPlan plan = queryPlanner.plan(QueryParser.parse(query, category));
+        long planned = System.nanoTime();
+        Trace trace = new Trace();
+        List<Sequence> rows = execute(plan, lastId, pageSize + 1, null, trace);
+        long executed = System.nanoTime();
+        record(query, category, plan, trace, rows.size(), executed - start);
+        List<String> sqlitePlan = jdbcTemplate.query("EXPLAIN QUERY PLAN " + trace.sql,
+                (resultSet, rowNum) -> resultSet.getString("detail"), trace.parameters.toArray());
+        return new QueryExplain(plan.getPredicate().toString(), plan.getAccessPath(), trace.sql, trace.parameters,
+                sqlitePlan, trace.kmerCandidates, (planned - start) / 1e6, (executed - planned) / 1e6,
+                SequencePage.of(rows, pageSize, null));
+    }
+
+    private List<Sequence> execute(QueryPlan plan, long lastId, int limit, Set<SearchField> columns, Trace trace) {
+        String select = SequenceRowMapper.COLUMNS;
+        RowMapper<Sequence> mapper = SequenceRowMapper.INSTANCE;
+        if (columns != null) {
+            ProjectionRowMapper projection = new ProjectionRowMapper(columns);
+            select = projection.selectList();
+            mapper = projection;
+        }
+        long[] candidates = plan.getKmerQuery() != null ? kmerIndexService.candidates(plan.getKmerQuery()) : null;
+        if (candidates == null) {
+            trace.sql = "SELECT " + select + " FROM sequence s WHERE s.id > ? AND "
+                    + plan.getWhere() + " ORDER BY s.id LIMIT ?";
+            trace.parameters = new ArrayList<>();
+            trace.parameters.add(lastId);
+            trace.parameters.addAll(plan.getParameters());
+            trace.parameters.add(limit);
+            return jdbcTemplate.query(trace.sql, mapper, trace.parameters.toArray());
+        }
+
+        // 在 k-mer 候选范围内按块执行完整条件，子串是否真的出现由 SQL 中的 LIKE 验证
+        trace.kmerCandidates = candidates.length;
+        List<Sequence> result = new ArrayList<>();
+        int from = Arrays.binarySearch(candidates, lastId);
+        from = from >= 0 ? from + 1 : -from - 1;
+        do {
+            int to = Math.min(candidates.length, from + KMER_CHUNK_SIZE);
+            StringJoiner ids = new StringJoiner(",", "(", ")");
+            for (int i = from; i < to; i++) {
+                ids.add(Long.toString(candidates[i]));
+            }
+            from = to;
+            trace.sql = "SELECT " + select + " FROM sequence s WHERE s.id IN " + ids + " AND "
+                    + plan.getWhere() + " ORDER BY s.id LIMIT ?";
+            trace.parameters = new ArrayList<>(plan.getParameters());
+            trace.parameters.add(limit - result.size());
+            result.addAll(jdbcTemplate.query(trace.sql, mapper, trace.parameters.toArray()));
+        } while (from < candidates.length && result.size() < limit);
+        return result;
+    }
+
+    // 按类别和实际使用的访问路径记录耗时和结果行数；k-mer 索引未就绪时实际执行的是 LIKE 扫描
+    private void record(String query, String category, QueryPlan plan, Trace trace, int rows, long nanos) {
+        String categoryLabel = categoryLabel(category);
+        AccessPath path = plan.getKmerQuery() != null && trace.kmerCandidates == null ? AccessPath.SCAN : plan.getAccessPath();
+        metricsRegistry.histogram("protein_search_seconds", "Search latency by category and access path",
+                Histogram.SECONDS, "category", categoryLabel, "plan", path.name().toLowerCase()).observeNanos(nanos);
+        metricsRegistry.histogram("protein_search_rows", "Rows returned per search by category",
+                Histogram.COUNTS, "category", categoryLabel).observe(rows);
+        long millis = nanos / 1_000_000;
+        if (slowQueryMillis > 0 && millis >= slowQueryMillis) {
+            log.warn("Slow search ({} ms, {} rows, plan {}): query '{}', category '{}', sql: {}",
+                    millis, rows, path, query, category, trace.sql);
+        }
+    }
+
+    // 类别名作为指标标签，只取已知的取值
+    private static String categoryLabel(String category) {
+        String normalized = QueryParser.normalizeCategory(category);
+        if (normalized.isEmpty()) {
+            return "all";
+        }
+        SearchField field = SearchField.parse(normalized);
+        return field != null ? field.getCategory() : "unknown";
+    }
+
+    // 记录最后一次执行的 SQL，供 explain 使用
+    private static final class Trace {
+        String sql;
+        List<Object> parameters;
+        Integer kmerCandidates;
+    }
+}
@@ -0,0 +1,68 @@
+package com.protein.query;
+
+import java.util.List;
+
+import com.protein.data.SequencePage;
+
+// explain=true 时返回的执行信息：解析出的条件、选定的访问路径、实际执行的 SQL 以及 SQLite 的查询计划和耗时
+public class QueryExplain {
+    private final String predicate;
+    private final AccessPath accessPath;
+    private final String sql;
+    private final List<Object> parameters;
+    private final List<String> sqlitePlan;
+    private final Integer kmerCandidates; // k-mer 索引给出的候选数，未使用 k-mer 索引时为 null
+    private final double planMillis;
+    private final double executeMillis;
+    private final SequencePage page;
+
+    public QueryExplain(String predicate, AccessPath accessPath, String sql, List<Object> parameters,
+                        List<String> sqlitePlan, Integer kmerCandidates, double planMillis, double executeMillis,
+                        SequencePage page) {
+        this.predicate = predicate;
+        this.accessPath = accessPath;
+        this.sql = sql;
+        this.parameters = parameters;
+        this.sqlitePlan = sqlitePlan;
+        this.kmerCandidates = kmerCandidates;
+        this.planMillis = planMillis;
+        this.executeMillis = executeMillis;
+        this.page = page;
+    }
+
+    public String getPredicate() {
+        return predicate;
+    }
+
+    public AccessPath getAccessPath() {
+        return accessPath;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    public List<String> getSqlitePlan() {
+        return sqlitePlan;
+    }
+
+    public Integer getKmerCandidates() {
+        return kmerCandidates;
+    }
+
+    public double getPlanMillis() {
+        return planMillis;
+    }
+
+    public double getExecuteMillis() {
+        return executeMillis;
+    }
+
+    public SequencePage getPage() {
+        return page;
+    }
+}
@@ -0,0 +1,173 @@
+package com.protein.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.protein.index.FullTextSearchService;
+import com.protein.query.Predicate.FieldPredicate;
+import com.protein.query.Predicate.FieldPredicate.Kind;
+
+// 把搜索框中的查询和类别解析为 Predicate。
+// 查询由若干子句组成，子句之间用大写的 AND / OR 连接（AND 优先）；每个子句可以用 “字段:” 指定字段，
+// 否则使用所选类别，全部类别时在各字段上取 OR。子句的写法：
+//   abc       子串；数值字段上的整数为等值
+//   =abc      等值；多值字段（accessions、annotations、interpros）表示包含该词条
+//   abc*      前缀
+//   "a b"     按字面的子串，引号中的 * = .. 等不作特殊处理
+//   10..20  >10  >=10  <10  <=10   数值范围
+//   字段:     （值为空）该字段非空
+// 引号不成对、AND / OR 缺少操作数时抛出 MalformedQueryException；其他无法匹配的写法（未知类别、
+// 数值字段上的文本等）不算错误，返回不匹配任何记录的条件
+public final class QueryParser {
+    private static final Pattern OR = Pattern.compile("\\s+OR\\s+");
+    private static final Pattern AND = Pattern.compile("\\s+AND\\s+");
+    private static final Pattern FIELD_PREFIX = Pattern.compile("^([A-Za-z_]+):(.*)$", Pattern.DOTALL);
+    private static final Pattern INTEGER = Pattern.compile("-?\\d{1,18}");
+    private static final Pattern RANGE = Pattern.compile("(-?\\d{1,18})?\\.\\.(-?\\d{1,18})?");
+    // 子句以 AND / OR 开头或结尾，说明运算符缺少操作数，例如 "a AND" 或 "a AND AND b"
+    private static final Pattern DANGLING_OPERATOR = Pattern.compile("^(AND|OR)(\\s.*)?$|^.*\\s(AND|OR)$", Pattern.DOTALL);
+    private static final Pattern COMPARISON = Pattern.compile("(>=|<=|>|<)\\s*(-?\\d{1,18})");
+
+    private QueryParser() {
+    }
+
+    // 规范化类别：忽略大小写，“全部类别”、all 和空值都表示全部类别（返回空串）
+    public static String normalizeCategory(String category) {
+        String normalized = category != null ? category.trim().toLowerCase() : "";
+        return normalized.equals("全部类别") || normalized.equals("all") ? "" : normalized;
+    }
+
+    public static Predicate parse(String query, String category) {
+        String trimmed = query != null ? query.trim() : "";
+        String normalizedCategory = normalizeCategory(category);
+
+        if (normalizedCategory.equals("fulltext")) {
+            if (trimmed.isEmpty()) {
+                return new Predicate.MatchAll();
+            }
+            // 纯数字按 id、index、orgs 精确匹配，其余交给全文索引
+            if (INTEGER.matcher(trimmed).matches()) {
+                return anyField(trimmed, List.of(SearchField.ID, SearchField.INDEX, SearchField.ORGS));
+            }
+            String match = FullTextSearchService.toMatchExpression(trimmed, false);
+            return match.isEmpty() ? new Predicate.MatchNone() : new Predicate.FullText(match);
+        }
+
+        SearchField defaultField = null;
+        if (!normalizedCategory.isEmpty()) {
+            defaultField = SearchField.parse(normalizedCategory);
+            if (defaultField == null) {
+                // 类别不匹配时返回空结果
+                return new Predicate.MatchNone();
+            }
+        }
+        if (trimmed.isEmpty()) {
+            return defaultField == null ? new Predicate.MatchAll() : FieldPredicate.notEmpty(defaultField);
+        }
+
+        List<Predicate> disjuncts = new ArrayList<>();
+        for (String disjunct : OR.split(trimmed)) {
+            List<Predicate> conjuncts = new ArrayList<>();
+            for (String clause : AND.split(disjunct)) {
+                conjuncts.add(parseClause(clause.trim(), defaultField));
+            }
+            disjuncts.add(conjuncts.size() == 1 ? conjuncts.get(0) : new Predicate.Bool(true, conjuncts));
+        }
+        return disjuncts.size() == 1 ? disjuncts.get(0) : new Predicate.Bool(false, disjuncts);
+    }
+
+    private static Predicate parseClause(String clause, SearchField defaultField) {
+        if (DANGLING_OPERATOR.matcher(clause).matches()) {
+            throw new MalformedQueryException("Missing operand in query clause: " + clause);
+        }
+        SearchField field = defaultField;
+        String value = clause;
+        Matcher prefix = FIELD_PREFIX.matcher(clause);
+        if (prefix.matches() && SearchField.parse(prefix.group(1)) != null) {
+            field = SearchField.parse(prefix.group(1));
+            value = prefix.group(2).trim();
+            if (value.isEmpty()) {
+                return FieldPredicate.notEmpty(field);
+            }
+        }
+        if (value.startsWith("\"") && (value.length() < 2 || !value.endsWith("\""))) {
+            throw new MalformedQueryException("Unterminated quote in query clause: " + clause);
+        }
+        if (field == null) {
+            List<SearchField> fields = new ArrayList<>();
+            for (SearchField candidate : SearchField.values()) {
+                if (candidate.isInAllCategories()) {
+                    fields.add(candidate);
+                }
+            }
+            return anyField(value, fields);
+        }
+        Predicate predicate = parseValue(field, value);
+        return predicate != null ? predicate : new Predicate.MatchNone();
+    }
+
+    // 在多个字段上匹配同一个值，取 OR；不适用的字段（例如数值字段上的文本）跳过
+    private static Predicate anyField(String value, List<SearchField> fields) {
+        List<Predicate> operands = new ArrayList<>();
+        for (SearchField field : fields) {
+            Predicate predicate = parseValue(field, value);
+            if (predicate != null) {
+                operands.add(predicate);
+            }
+        }
+        if (operands.isEmpty()) {
+            return new Predicate.MatchNone();
+        }
+        return operands.size() == 1 ? operands.get(0) : new Predicate.Bool(false, operands);
+    }
+
+    // 解析字段上的一个值，值的写法不适用于该字段时返回 null
+    private static Predicate parseValue(SearchField field, String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            String literal = value.substring(1, value.length() - 1);
+            return literal.isEmpty() ? null : FieldPredicate.text(field, Kind.SUBSTRING, literal);
+        }
+        Matcher range = RANGE.matcher(value);
+        if (range.matches() && (range.group(1) != null || range.group(2) != null)) {
+            if (!field.isNumeric()) {
+                return null;
+            }
+            long from = range.group(1) != null ? Long.parseLong(range.group(1)) : Long.MIN_VALUE;
+            long to = range.group(2) != null ? Long.parseLong(range.group(2)) : Long.MAX_VALUE;
+            return FieldPredicate.range(field, from, to);
+        }
+        Matcher comparison = COMPARISON.matcher(value);
+        if (comparison.matches()) {
+            if (!field.isNumeric()) {
+                return null;
+            }
+            long bound = Long.parseLong(comparison.group(2));
+            switch (comparison.group(1)) {
+                case ">": return bound == Long.MAX_VALUE ? null : FieldPredicate.range(field, bound + 1, Long.MAX_VALUE);
+                case ">=": return FieldPredicate.range(field, bound, Long.MAX_VALUE);
+                case "<": return bound == Long.MIN_VALUE ? null : FieldPredicate.range(field, Long.MIN_VALUE, bound - 1);
+                default: return FieldPredicate.range(field, Long.MIN_VALUE, bound);
+            }
+        }
+        if (value.startsWith("=") && value.length() > 1) {
+            String exact = value.substring(1).trim();
+            if (field.isNumeric() && !INTEGER.matcher(exact).matches()) {
+                return null;
+            }
+            return FieldPredicate.text(field, Kind.EXACT, exact);
+        }
+        if (value.endsWith("*") && value.length() > 1) {
+            String start = value.substring(0, value.length() - 1);
+            if (field.isNumeric() && !INTEGER.matcher(start).matches()) {
+                return null;
+            }
+            return FieldPredicate.text(field, Kind.PREFIX, start);
+        }
+        if (field.isNumeric()) {
+            return INTEGER.matcher(value).matches() ? FieldPredicate.text(field, Kind.EXACT, value) : null;
+        }
+        return FieldPredicate.text(field, Kind.SUBSTRING, value);
+    }
+}
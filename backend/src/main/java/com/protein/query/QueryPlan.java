@@ -0,0 +1,41 @@
+package com.protein.query;
+
+import java.util.List;
+
+// 查询计划：条件、选定的访问路径，以及按 id 键集分页执行用的 SQL 条件和参数。
+// kmerQuery 不为 null 时，先用 k-mer 索引得到候选 id，再在候选范围内执行 SQL 条件
+public class QueryPlan {
+    private final Predicate predicate;
+    private final AccessPath accessPath;
+    private final String where;
+    private final List<Object> parameters;
+    private final String kmerQuery;
+
+    QueryPlan(Predicate predicate, AccessPath accessPath, String where, List<Object> parameters, String kmerQuery) {
+        this.predicate = predicate;
+        this.accessPath = accessPath;
+        this.where = where;
+        this.parameters = parameters;
+        this.kmerQuery = kmerQuery;
+    }
+
+    public Predicate getPredicate() {
+        return predicate;
+    }
+
+    public AccessPath getAccessPath() {
+        return accessPath;
+    }
+
+    public String getWhere() {
+        return where;
+    }
+
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    public String getKmerQuery() {
+        return kmerQuery;
+    }
+}
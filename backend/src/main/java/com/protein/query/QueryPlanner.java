@@ -0,0 +1,100 @@
+package com.protein.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.protein.index.KmerIndex;
+import com.protein.index.KmerIndexService;
+import com.protein.query.Predicate.FieldPredicate;
+import com.protein.query.Predicate.FieldPredicate.Kind;
+
+// 为条件选择访问路径。单个条件按字段和匹配方式确定可用的索引；
+// AND 取各条件中最便宜的路径（由它缩小范围，其余条件逐行过滤），OR 只要有一个分支需要扫描就只能扫描。
+// 除 k-mer 索引外，其他路径都由 SQLite 根据生成的 SQL 使用对应的索引。
+@Component
+public class QueryPlanner {
+    @Autowired
+    private KmerIndexService kmerIndexService;
+
+    public QueryPlan plan(Predicate predicate) {
+        StringBuilder where = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        predicate.appendSql(where, parameters);
+        AccessPath accessPath = accessPath(predicate);
+        String kmerQuery = accessPath == AccessPath.KMER_INDEX ? kmerQuery(predicate) : null;
+        return new QueryPlan(predicate, accessPath, where.toString(), parameters, kmerQuery);
+    }
+
+    private AccessPath accessPath(Predicate predicate) {
+        if (predicate instanceof Predicate.MatchNone) {
+            return AccessPath.PRIMARY_KEY;
+        }
+        if (predicate instanceof Predicate.FullText) {
+            return AccessPath.FULL_TEXT_INDEX;
+        }
+        if (predicate instanceof Predicate.Bool) {
+            Predicate.Bool bool = (Predicate.Bool) predicate;
+            AccessPath result = null;
+            for (Predicate operand : bool.getOperands()) {
+                AccessPath path = accessPath(operand);
+                if (result == null || (bool.isAnd() ? path.cheaperThan(result) : result.cheaperThan(path))) {
+                    result = path;
+                }
+            }
+            // OR 的分支中有 k-mer 时无法用候选集合驱动整个 OR，只能扫描
+            if (!bool.isAnd() && result == AccessPath.KMER_INDEX) {
+                return AccessPath.SCAN;
+            }
+            return result != null ? result : AccessPath.SCAN;
+        }
+        if (!(predicate instanceof FieldPredicate)) {
+            return AccessPath.SCAN;
+        }
+        FieldPredicate field = (FieldPredicate) predicate;
+        switch (field.getKind()) {
+            case EXACT:
+            case RANGE:
+                if (field.getField() == SearchField.ID) {
+                    return AccessPath.PRIMARY_KEY;
+                }
+                if (field.getField().isNumeric() || field.getField() == SearchField.PROTEINS) {
+                    return AccessPath.BTREE_INDEX;
+                }
+                return field.getField().getTermField() != null ? AccessPath.TERM_INDEX : AccessPath.SCAN;
+            case PREFIX:
+                if (field.getField().getTermField() != null) {
+                    return AccessPath.TERM_INDEX;
+                }
+                return field.getField() == SearchField.PROTEINS ? AccessPath.BTREE_INDEX : AccessPath.SCAN;
+            case SUBSTRING:
+                return isKmerSearchable(field) ? AccessPath.KMER_INDEX : AccessPath.SCAN;
+            default:
+                return AccessPath.SCAN;
+        }
+    }
+
+    // 驱动 k-mer 查找的子串：条件本身，或 AND 中最长（通常最有选择性）的可用子串
+    private String kmerQuery(Predicate predicate) {
+        if (predicate instanceof FieldPredicate) {
+            return ((FieldPredicate) predicate).getText();
+        }
+        String best = null;
+        for (Predicate operand : ((Predicate.Bool) predicate).getOperands()) {
+            if (operand instanceof FieldPredicate && isKmerSearchable((FieldPredicate) operand)) {
+                String text = ((FieldPredicate) operand).getText();
+                if (best == null || text.length() > best.length()) {
+                    best = text;
+                }
+            }
+        }
+        return best;
+    }
+
+    private boolean isKmerSearchable(FieldPredicate predicate) {
+        return predicate.getField() == SearchField.SEQUENCE && predicate.getKind() == Kind.SUBSTRING
+                && kmerIndexService.isReady() && KmerIndex.isSearchable(predicate.getText());
+    }
+}
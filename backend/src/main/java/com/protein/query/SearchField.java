@@ -0,0 +1,63 @@
+package com.protein.query;
+
+import com.protein.data.SequenceTerms;
+
+// 可搜索的字段。category 是前端类别下拉框中的名称（小写），也可以在查询中用 “字段:值” 指定
+public enum SearchField {
+    ID("id", "id", true, null, true),
+    INDEX("index", "index_number", true, null, true),
+    PROTEINS("proteins", "proteins", false, null, true),
+    ACCESSIONS("accessions", "accessions", false, SequenceTerms.Field.ACCESSIONS, true),
+    SEQUENCE("sequences", "sequence", false, null, true),
+    ANNOTATIONS("annotations", "annotations", false, SequenceTerms.Field.ANNOTATIONS, true),
+    INTERPROS("interpros", "interpros", false, SequenceTerms.Field.INTERPROS, true),
+    ORGS("orgs", "orgs", true, null, true),
+    // 序列长度（生成列），用于范围过滤，例如 length:100..500；不参与全部类别的搜索
+    LENGTH("length", "sequence_length", true, null, false);
+
+    private final String category;
+    private final String column;
+    private final boolean numeric;
+    private final SequenceTerms.Field termField; // 在 sequence_term 表中有词条索引的多值字段
+    private final boolean inAllCategories; // 未指定字段且类别为全部类别时是否参与匹配
+
+    SearchField(String category, String column, boolean numeric, SequenceTerms.Field termField,
+                boolean inAllCategories) {
+        this.category = category;
+        this.column = column;
+        this.numeric = numeric;
+        this.termField = termField;
+        this.inAllCategories = inAllCategories;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean isNumeric() {
+        return numeric;
+    }
+
+    public SequenceTerms.Field getTermField() {
+        return termField;
+    }
+
+    public boolean isInAllCategories() {
+        return inAllCategories;
+    }
+
+    // 按类别名或列名查找，忽略大小写，无法识别时返回 null
+    public static SearchField parse(String name) {
+        for (SearchField field : values()) {
+            if (field.category.equalsIgnoreCase(name) || field.column.equalsIgnoreCase(name)
+                    || field.name().equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
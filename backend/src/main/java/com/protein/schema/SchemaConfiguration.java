@@ -0,0 +1,14 @@
+package com.protein.schema;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SchemaConfiguration {
+    // 与 Flyway 的自动配置相同：先执行迁移，再创建 EntityManagerFactory，仓库和各个服务使用时表结构已经就绪
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor schemaManagerDependsOnPostProcessor() {
+        return new EntityManagerFactoryDependsOnPostProcessor("schemaManager");
+    }
+}
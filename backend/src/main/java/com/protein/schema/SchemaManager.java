@@ -0,0 +1,121 @@
+package com.protein.schema;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.protein.data.DataConfiguration;
+
+// 数据库结构管理：启动时按版本执行 SchemaMigrations 中尚未执行的迁移，批量导入后更新查询优化器的统计信息。
+// 已执行的版本记录在 schema_version 表中，每个迁移在单独的事务中执行，失败时回滚并阻止应用启动。
+// Hibernate 不再维护表结构（ddl-auto=none），也不必在每次启动时读取数据库元数据。
+@Component
+public class SchemaManager {
+    private static final Logger log = LoggerFactory.getLogger(SchemaManager.class);
+
+    @Autowired
+    @Qualifier(DataConfiguration.WRITE_DATA_SOURCE)
+    private DataSource dataSource;
+
+    // ANALYZE 每个索引最多检查的行数，0 表示检查全部行。统计信息只需要大致准确，限制后大表上也只需几毫秒
+    @Value("${protein.schema.analysis-limit:1000}")
+    private int analysisLimit;
+
+    @PostConstruct
+    public void migrate() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (migrate(connection, SchemaMigrations.all()) > 0) {
+                analyze(connection, analysisLimit);
+            }
+        }
+    }
+
+    // 更新 sqlite_stat1 中的统计信息，SQLite 据此在多个可用索引之间做选择
+    public void analyze() {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            analyze(connection, analysisLimit);
+            log.info("Analyzed database in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (SQLException e) {
+            // 统计信息过时只影响索引选择，不影响结果，不让导入任务因此失败
+            log.warn("ANALYZE failed", e);
+        }
+    }
+
+    // 执行 migrations 中尚未执行的迁移，返回本次执行的个数。不依赖 Spring，可以直接用于任意 SQLite 连接
+    public static int migrate(Connection connection, List<SchemaMigration> migrations) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_version (version INTEGER PRIMARY KEY, " +
+                    "description TEXT NOT NULL, installed_at TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                    "execution_millis INTEGER NOT NULL)");
+        }
+        int current = currentVersion(connection);
+        int latest = migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+        if (current > latest) {
+            throw new IllegalStateException("Database schema version " + current +
+                    " is newer than the latest known migration " + latest);
+        }
+        int applied = 0;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            for (SchemaMigration migration : migrations) {
+                if (migration.getVersion() <= current) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    migration.apply(connection);
+                    long millis = (System.nanoTime() - start) / 1_000_000;
+                    try (PreparedStatement insert = connection.prepareStatement(
+                            "INSERT INTO schema_version (version, description, execution_millis) VALUES (?, ?, ?)")) {
+                        insert.setInt(1, migration.getVersion());
+                        insert.setString(2, migration.getDescription());
+                        insert.setLong(3, millis);
+                        insert.executeUpdate();
+                    }
+                    connection.commit();
+                    log.info("Applied schema migration {} ({}) in {} ms",
+                            migration.getVersion(), migration.getDescription(), millis);
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw new IllegalStateException("Schema migration " + migration.getVersion() + " (" +
+                            migration.getDescription() + ") failed: " + e.getMessage(), e);
+                }
+                applied++;
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return applied;
+    }
+
+    public static void analyze(Connection connection, int analysisLimit) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // analysis_limit 是连接级设置，用完恢复默认值，连接会回到连接池
+            statement.execute("PRAGMA analysis_limit=" + analysisLimit);
+            statement.execute("ANALYZE");
+            statement.execute("PRAGMA analysis_limit=0");
+        }
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.protein.schema;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// 一个版本化的结构迁移。版本号从 1 开始连续递增，已发布的迁移不能再修改，只能追加新的迁移
+public final class SchemaMigration {
+    // 迁移的具体步骤，在 SchemaManager 开启的事务中执行，不要自行提交
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    private final int version;
+    private final String description;
+    private final Step step;
+
+    public SchemaMigration(int version, String description, Step step) {
+        this.version = version;
+        this.description = description;
+        this.step = step;
+    }
+
+    // 只包含 SQL 语句的迁移
+    public static SchemaMigration sql(int version, String description, String... statements) {
+        return new SchemaMigration(version, description, connection -> {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : statements) {
+                    statement.execute(sql);
+                }
+            }
+        });
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    void apply(Connection connection) throws SQLException {
+        step.apply(connection);
+    }
+}
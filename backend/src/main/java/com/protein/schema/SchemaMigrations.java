@@ -0,0 +1,266 @@
+package com.protein.schema;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.protein.data.ContentHash;
+import com.protein.data.Sequence;
+import com.protein.data.SequenceTerms;
+
+// 数据库结构的全部迁移，按版本号排列。
+// 在引入迁移之前，表和索引由 Hibernate ddl-auto=update 和各个服务启动时的 CREATE ... IF NOT EXISTS 建立，
+// 所以前几个迁移都写成可重复执行的形式：旧数据库上执行时不改变已有的结构，也不会重复补建索引数据。
+public final class SchemaMigrations {
+    private static final int BACKFILL_BATCH_SIZE = 5000;
+
+    private SchemaMigrations() {
+    }
+
+    public static List<SchemaMigration> all() {
+        return List.of(
+                // 与原来 Hibernate 根据 Sequence 实体生成的建表语句相同
+                SchemaMigration.sql(1, "sequence table",
+                        "CREATE TABLE IF NOT EXISTS sequence (id integer, accessions varchar(1000), " +
+                        "annotations varchar(5000), index_number integer, interpros varchar(5000), orgs integer, " +
+                        "proteins varchar(255), sequence varchar(5000), primary key (id))"),
+                // SQLite 的二级索引隐含以 rowid（即 id）结尾，(orgs) 上的索引对 orgs = ? AND id > ? ORDER BY id
+                // 已经是覆盖的，不需要把其他列也放进索引
+                SchemaMigration.sql(2, "indexes on index_number, orgs and proteins",
+                        "CREATE INDEX IF NOT EXISTS idx_sequence_index_number ON sequence(index_number)",
+                        "CREATE INDEX IF NOT EXISTS idx_sequence_orgs ON sequence(orgs)",
+                        // 与 LIKE 一样不区分大小写，前缀查询 proteins LIKE 'abc%' 可以按范围查找
+                        "CREATE INDEX IF NOT EXISTS idx_sequence_proteins ON sequence(proteins COLLATE NOCASE)"),
+                new SchemaMigration(3, "full-text index", SchemaMigrations::createFullTextIndex),
+                new SchemaMigration(4, "term index", SchemaMigrations::createTermIndex),
+                new SchemaMigration(5, "indexed sequence length", SchemaMigrations::addSequenceLength),
+                new SchemaMigration(6, "content hash", SchemaMigrations::addContentHash),
+                new SchemaMigration(7, "packed residues", SchemaMigrations::addPackedResidues),
+                // 残基序列被改写、删除，或者插入了比已有最大 id 小的记录时，在同一事务中记下 id，
+                // k-mer 索引按 seq 增量处理（见 KmerIndexService）。AUTOINCREMENT 保证删除已处理的行之后 seq 不会重复使用
+                SchemaMigration.sql(8, "sequence change log",
+                        "CREATE TABLE IF NOT EXISTS sequence_change (seq INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "sequence_id INTEGER NOT NULL)",
+                        "CREATE TRIGGER IF NOT EXISTS sequence_change_update AFTER UPDATE OF sequence, residues ON sequence " +
+                        "WHEN old.sequence IS NOT new.sequence OR old.residues IS NOT new.residues BEGIN " +
+                        "INSERT INTO sequence_change (sequence_id) VALUES (new.id); END",
+                        "CREATE TRIGGER IF NOT EXISTS sequence_change_insert AFTER INSERT ON sequence " +
+                        "WHEN new.id < (SELECT MAX(id) FROM sequence) BEGIN " +
+                        "INSERT INTO sequence_change (sequence_id) VALUES (new.id); END",
+                        "CREATE TRIGGER IF NOT EXISTS sequence_change_delete AFTER DELETE ON sequence BEGIN " +
+                        "INSERT INTO sequence_change (sequence_id) VALUES (old.id); END"),
+                new SchemaMigration(9, "change log for columnar store", SchemaMigrations::recordColumnChanges));
+    }
+
+    // 列式存储（见 ColumnarSequenceStore）也按 sequence_change 重放改动，改写它保存的任何一列都要记下 id。
+    // residues_changed 标记残基序列是否改变，k-mer 索引只需重建这些 id
+    private static void recordColumnChanges(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (!columnExists(connection, "sequence_change", "residues_changed")) {
+                statement.execute("ALTER TABLE sequence_change ADD COLUMN residues_changed INTEGER NOT NULL DEFAULT 1");
+            }
+            statement.execute("DROP TRIGGER IF EXISTS sequence_change_update");
+            statement.execute("CREATE TRIGGER sequence_change_update AFTER UPDATE ON sequence " +
+                    "WHEN old.sequence IS NOT new.sequence OR old.residues IS NOT new.residues " +
+                    "OR old.index_number IS NOT new.index_number OR old.orgs IS NOT new.orgs " +
+                    "OR old.proteins IS NOT new.proteins OR old.accessions IS NOT new.accessions " +
+                    "OR old.interpros IS NOT new.interpros OR old.annotations IS NOT new.annotations BEGIN " +
+                    "INSERT INTO sequence_change (sequence_id, residues_changed) VALUES (new.id, " +
+                    "old.sequence IS NOT new.sequence OR old.residues IS NOT new.residues); END");
+        }
+    }
+
+    // sequence_fts 是以 sequence 表为内容表的 FTS5 外部内容索引，由触发器在同一事务中同步
+    private static void createFullTextIndex(Connection connection) throws SQLException {
+        boolean exists = tableExists(connection, "sequence_fts");
+        try (Statement statement = connection.createStatement()) {
+            // prefix='2 3' 额外索引 2、3 个字符的前缀，前缀查询不必扫描整个词表
+            statement.execute("CREATE VIRTUAL TABLE IF NOT EXISTS sequence_fts USING fts5(" +
+                    "proteins, accessions, annotations, interpros, " +
+                    "content='sequence', content_rowid='id', prefix='2 3', tokenize='unicode61 remove_diacritics 2')");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS sequence_fts_insert AFTER INSERT ON sequence BEGIN " +
+                    "INSERT INTO sequence_fts(rowid, proteins, accessions, annotations, interpros) " +
+                    "VALUES (new.id, new.proteins, new.accessions, new.annotations, new.interpros); END");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS sequence_fts_delete AFTER DELETE ON sequence BEGIN " +
+                    "INSERT INTO sequence_fts(sequence_fts, rowid, proteins, accessions, annotations, interpros) " +
+                    "VALUES ('delete', old.id, old.proteins, old.accessions, old.annotations, old.interpros); END");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS sequence_fts_update AFTER UPDATE ON sequence BEGIN " +
+                    "INSERT INTO sequence_fts(sequence_fts, rowid, proteins, accessions, annotations, interpros) " +
+                    "VALUES ('delete', old.id, old.proteins, old.accessions, old.annotations, old.interpros); " +
+                    "INSERT INTO sequence_fts(rowid, proteins, accessions, annotations, interpros) " +
+                    "VALUES (new.id, new.proteins, new.accessions, new.annotations, new.interpros); END");
+            if (!exists) {
+                // 新建的索引为已有数据补建
+                statement.execute("INSERT INTO sequence_fts(sequence_fts) VALUES ('rebuild')");
+            }
+        }
+    }
+
+    // sequence_term 表以 (field, term, sequence_id) 为主键，多值字段的每个词条一行，见 SequenceTerms
+    private static void createTermIndex(Connection connection) throws SQLException {
+        boolean exists = tableExists(connection, "sequence_term");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS sequence_term (" +
+                    "field INTEGER NOT NULL, term TEXT NOT NULL COLLATE NOCASE, sequence_id INTEGER NOT NULL, " +
+                    "PRIMARY KEY (field, term, sequence_id)) WITHOUT ROWID");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_sequence_term_sequence ON sequence_term(sequence_id)");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS sequence_term_delete AFTER DELETE ON sequence BEGIN " +
+                    "DELETE FROM sequence_term WHERE sequence_id = old.id; END");
+        }
+        if (!exists) {
+            backfillTerms(connection);
+        }
+    }
+
+    // 序列长度作为虚拟生成列，由 SQLite 在读取和建索引时根据 sequence 计算，任何写入途径都不需要维护它。
+    // ALTER TABLE 只能添加 VIRTUAL 生成列；索引中保存的是计算后的值，长度范围查询直接走索引
+    private static void addSequenceLength(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (!columnExists(connection, "sequence", "sequence_length")) {
+                statement.execute("ALTER TABLE sequence ADD COLUMN sequence_length INTEGER " +
+                        "GENERATED ALWAYS AS (length(sequence)) VIRTUAL");
+            }
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_sequence_length ON sequence(sequence_length)");
+        }
+    }
+
+    // content_hash 是 ContentHash 计算的内容哈希，由 SequenceBulkWriter 在写入时填写，导入去重时按它查找已有记录。
+    // FTS 的更新触发器改为只在被索引的列变化时执行，为已有数据补写哈希不会重建全文索引
+    private static void addContentHash(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (!columnExists(connection, "sequence", "content_hash")) {
+                statement.execute("ALTER TABLE sequence ADD COLUMN content_hash INTEGER");
+            }
+            statement.execute("DROP TRIGGER IF EXISTS sequence_fts_update");
+            statement.execute("CREATE TRIGGER sequence_fts_update " +
+                    "AFTER UPDATE OF proteins, accessions, annotations, interpros ON sequence BEGIN " +
+                    "INSERT INTO sequence_fts(sequence_fts, rowid, proteins, accessions, annotations, interpros) " +
+                    "VALUES ('delete', old.id, old.proteins, old.accessions, old.annotations, old.interpros); " +
+                    "INSERT INTO sequence_fts(rowid, proteins, accessions, annotations, interpros) " +
+                    "VALUES (new.id, new.proteins, new.accessions, new.annotations, new.interpros); END");
+        }
+        backfillContentHash(connection);
+        try (Statement statement = connection.createStatement()) {
+            // 先补写再建索引，比逐行维护索引快
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_sequence_content_hash ON sequence(content_hash)");
+        }
+    }
+
+    // residues 保存压缩的残基序列（见 PackedResidues），这样的记录 sequence 列为 NULL。
+    // 生成列不能修改表达式，所以删除 sequence_length 后按新的表达式重建：压缩的序列由字节数和格式标记算出残基个数，
+    // 仍然只用 SQLite 内置的函数，任何连接上都可以计算。已有的记录不转换，新导入的记录是否压缩由配置决定
+    private static void addPackedResidues(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (!columnExists(connection, "sequence", "residues")) {
+                statement.execute("ALTER TABLE sequence ADD COLUMN residues BLOB");
+            }
+            statement.execute("DROP INDEX IF EXISTS idx_sequence_length");
+            if (columnExists(connection, "sequence", "sequence_length")) {
+                statement.execute("ALTER TABLE sequence DROP COLUMN sequence_length");
+            }
+            statement.execute("ALTER TABLE sequence ADD COLUMN sequence_length INTEGER GENERATED ALWAYS AS (" +
+                    "CASE WHEN residues IS NULL THEN length(sequence) " +
+                    "ELSE ((length(residues) - 1) * 8 - (unicode(residues) & 7)) / " +
+                    "(CASE WHEN unicode(residues) & 8 THEN 2 ELSE 5 END) END) VIRTUAL");
+            statement.execute("CREATE INDEX idx_sequence_length ON sequence(sequence_length)");
+        }
+    }
+
+    // 为还没有内容哈希的记录补写
+    private static void backfillContentHash(Connection connection) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                     "SELECT id, sequence, accessions FROM sequence WHERE id > ? AND content_hash IS NULL " +
+                     "ORDER BY id LIMIT ?");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE sequence SET content_hash = ? WHERE id = ?")) {
+            long lastId = 0L;
+            while (true) {
+                int rows = 0;
+                select.setLong(1, lastId);
+                select.setInt(2, BACKFILL_BATCH_SIZE);
+                try (ResultSet resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        Sequence sequence = new Sequence();
+                        sequence.setSequence(resultSet.getString(2));
+                        sequence.setAccessions(resultSet.getString(3));
+                        lastId = resultSet.getLong(1);
+                        update.setLong(1, ContentHash.of(sequence));
+                        update.setLong(2, lastId);
+                        update.addBatch();
+                        rows++;
+                    }
+                }
+                if (rows == 0) {
+                    return;
+                }
+                update.executeBatch();
+            }
+        }
+    }
+
+    // 为已有数据补建词条
+    private static void backfillTerms(Connection connection) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                     "SELECT id, accessions, annotations, interpros FROM sequence WHERE id > ? ORDER BY id LIMIT ?");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT OR IGNORE INTO sequence_term (field, term, sequence_id) VALUES (?, ?, ?)")) {
+            long lastId = 0L;
+            while (true) {
+                List<Sequence> batch = new ArrayList<>();
+                select.setLong(1, lastId);
+                select.setInt(2, BACKFILL_BATCH_SIZE);
+                try (ResultSet resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        Sequence sequence = new Sequence();
+                        sequence.setId(resultSet.getLong(1));
+                        sequence.setAccessions(resultSet.getString(2));
+                        sequence.setAnnotations(resultSet.getString(3));
+                        sequence.setInterpros(resultSet.getString(4));
+                        batch.add(sequence);
+                    }
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                for (Sequence sequence : batch) {
+                    for (SequenceTerms.Field field : SequenceTerms.Field.values()) {
+                        for (String term : SequenceTerms.terms(field.valueOf(sequence), field)) {
+                            insert.setInt(1, field.getCode());
+                            insert.setString(2, term);
+                            insert.setLong(3, sequence.getId());
+                            insert.addBatch();
+                        }
+                    }
+                }
+                insert.executeBatch();
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT COUNT(*) FROM sqlite_master WHERE name = ?")) {
+            statement.setString(1, name);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getInt(1) > 0;
+            }
+        }
+    }
+
+    // table_xinfo 才会列出生成列，table_info 不包含
+    private static boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT COUNT(*) FROM pragma_table_xinfo(?) WHERE name = ?")) {
+            statement.setString(1, table);
+            statement.setString(2, column);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getInt(1) > 0;
+            }
+        }
+    }
+}
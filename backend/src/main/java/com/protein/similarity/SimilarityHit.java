@@ -0,0 +1,53 @@
+package com.protein.similarity;
+
+import com.protein.data.Sequence;
+
+// 相似序列搜索的一条结果：记录本身、Smith-Waterman 原始得分、换算后的比特得分，以及与查询共有的不同 3-mer 个数
+public class SimilarityHit {
+    private Sequence sequence;
+    private int score;
+    private double bitScore;
+    private int sharedKmers;
+
+    public SimilarityHit() {
+    }
+
+    public SimilarityHit(Sequence sequence, int score, double bitScore, int sharedKmers) {
+        this.sequence = sequence;
+        this.score = score;
+        this.bitScore = bitScore;
+        this.sharedKmers = sharedKmers;
+    }
+
+    public Sequence getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Sequence sequence) {
+        this.sequence = sequence;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public double getBitScore() {
+        return bitScore;
+    }
+
+    public void setBitScore(double bitScore) {
+        this.bitScore = bitScore;
+    }
+
+    public int getSharedKmers() {
+        return sharedKmers;
+    }
+
+    public void setSharedKmers(int sharedKmers) {
+        this.sharedKmers = sharedKmers;
+    }
+}
@@ -0,0 +1,53 @@
+package com.protein.similarity;
+
+import java.util.List;
+
+// 相似序列搜索的结果：按得分降序排列的前 top 条，以及本次搜索比对的候选数、计算的格子数和耗时
+public class SimilarityResult {
+    private List<SimilarityHit> hits;
+    private int candidates;
+    private long cells;
+    private long elapsedMillis;
+
+    public SimilarityResult() {
+    }
+
+    public SimilarityResult(List<SimilarityHit> hits, int candidates, long cells, long elapsedMillis) {
+        this.hits = hits;
+        this.candidates = candidates;
+        this.cells = cells;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<SimilarityHit> getHits() {
+        return hits;
+    }
+
+    public void setHits(List<SimilarityHit> hits) {
+        this.hits = hits;
+    }
+
+    public int getCandidates() {
+        return candidates;
+    }
+
+    public void setCandidates(int candidates) {
+        this.candidates = candidates;
+    }
+
+    public long getCells() {
+        return cells;
+    }
+
+    public void setCells(long cells) {
+        this.cells = cells;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+}
@@ -0,0 +1,151 @@
+package com.protein.similarity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.protein.data.Sequence;
+import com.protein.data.SequenceRowMapper;
+import com.protein.index.KmerCandidates;
+import com.protein.index.KmerIndex;
+import com.protein.index.KmerIndexService;
+
+// 相似序列搜索：先用 k-mer 索引找出与查询共有 3-mer 最多的候选（种子），
+// 再在专用的 ForkJoin 线程池中并行地对每个候选做带状 Smith-Waterman 比对，按得分取前 top 条。
+// 每个工作线程有自己的 SmithWaterman 实例，缓冲区在多次搜索之间复用
+@Service
+public class SimilarityService {
+    public static final int MAX_TOP = 500;
+    private static final int LOAD_CHUNK_SIZE = 500;
+    // BLOSUM62、空位罚分 11/1 时的 Karlin-Altschul 参数，用于把原始得分换算成比特得分
+    private static final double LAMBDA = 0.267;
+    private static final double LN_K = Math.log(0.041);
+
+    private static final Comparator<SimilarityHit> BY_SCORE = Comparator
+            .comparingInt(SimilarityHit::getScore).reversed()
+            .thenComparing(Comparator.comparingInt(SimilarityHit::getSharedKmers).reversed())
+            .thenComparingLong(hit -> hit.getSequence().getId());
+
+    @Autowired
+    private KmerIndexService kmerIndexService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${protein.similarity.parallelism:0}")
+    private int configuredParallelism;
+
+    @Value("${protein.similarity.max-candidates:2000}")
+    private int maxCandidates;
+
+    @Value("${protein.similarity.min-shared-kmers:2}")
+    private int minSharedKmers;
+
+    @Value("${protein.similarity.band-width:32}")
+    private int bandWidth;
+
+    private ForkJoinPool pool;
+    private ThreadLocal<SmithWaterman> aligners;
+
+    @PostConstruct
+    public void start() {
+        // 未配置时使用全部 CPU 核心
+        int parallelism = configuredParallelism > 0 ? configuredParallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("similarity-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        aligners = ThreadLocal.withInitial(() -> new SmithWaterman(bandWidth));
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    // query 能否用来搜索（至少含 3 个连续字母）
+    public static boolean isSearchable(String query) {
+        return KmerIndex.isSearchable(query);
+    }
+
+    // 与 query 最相似的 top 条记录，excludeId 不为 null 时结果中不含该记录（按库中记录搜索时排除其本身）。
+    // k-mer 索引未就绪时返回 null
+    public SimilarityResult search(String query, int top, Long excludeId) {
+        long start = System.nanoTime();
+        KmerCandidates candidates = kmerIndexService.mostShared(query,
+                maxCandidates + (excludeId != null ? 1 : 0), minSharedKmers);
+        if (candidates == null) {
+            return null;
+        }
+        Map<Long, Integer> sharedKmers = new HashMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (excludeId == null || candidates.getId(i) != excludeId) {
+                sharedKmers.put(candidates.getId(i), candidates.getSharedKmers(i));
+            }
+        }
+        List<Sequence> sequences = load(new ArrayList<>(sharedKmers.keySet()));
+
+        LongAdder cells = new LongAdder();
+        List<SimilarityHit> hits;
+        try {
+            hits = pool.submit(() -> sequences.parallelStream()
+                    .map(sequence -> {
+                        SmithWaterman aligner = aligners.get();
+                        aligner.prepare(query);
+                        String residues = sequence.getSequence();
+                        int score = 0;
+                        if (residues != null) {
+                            score = aligner.score(residues);
+                            cells.add(aligner.getLastCells());
+                        }
+                        return new SimilarityHit(sequence, score, bitScore(score), sharedKmers.get(sequence.getId()));
+                    })
+                    .sorted(BY_SCORE)
+                    .limit(top)
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Similarity search interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Similarity search failed", e.getCause());
+        }
+        return new SimilarityResult(hits, sequences.size(), cells.sum(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // 按 id 分批读取候选记录
+    private List<Sequence> load(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Sequence> sequences = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + LOAD_CHUNK_SIZE));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            sequences.addAll(jdbcTemplate.query("SELECT " + SequenceRowMapper.COLUMNS +
+                    " FROM sequence s WHERE s.id IN (" + placeholders + ")", SequenceRowMapper.INSTANCE, chunk.toArray()));
+        }
+        return sequences;
+    }
+
+    static double bitScore(int score) {
+        return (LAMBDA * score - LN_K) / Math.log(2);
+    }
+}
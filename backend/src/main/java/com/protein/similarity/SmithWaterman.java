@@ -0,0 +1,167 @@
+package com.protein.similarity;
+
+import java.util.Arrays;
+
+// 带状 Smith-Waterman 局部比对（BLOSUM62，仿射空位罚分），给相似序列搜索的候选打分。
+// 带的中心是查询与目标共有 3-mer 最多的对角线，只计算离这条对角线不超过 halfBand 的格子，
+// 每个候选的计算量约为 查询长度 × (2 × halfBand + 1)，而不是 查询长度 × 目标长度。
+// 所有缓冲区都保存在对象中反复使用、只在遇到更长的序列时增大，打分过程不分配内存；
+// 对象不是线程安全的，每个工作线程使用自己的实例
+public final class SmithWaterman {
+    public static final int GAP_OPEN = 11;
+    public static final int GAP_EXTEND = 1;
+    private static final int NEG = -(1 << 28);
+    private static final int K = 3;
+    private static final int KMER_MASK = (1 << (5 * K)) - 1;
+
+    private final int halfBand;
+
+    // 查询：BLOSUM62 下标（从 1 开始，下标 0 不用）
+    private String preparedQuery;
+    private byte[] query = new byte[1];
+    private int queryLength;
+    // 查询中每个 3-mer 的起点链表：kmerHead[code] 是最后一次出现的位置 + 1，kmerNext[p] 是 p 之前一次出现的位置 + 1，0 表示没有
+    private final int[] kmerHead = new int[KMER_MASK + 1];
+    private int[] kmerNext = new int[0];
+
+    // 目标
+    private byte[] target = new byte[1];
+    private int[] diagonalCounts = new int[1];
+    private int[] h = new int[1];
+    private int[] e = new int[1];
+    private long lastCells;
+
+    public SmithWaterman(int halfBand) {
+        this.halfBand = halfBand;
+    }
+
+    // 设置查询序列。同一个查询对象重复调用时直接返回，多个候选共用一次预处理
+    public void prepare(String sequence) {
+        if (sequence == preparedQuery) {
+            return;
+        }
+        int m = sequence.length();
+        if (query.length < m + 1) {
+            query = new byte[m + 1];
+        }
+        if (kmerNext.length < m) {
+            kmerNext = new int[m];
+        }
+        Arrays.fill(kmerHead, 0);
+        int code = 0;
+        int valid = 0;
+        for (int i = 0; i < m; i++) {
+            char c = sequence.charAt(i);
+            query[i + 1] = (byte) Blosum62.index(c);
+            int letter = letterCode(c);
+            if (letter == 0) {
+                valid = 0;
+                continue;
+            }
+            code = ((code << 5) | letter) & KMER_MASK;
+            if (++valid >= K) {
+                int start = i - K + 1;
+                kmerNext[start] = kmerHead[code];
+                kmerHead[code] = start + 1;
+            }
+        }
+        queryLength = m;
+        preparedQuery = sequence;
+    }
+
+    // 查询与 sequence 的局部比对得分
+    public int score(String sequence) {
+        int m = queryLength;
+        int n = sequence.length();
+        if (target.length < n + 1) {
+            int capacity = Math.max(n + 1, target.length * 2);
+            target = new byte[capacity];
+            h = new int[capacity];
+            e = new int[capacity];
+        }
+        if (diagonalCounts.length < m + n + 1) {
+            diagonalCounts = new int[Math.max(m + n + 1, diagonalCounts.length * 2)];
+        }
+
+        // 编码目标，同时统计每条对角线（目标位置 - 查询位置）上共有的 3-mer 个数
+        Arrays.fill(diagonalCounts, 0, m + n + 1, 0);
+        int bestDiagonal = 0;
+        int bestCount = 0;
+        int code = 0;
+        int valid = 0;
+        for (int j = 0; j < n; j++) {
+            char c = sequence.charAt(j);
+            target[j + 1] = (byte) Blosum62.index(c);
+            int letter = letterCode(c);
+            if (letter == 0) {
+                valid = 0;
+                continue;
+            }
+            code = ((code << 5) | letter) & KMER_MASK;
+            if (++valid >= K) {
+                int start = j - K + 1;
+                for (int p = kmerHead[code]; p != 0; p = kmerNext[p - 1]) {
+                    int d = start - (p - 1) + m;
+                    int count = ++diagonalCounts[d];
+                    if (count > bestCount) {
+                        bestCount = count;
+                        bestDiagonal = d - m;
+                    }
+                }
+            }
+        }
+
+        // 带内的 Gotoh 递推，按查询逐行计算。h[j]、e[j] 保存上一行的值，带外的格子视为 0（局部比对可以从任意位置开始）
+        Arrays.fill(h, 0, n + 1, 0);
+        Arrays.fill(e, 0, n + 1, NEG);
+        int[] matrix = Blosum62.MATRIX;
+        int best = 0;
+        long cells = 0;
+        for (int i = 1; i <= m; i++) {
+            int from = Math.max(1, i + bestDiagonal - halfBand);
+            int to = Math.min(n, i + bestDiagonal + halfBand);
+            if (from > to) {
+                if (from > n) {
+                    break;
+                }
+                continue;
+            }
+            int row = query[i] * Blosum62.SIZE;
+            int diagonal = h[from - 1];
+            int left = 0;
+            int f = NEG;
+            for (int j = from; j <= to; j++) {
+                int up = h[j];
+                int ej = Math.max(e[j] - GAP_EXTEND, up - GAP_OPEN - GAP_EXTEND);
+                f = Math.max(f - GAP_EXTEND, left - GAP_OPEN - GAP_EXTEND);
+                int hj = Math.max(Math.max(diagonal + matrix[row + target[j]], 0), Math.max(ej, f));
+                diagonal = up;
+                h[j] = hj;
+                e[j] = ej;
+                left = hj;
+                if (hj > best) {
+                    best = hj;
+                }
+            }
+            cells += to - from + 1;
+        }
+        lastCells = cells;
+        return best;
+    }
+
+    // 上一次 score 计算的格子数
+    public long getLastCells() {
+        return lastCells;
+    }
+
+    // 与 KmerIndex 相同的字母编码：A..Z（不区分大小写）为 1..26，其他字符为 0
+    private static int letterCode(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,413 @@
+package com.protein.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.LongStream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.protein.data.PackedResidues;
+import com.protein.data.Sequence;
+import com.protein.data.SequenceChangeLog;
+import com.protein.data.SequenceWriteListener;
+import com.protein.query.Predicate;
+import com.protein.query.SearchField;
+
+// 列式存储（protein.store.type=columnar）：浏览、计数、分组和 /facets 的多维分组在 ColumnarTable 的内存映射列文件上执行。
+// 列文件随批量导入增量更新，定期写回磁盘，启动时打开并补上之后新增的记录；没有列文件或已经失效时从数据库重建。
+// 覆盖已有记录的改动由 SequenceChangeLog 记下，启动时和每次写回之前按 seq 重放：按数据库中的当前内容重写这些行，
+// 写回之后才改动的行即使进程意外退出、只有一部分写到了磁盘上，下次启动时也会被重写。
+// 改动无法原地重放（删除的记录、插入到中间的 id、accessions 变了）时重建。
+// 加载完成之前、条件不能在列上求值时，以及投影中有列文件之外的列（序列、注释、InterPro）时交给 SqliteSequenceStore：
+// 前两种整个查询交给 SQLite，后一种先在列上选出这一页的 id，再按 id 从 SQLite 取回需要的列。
+@Service
+@Primary
+@ConditionalOnProperty(name = "protein.store.type", havingValue = "columnar")
+public class ColumnarSequenceStore implements SequenceStore, SequenceWriteListener {
+    private static final Logger log = LoggerFactory.getLogger(ColumnarSequenceStore.class);
+    private static final Set<SearchField> ID_ONLY = EnumSet.of(SearchField.ID);
+    private static final String CHANGE_LOG_CONSUMER = "columnar-store";
+    private static final String COLUMNS_SQL = "SELECT id, index_number, orgs, sequence_length, proteins, accessions, "
+            + "interpros, annotations FROM sequence ";
+    // 每次重放的改动个数和按 id 读取时每条语句的 id 个数
+    private static final int CHANGE_BATCH_SIZE = 10_000;
+    private static final int ID_CHUNK_SIZE = 500;
+
+    @Autowired
+    private SqliteSequenceStore sqliteStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SequenceChangeLog changeLog;
+
+    @Value("${protein.store.columnar.path:sequences.columns}")
+    private String path;
+
+    @Value("${protein.store.columnar.flush-interval-seconds:30}")
+    private long flushIntervalSeconds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ColumnarTable table;
+    private volatile boolean ready;
+    private volatile boolean dirty;
+
+    private final ScheduledExecutorService background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "columnar-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 在任何组件保存之前注册，加载之前改动记录不会被其他组件的保存删除
+    @PostConstruct
+    public void init() {
+        changeLog.register(CHANGE_LOG_CONSUMER);
+    }
+
+    // 等数据库表结构就绪后在后台加载，加载期间查询交给 SQLite
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        background.execute(() -> load(false));
+        background.scheduleWithFixedDelay(this::refresh, flushIntervalSeconds, flushIntervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        background.shutdownNow();
+        flushIfDirty();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            if (table != null) {
+                table.close();
+                table = null;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close columnar store {}", path, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public String getName() {
+        return "columnar";
+    }
+
+    @Override
+    public void onBatchCommitted(List<Sequence> sequences) {
+        lock.writeLock().lock();
+        try {
+            // 还没有加载时不需要处理，加载时会从数据库读到这些记录
+            if (table == null) {
+                return;
+            }
+            for (Sequence sequence : sequences) {
+                if (!put(sequence.getId(), sequence.getIndexNumber(), sequence.getOrgs(), length(sequence),
+                        sequence.getProteins(), sequence.getAccessions(), sequence.getInterpros(),
+                        sequence.getAnnotations())) {
+                    log.info("Columnar store {} is out of sync with the database (id {}), rebuilding", path,
+                            sequence.getId());
+                    ready = false;
+                    background.execute(() -> load(true));
+                    return;
+                }
+            }
+            dirty = true;
+        } catch (UncheckedIOException e) {
+            // 不影响已经提交的导入，查询交给 SQLite，直到重建完成
+            log.warn("Failed to update columnar store {}, rebuilding", path, e);
+            ready = false;
+            background.execute(() -> load(true));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Sequence> findPage(Predicate predicate, long lastId, int limit, Set<SearchField> columns) {
+        boolean resident = ColumnarTable.COLUMNS.containsAll(columns);
+        List<Sequence> page = null;
+        lock.readLock().lock();
+        try {
+            Selection selection = ready ? table.select(predicate) : null;
+            if (selection != null) {
+                page = new ArrayList<>();
+                for (int row = selection.next(table.firstRowAfter(lastId)); row >= 0 && page.size() < limit;
+                     row = selection.next(row + 1)) {
+                    page.add(table.row(row, resident ? columns : ID_ONLY));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (page == null) {
+            return sqliteStore.findPage(predicate, lastId, limit, columns);
+        }
+        if (resident) {
+            return page;
+        }
+        return sqliteStore.findByIds(page.stream().mapToLong(Sequence::getId).toArray(), columns);
+    }
+
+    @Override
+    public long count(Predicate predicate) {
+        Selection selection;
+        lock.readLock().lock();
+        try {
+            selection = ready ? table.select(predicate) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+        return selection != null ? selection.count() : sqliteStore.count(predicate);
+    }
+
+    @Override
+    public List<FacetBucket> facet(Predicate predicate, SearchField column, int limit) {
+        List<FacetBucket> buckets = null;
+        lock.readLock().lock();
+        try {
+            Selection selection = ready ? table.select(predicate) : null;
+            if (selection != null) {
+                buckets = table.facet(selection, column, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return buckets != null ? buckets : sqliteStore.facet(predicate, column, limit);
+    }
+
+    @Override
+    public FacetCounts facets(Predicate predicate, int limit, int bucketWidth) {
+        FacetCounts counts = null;
+        lock.readLock().lock();
+        try {
+            Selection selection = ready ? table.select(predicate) : null;
+            if (selection != null) {
+                counts = table.facets(selection, limit, bucketWidth);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return counts != null ? counts : sqliteStore.facets(predicate, limit, bucketWidth);
+    }
+
+    // 打开列文件并补上之后新增的记录，rebuild 为 true 时丢弃已有的列文件。
+    // 加载期间持有写锁，导入线程的增量更新会等待加载完成，不会丢失
+    private void load(boolean rebuild) {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            if (table != null) {
+                table.close();
+                table = null;
+            }
+            Path directory = Path.of(path);
+            ColumnarTable loaded = null;
+            if (!rebuild) {
+                try {
+                    loaded = ColumnarTable.open(directory);
+                } catch (IOException e) {
+                    log.warn("Failed to open columnar store {}, rebuilding from database", directory, e);
+                }
+            }
+            // 数据库中的最大 id 比列文件中的还小，说明数据库被替换过，列文件已失效
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM sequence", Long.class);
+            if (loaded != null && maxId != null && maxId < loaded.maxId()) {
+                log.info("Columnar store {} is newer than the database, rebuilding", directory);
+                loaded.close();
+                loaded = null;
+            }
+            long startNanos = System.nanoTime();
+            long added = 0;
+            long changed = 0;
+            if (loaded != null) {
+                // meta 中已经包含这个位置之前的改动
+                changeLog.saved(CHANGE_LOG_CONSUMER, loaded.getChangeSequence());
+                table = loaded;
+                added = catchUp(table.maxId());
+                changed = applyChanges();
+                if (changed < 0) {
+                    log.info("Columnar store {} cannot replay changes in place, rebuilding", directory);
+                    table.close();
+                    table = null;
+                    loaded = null;
+                }
+            }
+            if (loaded == null) {
+                // 重建时读到的都是最新内容，已有的改动记录都不需要再重放
+                table = ColumnarTable.create(directory);
+                table.setChangeSequence(changeLog.lastSequence());
+                added = catchUp(0L);
+                changed = 0;
+            }
+            if (loaded == null || added > 0 || changed > 0) {
+                dirty = true;
+            }
+            ready = true;
+            log.info("Columnar store ready with {} rows ({} added and {} changed rows replayed from database in {} ms)",
+                    table.rows(), added, changed, (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (IOException | UncheckedIOException | DataAccessException e) {
+            log.warn("Failed to load columnar store, browse and count queries fall back to SQLite", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        flushIfDirty();
+    }
+
+    // 定期任务：重放改动过的行，再写回磁盘；无法原地重放时在后台重建
+    private void refresh() {
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (table == null) {
+                return;
+            }
+            long changed = applyChanges();
+            if (changed < 0) {
+                log.info("Columnar store {} cannot replay changes in place, rebuilding", path);
+                ready = false;
+                background.execute(() -> load(true));
+                return;
+            }
+        } catch (UncheckedIOException | DataAccessException e) {
+            log.warn("Failed to replay changes into columnar store {}, retrying at the next flush", path, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        flushIfDirty();
+    }
+
+    // 把 id > afterId 的记录加入列文件，调用方持有写锁
+    private long catchUp(long afterId) {
+        long[] added = new long[1];
+        jdbcTemplate.query(COLUMNS_SQL + "WHERE id > ? ORDER BY id", resultSet -> {
+            put(resultSet);
+            added[0]++;
+        }, afterId);
+        return added[0];
+    }
+
+    // 按数据库中的当前内容重写 sequence_change 中 seq 大于列文件已处理位置的行，返回重写的行数；
+    // 有的改动无法原地重放时返回 -1，列文件需要重建。比已有最大 id 还大的记录由之后的导入或 catchUp 追加。
+    // 调用方持有写锁
+    private long applyChanges() {
+        long total = 0;
+        SequenceChangeLog.Changes changes;
+        while ((changes = changeLog.read(table.getChangeSequence(), CHANGE_BATCH_SIZE, false)) != null) {
+            long[] ids = LongStream.of(changes.getIds()).filter(id -> id <= table.maxId()).toArray();
+            boolean[] found = new boolean[ids.length];
+            boolean[] replayed = {true};
+            for (int from = 0; from < ids.length && replayed[0]; from += ID_CHUNK_SIZE) {
+                StringJoiner in = new StringJoiner(",", "(", ")");
+                for (int i = from; i < Math.min(ids.length, from + ID_CHUNK_SIZE); i++) {
+                    in.add(Long.toString(ids[i]));
+                }
+                jdbcTemplate.query(COLUMNS_SQL + "WHERE id IN " + in + " ORDER BY id", resultSet -> {
+                    found[Arrays.binarySearch(ids, resultSet.getLong(1))] = true;
+                    if (replayed[0] && !put(resultSet)) {
+                        replayed[0] = false;
+                    }
+                });
+            }
+            for (int i = 0; i < ids.length && replayed[0]; i++) {
+                // 已经删除的记录不能从列文件中去掉
+                if (!found[i] && table.contains(ids[i])) {
+                    replayed[0] = false;
+                }
+            }
+            if (!replayed[0]) {
+                return -1;
+            }
+            table.setChangeSequence(changes.getLastSequence());
+            dirty = true;
+            total += ids.length;
+        }
+        return total;
+    }
+
+    private boolean put(ResultSet resultSet) throws SQLException {
+        return put(resultSet.getLong(1), getInteger(resultSet, 2), getInteger(resultSet, 3), getInteger(resultSet, 4),
+                resultSet.getString(5), resultSet.getString(6), resultSet.getString(7), resultSet.getString(8));
+    }
+
+    private boolean put(long id, Integer indexNumber, Integer orgs, Integer length, String proteins,
+                        String accessions, String interpros, String annotations) {
+        try {
+            return table.put(id, indexNumber, orgs, length, proteins, accessions, interpros, annotations);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 与 sequence_length 生成列相同：压缩保存的序列按编码算出残基个数
+    private static Integer length(Sequence sequence) {
+        if (sequence.getResidues() != null) {
+            return PackedResidues.length(sequence.getResidues());
+        }
+        String residues = sequence.getSequence();
+        return residues != null ? residues.length() : null;
+    }
+
+    private static Integer getInteger(ResultSet resultSet, int column) throws SQLException {
+        int value = resultSet.getInt(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    // 在读锁下把修改过的页写回磁盘，写回之前进程退出时，下次启动从数据库补上并重放改动
+    private void flushIfDirty() {
+        if (!dirty || !ready) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (table == null) {
+                return;
+            }
+            dirty = false;
+            long changeSequence = table.getChangeSequence();
+            table.flush();
+            changeLog.saved(CHANGE_LOG_CONSUMER, changeSequence);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Failed to flush columnar store {}", path, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,598 @@
+package com.protein.store;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Stream;
+
+import com.protein.data.Sequence;
+import com.protein.data.SequenceTerms;
+import com.protein.query.Predicate;
+import com.protein.query.Predicate.FieldPredicate;
+import com.protein.query.SearchField;
+
+// 列式保存的 sequence 表，只包含浏览、计数和分组需要的列：id（long）、index_number、orgs、sequence_length（int，
+// NULL 为 Integer.MIN_VALUE）、proteins（字典编码）、accessions（变长字符串），以及 interpros 和 annotations 拆出的词条
+// （TermListColumn，只用于分组计数），每列是目录中的内存映射文件，行按 id 升序追加。
+// 条件按列求值：每次对一列的 64 行计算出一个位图字，整数范围比较不带分支，字典列先在字典上逐个取值求值再按编号查表，
+// 多个条件的 AND / OR 按位图字合并。不能在这些列上求值的条件（序列、注释、InterPro、全文、数值上的文本匹配）返回 null。
+// table.meta 记录最后一次 flush 时各列的有效长度，进程意外退出后之后追加的内容被忽略，由调用方从数据库补上。
+// 覆盖已有的行是原地修改，字典和词条仍然追加在末尾，意外退出后这些行可能指向被忽略的内容；meta 中同时记录
+// flush 时已经反映到列中的 sequence_change 的 seq，调用方打开后按之后的改动重写这些行（见 ColumnarSequenceStore）。
+// 不是线程安全的，由 ColumnarSequenceStore 加锁
+final class ColumnarTable implements Closeable {
+    // 可以直接由列文件填充的字段
+    static final Set<SearchField> COLUMNS = EnumSet.of(SearchField.ID, SearchField.INDEX, SearchField.PROTEINS,
+            SearchField.ACCESSIONS, SearchField.ORGS);
+
+    private static final int MAGIC = 0x53434f4c; // "SCOL"
+    // 版本 3 增加了 changeSequence
+    private static final int VERSION = 3;
+    private static final String META = "table.meta";
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final int META_SIZES = 9;
+
+    private final Path directory;
+    private final MappedColumn ids;
+    private final MappedColumn indexNumbers;
+    private final MappedColumn orgs;
+    private final MappedColumn lengths;
+    private final DictionaryColumn proteins;
+    private final StringColumn accessions;
+    private final TermListColumn interpros;
+    private final TermListColumn annotations;
+    private int rows;
+    private long changeSequence;
+
+    // meta 文件中 rows 之后依次是 proteins 字典的取值个数和字节数、accessions 的字节数，
+    // 以及 interpros、annotations 各自的词条个数、字典取值个数和字节数
+    private ColumnarTable(Path directory, int rows, int[] sizes) throws IOException {
+        this.directory = directory;
+        this.rows = rows;
+        this.ids = new MappedColumn(directory.resolve("id.col"), Long.BYTES, rows);
+        this.indexNumbers = new MappedColumn(directory.resolve("index_number.col"), Integer.BYTES, rows);
+        this.orgs = new MappedColumn(directory.resolve("orgs.col"), Integer.BYTES, rows);
+        this.lengths = new MappedColumn(directory.resolve("sequence_length.col"), Integer.BYTES, rows);
+        this.proteins = new DictionaryColumn(directory, "proteins", rows, sizes[0], sizes[1]);
+        this.accessions = new StringColumn(directory, "accessions", rows, sizes[2]);
+        this.interpros = new TermListColumn(directory, "interpros", SequenceTerms.Field.INTERPROS, rows,
+                sizes[3], sizes[4], sizes[5]);
+        this.annotations = new TermListColumn(directory, "annotations", SequenceTerms.Field.ANNOTATIONS, rows,
+                sizes[6], sizes[7], sizes[8]);
+    }
+
+    // 打开目录中已有的表，没有 meta 文件时得到空表；文件格式不符时抛出 IOException
+    static ColumnarTable open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (InputStream in = Files.newInputStream(directory.resolve(META))) {
+            DataInputStream data = new DataInputStream(in);
+            if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                throw new IOException("Unsupported columnar table format in " + directory);
+            }
+            int rows = data.readInt();
+            long changeSequence = data.readLong();
+            int[] sizes = new int[META_SIZES];
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = data.readInt();
+            }
+            ColumnarTable table = new ColumnarTable(directory, rows, sizes);
+            table.changeSequence = changeSequence;
+            return table;
+        } catch (NoSuchFileException e) {
+            return create(directory);
+        }
+    }
+
+    // 删除目录中已有的列文件，得到空表
+    static ColumnarTable create(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".col") || name.endsWith(".off") || name.endsWith(".dat") || name.startsWith(META)) {
+                    Files.delete(file);
+                }
+            }
+        }
+        return new ColumnarTable(directory, 0, new int[META_SIZES]);
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    long maxId() {
+        return rows == 0 ? 0L : ids.getLong(rows - 1);
+    }
+
+    boolean contains(long id) {
+        int row = firstRowAfter(id - 1);
+        return row < rows && ids.getLong(row) == id;
+    }
+
+    // 已经反映到列中的 sequence_change 的最大 seq，flush 时写入 meta
+    long getChangeSequence() {
+        return changeSequence;
+    }
+
+    void setChangeSequence(long changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
+    // id 大于所有已有行时追加，否则覆盖 id 相同的行。id 不存在或 accessions 变了（变长列不能原地修改）时返回 false，
+    // 表已经与数据库不一致，需要重建
+    boolean put(long id, Integer indexNumber, Integer org, Integer length, String protein, String accession,
+                String interpro, String annotation) throws IOException {
+        if (id > maxId()) {
+            ids.appendLong(id);
+            indexNumbers.appendInt(toInt(indexNumber));
+            orgs.appendInt(toInt(org));
+            lengths.appendInt(toInt(length));
+            proteins.append(protein);
+            accessions.append(accession);
+            interpros.append(interpro);
+            annotations.append(annotation);
+            rows++;
+            return true;
+        }
+        int row = firstRowAfter(id - 1);
+        if (row == rows || ids.getLong(row) != id) {
+            return false;
+        }
+        String previous = accessions.get(row);
+        if (previous == null ? accession != null : !previous.equals(accession)) {
+            return false;
+        }
+        indexNumbers.setInt(row, toInt(indexNumber));
+        orgs.setInt(row, toInt(org));
+        lengths.setInt(row, toInt(length));
+        proteins.set(row, protein);
+        interpros.set(row, interpro);
+        annotations.set(row, annotation);
+        return true;
+    }
+
+    // 第一个 id > lastId 的行号，没有时为 rows
+    int firstRowAfter(long lastId) {
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ids.getLong(middle) <= lastId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // 第 row 行，只填充 columns 中可以由列文件填充的字段
+    Sequence row(int row, Set<SearchField> columns) {
+        Sequence sequence = new Sequence();
+        sequence.setId(ids.getLong(row));
+        if (columns.contains(SearchField.INDEX)) {
+            sequence.setIndexNumber(toInteger(indexNumbers.getInt(row)));
+        }
+        if (columns.contains(SearchField.PROTEINS)) {
+            sequence.setProteins(proteins.get(row));
+        }
+        if (columns.contains(SearchField.ACCESSIONS)) {
+            sequence.setAccessions(accessions.get(row));
+        }
+        if (columns.contains(SearchField.ORGS)) {
+            sequence.setOrgs(toInteger(orgs.getInt(row)));
+        }
+        return sequence;
+    }
+
+    // 满足 predicate 的行，不能在这些列上求值时返回 null
+    Selection select(Predicate predicate) {
+        if (predicate instanceof Predicate.MatchAll) {
+            return Selection.all(rows);
+        }
+        if (predicate instanceof Predicate.MatchNone) {
+            return Selection.none(rows);
+        }
+        if (predicate instanceof Predicate.Bool) {
+            Predicate.Bool bool = (Predicate.Bool) predicate;
+            Selection result = null;
+            for (Predicate operand : bool.getOperands()) {
+                Selection selection = select(operand);
+                if (selection == null) {
+                    return null;
+                }
+                result = result == null ? selection : bool.isAnd() ? result.and(selection) : result.or(selection);
+            }
+            return result != null ? result : Selection.none(rows);
+        }
+        return predicate instanceof FieldPredicate ? select((FieldPredicate) predicate) : null;
+    }
+
+    // 选中的行按 column 的取值分组计数，按数量降序（数量相同时按取值升序）取前 limit 组；column 不能分组时返回 null
+    List<FacetBucket> facet(Selection selection, SearchField column, int limit) {
+        switch (column) {
+            case PROTEINS:
+                return facetCodes(selection, limit);
+            case INDEX:
+                return facetInts(selection, indexNumbers, limit);
+            case ORGS:
+                return facetInts(selection, orgs, limit);
+            case LENGTH:
+                return facetInts(selection, lengths, limit);
+            default:
+                return null;
+        }
+    }
+
+    // 一次遍历选中的行，同时得到按 orgs、InterPro 条目和注释词条分组的前 limit 组，以及按 bucketWidth 划分的长度直方图。
+    // orgs 用开放寻址的 int 计数表，词条按字典编号在 int 数组上计数，都不需要装箱
+    FacetCounts facets(Selection selection, int limit, int bucketWidth) {
+        IntCounter orgCounter = new IntCounter();
+        int[] interproCounts = new int[interpros.cardinality()];
+        int[] annotationCounts = new int[annotations.cardinality()];
+        long[] histogram = new long[FacetCounts.LENGTH_BUCKETS];
+        long total = 0;
+        for (int word = 0; word < selection.wordCount(); word++) {
+            long bits = selection.word(word);
+            while (bits != 0) {
+                int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+                total++;
+                int org = orgs.getInt(row);
+                if (org != NULL_INT) {
+                    orgCounter.increment(org);
+                }
+                int length = lengths.getInt(row);
+                if (length != NULL_INT) {
+                    histogram[FacetCounts.lengthBucket(length, bucketWidth)]++;
+                }
+                countTerms(interpros, row, interproCounts);
+                countTerms(annotations, row, annotationCounts);
+                bits &= bits - 1;
+            }
+        }
+        return new FacetCounts(total, topInts(orgCounter, limit),
+                topCodes(interproCounts, interpros::term, limit),
+                topCodes(annotationCounts, annotations::term, limit),
+                FacetCounts.lengthBuckets(histogram, bucketWidth));
+    }
+
+    // 把列文件中修改过的页写回磁盘，再原子地替换 meta 文件
+    void flush() throws IOException {
+        ids.force();
+        indexNumbers.force();
+        orgs.force();
+        lengths.force();
+        proteins.force();
+        accessions.force();
+        interpros.force();
+        annotations.force();
+        Path meta = directory.resolve(META);
+        Path temp = directory.resolve(META + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeInt(rows);
+            data.writeLong(changeSequence);
+            data.writeInt(proteins.cardinality());
+            data.writeInt(proteins.valueBytes());
+            data.writeInt(accessions.byteSize());
+            for (TermListColumn column : List.of(interpros, annotations)) {
+                data.writeInt(column.termCount());
+                data.writeInt(column.cardinality());
+                data.writeInt(column.valueBytes());
+            }
+            data.flush();
+        }
+        Files.move(temp, meta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        ids.close();
+        indexNumbers.close();
+        orgs.close();
+        lengths.close();
+        proteins.close();
+        accessions.close();
+        interpros.close();
+        annotations.close();
+    }
+
+    private Selection select(FieldPredicate predicate) {
+        FieldPredicate.Kind kind = predicate.getKind();
+        switch (predicate.getField()) {
+            case ID:
+                if (kind == FieldPredicate.Kind.NOT_EMPTY) {
+                    return Selection.all(rows);
+                }
+                if (kind == FieldPredicate.Kind.EXACT) {
+                    long id = Long.parseLong(predicate.getText());
+                    return Selection.range(rows, firstRowAfter(id - 1), firstRowAfter(id));
+                }
+                if (kind == FieldPredicate.Kind.RANGE) {
+                    return predicate.getFrom() > predicate.getTo() ? Selection.none(rows)
+                            : Selection.range(rows, predicate.getFrom() == Long.MIN_VALUE ? 0 : firstRowAfter(predicate.getFrom() - 1),
+                            firstRowAfter(predicate.getTo()));
+                }
+                return null;
+            case INDEX:
+                return selectInts(indexNumbers, predicate);
+            case ORGS:
+                return selectInts(orgs, predicate);
+            case LENGTH:
+                return selectInts(lengths, predicate);
+            case PROTEINS:
+                return selectProteins(predicate);
+            case ACCESSIONS:
+                if (kind == FieldPredicate.Kind.SUBSTRING) {
+                    byte[] needle = StringColumn.lowerAscii(predicate.getText());
+                    return selectRows(row -> accessions.containsIgnoreCase(row, needle));
+                }
+                if (kind == FieldPredicate.Kind.NOT_EMPTY) {
+                    return selectRows(row -> !accessions.isNull(row) && !accessions.isEmpty(row));
+                }
+                // 词条的等值和前缀匹配由 sequence_term 索引完成
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    private Selection selectInts(MappedColumn column, FieldPredicate predicate) {
+        switch (predicate.getKind()) {
+            case EXACT:
+                long value = Long.parseLong(predicate.getText());
+                return intRange(column, value, value);
+            case RANGE:
+                return intRange(column, predicate.getFrom(), predicate.getTo());
+            case NOT_EMPTY:
+                return intRange(column, Long.MIN_VALUE, Long.MAX_VALUE);
+            default:
+                // 数值上的文本前缀和子串匹配需要把每个值转为文本
+                return null;
+        }
+    }
+
+    // 值在 [from, to] 中的行。NULL 保存为 Integer.MIN_VALUE，下界至少取 MIN_VALUE + 1，NULL 不会落在范围内
+    private Selection intRange(MappedColumn column, long from, long to) {
+        long low = Math.max(from, Integer.MIN_VALUE + 1L);
+        long high = Math.min(to, Integer.MAX_VALUE);
+        Selection selection = Selection.none(rows);
+        if (low > high) {
+            return selection;
+        }
+        long lowBound = low - 1;
+        long highBound = high + 1;
+        for (int word = 0; word < selection.wordCount(); word++) {
+            int base = word << 6;
+            int end = Math.min(64, rows - base);
+            long bits = 0;
+            for (int j = 0; j < end; j++) {
+                long value = column.getInt(base + j);
+                // low <= value <= high 时两个差都是负数，与运算后符号位为 1
+                bits |= (((lowBound - value) & (value - highBound)) >>> 63) << j;
+            }
+            selection.setWord(word, bits);
+        }
+        return selection;
+    }
+
+    private Selection selectProteins(FieldPredicate predicate) {
+        StringColumn values = proteins.values();
+        IntPredicate matches;
+        switch (predicate.getKind()) {
+            case EXACT: {
+                byte[] needle = StringColumn.lowerAscii(predicate.getText());
+                matches = code -> values.equalsIgnoreCase(code, needle);
+                break;
+            }
+            case PREFIX: {
+                byte[] needle = StringColumn.lowerAscii(predicate.getText());
+                matches = code -> values.startsWithIgnoreCase(code, needle);
+                break;
+            }
+            case SUBSTRING: {
+                byte[] needle = StringColumn.lowerAscii(predicate.getText());
+                matches = code -> values.containsIgnoreCase(code, needle);
+                break;
+            }
+            case NOT_EMPTY:
+                matches = code -> !values.isEmpty(code);
+                break;
+            default:
+                return null;
+        }
+        // 每个不同的取值只求值一次，flags[code + 1] 为 1 表示匹配，NULL 的编号为 -1，对应 flags[0] = 0
+        long[] flags = new long[proteins.cardinality() + 1];
+        for (int code = 0; code < proteins.cardinality(); code++) {
+            flags[code + 1] = matches.test(code) ? 1L : 0L;
+        }
+        Selection selection = Selection.none(rows);
+        for (int word = 0; word < selection.wordCount(); word++) {
+            int base = word << 6;
+            int end = Math.min(64, rows - base);
+            long bits = 0;
+            for (int j = 0; j < end; j++) {
+                bits |= flags[proteins.code(base + j) + 1] << j;
+            }
+            selection.setWord(word, bits);
+        }
+        return selection;
+    }
+
+    // 逐行求值，用于没有字典的字符串列
+    private Selection selectRows(IntPredicate matches) {
+        Selection selection = Selection.none(rows);
+        for (int word = 0; word < selection.wordCount(); word++) {
+            int base = word << 6;
+            int end = Math.min(64, rows - base);
+            long bits = 0;
+            for (int j = 0; j < end; j++) {
+                if (matches.test(base + j)) {
+                    bits |= 1L << j;
+                }
+            }
+            selection.setWord(word, bits);
+        }
+        return selection;
+    }
+
+    private List<FacetBucket> facetCodes(Selection selection, int limit) {
+        int[] counts = new int[proteins.cardinality()];
+        for (int word = 0; word < selection.wordCount(); word++) {
+            long bits = selection.word(word);
+            while (bits != 0) {
+                int code = proteins.code((word << 6) + Long.numberOfTrailingZeros(bits));
+                if (code != DictionaryColumn.NULL_CODE) {
+                    counts[code]++;
+                }
+                bits &= bits - 1;
+            }
+        }
+        return topCodes(counts, proteins.values()::get, limit);
+    }
+
+    private static void countTerms(TermListColumn column, int row, int[] counts) {
+        int start = column.start(row);
+        int end = start + column.count(row);
+        for (int i = start; i < end; i++) {
+            counts[column.code(i)]++;
+        }
+    }
+
+    // 按字典编号计数的前 limit 组，数量相同时按取值升序
+    private static List<FacetBucket> topCodes(int[] counts, IntFunction<String> value, int limit) {
+        Comparator<int[]> order = Comparator.<int[]>comparingInt(bucket -> bucket[1]).reversed()
+                .thenComparing(bucket -> value.apply(bucket[0]));
+        List<int[]> top = top(counts.length, code -> counts[code], order, limit);
+        List<FacetBucket> buckets = new ArrayList<>(top.size());
+        for (int[] bucket : top) {
+            buckets.add(new FacetBucket(value.apply(bucket[0]), bucket[1]));
+        }
+        return buckets;
+    }
+
+    private List<FacetBucket> facetInts(Selection selection, MappedColumn column, int limit) {
+        IntCounter counter = new IntCounter();
+        for (int word = 0; word < selection.wordCount(); word++) {
+            long bits = selection.word(word);
+            while (bits != 0) {
+                int value = column.getInt((word << 6) + Long.numberOfTrailingZeros(bits));
+                if (value != NULL_INT) {
+                    counter.increment(value);
+                }
+                bits &= bits - 1;
+            }
+        }
+        return topInts(counter, limit);
+    }
+
+    private static List<FacetBucket> topInts(IntCounter counter, int limit) {
+        Comparator<int[]> order = Comparator.<int[]>comparingInt(bucket -> bucket[1]).reversed()
+                .thenComparingInt(bucket -> counter.keys[bucket[0]]);
+        List<int[]> top = top(counter.keys.length, slot -> counter.counts[slot], order, limit);
+        List<FacetBucket> buckets = new ArrayList<>(top.size());
+        for (int[] bucket : top) {
+            buckets.add(new FacetBucket(Integer.toString(counter.keys[bucket[0]]), bucket[1]));
+        }
+        return buckets;
+    }
+
+    // 在 [0, slots) 中取 count 不为 0 的前 limit 个，结果为 {slot, count}，按 order 排列。堆的大小不超过 limit
+    private static List<int[]> top(int slots, IntUnaryOperator count, Comparator<int[]> order, int limit) {
+        PriorityQueue<int[]> heap = new PriorityQueue<>(order.reversed());
+        for (int slot = 0; slot < slots; slot++) {
+            int n = count.applyAsInt(slot);
+            if (n == 0) {
+                continue;
+            }
+            int[] bucket = {slot, n};
+            if (heap.size() < limit) {
+                heap.add(bucket);
+            } else if (order.compare(bucket, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(bucket);
+            }
+        }
+        List<int[]> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+
+    private static int toInt(Integer value) {
+        return value != null ? value : NULL_INT;
+    }
+
+    private static Integer toInteger(int value) {
+        return value != NULL_INT ? value : null;
+    }
+
+    // int 到计数的开放寻址哈希表，Integer.MIN_VALUE（NULL）作为空槽标记，不需要装箱
+    private static final class IntCounter {
+        int[] keys = emptyKeys(64);
+        int[] counts = new int[64];
+        private int size;
+
+        void increment(int key) {
+            int slot = find(keys, key);
+            if (keys[slot] == NULL_INT) {
+                keys[slot] = key;
+                counts[slot] = 1;
+                if (++size * 2 > keys.length) {
+                    grow();
+                }
+            } else {
+                counts[slot]++;
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = emptyKeys(oldKeys.length * 2);
+            counts = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != NULL_INT) {
+                    int slot = find(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        private static int find(int[] keys, int key) {
+            int mask = keys.length - 1;
+            int hash = key * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != NULL_INT && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static int[] emptyKeys(int length) {
+            int[] keys = new int[length];
+            Arrays.fill(keys, NULL_INT);
+            return keys;
+        }
+    }
+}
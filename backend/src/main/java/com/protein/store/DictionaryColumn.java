@@ -0,0 +1,104 @@
+package com.protein.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// 字典编码的字符串列：不同的取值各在 name.dict 字符串列中保存一次，每行在 name.col 中保存取值的编号，NULL 为 -1。
+// 取值重复很多的列（蛋白质名称）过滤时只需在字典上逐个比较，再按编号查表，见 ColumnarTable。
+// 编号查找表在打开时由字典重建，只有它在堆上，大小与不同取值的个数成正比。
+// ignoreCase 为 true 时只区分大小写不同的取值共用一个编号，字典中保存第一次出现的写法（与 sequence_term 的 NOCASE 一致）
+final class DictionaryColumn implements Closeable {
+    static final int NULL_CODE = -1;
+
+    private final MappedColumn codes;
+    private final StringColumn values;
+    private final Map<String, Integer> lookup = new HashMap<>();
+    private final boolean ignoreCase;
+
+    DictionaryColumn(Path directory, String name, int size, int cardinality, int valueBytes) throws IOException {
+        this(directory, name, size, cardinality, valueBytes, false);
+    }
+
+    DictionaryColumn(Path directory, String name, int size, int cardinality, int valueBytes, boolean ignoreCase)
+            throws IOException {
+        this.ignoreCase = ignoreCase;
+        codes = new MappedColumn(directory.resolve(name + ".col"), Integer.BYTES, size);
+        values = new StringColumn(directory, name + ".dict", cardinality, valueBytes);
+        for (int code = 0; code < cardinality; code++) {
+            lookup.put(key(values.get(code)), code);
+        }
+    }
+
+    int size() {
+        return codes.size();
+    }
+
+    // 不同取值的个数
+    int cardinality() {
+        return values.size();
+    }
+
+    int valueBytes() {
+        return values.byteSize();
+    }
+
+    int code(int index) {
+        return codes.getInt(index);
+    }
+
+    String get(int index) {
+        int code = codes.getInt(index);
+        return code == NULL_CODE ? null : values.get(code);
+    }
+
+    // 字典本身，按编号访问
+    StringColumn values() {
+        return values;
+    }
+
+    void append(String value) throws IOException {
+        codes.appendInt(encode(value));
+    }
+
+    void appendCode(int code) throws IOException {
+        codes.appendInt(code);
+    }
+
+    void set(int index, String value) throws IOException {
+        codes.setInt(index, encode(value));
+    }
+
+    void force() {
+        codes.force();
+        values.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        codes.close();
+        values.close();
+    }
+
+    // 取值的编号，字典中还没有时加入字典
+    int encode(String value) throws IOException {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        String key = key(value);
+        Integer code = lookup.get(key);
+        if (code == null) {
+            code = values.size();
+            values.append(value);
+            lookup.put(key, code);
+        }
+        return code;
+    }
+
+    private String key(String value) {
+        return ignoreCase ? value.toLowerCase(Locale.ROOT) : value;
+    }
+}
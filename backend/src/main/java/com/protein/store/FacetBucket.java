@@ -0,0 +1,20 @@
+package com.protein.store;
+
+// 分组计数的一组：列的取值（数值列转为文本）和记录数
+public class FacetBucket {
+    private final String value;
+    private final long count;
+
+    public FacetBucket(String value, long count) {
+        this.value = value;
+        this.count = count;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
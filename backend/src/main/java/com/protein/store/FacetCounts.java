@@ -0,0 +1,65 @@
+package com.protein.store;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// /facets 的结果：满足条件的记录总数，按 orgs、单个 InterPro 条目和注释词条分组的前若干组（按数量降序），
+// 以及序列长度的直方图（按长度升序，只包含非空的区间，最后一个区间不设上限）
+public class FacetCounts {
+    // 长度直方图的区间个数，长度不小于 (LENGTH_BUCKETS - 1) * bucketWidth 的记录都计入最后一个区间
+    static final int LENGTH_BUCKETS = 50;
+
+    private final long total;
+    private final List<FacetBucket> orgs;
+    private final List<FacetBucket> interpros;
+    private final List<FacetBucket> annotations;
+    private final List<FacetBucket> lengths;
+
+    public FacetCounts(long total, List<FacetBucket> orgs, List<FacetBucket> interpros,
+                       List<FacetBucket> annotations, List<FacetBucket> lengths) {
+        this.total = total;
+        this.orgs = orgs;
+        this.interpros = interpros;
+        this.annotations = annotations;
+        this.lengths = lengths;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public List<FacetBucket> getOrgs() {
+        return orgs;
+    }
+
+    public List<FacetBucket> getInterpros() {
+        return interpros;
+    }
+
+    public List<FacetBucket> getAnnotations() {
+        return annotations;
+    }
+
+    public List<FacetBucket> getLengths() {
+        return lengths;
+    }
+
+    // 长度所在的直方图区间
+    static int lengthBucket(int length, int bucketWidth) {
+        return Math.max(0, Math.min(length / bucketWidth, LENGTH_BUCKETS - 1));
+    }
+
+    // 把各区间的计数转成分组，区间写成 "100-199"，最后一个区间写成 "4900+"
+    static List<FacetBucket> lengthBuckets(long[] histogram, int bucketWidth) {
+        List<FacetBucket> buckets = new ArrayList<>();
+        for (int bucket = 0; bucket < histogram.length; bucket++) {
+            if (histogram[bucket] == 0) {
+                continue;
+            }
+            long from = (long) bucket * bucketWidth;
+            String label = bucket == LENGTH_BUCKETS - 1 ? from + "+" : from + "-" + (from + bucketWidth - 1);
+            buckets.add(new FacetBucket(label, histogram[bucket]));
+        }
+        return buckets;
+    }
+}
@@ -0,0 +1,110 @@
+package com.protein.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// 内存映射的定长列文件：每个值占 width 字节，第 i 个值从 i * width 开始。
+// 数据在堆外，GC 不扫描列中的内容；容量不够时文件扩大一倍并重新映射。size 之后的内容无效，
+// 由 ColumnarTable 的 meta 文件记录写入磁盘的有效长度。单个文件最大 2 GB（MappedByteBuffer 的上限）
+final class MappedColumn implements Closeable {
+    private static final long INITIAL_CAPACITY = 1 << 16;
+    private static final long MAX_CAPACITY = Integer.MAX_VALUE;
+
+    private final Path file;
+    private final int width;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int size;
+
+    MappedColumn(Path file, int width, int size) throws IOException {
+        this.file = file;
+        this.width = width;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (channel.size() < (long) size * width) {
+            channel.close();
+            throw new IOException("Column file " + file + " is shorter than recorded");
+        }
+        this.size = size;
+        map(Math.min(MAX_CAPACITY, Math.max(INITIAL_CAPACITY, channel.size())));
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getInt(int index) {
+        return buffer.getInt(index << 2);
+    }
+
+    long getLong(int index) {
+        return buffer.getLong(index << 3);
+    }
+
+    byte getByte(int index) {
+        return buffer.get(index);
+    }
+
+    void setInt(int index, int value) {
+        buffer.putInt(index << 2, value);
+    }
+
+    void appendInt(int value) throws IOException {
+        reserve(1);
+        buffer.putInt(size << 2, value);
+        size++;
+    }
+
+    void appendLong(long value) throws IOException {
+        reserve(1);
+        buffer.putLong(size << 3, value);
+        size++;
+    }
+
+    void appendBytes(byte[] bytes) throws IOException {
+        reserve(bytes.length);
+        ByteBuffer target = buffer.duplicate();
+        target.position(size);
+        target.put(bytes);
+        size += bytes.length;
+    }
+
+    // 复制 [from, from + length) 的字节
+    byte[] getBytes(int from, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(from);
+        source.get(bytes);
+        return bytes;
+    }
+
+    // 把映射中修改过的页写回文件
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void reserve(int count) throws IOException {
+        long needed = ((long) size + count) * width;
+        if (needed > buffer.capacity()) {
+            if (needed > MAX_CAPACITY) {
+                throw new IOException("Column file " + file + " exceeds 2 GB");
+            }
+            map(Math.min(MAX_CAPACITY, Math.max(needed, (long) buffer.capacity() * 2)));
+        }
+    }
+
+    // 旧的映射在不再被引用后由 GC 释放
+    private void map(long capacity) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+}
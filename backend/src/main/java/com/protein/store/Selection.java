@@ -0,0 +1,93 @@
+package com.protein.store;
+
+import java.util.Arrays;
+
+// 行号集合的位图，每 64 行一个 long。过滤条件按列分块求值，每次得到 64 行的结果，AND / OR 按字进行
+final class Selection {
+    private final long[] words;
+    private final int rows;
+
+    private Selection(int rows) {
+        this.rows = rows;
+        this.words = new long[(rows + 63) >>> 6];
+    }
+
+    static Selection none(int rows) {
+        return new Selection(rows);
+    }
+
+    static Selection all(int rows) {
+        return range(rows, 0, rows);
+    }
+
+    // 行号在 [from, to) 中的行
+    static Selection range(int rows, int from, int to) {
+        Selection selection = new Selection(rows);
+        for (int row = from; row < to && (row & 63) != 0; row++) {
+            selection.words[row >>> 6] |= 1L << row;
+        }
+        int word = (from + 63) >>> 6;
+        int lastWord = to >>> 6;
+        if (word <= lastWord) {
+            Arrays.fill(selection.words, word, lastWord, -1L);
+            for (int row = lastWord << 6; row < to; row++) {
+                selection.words[lastWord] |= 1L << row;
+            }
+        }
+        return selection;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    int wordCount() {
+        return words.length;
+    }
+
+    long word(int word) {
+        return words[word];
+    }
+
+    void setWord(int word, long bits) {
+        words[word] = bits;
+    }
+
+    Selection and(Selection other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= other.words[i];
+        }
+        return this;
+    }
+
+    Selection or(Selection other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= other.words[i];
+        }
+        return this;
+    }
+
+    int count() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // from 及之后第一个选中的行号，没有时返回 -1
+    int next(int from) {
+        if (from >= rows) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long bits = words[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+}
@@ -0,0 +1,49 @@
+package com.protein.store;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import com.protein.data.Sequence;
+import com.protein.query.Predicate;
+import com.protein.query.SearchField;
+
+// 面向浏览和统计的存储抽象，与 SequenceRepository 并列：按条件计数、分组计数，以及只读取部分列的键集分页。
+// 默认实现 SqliteSequenceStore 直接在 SQLite 上执行；protein.store.type=columnar 时由 ColumnarSequenceStore
+// 在列式文件上执行，它不支持的条件和列仍然交给 SQLite。条件由 QueryParser 解析，与搜索接口的语法相同。
+public interface SequenceStore {
+    // 可以投影的列（sequence_length 是生成列，不对应 Sequence 的字段）
+    Set<SearchField> ALL_COLUMNS = EnumSet.complementOf(EnumSet.of(SearchField.LENGTH));
+    // 可以分组计数的单值列
+    Set<SearchField> FACET_COLUMNS = EnumSet.of(SearchField.INDEX, SearchField.PROTEINS, SearchField.ORGS,
+            SearchField.LENGTH);
+
+    String getName();
+
+    // 按 id 升序返回 id > lastId 且满足 predicate 的至多 limit 条记录，只填充 columns 中的字段（id 总是填充）
+    List<Sequence> findPage(Predicate predicate, long lastId, int limit, Set<SearchField> columns);
+
+    long count(Predicate predicate);
+
+    // 满足 predicate 的记录按 column 的取值分组计数，按数量降序取前 limit 组，NULL 不计入
+    List<FacetBucket> facet(Predicate predicate, SearchField column, int limit);
+
+    // 满足 predicate 的记录总数，按 orgs、单个 InterPro 条目和注释词条分组的前 limit 组，以及按 bucketWidth 划分的长度直方图
+    FacetCounts facets(Predicate predicate, int limit, int bucketWidth);
+
+    // 解析逗号分隔的列名（类别名或列名，见 SearchField.parse），空值表示全部列；无法识别时抛出 IllegalArgumentException
+    static Set<SearchField> parseColumns(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL_COLUMNS;
+        }
+        Set<SearchField> columns = EnumSet.of(SearchField.ID);
+        for (String name : fields.split(",")) {
+            SearchField field = SearchField.parse(name.trim());
+            if (field == null || !ALL_COLUMNS.contains(field)) {
+                throw new IllegalArgumentException("Unknown column: " + name.trim());
+            }
+            columns.add(field);
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,122 @@
+package com.protein.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.protein.data.Sequence;
+import com.protein.data.SequenceTerms;
+import com.protein.query.Predicate;
+import com.protein.query.ProjectionRowMapper;
+import com.protein.query.QueryPlan;
+import com.protein.query.QueryPlanner;
+import com.protein.query.SearchField;
+
+// 默认的存储实现：条件由 QueryPlanner 生成 SQL，只 SELECT 投影中的列，计数和分组计数交给 SQLite 执行
+@Service
+public class SqliteSequenceStore implements SequenceStore {
+    // 按 id 取回记录时每条 SQL 中的 id 个数
+    private static final int ID_CHUNK_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QueryPlanner queryPlanner;
+
+    @Override
+    public String getName() {
+        return "sqlite";
+    }
+
+    @Override
+    public List<Sequence> findPage(Predicate predicate, long lastId, int limit, Set<SearchField> columns) {
+        QueryPlan plan = queryPlanner.plan(predicate);
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(lastId);
+        parameters.addAll(plan.getParameters());
+        parameters.add(limit);
+        ProjectionRowMapper mapper = new ProjectionRowMapper(columns);
+        return jdbcTemplate.query("SELECT " + mapper.selectList() + " FROM sequence s WHERE s.id > ? AND "
+                + plan.getWhere() + " ORDER BY s.id LIMIT ?", mapper, parameters.toArray());
+    }
+
+    @Override
+    public long count(Predicate predicate) {
+        QueryPlan plan = queryPlanner.plan(predicate);
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sequence s WHERE " + plan.getWhere(),
+                Long.class, plan.getParameters().toArray());
+        return count != null ? count : 0L;
+    }
+
+    @Override
+    public List<FacetBucket> facet(Predicate predicate, SearchField column, int limit) {
+        if (!FACET_COLUMNS.contains(column)) {
+            throw new IllegalArgumentException("Cannot group by " + column.getCategory());
+        }
+        QueryPlan plan = queryPlanner.plan(predicate);
+        String name = "s." + column.getColumn();
+        List<Object> parameters = new ArrayList<>(plan.getParameters());
+        parameters.add(limit);
+        return jdbcTemplate.query("SELECT " + name + ", COUNT(*) FROM sequence s WHERE (" + plan.getWhere() + ") AND "
+                        + name + " IS NOT NULL GROUP BY " + name + " ORDER BY COUNT(*) DESC, " + name + " LIMIT ?",
+                (resultSet, rowNum) -> new FacetBucket(resultSet.getString(1), resultSet.getLong(2)),
+                parameters.toArray());
+    }
+
+    // 总数和长度直方图由一条 GROUP BY 得到（长度为 NULL 的一组只计入总数），词条按 sequence_term 分组
+    @Override
+    public FacetCounts facets(Predicate predicate, int limit, int bucketWidth) {
+        QueryPlan plan = queryPlanner.plan(predicate);
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(bucketWidth);
+        parameters.add(FacetCounts.LENGTH_BUCKETS - 1);
+        parameters.addAll(plan.getParameters());
+        long[] histogram = new long[FacetCounts.LENGTH_BUCKETS];
+        long[] total = new long[1];
+        jdbcTemplate.query("SELECT MIN(MAX(s.sequence_length / ?, 0), ?), COUNT(*) FROM sequence s WHERE "
+                + plan.getWhere() + " GROUP BY 1", resultSet -> {
+            total[0] += resultSet.getLong(2);
+            int bucket = resultSet.getInt(1);
+            if (!resultSet.wasNull()) {
+                histogram[bucket] += resultSet.getLong(2);
+            }
+        }, parameters.toArray());
+        return new FacetCounts(total[0], facet(predicate, SearchField.ORGS, limit),
+                facetTerms(plan, SequenceTerms.Field.INTERPROS, limit),
+                facetTerms(plan, SequenceTerms.Field.ANNOTATIONS, limit),
+                FacetCounts.lengthBuckets(histogram, bucketWidth));
+    }
+
+    private List<FacetBucket> facetTerms(QueryPlan plan, SequenceTerms.Field field, int limit) {
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(field.getCode());
+        parameters.addAll(plan.getParameters());
+        parameters.add(limit);
+        return jdbcTemplate.query("SELECT t.term, COUNT(*) FROM sequence_term t WHERE t.field = ? AND t.sequence_id IN "
+                        + "(SELECT s.id FROM sequence s WHERE " + plan.getWhere() + ") "
+                        + "GROUP BY t.term ORDER BY COUNT(*) DESC, t.term LIMIT ?",
+                (resultSet, rowNum) -> new FacetBucket(resultSet.getString(1), resultSet.getLong(2)),
+                parameters.toArray());
+    }
+
+    // 按升序排列的 id 取回记录，只填充 columns 中的字段，返回顺序与 ids 相同（不存在的 id 跳过）
+    public List<Sequence> findByIds(long[] ids, Set<SearchField> columns) {
+        ProjectionRowMapper mapper = new ProjectionRowMapper(columns);
+        List<Sequence> result = new ArrayList<>(ids.length);
+        for (int from = 0; from < ids.length; from += ID_CHUNK_SIZE) {
+            StringJoiner in = new StringJoiner(",", "(", ")");
+            for (int i = from; i < Math.min(ids.length, from + ID_CHUNK_SIZE); i++) {
+                in.add(Long.toString(ids[i]));
+            }
+            result.addAll(jdbcTemplate.query("SELECT " + mapper.selectList() + " FROM sequence s WHERE s.id IN " + in
+                    + " ORDER BY s.id", mapper));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,22 @@
+package com.protein.store;
+
+import java.util.List;
+
+// /count 的结果：满足条件的记录总数，以及指定了 groupBy 时的分组计数
+public class StoreCount {
+    private final long total;
+    private final List<FacetBucket> groups;
+
+    public StoreCount(long total, List<FacetBucket> groups) {
+        this.total = total;
+        this.groups = groups;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public List<FacetBucket> getGroups() {
+        return groups;
+    }
+}
@@ -0,0 +1,118 @@
+package com.protein.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+// 变长字符串列：各个值的 UTF-8 字节依次存放在 name.dat 中，name.off 保存每个值的结束位置，NULL 的结束位置带 NULL_FLAG。
+// 只能追加。匹配直接在映射的字节上进行，与 SQLite 的 LIKE 和 COLLATE NOCASE 一样只忽略 ASCII 字母的大小写
+final class StringColumn implements Closeable {
+    private static final long NULL_FLAG = 1L << 62;
+
+    private final MappedColumn offsets;
+    private final MappedColumn bytes;
+
+    StringColumn(Path directory, String name, int size, int byteSize) throws IOException {
+        offsets = new MappedColumn(directory.resolve(name + ".off"), Long.BYTES, size);
+        bytes = new MappedColumn(directory.resolve(name + ".dat"), 1, byteSize);
+    }
+
+    int size() {
+        return offsets.size();
+    }
+
+    int byteSize() {
+        return bytes.size();
+    }
+
+    void append(String value) throws IOException {
+        if (value == null) {
+            offsets.appendLong(bytes.size() | NULL_FLAG);
+            return;
+        }
+        bytes.appendBytes(value.getBytes(StandardCharsets.UTF_8));
+        offsets.appendLong(bytes.size());
+    }
+
+    boolean isNull(int index) {
+        return (offsets.getLong(index) & NULL_FLAG) != 0;
+    }
+
+    String get(int index) {
+        if (isNull(index)) {
+            return null;
+        }
+        int start = start(index);
+        return new String(bytes.getBytes(start, end(index) - start), StandardCharsets.UTF_8);
+    }
+
+    boolean isEmpty(int index) {
+        return end(index) == start(index);
+    }
+
+    // needle 为 lowerAscii 的结果
+    boolean equalsIgnoreCase(int index, byte[] needle) {
+        int start = start(index);
+        return !isNull(index) && end(index) - start == needle.length && matchesAt(start, needle);
+    }
+
+    boolean startsWithIgnoreCase(int index, byte[] needle) {
+        int start = start(index);
+        return !isNull(index) && end(index) - start >= needle.length && matchesAt(start, needle);
+    }
+
+    boolean containsIgnoreCase(int index, byte[] needle) {
+        if (isNull(index)) {
+            return false;
+        }
+        int last = end(index) - needle.length;
+        for (int position = start(index); position <= last; position++) {
+            if (matchesAt(position, needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void force() {
+        offsets.force();
+        bytes.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        offsets.close();
+        bytes.close();
+    }
+
+    // 把查询转为 UTF-8 字节并把 ASCII 大写字母转为小写
+    static byte[] lowerAscii(String value) {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = lower(encoded[i]);
+        }
+        return encoded;
+    }
+
+    private boolean matchesAt(int position, byte[] needle) {
+        for (int i = 0; i < needle.length; i++) {
+            if (lower(bytes.getByte(position + i)) != needle[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int start(int index) {
+        return index == 0 ? 0 : end(index - 1);
+    }
+
+    private int end(int index) {
+        return (int) (offsets.getLong(index) & ~NULL_FLAG);
+    }
+
+    private static byte lower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+}
@@ -0,0 +1,101 @@
+package com.protein.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+import com.protein.data.SequenceTerms;
+
+// 多值字段（interpros、annotations）的词条列：按 SequenceTerms.terms 拆出的词条字典编码后依次保存在 name.col 中
+// （字典忽略大小写，与 sequence_term 一致），每行在 name.start.col 和 name.count.col 中记录自己的词条从哪里开始、有几个。
+// 修改一行时把新的词条追加到末尾再改写这一行的起点，旧的词条留在文件中，重建时才会清除
+final class TermListColumn implements Closeable {
+    private final SequenceTerms.Field field;
+    private final DictionaryColumn terms;
+    private final MappedColumn starts;
+    private final MappedColumn counts;
+
+    TermListColumn(Path directory, String name, SequenceTerms.Field field, int rows, int termCount, int cardinality,
+                   int valueBytes) throws IOException {
+        this.field = field;
+        this.terms = new DictionaryColumn(directory, name, termCount, cardinality, valueBytes, true);
+        this.starts = new MappedColumn(directory.resolve(name + ".start.col"), Integer.BYTES, rows);
+        this.counts = new MappedColumn(directory.resolve(name + ".count.col"), Integer.BYTES, rows);
+    }
+
+    // name.col 中的词条个数（包括被改写的行留下的旧词条）
+    int termCount() {
+        return terms.size();
+    }
+
+    int cardinality() {
+        return terms.cardinality();
+    }
+
+    int valueBytes() {
+        return terms.valueBytes();
+    }
+
+    int start(int row) {
+        return starts.getInt(row);
+    }
+
+    int count(int row) {
+        return counts.getInt(row);
+    }
+
+    // name.col 中第 index 个词条的编号
+    int code(int index) {
+        return terms.code(index);
+    }
+
+    // 编号对应的词条
+    String term(int code) {
+        return terms.values().get(code);
+    }
+
+    void append(String value) throws IOException {
+        int start = terms.size();
+        starts.appendInt(start);
+        counts.appendInt(appendTerms(value, start));
+    }
+
+    void set(int row, String value) throws IOException {
+        int start = terms.size();
+        int count = appendTerms(value, start);
+        starts.setInt(row, start);
+        counts.setInt(row, count);
+    }
+
+    void force() {
+        terms.force();
+        starts.force();
+        counts.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        terms.close();
+        starts.close();
+        counts.close();
+    }
+
+    // 追加一行的词条编号，只是大小写不同的词条只保留一个，返回追加的个数
+    private int appendTerms(String value, int start) throws IOException {
+        Set<String> values = SequenceTerms.terms(value, field);
+        int count = 0;
+        for (String term : values) {
+            int code = terms.encode(term);
+            boolean seen = false;
+            for (int i = start; i < start + count && !seen; i++) {
+                seen = terms.code(i) == code;
+            }
+            if (!seen) {
+                terms.appendCode(code);
+                count++;
+            }
+        }
+        return count;
+    }
+}
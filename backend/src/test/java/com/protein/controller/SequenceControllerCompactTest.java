@@ -0,0 +1,171 @@
+package com.protein.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.protein.cache.SearchResultCache;
+import com.protein.data.Sequence;
+import com.protein.export.CompactSequenceMessageConverter;
+import com.protein.export.ResponseEncoding;
+import com.protein.query.QueryEngine;
+import com.protein.query.SearchField;
+import com.protein.store.SqliteSequenceStore;
+
+class SequenceControllerCompactTest {
+    private QueryEngine queryEngine;
+    private SqliteSequenceStore sqliteStore;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        queryEngine = mock(QueryEngine.class);
+        sqliteStore = mock(SqliteSequenceStore.class);
+        SearchResultCache cache = new SearchResultCache();
+        ReflectionTestUtils.setField(cache, "maxWeightMb", 1L);
+        cache.start();
+
+        SequenceController controller = new SequenceController();
+        ReflectionTestUtils.setField(controller, "queryEngine", queryEngine);
+        ReflectionTestUtils.setField(controller, "searchResultCache", cache);
+        ReflectionTestUtils.setField(controller, "sqliteStore", sqliteStore);
+        // 与应用中相同：转换器 bean 由 Spring Boot 与默认转换器合并
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setMessageConverters(new HttpMessageConverters(new CompactSequenceMessageConverter())
+                        .getConverters().toArray(new HttpMessageConverter<?>[0]))
+                .build();
+
+        when(queryEngine.search(anyString(), any(), anyLong(), anyInt(), any()))
+                .thenReturn(List.of(sequence(1L, "Protein kinase A", "P17612"), sequence(5L, "Protein kinase B", null)));
+    }
+
+    @Test
+    void searchWithFieldsWritesEachEncoding() throws Exception {
+        for (ResponseEncoding encoding : ResponseEncoding.values()) {
+            MvcResult result = mockMvc.perform(get("/api/sequences/search")
+                    .param("query", "kinase" + encoding)
+                    .param("fields", "proteins,accessions")
+                    .param("format", encoding.name().toLowerCase())).andReturn();
+
+            assertThat(result.getResponse().getStatus()).isEqualTo(200);
+            assertThat(result.getResponse().getContentType()).startsWith(encoding.getMediaType());
+            JsonNode rows = decode(encoding, result.getResponse().getContentAsByteArray());
+            assertThat(rows.isArray()).isTrue();
+            assertThat(rows).hasSize(2);
+            assertThat(rows.get(0).get("id").asLong()).isEqualTo(1L);
+            assertThat(rows.get(0).get("proteins").asText()).isEqualTo("Protein kinase A");
+            assertThat(rows.get(0).get("accessions").asText()).isEqualTo("P17612");
+            assertThat(rows.get(0).has("orgs")).isFalse();
+            assertThat(rows.get(0).has("accessionsList")).isFalse();
+            // 值为 null 的字段省略
+            assertThat(rows.get(1).has("accessions")).isFalse();
+        }
+    }
+
+    @Test
+    void acceptHeaderSelectsBinaryEncoding() throws Exception {
+        for (ResponseEncoding encoding : new ResponseEncoding[] {ResponseEncoding.CBOR, ResponseEncoding.SMILE}) {
+            MvcResult result = mockMvc.perform(get("/api/sequences/search")
+                    .param("query", "kinase" + encoding)
+                    .header("Accept", encoding.getMediaType())).andReturn();
+
+            assertThat(result.getResponse().getStatus()).isEqualTo(200);
+            assertThat(result.getResponse().getContentType()).startsWith(encoding.getMediaType());
+            JsonNode rows = decode(encoding, result.getResponse().getContentAsByteArray());
+            assertThat(rows).hasSize(2);
+            assertThat(rows.get(1).get("orgs").asInt()).isEqualTo(9606);
+        }
+    }
+
+    @Test
+    void searchPageWritesColumnsLayout() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/sequences/search/page")
+                .param("query", "kinase")
+                .param("fields", "proteins")
+                .param("layout", "columns")).andReturn();
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        JsonNode page = decode(ResponseEncoding.JSON, result.getResponse().getContentAsByteArray());
+        assertThat(page.get("content").get("id").get(1).asLong()).isEqualTo(5L);
+        assertThat(page.get("content").get("proteins").get(0).asText()).isEqualTo("Protein kinase A");
+        assertThat(page.get("approximateTotal").asLong()).isEqualTo(2L);
+    }
+
+    @Test
+    void searchWithoutCompactOptionsKeepsDefaultJson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/sequences/search").param("query", "kinase")).andReturn();
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        JsonNode rows = decode(ResponseEncoding.JSON, result.getResponse().getContentAsByteArray());
+        assertThat(rows.get(0).get("accessionsList").get(0).asText()).isEqualTo("P17612");
+    }
+
+    @Test
+    void detailReturnsHeavyColumnsAsArray() throws Exception {
+        Sequence detail = sequence(1L, null, null);
+        detail.setOrgs(null);
+        detail.setSequence("MKVLAAGIVGLLLA");
+        detail.setAnnotations("['Kinase']");
+        detail.setInterpros("['IPR000719']");
+        when(sqliteStore.findByIds(eq(new long[] {1L, 5L}), eq(EnumSet.of(SearchField.ID, SearchField.SEQUENCE,
+                SearchField.ANNOTATIONS, SearchField.INTERPROS)))).thenReturn(List.of(detail));
+
+        MvcResult result = mockMvc.perform(get("/api/sequences/5,1,5/detail")).andReturn();
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        JsonNode rows = decode(ResponseEncoding.JSON, result.getResponse().getContentAsByteArray());
+        assertThat(rows.isArray()).isTrue();
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).get("id").asLong()).isEqualTo(1L);
+        assertThat(rows.get(0).get("sequence").asText()).isEqualTo("MKVLAAGIVGLLLA");
+        assertThat(rows.get(0).get("annotations").asText()).isEqualTo("['Kinase']");
+        assertThat(rows.get(0).get("interpros").asText()).isEqualTo("['IPR000719']");
+        assertThat(rows.get(0).has("proteins")).isFalse();
+    }
+
+    @Test
+    void detailRejectsMalformedIds() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/sequences/1,x/detail")).andReturn();
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(400);
+    }
+
+    private static JsonNode decode(ResponseEncoding encoding, byte[] body) throws Exception {
+        switch (encoding) {
+            case CBOR: return new ObjectMapper(new CBORFactory()).readTree(body);
+            case SMILE: return new ObjectMapper(new SmileFactory()).readTree(body);
+            default: return new ObjectMapper().readTree(body);
+        }
+    }
+
+    private static Sequence sequence(long id, String proteins, String accessions) {
+        Sequence sequence = new Sequence();
+        sequence.setId(id);
+        sequence.setProteins(proteins);
+        sequence.setAccessions(accessions);
+        sequence.setOrgs(9606);
+        return sequence;
+    }
+}
@@ -0,0 +1,87 @@
+package com.protein.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.protein.cache.SearchResultCache;
+import com.protein.export.SequenceExporter;
+import com.protein.query.QueryEngine;
+import com.protein.query.QueryParser;
+import com.protein.store.SequenceStore;
+
+class SequenceControllerQueryTest {
+    private SequenceStore sequenceStore;
+    private SequenceExporter sequenceExporter;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        QueryEngine queryEngine = mock(QueryEngine.class);
+        // 与 QueryEngine 一样先解析查询
+        when(queryEngine.search(anyString(), any(), anyLong(), anyInt(), any())).thenAnswer(invocation -> {
+            QueryParser.parse(invocation.getArgument(0), invocation.getArgument(1));
+            return List.of();
+        });
+        sequenceStore = mock(SequenceStore.class);
+        sequenceExporter = mock(SequenceExporter.class);
+        SearchResultCache cache = new SearchResultCache();
+        ReflectionTestUtils.setField(cache, "maxWeightMb", 1L);
+        cache.start();
+
+        SequenceController controller = new SequenceController();
+        ReflectionTestUtils.setField(controller, "queryEngine", queryEngine);
+        ReflectionTestUtils.setField(controller, "searchResultCache", cache);
+        ReflectionTestUtils.setField(controller, "sequenceStore", sequenceStore);
+        ReflectionTestUtils.setField(controller, "sequenceExporter", sequenceExporter);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void malformedQueryReturnsBadRequest() throws Exception {
+        for (String path : new String[] {"/api/sequences/search/page", "/api/sequences/count",
+                "/api/sequences/facets"}) {
+            MvcResult result = mockMvc.perform(get(path).param("query", "proteins:\"kinase")).andReturn();
+
+            assertThat(result.getResponse().getStatus()).as(path).isEqualTo(400);
+            assertThat(result.getResponse().getContentAsString()).as(path).contains("Unterminated quote");
+        }
+        verifyNoInteractions(sequenceStore);
+    }
+
+    @Test
+    void malformedExportQueryIsRejectedBeforeStreaming() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/sequences/export-all-txt")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"query\":\"kinase AND\",\"category\":\"proteins\"}")).andReturn();
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(400);
+        assertThat(result.getResponse().getContentAsString()).contains("Missing operand");
+        verifyNoInteractions(sequenceExporter);
+    }
+
+    @Test
+    void quotedOperatorIsNotMalformed() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/sequences/search/page")
+                .param("query", "proteins:\"kinase AND\" OR orgs:9606")).andReturn();
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+    }
+}
@@ -0,0 +1,103 @@
+package com.protein.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PackedResiduesTest {
+    private static final String PROTEIN = "ABCDEFGHIJKLMNOPQRSTUVWXYZ*-";
+    private static final String NUCLEOTIDE = "ACGT";
+
+    @Test
+    void roundTripsEveryLengthInBothFormats() {
+        Random random = new Random(1);
+        // 覆盖末尾填充的每一种位数：蛋白质 5 位 8 个一组，核酸 2 位 4 个一组
+        for (int length = 1; length <= 41; length++) {
+            String protein = "W" + randomResidues(random, PROTEIN, length - 1);
+            String nucleotide = randomResidues(random, NUCLEOTIDE, length);
+
+            assertRoundTrip(protein, 1 + (length * 5 + 7) / 8);
+            assertRoundTrip(nucleotide, 1 + (length * 2 + 7) / 8);
+        }
+    }
+
+    @Test
+    void nonAcgtResiduesUseTheProteinFormat() {
+        // N 和 U 不在核酸字母表中，整条序列按蛋白质压缩
+        assertRoundTrip("ACGTN", 1 + 4);
+        assertRoundTrip("ACGU", 1 + 3);
+        assertRoundTrip("*-Z", 1 + 2);
+    }
+
+    @Test
+    void sequencesOutsideTheAlphabetAreNotPacked() {
+        assertThat(PackedResidues.pack(null)).isNull();
+        assertThat(PackedResidues.pack("")).isNull();
+        assertThat(PackedResidues.pack("mkv")).isNull();
+        assertThat(PackedResidues.pack("MKV1")).isNull();
+        assertThat(PackedResidues.pack("MK V")).isNull();
+        assertThat(PackedResidues.packIgnoreCase("acgt")).isEqualTo(PackedResidues.pack("ACGT"));
+        assertThat(PackedResidues.packIgnoreCase("mkv1")).isNull();
+    }
+
+    @Test
+    void indexOfMatchesStringIndexOfAcrossWordBoundaries() {
+        Random random = new Random(2);
+        for (String alphabet : new String[] {PROTEIN, NUCLEOTIDE}) {
+            for (int run = 0; run < 200; run++) {
+                String residues = randomResidues(random, alphabet, 1 + random.nextInt(120));
+                if (alphabet.equals(PROTEIN)) {
+                    residues = "W" + residues;
+                }
+                byte[] packed = PackedResidues.pack(residues);
+                // 模式长度跨过 64 位窗口（蛋白质 12 个、核酸 32 个残基），起点落在字节中的各个位置
+                int start = random.nextInt(residues.length());
+                int end = start + 1 + random.nextInt(Math.min(45, residues.length() - start));
+                String present = residues.substring(start, end);
+                String other = randomResidues(random, alphabet, 1 + random.nextInt(40));
+
+                assertThat(PackedResidues.indexOf(packed, present)).as(residues + " / " + present)
+                        .isEqualTo(residues.indexOf(present));
+                assertThat(PackedResidues.indexOf(packed, present.toLowerCase()))
+                        .isEqualTo(residues.indexOf(present));
+                assertThat(PackedResidues.indexOf(packed, other)).as(residues + " / " + other)
+                        .isEqualTo(residues.indexOf(other));
+                assertThat(PackedResidues.startsWith(packed, present)).isEqualTo(residues.startsWith(present));
+            }
+        }
+    }
+
+    @Test
+    void indexOfFindsMatchesThatStartPastTheFirstWindow() {
+        String residues = "ACGT".repeat(20) + "GGGGCCCCAAAATTTTGGGGCCCCAAAATTTTGG" + "ACGT".repeat(5);
+        byte[] packed = PackedResidues.pack(residues);
+
+        assertThat(PackedResidues.indexOf(packed, "GGGGCCCCAAAATTTTGGGGCCCCAAAATTTTGG")).isEqualTo(80);
+        // 开头一个窗口相同、后面不同
+        assertThat(PackedResidues.indexOf(packed, "GGGGCCCCAAAATTTTGGGGCCCCAAAATTTTGA")).isEqualTo(-1);
+        assertThat(PackedResidues.indexOf(packed, "")).isZero();
+        assertThat(PackedResidues.indexOf(packed, residues + "A")).isEqualTo(-1);
+        // 字母表以外的字符不会匹配
+        assertThat(PackedResidues.indexOf(packed, "ACGN")).isEqualTo(-1);
+        assertThat(PackedResidues.startsWith(packed, "acgtac")).isTrue();
+        assertThat(PackedResidues.startsWith(packed, "ACGN")).isFalse();
+        assertThat(PackedResidues.startsWith(PackedResidues.pack("MKV"), "MKVL")).isFalse();
+    }
+
+    private static void assertRoundTrip(String residues, int packedLength) {
+        byte[] packed = PackedResidues.pack(residues);
+        assertThat(packed).as(residues).hasSize(packedLength);
+        assertThat(PackedResidues.length(packed)).as(residues).isEqualTo(residues.length());
+        assertThat(PackedResidues.unpack(packed)).isEqualTo(residues);
+    }
+
+    private static String randomResidues(Random random, String alphabet, int length) {
+        StringBuilder residues = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            residues.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return residues.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package com.protein.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sqlite.SQLiteConnection;
+
+class ResidueFunctionsTest {
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        ResidueFunctions.register(connection.unwrap(SQLiteConnection.class));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void findReturnsOneBasedPositionLikeInstr() throws SQLException {
+        String protein = "MKVLAAGIVGLLLAWWYHEPQKTRSAL";
+        byte[] packed = PackedResidues.pack(protein);
+
+        // 跨过第一个 64 位窗口和字节边界的匹配
+        assertThat(find(packed, "GLLLAWWYHEPQKT")).isEqualTo(protein.indexOf("GLLLAWWYHEPQKT") + 1);
+        assertThat(find(packed, "rsal")).isEqualTo(protein.length() - 3);
+        assertThat(find(packed, "MKV")).isEqualTo(1);
+        assertThat(find(packed, "MKW")).isZero();
+
+        String nucleotide = "ACGT".repeat(10) + "TTGACA";
+        assertThat(find(PackedResidues.pack(nucleotide), "GTTTGAC")).isEqualTo(nucleotide.indexOf("GTTTGAC") + 1);
+        assertThat(find(PackedResidues.pack(nucleotide), "TTGACAA")).isZero();
+    }
+
+    @Test
+    void startsWithComparesOnlyTheFirstResidues() throws SQLException {
+        byte[] packed = PackedResidues.pack("ACGTACGTAC");
+
+        assertThat(startsWith(packed, "acgtacgt")).isEqualTo(1);
+        assertThat(startsWith(packed, "CGT")).isZero();
+        assertThat(startsWith(packed, "ACGTACGTACG")).isZero();
+    }
+
+    @Test
+    void nullAndEmptyArgumentsReturnZero() throws SQLException {
+        assertThat(find(null, "MKV")).isZero();
+        assertThat(find(new byte[0], "MKV")).isZero();
+        assertThat(find(PackedResidues.pack("MKV"), null)).isZero();
+        assertThat(startsWith(null, "MKV")).isZero();
+        assertThat(startsWith(PackedResidues.pack("MKV"), null)).isZero();
+    }
+
+    private int find(byte[] residues, String pattern) throws SQLException {
+        return call("SELECT residues_find(?, ?)", residues, pattern);
+    }
+
+    private int startsWith(byte[] residues, String pattern) throws SQLException {
+        return call("SELECT residues_starts_with(?, ?)", residues, pattern);
+    }
+
+    private int call(String sql, byte[] residues, String pattern) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setBytes(1, residues);
+            statement.setString(2, pattern);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.protein.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.protein.data.Sequence;
+import com.protein.data.SequenceRepository;
+
+class SequencePageSourceTest {
+    private static final int LIMIT = 100;
+
+    @Test
+    void staleFirstBatchIsSkipped() {
+        // 缓存中的前 100 个 id 都已经删除
+        Set<Long> existing = ids(101, 250);
+        SequencePageSource source = SequencePageSource.ofSortedIds(repository(existing), range(1, 250));
+
+        assertThat(drain(source)).containsExactlyElementsOf(sorted(existing));
+    }
+
+    @Test
+    void staleBatchInTheMiddleDoesNotEndThePaging() {
+        Set<Long> existing = ids(1, 100);
+        existing.addAll(ids(301, 350));
+        SequencePageSource source = SequencePageSource.ofSortedIds(repository(existing), range(1, 350));
+
+        assertThat(drain(source)).containsExactlyElementsOf(sorted(existing));
+    }
+
+    @Test
+    void emptyPageOnlyWhenEveryIdIsStale() {
+        SequencePageSource source = SequencePageSource.ofSortedIds(repository(Set.of()), range(1, 350));
+
+        assertThat(source.fetchPage(0L, LIMIT)).isEmpty();
+    }
+
+    @Test
+    void pagesAreOrderedById() {
+        SequencePageSource source = SequencePageSource.ofIds(repository(ids(1, 50)), List.of(30L, 10L, 20L, 10L));
+
+        assertThat(source.fetchPage(0L, LIMIT)).extracting(Sequence::getId).containsExactly(10L, 20L, 30L);
+    }
+
+    // 与导出和 /search 相同的遍历方式：以最后一条的 id 为游标，空页表示结束
+    private static List<Long> drain(SequencePageSource source) {
+        List<Long> ids = new ArrayList<>();
+        List<Sequence> page;
+        long lastId = 0L;
+        while (!(page = source.fetchPage(lastId, LIMIT)).isEmpty()) {
+            page.forEach(sequence -> ids.add(sequence.getId()));
+            lastId = page.get(page.size() - 1).getId();
+        }
+        return ids;
+    }
+
+    // 按倒序返回请求的 id 中存在的记录，IN 查询不保证顺序
+    private static SequenceRepository repository(Set<Long> existing) {
+        SequenceRepository repository = mock(SequenceRepository.class);
+        when(repository.findByIdIn(anyList())).thenAnswer(invocation -> {
+            List<Long> requested = invocation.getArgument(0);
+            List<Sequence> rows = requested.stream().filter(existing::contains).map(id -> {
+                Sequence sequence = new Sequence();
+                sequence.setId(id);
+                return sequence;
+            }).collect(Collectors.toList());
+            Collections.reverse(rows);
+            return rows;
+        });
+        return repository;
+    }
+
+    private static long[] range(long from, long to) {
+        return LongStream.rangeClosed(from, to).toArray();
+    }
+
+    private static Set<Long> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().collect(Collectors.toSet());
+    }
+
+    private static List<Long> sorted(Set<Long> ids) {
+        return ids.stream().sorted().collect(Collectors.toList());
+    }
+}
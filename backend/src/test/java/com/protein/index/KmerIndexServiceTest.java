@@ -0,0 +1,165 @@
+package com.protein.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.protein.data.DataConfiguration;
+import com.protein.data.SequenceChangeLog;
+import com.protein.schema.SchemaManager;
+import com.protein.schema.SchemaMigrations;
+
+class KmerIndexServiceTest {
+    @TempDir
+    Path directory;
+
+    private DataSource writeDataSource;
+    private DataSource readDataSource;
+    // 与应用相同的默认数据源：事务之外的语句使用只读连接
+    private JdbcTemplate jdbcTemplate;
+    // 测试自己修改数据时使用写连接
+    private JdbcTemplate writeTemplate;
+    private SequenceChangeLog changeLog;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl("jdbc:sqlite:" + directory.resolve("sequences.db"));
+        DataConfiguration configuration = new DataConfiguration();
+        ReflectionTestUtils.setField(configuration, "busyTimeoutMillis", 5000);
+        ReflectionTestUtils.setField(configuration, "cacheSizeKb", 1024);
+        ReflectionTestUtils.setField(configuration, "writeWaitSeconds", 10L);
+        writeDataSource = configuration.writeDataSource(properties);
+        readDataSource = configuration.readDataSource(properties);
+        try (Connection connection = writeDataSource.getConnection()) {
+            SchemaManager.migrate(connection, SchemaMigrations.all());
+        }
+        jdbcTemplate = new JdbcTemplate(configuration.dataSource(writeDataSource, readDataSource));
+        writeTemplate = new JdbcTemplate(writeDataSource);
+
+        changeLog = new SequenceChangeLog();
+        ReflectionTestUtils.setField(changeLog, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(changeLog, "writeDataSource", writeDataSource);
+
+        insert(1, "MKWWWAC");
+        insert(2, "MKYYYAC");
+        insert(3, "MKHHHAC");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        changeLog.stop();
+        ((Closeable) readDataSource).close();
+        ((Closeable) writeDataSource).close();
+    }
+
+    @Test
+    void changesAfterTheLastSaveAreReindexedOnLoad() throws Exception {
+        KmerIndexService first = load();
+        assertThat(first.candidates("WWW")).containsExactly(1L);
+        assertThat(first.candidates("YYY")).containsExactly(2L);
+
+        // 保存之后改写 1、删除 2、新增 4，进程在下次保存之前退出
+        writeTemplate.update("UPDATE sequence SET sequence = 'MKFFFAC' WHERE id = 1");
+        writeTemplate.update("DELETE FROM sequence WHERE id = 2");
+        insert(4, "MKWWWAC");
+
+        KmerIndexService second = load();
+
+        assertThat(second.candidates("WWW")).containsExactly(4L);
+        assertThat(second.candidates("FFF")).containsExactly(1L);
+        assertThat(second.candidates("YYY")).isEmpty();
+        assertThat(second.candidates("HHH")).containsExactly(3L);
+        // 已经保存到索引文件中的改动记录由写连接删除
+        awaitChangeCount(0);
+    }
+
+    @Test
+    void refreshReindexesChangedSequences() {
+        KmerIndexService service = load();
+
+        writeTemplate.update("UPDATE sequence SET sequence = 'MKFFFAC' WHERE id = 3");
+        ReflectionTestUtils.invokeMethod(service, "refresh");
+
+        assertThat(service.candidates("HHH")).isEmpty();
+        assertThat(service.candidates("FFF")).containsExactly(3L);
+        // 重新加载同一个索引文件时不会重复处理已经反映到索引中的改动
+        assertThat(load().candidates("FFF")).containsExactly(3L);
+    }
+
+    @Test
+    void changesAreKeptUntilEveryConsumerHasSavedThem() throws Exception {
+        changeLog.register("columnar-store");
+        load();
+        writeTemplate.update("UPDATE sequence SET sequence = 'MKFFFAC' WHERE id = 1");
+        KmerIndexService reloaded = load();
+        assertThat(reloaded.candidates("FFF")).containsExactly(1L);
+
+        changeLog.saved("columnar-store", 0L);
+        Thread.sleep(100);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sequence_change", Integer.class)).isEqualTo(1);
+
+        changeLog.saved("columnar-store", changeLog.lastSequence());
+        awaitChangeCount(0);
+    }
+
+    @Test
+    void updatesThatKeepTheSequenceAreNotReindexed() {
+        KmerIndexService service = load();
+        writeTemplate.update("UPDATE sequence SET proteins = 'Kinase' WHERE id = 1");
+        writeTemplate.update("UPDATE sequence SET index_number = 7 WHERE id = 1");
+        insert(10, "MKAAAAC");
+        insert(5, "MKCCCAC");
+
+        // 其他列的改动也会记录（列式存储需要），但标记为残基序列未改变
+        assertThat(jdbcTemplate.queryForList("SELECT sequence_id FROM sequence_change WHERE residues_changed = 1",
+                Long.class)).containsExactly(5L);
+        assertThat(jdbcTemplate.queryForList("SELECT DISTINCT sequence_id FROM sequence_change WHERE residues_changed = 0",
+                Long.class)).containsExactly(1L);
+
+        // 只有其他列改变时索引也要前进到最新位置
+        ReflectionTestUtils.invokeMethod(service, "refresh");
+        KmerIndex index = (KmerIndex) ReflectionTestUtils.getField(service, "index");
+        assertThat(index.getChangeSequence()).isEqualTo(changeLog.lastSequence());
+    }
+
+    private KmerIndexService load() {
+        KmerIndexService service = new KmerIndexService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "changeLog", changeLog);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "indexPath", directory.resolve("sequences.kmer").toString());
+        service.init();
+        ReflectionTestUtils.invokeMethod(service, "load");
+        assertThat(service.isReady()).isTrue();
+        return service;
+    }
+
+    private void awaitChangeCount(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        Integer count;
+        while ((count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sequence_change", Integer.class)) != expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(count).isEqualTo(expected);
+    }
+
+    private void insert(long id, String sequence) {
+        writeTemplate.update("INSERT INTO sequence (id, sequence) VALUES (?, ?)", id, sequence);
+    }
+}
@@ -0,0 +1,92 @@
+package com.protein.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+class PostingListTest {
+    @Test
+    void emptyListDecodesToNothing() throws IOException {
+        PostingList list = new PostingList();
+
+        assertThat(list.count()).isZero();
+        assertThat(list.decode()).isEmpty();
+        assertThat(roundTrip(list).decode()).isEmpty();
+    }
+
+    @Test
+    void roundTripsSmallAndLargeGaps() throws IOException {
+        // 差值跨过 1、2、3、5、6 字节变长整数的边界，最后一个接近 40 位 id 的上限
+        long[] ids = {0L, 1L, 127L, 128L, 16_511L, 16_512L, 2_113_663L, (1L << 35) + 7, (1L << 40) - 1};
+        PostingList list = listOf(ids);
+
+        assertThat(list.count()).isEqualTo(ids.length);
+        assertThat(list.lastId()).isEqualTo((1L << 40) - 1);
+        assertThat(list.decode()).containsExactly(ids);
+        assertThat(roundTrip(list).decode()).containsExactly(ids);
+    }
+
+    @Test
+    void addOutOfOrderMergesWithoutDuplicates() {
+        PostingList list = listOf(10L, 20L, 30L);
+
+        list.add(15L);
+        list.add(20L);
+        list.add(30L);
+        list.add(1L);
+
+        assertThat(list.decode()).containsExactly(1L, 10L, 15L, 20L, 30L);
+        assertThat(list.lastId()).isEqualTo(30L);
+    }
+
+    @Test
+    void replaceRemovesAndMergesInOnePass() {
+        PostingList list = listOf(1L, 5L, 9L, 300L, 100_000L);
+
+        list.replace(new long[] {5L, 9L, 400L, 100_000L}, new long[] {3L, 9L, 400L, 0L}, 3);
+
+        assertThat(list.decode()).containsExactly(1L, 3L, 9L, 300L, 400L);
+        assertThat(list.lastId()).isEqualTo(400L);
+    }
+
+    @Test
+    void replaceCanEmptyAndRefillAList() {
+        PostingList list = listOf(7L, 8L);
+
+        list.replace(new long[] {7L, 8L}, null, 0);
+        assertThat(list.count()).isZero();
+        assertThat(list.decode()).isEmpty();
+
+        list.replace(new long[] {2L}, new long[] {2L}, 1);
+        assertThat(list.decode()).containsExactly(2L);
+    }
+
+    @Test
+    void replaceOfIdsAfterTheListLeavesItUnchanged() {
+        PostingList list = listOf(1L, 2L);
+
+        list.replace(new long[] {3L, 4L}, null, 0);
+
+        assertThat(list.decode()).containsExactly(1L, 2L);
+    }
+
+    private static PostingList listOf(long... ids) {
+        PostingList list = new PostingList();
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static PostingList roundTrip(PostingList list) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        list.write(new DataOutputStream(bytes));
+        return PostingList.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
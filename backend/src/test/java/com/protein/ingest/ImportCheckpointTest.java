@@ -0,0 +1,72 @@
+package com.protein.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImportCheckpointTest {
+    @TempDir
+    Path directory;
+
+    private Path checkpoints;
+    private Path first;
+    private Path second;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        checkpoints = directory.resolve("checkpoints");
+        first = Files.writeString(directory.resolve("a.fa"), ">a\nMKV\n");
+        second = Files.writeString(directory.resolve("b.fa"), ">b\nMKVL\n");
+    }
+
+    @Test
+    void resumesCompletedSegmentsOfTheSameFiles() throws IOException {
+        ImportCheckpoint checkpoint = ImportCheckpoint.open(checkpoints, List.of(first, second));
+        assertThat(checkpoint.isEmpty()).isTrue();
+        checkpoint.markDone(first, 0, 4);
+        checkpoint.markDone(second, 0, 8);
+        checkpoint.markDone(second, 0, 8);
+
+        // 文件顺序不影响断点
+        ImportCheckpoint resumed = ImportCheckpoint.open(checkpoints, List.of(second, first));
+
+        assertThat(resumed.isEmpty()).isFalse();
+        assertThat(resumed.isDone(first, 0, 4)).isTrue();
+        assertThat(resumed.isDone(second, 0, 8)).isTrue();
+        assertThat(resumed.isDone(first, 4, 7)).isFalse();
+        assertThat(resumed.isDone(second, 0, 4)).isFalse();
+        try (var files = Files.list(checkpoints)) {
+            assertThat(files).hasSize(1).allMatch(file -> file.toString().endsWith(".checkpoint"));
+        }
+    }
+
+    @Test
+    void changedFilesStartFromAnEmptyCheckpoint() throws IOException {
+        ImportCheckpoint checkpoint = ImportCheckpoint.open(checkpoints, List.of(first, second));
+        checkpoint.markDone(first, 0, 4);
+
+        Files.setLastModifiedTime(first, FileTime.fromMillis(Files.getLastModifiedTime(first).toMillis() + 1000));
+        assertThat(ImportCheckpoint.open(checkpoints, List.of(first, second)).isEmpty()).isTrue();
+        // 另一组文件也有自己的断点
+        assertThat(ImportCheckpoint.open(checkpoints, List.of(second)).isEmpty()).isTrue();
+    }
+
+    @Test
+    void deleteRemovesTheCheckpoint() throws IOException {
+        ImportCheckpoint checkpoint = ImportCheckpoint.open(checkpoints, List.of(first));
+        checkpoint.markDone(first, 0, 7);
+
+        checkpoint.delete();
+        checkpoint.delete();
+
+        assertThat(ImportCheckpoint.open(checkpoints, List.of(first)).isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,126 @@
+package com.protein.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.protein.data.DuplicatePolicy;
+import com.protein.metrics.MetricsRegistry;
+import com.protein.schema.SchemaManager;
+
+class IngestJobServiceTest {
+    @TempDir
+    Path directory;
+
+    private Path root;
+    private IngestPipeline pipeline;
+    private IngestJobService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = Files.createDirectories(directory.resolve("root"));
+        pipeline = mock(IngestPipeline.class);
+        service = new IngestJobService();
+        ReflectionTestUtils.setField(service, "ingestPipeline", pipeline);
+        ReflectionTestUtils.setField(service, "schemaManager", mock(SchemaManager.class));
+        ReflectionTestUtils.setField(service, "metricsRegistry", new MetricsRegistry());
+        ReflectionTestUtils.setField(service, "defaultDedup", "none");
+        ReflectionTestUtils.setField(service, "importRoot", root.toString());
+        ReflectionTestUtils.setField(service, "checkpointDirectory", directory.resolve("checkpoints").toString());
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void resolvesFilesDirectoriesAndGlobsUnderTheRoot() throws Exception {
+        Path fasta = Files.writeString(Files.createDirectories(root.resolve("uniprot")).resolve("a.fa"), ">a\nMKV\n");
+        Path tsv = Files.writeString(root.resolve("uniprot/b.tsv"), "id\n");
+        Files.writeString(root.resolve("uniprot/readme.md"), "notes");
+
+        assertThat(resolve("uniprot/a.fa")).containsExactly(fasta.toRealPath());
+        assertThat(resolve("uniprot")).containsExactly(fasta.toRealPath(), tsv.toRealPath());
+        assertThat(resolve("uniprot/*.fa")).containsExactly(fasta.toRealPath());
+        assertThat(resolve(root.resolve("uniprot/b.tsv").toString())).containsExactly(tsv.toRealPath());
+    }
+
+    @Test
+    void rejectsFilesOutsideTheRoot() throws Exception {
+        Path outside = Files.writeString(directory.resolve("outside.fa"), ">x\nMKV\n");
+        Files.createDirectories(root.resolve("data"));
+        Files.createSymbolicLink(root.resolve("data/link.fa"), outside);
+
+        for (String location : new String[] {"../outside.fa", "data/../../outside.fa", outside.toString(),
+                "data/link.fa", "data/*.fa"}) {
+            assertThatThrownBy(() -> service.submitLocal(location, DuplicatePolicy.NONE))
+                    .as(location)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Not under protein.ingest.import-root");
+        }
+        assertThatThrownBy(() -> service.submitLocal("missing/*.fa", DuplicatePolicy.NONE))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("No files match");
+    }
+
+    @Test
+    void queuedJobSeesTheCheckpointWrittenByTheJobBeforeIt() throws Exception {
+        Path file = Files.writeString(root.resolve("a.fa"), ">a\nMKV\n");
+        CountDownLatch bothSubmitted = new CountDownLatch(1);
+        List<Boolean> resumed = Collections.synchronizedList(new ArrayList<>());
+        when(pipeline.ingest(anyList(), any(), any(), any())).thenAnswer(invocation -> {
+            ImportCheckpoint checkpoint = invocation.getArgument(3);
+            IngestStats stats = invocation.getArgument(1);
+            resumed.add(checkpoint.isDone(file.toRealPath(), 0, 10));
+            if (resumed.size() == 1) {
+                assertThat(bothSubmitted.await(10, TimeUnit.SECONDS)).isTrue();
+                // 第一个任务提交了一个片段后中断，保留断点
+                checkpoint.markDone(file.toRealPath(), 0, 10);
+                stats.addFileError("a.fa", "interrupted");
+            }
+            return stats;
+        });
+
+        IngestJob first = service.submitLocal("a.fa", DuplicatePolicy.NONE);
+        IngestJob second = service.submitLocal("a.fa", DuplicatePolicy.NONE);
+        bothSubmitted.countDown();
+        awaitFinished(first);
+        awaitFinished(second);
+
+        assertThat(resumed).containsExactly(false, true);
+        assertThat(second.getState()).isEqualTo(IngestJob.State.SUCCEEDED);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Path> resolve(String location) {
+        return (List<Path>) ReflectionTestUtils.invokeMethod(service, "resolveLocal", location);
+    }
+
+    private static void awaitFinished(IngestJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(job.isFinished()).as(job.getId()).isTrue();
+    }
+}
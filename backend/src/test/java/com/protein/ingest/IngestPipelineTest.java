@@ -0,0 +1,102 @@
+package com.protein.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.protein.data.DuplicatePolicy;
+import com.protein.data.Sequence;
+import com.protein.data.SequenceBulkWriter;
+import com.protein.metrics.MetricsRegistry;
+
+class IngestPipelineTest {
+    private static final String HEADER = "id\tindex\tproteins\taccessions\tsequences\tannotations\tinterpros\torgs\n";
+
+    @TempDir
+    Path directory;
+
+    private final List<Sequence> written = Collections.synchronizedList(new ArrayList<>());
+    private IngestPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SequenceBulkWriter.Session session = mock(SequenceBulkWriter.Session.class);
+        doAnswer(invocation -> written.add(invocation.getArgument(0))).when(session).add(any());
+        when(session.getRowsWritten()).thenAnswer(invocation -> (long) written.size());
+        SequenceBulkWriter writer = mock(SequenceBulkWriter.class);
+        when(writer.openSession(any(DuplicatePolicy.class))).thenReturn(session);
+
+        pipeline = new IngestPipeline();
+        ReflectionTestUtils.setField(pipeline, "sequenceBulkWriter", writer);
+        ReflectionTestUtils.setField(pipeline, "metricsRegistry", new MetricsRegistry());
+        ReflectionTestUtils.setField(pipeline, "configuredParallelism", 2);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 4);
+        ReflectionTestUtils.setField(pipeline, "splitThresholdMb", 32L);
+        ReflectionTestUtils.setField(pipeline, "checkpointSegmentMb", 64L);
+        pipeline.start();
+    }
+
+    @Test
+    void importsAllFilesWithoutErrors() throws Exception {
+        IngestStats stats = pipeline.ingest(List.of(txt("a.txt", 1500, -1), txt("b.txt", 10, -1)), new IngestStats());
+
+        assertThat(stats.getFileErrors()).isEmpty();
+        assertThat(stats.getRecordsParsed()).isEqualTo(1510);
+        assertThat(written).hasSize(1510);
+    }
+
+    @Test
+    void fileFailingBeforeAnyRecordIsWrittenIsOnlyReported() throws Exception {
+        IngestStats stats = pipeline.ingest(List.of(txt("bad.txt", 10, 3), txt("good.txt", 20, -1)), new IngestStats());
+
+        assertThat(stats.getFileErrors()).hasSize(1);
+        assertThat(stats.getFileErrors().get(0).getFile()).isEqualTo("bad.txt");
+        assertThat(stats.getFileErrors().get(0).getRecordsImported()).isZero();
+        assertThat(written).hasSize(20);
+    }
+
+    @Test
+    void malformedRecordInTheMiddleOfAFileFailsTheImport() throws Exception {
+        IngestStats stats = new IngestStats();
+        List<IngestSource> sources = List.of(txt("bad.txt", 3000, 2500), txt("good.txt", 20, -1));
+
+        assertThatThrownBy(() -> pipeline.ingest(sources, stats))
+                .isInstanceOf(IngestException.class)
+                .hasMessageContaining("bad.txt (2000 records)");
+
+        assertThat(stats.getFileErrors()).hasSize(1);
+        IngestStats.FileError error = stats.getFileErrors().get(0);
+        assertThat(error.getFile()).isEqualTo("bad.txt");
+        assertThat(error.getMessage()).contains("Malformed line");
+        // 出错之前的两个整批已经交给写入者
+        assertThat(error.getRecordsImported()).isEqualTo(2000);
+    }
+
+    // 8 列 TXT 文件，共 records 行；badRecord 不小于 0 时这一行的 index 列不是数字
+    private IngestSource txt(String name, int records, int badRecord) throws IOException {
+        StringBuilder content = new StringBuilder(HEADER);
+        for (int i = 0; i < records; i++) {
+            content.append(i + 1).append('\t').append(i == badRecord ? "x" : Integer.toString(i)).append('\t')
+                    .append("Protein ").append(i).append("\tP").append(i).append("\tMKV\t[]\t[]\t9606\n");
+        }
+        Path file = directory.resolve(name);
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+        return IngestSource.of(file, name);
+    }
+}
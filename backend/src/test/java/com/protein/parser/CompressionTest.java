@@ -0,0 +1,205 @@
+package com.protein.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.luben.zstd.ZstdOutputStream;
+
+class CompressionTest {
+    // BGZF 文件末尾的空块
+    private static final byte[] BGZF_EOF = {0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 0xFF, 6, 0, 'B', 'C', 2, 0,
+            0x1B, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void plainInputIsReturnedAsIs() throws IOException {
+        byte[] content = fasta(100);
+
+        assertThat(Compression.detect(content, content.length)).isEqualTo(Compression.NONE);
+        assertThat(decompress(content)).isEqualTo(content);
+        // 比文件头还短的输入
+        assertThat(decompress(new byte[] {'>', 'a'})).containsExactly('>', 'a');
+        assertThat(decompress(new byte[0])).isEmpty();
+    }
+
+    @Test
+    void gzipWithConcatenatedMembers() throws IOException {
+        byte[] first = fasta(2000);
+        byte[] second = fasta(10);
+        byte[] compressed = concat(gzip(first), gzip(second));
+
+        assertThat(Compression.detect(compressed, compressed.length)).isEqualTo(Compression.GZIP);
+        assertThat(decompress(compressed)).isEqualTo(concat(first, second));
+    }
+
+    @Test
+    void multiBlockBgzip() throws IOException {
+        byte[] content = fasta(20_000);
+        byte[] compressed = bgzip(content, 10_000);
+
+        assertThat(Compression.detect(compressed, compressed.length)).isEqualTo(Compression.BGZIP);
+        assertThat(decompress(compressed)).isEqualTo(content);
+    }
+
+    @Test
+    void bgzipBlocksComeBackInOrder() throws IOException {
+        byte[] content = fasta(5_000);
+        ExecutorService inflaters = Executors.newFixedThreadPool(4);
+        try (InputStream in = new BgzipInputStream(new ByteArrayInputStream(bgzip(content, 1_000)), inflaters)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            // 块数远多于并行解压的上限；逐字节和按块读取混用
+            out.write(in.read());
+            in.transferTo(out);
+            assertThat(in.read()).isEqualTo(-1);
+            assertThat(out.toByteArray()).isEqualTo(content);
+        } finally {
+            inflaters.shutdownNow();
+        }
+    }
+
+    @Test
+    void zstd() throws IOException {
+        byte[] content = fasta(5_000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ZstdOutputStream out = new ZstdOutputStream(compressed)) {
+            out.write(content);
+        }
+
+        assertThat(Compression.detect(compressed.toByteArray(), 4)).isEqualTo(Compression.ZSTD);
+        assertThat(decompress(compressed.toByteArray())).isEqualTo(content);
+    }
+
+    @Test
+    void truncatedStreamsFail() throws IOException {
+        byte[] content = fasta(5_000);
+        byte[] gzip = gzip(content);
+        byte[] bgzip = bgzip(content, 10_000);
+        ByteArrayOutputStream zstd = new ByteArrayOutputStream();
+        try (ZstdOutputStream out = new ZstdOutputStream(zstd)) {
+            out.write(content);
+        }
+
+        assertThatThrownBy(() -> decompress(Arrays.copyOf(gzip, gzip.length / 2))).isInstanceOf(EOFException.class);
+        assertThatThrownBy(() -> decompress(Arrays.copyOf(bgzip, bgzip.length / 2))).isInstanceOf(EOFException.class);
+        // 截断在下一个块的块头中
+        int secondBlock = blockLength(bgzip, 0);
+        assertThatThrownBy(() -> decompress(Arrays.copyOf(bgzip, secondBlock + 5)))
+                .isInstanceOf(EOFException.class)
+                .hasMessageContaining("header");
+        byte[] zstdBytes = zstd.toByteArray();
+        assertThatThrownBy(() -> decompress(Arrays.copyOf(zstdBytes, zstdBytes.length / 2)))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void corruptBgzipBlockFails() throws IOException {
+        byte[] bgzip = bgzip(fasta(100), 10_000);
+        // 改动块尾中的 CRC32
+        bgzip[blockLength(bgzip, 0) - 8] ^= 1;
+
+        assertThatThrownBy(() -> decompress(bgzip)).isInstanceOf(IOException.class).hasMessageContaining("CRC");
+    }
+
+    @Test
+    void detectsFilesByContentNotSuffix() throws IOException {
+        byte[] content = fasta(10);
+        Path plain = directory.resolve("already-decompressed.fa.gz");
+        Path bgzip = directory.resolve("sequences.fa");
+        Files.write(plain, content);
+        Files.write(bgzip, bgzip(content, 10_000));
+
+        assertThat(Compression.detect(plain)).isEqualTo(Compression.NONE);
+        assertThat(Compression.detect(bgzip)).isEqualTo(Compression.BGZIP);
+        assertThat(Compression.stripSuffix("uniprot.fa.gz")).isEqualTo("uniprot.fa");
+        assertThat(Compression.stripSuffix("uniprot.tsv.zst")).isEqualTo("uniprot.tsv");
+        assertThat(Compression.stripSuffix("uniprot.txt")).isEqualTo("uniprot.txt");
+    }
+
+    private static byte[] decompress(byte[] bytes) throws IOException {
+        try (InputStream in = Compression.decompress(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] fasta(int records) {
+        Random random = new Random(records);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < records; i++) {
+            content.append(">sp|P").append(i).append("| Protein ").append(i).append('\n');
+            for (int j = 0; j < 60; j++) {
+                content.append("ACDEFGHIKLMNPQRSTVWY".charAt(random.nextInt(20)));
+            }
+            content.append('\n');
+        }
+        return content.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    // 与 bgzip 相同的格式：每块至多 blockSize 字节未压缩数据，最后是空的 EOF 块
+    private static byte[] bgzip(byte[] content, int blockSize) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < content.length; offset += blockSize) {
+            int length = Math.min(blockSize, content.length - offset);
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            deflater.setInput(content, offset, length);
+            deflater.finish();
+            byte[] deflated = new byte[length + 1024];
+            int deflatedLength = deflater.deflate(deflated);
+            deflater.end();
+            CRC32 crc = new CRC32();
+            crc.update(content, offset, length);
+            int total = 18 + deflatedLength + 8;
+            out.writeBytes(new byte[] {0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 0xFF, 6, 0, 'B', 'C', 2, 0,
+                    (byte) (total - 1), (byte) ((total - 1) >>> 8)});
+            out.write(deflated, 0, deflatedLength);
+            writeInt(out, crc.getValue());
+            writeInt(out, length);
+        }
+        out.writeBytes(BGZF_EOF);
+        return out.toByteArray();
+    }
+
+    private static int blockLength(byte[] bgzip, int offset) {
+        return ((bgzip[offset + 16] & 0xFF) | (bgzip[offset + 17] & 0xFF) << 8) + 1;
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, long value) {
+        for (int i = 0; i < 4; i++) {
+            out.write((int) (value >>> (8 * i)));
+        }
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+package com.protein.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class QueryParserTest {
+    @Test
+    void emptyQueryMatchesAllOrTheCategoryNotEmpty() {
+        assertThat(parse("", null)).isEqualTo("TRUE");
+        assertThat(parse("  ", "全部类别")).isEqualTo("TRUE");
+        assertThat(parse("", "Proteins")).isEqualTo("proteins IS NOT EMPTY");
+        assertThat(parse("", "unknown")).isEqualTo("FALSE");
+    }
+
+    @Test
+    void plainValueSearchesEveryApplicableField() {
+        assertThat(parse("kinase", "all")).isEqualTo("(proteins CONTAINS 'kinase' OR accessions CONTAINS 'kinase' "
+                + "OR sequence CONTAINS 'kinase' OR annotations CONTAINS 'kinase' OR interpros CONTAINS 'kinase')");
+        // 整数在数值字段上是等值，length 不参与全部类别
+        assertThat(parse("42", "")).startsWith("(id = '42' OR index = '42' OR proteins CONTAINS '42'")
+                .endsWith("orgs = '42')")
+                .doesNotContain("length");
+    }
+
+    @Test
+    void categorySelectsTheDefaultField() {
+        assertThat(parse("kin*", "proteins")).isEqualTo("proteins STARTS WITH 'kin'");
+        assertThat(parse("=P17612", "accessions")).isEqualTo("accessions = 'P17612'");
+        assertThat(parse("kinase", "orgs")).isEqualTo("FALSE");
+    }
+
+    @Test
+    void fieldPrefixOverridesTheCategory() {
+        assertThat(parse("orgs:9606", "proteins")).isEqualTo("orgs = '9606'");
+        assertThat(parse("LENGTH:100..500", null)).isEqualTo("length BETWEEN 100 AND 500");
+        assertThat(parse("interpros:", null)).isEqualTo("interpros IS NOT EMPTY");
+        // 不是字段名的前缀按普通值处理
+        assertThat(parse("GO:0004672", "annotations")).isEqualTo("annotations CONTAINS 'GO:0004672'");
+    }
+
+    @Test
+    void quotedValueIsALiteralSubstring() {
+        assertThat(parse("\"kin*\"", "proteins")).isEqualTo("proteins CONTAINS 'kin*'");
+        assertThat(parse("proteins:\"=10..20\"", null)).isEqualTo("proteins CONTAINS '=10..20'");
+        assertThat(parse("\"\"", "proteins")).isEqualTo("FALSE");
+    }
+
+    @Test
+    void numericRangesAndComparisons() {
+        assertThat(parse("id:..20", null)).isEqualTo("id BETWEEN " + Long.MIN_VALUE + " AND 20");
+        assertThat(parse("id:>10", null)).isEqualTo("id BETWEEN 11 AND " + Long.MAX_VALUE);
+        assertThat(parse("id:<=10", null)).isEqualTo("id BETWEEN " + Long.MIN_VALUE + " AND 10");
+        assertThat(parse("id:>" + Long.MAX_VALUE, null)).isEqualTo("FALSE");
+        // 文本字段上的范围和数值字段上的文本都不匹配
+        assertThat(parse("proteins:1..2", null)).isEqualTo("FALSE");
+        assertThat(parse("orgs:human", null)).isEqualTo("FALSE");
+        assertThat(parse("id:123456789012345678901", null)).isEqualTo("FALSE");
+    }
+
+    @Test
+    void andBindsTighterThanOr() {
+        assertThat(parse("orgs:9606 AND proteins:kin* OR id:1", null))
+                .isEqualTo("((orgs = '9606' AND proteins STARTS WITH 'kin') OR id = '1')");
+        // 小写的 and / or 不是运算符
+        assertThat(parse("alpha and beta", "proteins")).isEqualTo("proteins CONTAINS 'alpha and beta'");
+    }
+
+    @Test
+    void fullTextCategory() {
+        assertThat(parse("", "fulltext")).isEqualTo("TRUE");
+        assertThat(parse("9606", "fulltext")).isEqualTo("(id = '9606' OR index = '9606' OR orgs = '9606')");
+        assertThat(parse("kinase", "fulltext")).startsWith("MATCH '");
+    }
+
+    @Test
+    void malformedQueriesAreRejected() {
+        for (String query : new String[] {"\"kinase", "proteins:\"kin", "\"", "AND", "kinase AND",
+                "OR kinase", "kinase AND AND beta", "kinase OR AND beta"}) {
+            assertThatThrownBy(() -> QueryParser.parse(query, null))
+                    .as(query)
+                    .isInstanceOf(MalformedQueryException.class);
+        }
+    }
+
+    private static String parse(String query, String category) {
+        return QueryParser.parse(query, category).toString();
+    }
+}
@@ -0,0 +1,100 @@
+package com.protein.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.protein.index.KmerIndexService;
+
+class QueryPlannerTest {
+    private KmerIndexService kmerIndexService;
+    private QueryPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        kmerIndexService = mock(KmerIndexService.class);
+        when(kmerIndexService.isReady()).thenReturn(true);
+        planner = new QueryPlanner();
+        ReflectionTestUtils.setField(planner, "kmerIndexService", kmerIndexService);
+    }
+
+    @Test
+    void singleFieldAccessPaths() {
+        assertThat(path("id:5")).isEqualTo(AccessPath.PRIMARY_KEY);
+        assertThat(path("id:5..10")).isEqualTo(AccessPath.PRIMARY_KEY);
+        assertThat(path("orgs:9606")).isEqualTo(AccessPath.BTREE_INDEX);
+        assertThat(path("proteins:=Kinase")).isEqualTo(AccessPath.BTREE_INDEX);
+        assertThat(path("proteins:kin*")).isEqualTo(AccessPath.BTREE_INDEX);
+        assertThat(path("accessions:=P17612")).isEqualTo(AccessPath.TERM_INDEX);
+        assertThat(path("annotations:kin*")).isEqualTo(AccessPath.TERM_INDEX);
+        assertThat(path("proteins:kinase")).isEqualTo(AccessPath.SCAN);
+        assertThat(path("proteins:")).isEqualTo(AccessPath.SCAN);
+        assertThat(plan("kinase", "fulltext").getAccessPath()).isEqualTo(AccessPath.FULL_TEXT_INDEX);
+        // 不匹配任何记录的条件不需要读取数据
+        assertThat(plan("", "unknown").getAccessPath()).isEqualTo(AccessPath.PRIMARY_KEY);
+    }
+
+    @Test
+    void sequenceSubstringUsesKmerIndexOnlyWhenReady() {
+        QueryPlan plan = plan("sequences:MKV", null);
+        assertThat(plan.getAccessPath()).isEqualTo(AccessPath.KMER_INDEX);
+        assertThat(plan.getKmerQuery()).isEqualTo("MKV");
+        // 短于 k 的子串无法用 k-mer 缩小范围
+        assertThat(path("sequences:MK")).isEqualTo(AccessPath.SCAN);
+
+        when(kmerIndexService.isReady()).thenReturn(false);
+        plan = plan("sequences:MKV", null);
+        assertThat(plan.getAccessPath()).isEqualTo(AccessPath.SCAN);
+        assertThat(plan.getKmerQuery()).isNull();
+    }
+
+    @Test
+    void andUsesTheCheapestOperand() {
+        assertThat(path("sequences:MKV AND orgs:9606")).isEqualTo(AccessPath.BTREE_INDEX);
+        assertThat(path("proteins:kinase AND id:1..100")).isEqualTo(AccessPath.PRIMARY_KEY);
+        QueryPlan plan = plan("sequences:MKV AND proteins:kinase AND sequences:GLLLA", null);
+        assertThat(plan.getAccessPath()).isEqualTo(AccessPath.KMER_INDEX);
+        // 最长的子串驱动 k-mer 查找
+        assertThat(plan.getKmerQuery()).isEqualTo("GLLLA");
+    }
+
+    @Test
+    void orUsesTheMostExpensiveOperand() {
+        assertThat(path("id:1 OR orgs:9606")).isEqualTo(AccessPath.BTREE_INDEX);
+        assertThat(path("id:1 OR proteins:kinase")).isEqualTo(AccessPath.SCAN);
+        assertThat(path("sequences:MKV OR id:1")).isEqualTo(AccessPath.SCAN);
+        // 未指定字段的查询在多个字段上取 OR
+        assertThat(path("kinase")).isEqualTo(AccessPath.SCAN);
+    }
+
+    @Test
+    void whereClauseBindsParametersInOrder() {
+        QueryPlan plan = plan("id:5..10 AND accessions:=P17612", null);
+
+        assertThat(plan.getWhere()).isEqualTo("((s.id BETWEEN ? AND ?) AND "
+                + "(s.id IN (SELECT sequence_id FROM sequence_term WHERE field = ? AND term = ?)))");
+        assertThat(plan.getParameters()).hasSize(4);
+        assertThat(plan.getParameters().subList(0, 2)).containsExactly(5L, 10L);
+        assertThat(plan.getParameters().get(3)).isEqualTo("P17612");
+    }
+
+    @Test
+    void likeWildcardsInValuesAreEscaped() {
+        QueryPlan plan = plan("proteins:\"50%_a\\b\"", null);
+
+        assertThat(plan.getWhere()).isEqualTo("s.proteins LIKE ? ESCAPE '\\'");
+        assertThat(plan.getParameters()).containsExactly("%50\\%\\_a\\\\b%");
+    }
+
+    private AccessPath path(String query) {
+        return plan(query, null).getAccessPath();
+    }
+
+    private QueryPlan plan(String query, String category) {
+        return planner.plan(QueryParser.parse(query, category));
+    }
+}
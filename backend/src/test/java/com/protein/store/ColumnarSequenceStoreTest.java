@@ -0,0 +1,159 @@
+package com.protein.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.protein.data.DataConfiguration;
+import com.protein.data.Sequence;
+import com.protein.data.SequenceChangeLog;
+import com.protein.query.Predicate;
+import com.protein.query.SearchField;
+import com.protein.schema.SchemaManager;
+import com.protein.schema.SchemaMigrations;
+
+class ColumnarSequenceStoreTest {
+    @TempDir
+    Path directory;
+
+    private DataSource writeDataSource;
+    private DataSource readDataSource;
+    // 与应用相同的默认数据源：事务之外的语句使用只读连接
+    private JdbcTemplate jdbcTemplate;
+    // 测试自己修改数据时使用写连接
+    private JdbcTemplate writeTemplate;
+    private SequenceChangeLog changeLog;
+    private ColumnarSequenceStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl("jdbc:sqlite:" + directory.resolve("sequences.db"));
+        DataConfiguration configuration = new DataConfiguration();
+        ReflectionTestUtils.setField(configuration, "busyTimeoutMillis", 5000);
+        ReflectionTestUtils.setField(configuration, "cacheSizeKb", 1024);
+        ReflectionTestUtils.setField(configuration, "writeWaitSeconds", 10L);
+        writeDataSource = configuration.writeDataSource(properties);
+        readDataSource = configuration.readDataSource(properties);
+        try (Connection connection = writeDataSource.getConnection()) {
+            SchemaManager.migrate(connection, SchemaMigrations.all());
+        }
+        jdbcTemplate = new JdbcTemplate(configuration.dataSource(writeDataSource, readDataSource));
+        writeTemplate = new JdbcTemplate(writeDataSource);
+
+        changeLog = new SequenceChangeLog();
+        ReflectionTestUtils.setField(changeLog, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(changeLog, "writeDataSource", writeDataSource);
+
+        insert(1, "Kinase");
+        insert(2, "Ligase");
+        insert(3, "Kinase");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (store != null) {
+            store.stop();
+        }
+        changeLog.stop();
+        ((Closeable) readDataSource).close();
+        ((Closeable) writeDataSource).close();
+    }
+
+    @Test
+    void changesAfterTheLastFlushAreReplayedOnLoad() {
+        ColumnarSequenceStore first = load();
+        assertThat(proteins(first)).containsExactly("Kinase", "Ligase", "Kinase");
+
+        // 导入改写了已有的记录，列文件中的行被原地改写、字典追加了新值，进程在下次写回之前退出
+        writeTemplate.update("UPDATE sequence SET proteins = 'Protease', index_number = 7 WHERE id = 1");
+        first.onBatchCommitted(List.of(sequence(1, "Protease", 7)));
+        ((ScheduledExecutorService) ReflectionTestUtils.getField(first, "background")).shutdownNow();
+
+        store = load();
+
+        assertThat(proteins(store)).containsExactly("Protease", "Ligase", "Kinase");
+        assertThat(store.findPage(new Predicate.MatchAll(), 0L, 1, EnumSet.of(SearchField.INDEX)).get(0)
+                .getIndexNumber()).isEqualTo(7);
+        assertThat(store.facet(new Predicate.MatchAll(), SearchField.PROTEINS, 10).stream()
+                .map(FacetBucket::getValue).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder("Protease", "Ligase", "Kinase");
+    }
+
+    @Test
+    void refreshReplaysChangesAndSavesThePosition() throws Exception {
+        store = load();
+
+        writeTemplate.update("UPDATE sequence SET proteins = 'Protease' WHERE id = 3");
+        long lastSequence = changeLog.lastSequence();
+        ReflectionTestUtils.invokeMethod(store, "refresh");
+
+        assertThat(proteins(store)).containsExactly("Kinase", "Ligase", "Protease");
+        ColumnarTable table = (ColumnarTable) ReflectionTestUtils.getField(store, "table");
+        assertThat(table.getChangeSequence()).isEqualTo(lastSequence);
+        // 写回之后改动记录可以删除
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sequence_change", Integer.class) > 0
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sequence_change", Integer.class)).isZero();
+    }
+
+    @Test
+    void deletedRowsRebuildTheTable() {
+        load().stop();
+
+        writeTemplate.update("DELETE FROM sequence WHERE id = 2");
+        store = load();
+
+        assertThat(proteins(store)).containsExactly("Kinase", "Kinase");
+        assertThat(store.count(new Predicate.MatchAll())).isEqualTo(2);
+    }
+
+    private ColumnarSequenceStore load() {
+        ColumnarSequenceStore loaded = new ColumnarSequenceStore();
+        ReflectionTestUtils.setField(loaded, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(loaded, "changeLog", changeLog);
+        ReflectionTestUtils.setField(loaded, "path", directory.resolve("sequences.columns").toString());
+        loaded.init();
+        ReflectionTestUtils.invokeMethod(loaded, "load", false);
+        assertThat(loaded.isReady()).isTrue();
+        return loaded;
+    }
+
+    private static List<String> proteins(ColumnarSequenceStore store) {
+        return store.findPage(new Predicate.MatchAll(), 0L, 10, EnumSet.of(SearchField.ID, SearchField.PROTEINS))
+                .stream().map(Sequence::getProteins).collect(Collectors.toList());
+    }
+
+    private static Sequence sequence(long id, String proteins, int indexNumber) {
+        Sequence sequence = new Sequence();
+        sequence.setId(id);
+        sequence.setSequence("MKWWWAC");
+        sequence.setProteins(proteins);
+        sequence.setIndexNumber(indexNumber);
+        return sequence;
+    }
+
+    private void insert(long id, String proteins) {
+        writeTemplate.update("INSERT INTO sequence (id, sequence, proteins) VALUES (?, 'MKWWWAC', ?)", id, proteins);
+    }
+}
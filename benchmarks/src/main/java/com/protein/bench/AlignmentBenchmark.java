@@ -0,0 +1,86 @@
+package com.protein.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.protein.similarity.SmithWaterman;
+
+// 相似序列搜索比对内核的吞吐量（每秒计算的格子数）。
+// 用合成序列构造一组目标：一半是查询经过点突变和插入缺失得到的同源序列，另一半是无关的随机序列，
+// 对每个带宽分别测量单线程和全部核心并行时的吞吐量。带宽为 full 时带覆盖整个矩阵，相当于完整的 Smith-Waterman。
+// 每项先预热，再重复测量取中位数。用法：AlignmentBenchmark [目标条数]，默认 2000
+public class AlignmentBenchmark {
+    private static final int[] HALF_BANDS = {16, 32, 64, 5000};
+    private static final int QUERIES = 8;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 7;
+
+    public static void main(String[] args) {
+        int targetCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        SyntheticSequences generator = new SyntheticSequences(42);
+        SplittableRandom random = new SplittableRandom(7);
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(generator.next(i).getSequence());
+        }
+        List<String> targets = new ArrayList<>();
+        for (int i = 0; i < targetCount; i++) {
+            targets.add(i % 2 == 0
+                    ? mutate(queries.get(i % QUERIES), random, generator)
+                    : generator.next(QUERIES + i).getSequence());
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d queries x %,d targets, %d threads%n", QUERIES, targetCount, threads);
+        System.out.printf("%-10s %22s %22s%n", "half band", "1 thread (Mcells/s)", threads + " threads (Mcells/s)");
+        for (int halfBand : HALF_BANDS) {
+            double single = measure(queries, targets, halfBand, false);
+            double parallel = measure(queries, targets, halfBand, true);
+            System.out.printf("%-10s %22.1f %22.1f%n", halfBand >= 5000 ? "full" : String.valueOf(halfBand),
+                    single / 1e6, parallel / 1e6);
+        }
+    }
+
+    // 每秒计算的格子数（中位数）
+    private static double measure(List<String> queries, List<String> targets, int halfBand, boolean parallel) {
+        ThreadLocal<SmithWaterman> aligners = ThreadLocal.withInitial(() -> new SmithWaterman(halfBand));
+        List<Double> rates = new ArrayList<>();
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            LongAdder cells = new LongAdder();
+            long start = System.nanoTime();
+            for (String query : queries) {
+                (parallel ? targets.parallelStream() : targets.stream()).forEach(target -> {
+                    SmithWaterman aligner = aligners.get();
+                    aligner.prepare(query);
+                    aligner.score(target);
+                    cells.add(aligner.getLastCells());
+                });
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (round >= WARMUP_ROUNDS) {
+                rates.add(cells.sum() / seconds);
+            }
+        }
+        rates.sort(null);
+        return rates.get(rates.size() / 2);
+    }
+
+    // 约 20% 的位置替换为随机残基，另有少量短的插入和缺失
+    private static String mutate(String sequence, SplittableRandom random, SyntheticSequences generator) {
+        StringBuilder mutated = new StringBuilder(sequence.length() + 16);
+        for (int i = 0; i < sequence.length(); i++) {
+            double roll = random.nextDouble();
+            if (roll < 0.01) {
+                i += random.nextInt(1, 4);
+            } else if (roll < 0.02) {
+                mutated.append(generator.residues(random.nextInt(1, 4))).append(sequence.charAt(i));
+            } else if (roll < 0.22) {
+                mutated.append(generator.residues(1));
+            } else {
+                mutated.append(sequence.charAt(i));
+            }
+        }
+        return mutated.toString();
+    }
+}
@@ -0,0 +1,173 @@
+package com.protein.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.protein.ProteinSequenceManagementApplication;
+import com.protein.data.Sequence;
+import com.protein.data.SequenceRepository;
+import com.protein.export.SequenceExporter;
+import com.protein.export.SequencePageSource;
+import com.protein.export.SequenceRowWriter;
+import com.protein.export.TsvRowWriter;
+import com.protein.export.TxtRowWriter;
+import com.protein.index.KmerIndexService;
+import com.protein.ingest.IngestPipeline;
+import com.protein.ingest.IngestSource;
+import com.protein.ingest.IngestStats;
+import com.protein.query.QueryEngine;
+import com.protein.schema.SchemaManager;
+
+// 在进程内启动后端（不启动 Web 服务器），对每个数据量使用一个新的临时数据库，测量：
+//   1. 导入：用导入流水线导入合成 TSV 文件的行/秒，与上传后的导入任务相同（之后执行 ANALYZE）；
+//   2. 搜索：每个搜索类别一个有代表性的查询，取第一页（QueryEngine，不经过结果缓存）的延迟中位数；
+//   3. 导出：按“全部”导出的方式流式导出前 EXPORT_ROWS 行为 TSV 和 TXT 的耗时；
+//   4. 对照：原来逐个实体写入的 SequenceRepository.saveAll 导入 SAVE_ALL_ROWS 行的行/秒。
+// 用法：ApplicationBenchmark [行数...]，默认 10000 1000000；数据库文件写在临时目录，结束后删除
+public class ApplicationBenchmark {
+    private static final int PAGE = 51;
+    private static final int EXPORT_ROWS = 100_000;
+    private static final int SAVE_ALL_ROWS = 10_000;
+    private static final int WARMUPS = 2;
+    private static final int MAX_ROUNDS = 25;
+    private static final long BUDGET_MILLIS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[] {10_000, 1_000_000};
+        for (int rows : sizes) {
+            run(rows);
+        }
+    }
+
+    private static void run(int rows) throws Exception {
+        Path directory = Files.createTempDirectory("application-benchmark-");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProteinSequenceManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:sqlite:" + directory.resolve("sequences.db"),
+                        "--protein.index.kmer.path=" + directory.resolve("sequences.kmer"),
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN")) {
+            System.out.printf("%n== %,d rows%n", rows);
+            ingest(context, directory, rows);
+            search(context, rows);
+            export(context, rows);
+            saveAll(context, rows);
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static void ingest(ConfigurableApplicationContext context, Path directory, int rows) throws Exception {
+        Path file = directory.resolve("sequences.tsv");
+        SyntheticFiles.write(file, SyntheticFiles.Format.TSV, Long.MAX_VALUE, rows, 42);
+        long start = System.nanoTime();
+        IngestStats stats = context.getBean(IngestPipeline.class)
+                .ingest(List.of(IngestSource.of(file, "sequences.tsv")), new IngestStats());
+        double ingestSeconds = Harness.seconds(start);
+        start = System.nanoTime();
+        context.getBean(SchemaManager.class).analyze();
+        System.out.printf("ingest %,d rows in %.1f s: %,.0f rows/s (write %,.0f rows/s), ANALYZE %.2f s, file %,d MB%n",
+                stats.getRows(), ingestSeconds, stats.getRows() / ingestSeconds, stats.getWriteRowsPerSecond(),
+                Harness.seconds(start), Files.size(file) / (1024 * 1024));
+        Files.delete(file);
+    }
+
+    private static void search(ConfigurableApplicationContext context, int rows) throws Exception {
+        KmerIndexService kmerIndexService = context.getBean(KmerIndexService.class);
+        while (!kmerIndexService.isReady()) {
+            Thread.sleep(50);
+        }
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        String residues = jdbcTemplate.queryForObject("SELECT sequence FROM sequence WHERE id = ?", String.class, rows / 4);
+        QueryEngine queryEngine = context.getBean(QueryEngine.class);
+        String[][] queries = {
+                {"id", String.valueOf(rows / 2)},
+                {"index", String.valueOf(rows / 2)},
+                {"proteins", SyntheticSequences.proteinName(rows / 3)},
+                {"accessions", SyntheticSequences.accession('P', rows / 2)},
+                {"sequences", residues.substring(residues.length() / 2, residues.length() / 2 + 8)},
+                {"annotations", "zinc finger"},
+                {"interpros", "IPR000042"},
+                {"orgs", String.valueOf(SyntheticSequences.TAXONOMY_IDS[SyntheticSequences.TAXONOMY_IDS.length - 1])},
+                {"", "kinase"},
+        };
+        System.out.printf("%-12s %-24s %8s %10s%n", "category", "query", "rows", "ms");
+        for (String[] query : queries) {
+            int found = queryEngine.search(query[1], query[0], 0L, PAGE).size();
+            double millis = Harness.medianMillis(WARMUPS, MAX_ROUNDS, BUDGET_MILLIS,
+                    () -> queryEngine.search(query[1], query[0], 0L, PAGE));
+            System.out.printf("%-12s %-24s %8d %10.3f%n", query[0].isEmpty() ? "(all)" : query[0], query[1], found, millis);
+        }
+    }
+
+    private static void export(ConfigurableApplicationContext context, int rows) throws Exception {
+        QueryEngine queryEngine = context.getBean(QueryEngine.class);
+        SequenceExporter exporter = context.getBean(SequenceExporter.class);
+        int limit = Math.min(rows, EXPORT_ROWS);
+        // 与导出全部记录时的数据源相同，只取前 limit 行
+        SequencePageSource source = (lastId, pageSize) -> lastId >= limit
+                ? List.of()
+                : queryEngine.search("", "", lastId, (int) Math.min(pageSize, limit - lastId));
+        SequenceRowWriter[] writers = {new TsvRowWriter(), new TxtRowWriter("Exported Sequences:")};
+        for (SequenceRowWriter writer : writers) {
+            long[] bytes = new long[1];
+            double millis = Harness.medianMillis(1, 5, BUDGET_MILLIS, () -> {
+                ResponseEntity<StreamingResponseBody> response = exporter.export(source, writer, "benchmark");
+                CountingOutputStream out = new CountingOutputStream();
+                response.getBody().writeTo(out);
+                bytes[0] = out.count;
+            });
+            System.out.printf("export %s %,d rows: %.1f ms, %,.0f rows/s, %.1f MB/s%n",
+                    writer instanceof TsvRowWriter ? "tsv" : "txt", limit, millis, limit / (millis / 1000),
+                    bytes[0] / (1024.0 * 1024) / (millis / 1000));
+        }
+    }
+
+    private static void saveAll(ConfigurableApplicationContext context, int rows) {
+        SyntheticSequences generator = new SyntheticSequences(7);
+        List<Sequence> sequences = new ArrayList<>(SAVE_ALL_ROWS);
+        for (int i = 0; i < SAVE_ALL_ROWS; i++) {
+            sequences.add(generator.next(rows + i));
+        }
+        long start = System.nanoTime();
+        context.getBean(SequenceRepository.class).saveAll(sequences);
+        double seconds = Harness.seconds(start);
+        System.out.printf("saveAll %,d rows in %.1f s: %,.0f rows/s%n", SAVE_ALL_ROWS, seconds, SAVE_ALL_ROWS / seconds);
+    }
+
+    // 丢弃写入的内容，只统计字节数
+    private static class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.protein.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import com.protein.ProteinSequenceManagementApplication;
+import com.protein.data.SequenceRepository;
+import com.protein.index.KmerIndexService;
+import com.protein.ingest.IngestPipeline;
+import com.protein.ingest.IngestSource;
+import com.protein.ingest.IngestStats;
+import com.protein.query.QueryEngine;
+
+// 导入期间的搜索延迟。在进程内启动后端（不启动 Web 服务器），先导入 SEED_ROWS 行作为已有数据，然后：
+//   1. 基准：若干个线程不停地执行搜索（各个类别的查询和键集分页轮流进行），持续 BASELINE_SECONDS 秒；
+//   2. 导入期间：同样的搜索继续进行，同时用导入流水线导入一个合成的 TSV 文件（默认 300 MB）。
+// 分别输出两个阶段搜索延迟的 p50、p95、p99、最大值和失败次数。搜索使用读连接池、导入独占写连接，
+// 两个阶段的 p99 应当接近。用法：ConcurrencyBenchmark [导入文件 MB] [搜索线程数]，默认 300 和 4
+public class ConcurrencyBenchmark {
+    private static final int SEED_ROWS = 200_000;
+    private static final int PAGE = 51;
+    private static final long BASELINE_SECONDS = 20;
+    private static final int MAX_SAMPLES = 1 << 22;
+
+    public static void main(String[] args) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        Path directory = Files.createTempDirectory("concurrency-benchmark-");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProteinSequenceManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:sqlite:" + directory.resolve("sequences.db"),
+                        "--protein.index.kmer.path=" + directory.resolve("sequences.kmer"),
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN")) {
+            IngestPipeline pipeline = context.getBean(IngestPipeline.class);
+            Path seed = directory.resolve("seed.tsv");
+            SyntheticFiles.write(seed, SyntheticFiles.Format.TSV, Long.MAX_VALUE, SEED_ROWS, 42);
+            pipeline.ingest(List.of(IngestSource.of(seed, "seed.tsv")), new IngestStats());
+            Files.delete(seed);
+            KmerIndexService kmerIndexService = context.getBean(KmerIndexService.class);
+            while (!kmerIndexService.isReady()) {
+                Thread.sleep(50);
+            }
+            // 导入的文件使用另一个种子，与已有数据不同
+            Path file = directory.resolve("ingest.tsv");
+            SyntheticFiles.write(file, SyntheticFiles.Format.TSV, (long) megabytes * 1024 * 1024, Integer.MAX_VALUE, 7);
+
+            System.out.printf("%,d seed rows, %d search threads, ingest file %,d MB%n",
+                    SEED_ROWS, threads, Files.size(file) / (1024 * 1024));
+            System.out.printf("%-10s %10s %10s %10s %10s %10s %8s %10s%n",
+                    "phase", "searches", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors", "seconds");
+            Searchers baseline = new Searchers(context, threads);
+            baseline.start();
+            Thread.sleep(BASELINE_SECONDS * 1000);
+            baseline.stop().print("baseline");
+
+            Searchers during = new Searchers(context, threads);
+            during.start();
+            long start = System.nanoTime();
+            IngestStats stats = pipeline.ingest(List.of(IngestSource.of(file, "ingest.tsv")), new IngestStats());
+            double seconds = Harness.seconds(start);
+            during.stop().print("ingest");
+            System.out.printf("ingested %,d rows in %.1f s: %,.0f rows/s%n", stats.getRows(), seconds, stats.getRows() / seconds);
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    // 一组不停执行搜索的线程，记录每次搜索的耗时（纳秒）
+    private static class Searchers {
+        private final QueryEngine queryEngine;
+        private final SequenceRepository sequenceRepository;
+        private final Thread[] threads;
+        private final long[] samples = new long[MAX_SAMPLES];
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private long startNanos;
+        private long elapsedNanos;
+
+        Searchers(ConfigurableApplicationContext context, int threadCount) {
+            queryEngine = context.getBean(QueryEngine.class);
+            sequenceRepository = context.getBean(SequenceRepository.class);
+            threads = new Thread[threadCount];
+            for (int i = 0; i < threadCount; i++) {
+                threads[i] = new Thread(this::run, "searcher-" + i);
+                threads[i].setDaemon(true);
+            }
+        }
+
+        void start() {
+            startNanos = System.nanoTime();
+            for (Thread thread : threads) {
+                thread.start();
+            }
+        }
+
+        Searchers stop() throws InterruptedException {
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            elapsedNanos = System.nanoTime() - startNanos;
+            return this;
+        }
+
+        private void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running.get()) {
+                int row = random.nextInt(1, SEED_ROWS);
+                long start = System.nanoTime();
+                try {
+                    search(random.nextInt(7), row);
+                } catch (RuntimeException e) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+                int index = count.getAndIncrement();
+                if (index < samples.length) {
+                    samples[index] = System.nanoTime() - start;
+                }
+            }
+        }
+
+        private void search(int kind, int row) {
+            switch (kind) {
+                case 0:
+                    queryEngine.search(String.valueOf(row), "id", 0L, PAGE);
+                    break;
+                case 1:
+                    queryEngine.search(SyntheticSequences.proteinName(row), "proteins", 0L, PAGE);
+                    break;
+                case 2:
+                    queryEngine.search(SyntheticSequences.accession('P', row), "accessions", 0L, PAGE);
+                    break;
+                case 3:
+                    queryEngine.search("zinc finger", "annotations", (long) row, PAGE);
+                    break;
+                case 4:
+                    queryEngine.search("IPR000042", "interpros", 0L, PAGE);
+                    break;
+                case 5:
+                    queryEngine.search("kinase", "", (long) row, PAGE);
+                    break;
+                default:
+                    sequenceRepository.findPageAfter((long) row, PageRequest.of(0, PAGE));
+                    break;
+            }
+        }
+
+        void print(String phase) {
+            int n = Math.min(count.get(), samples.length);
+            long[] sorted = Arrays.copyOf(samples, n);
+            Arrays.sort(sorted);
+            System.out.printf("%-10s %,10d %10.2f %10.2f %10.2f %10.2f %8d %10.1f%n", phase, count.get(),
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    n > 0 ? sorted[n - 1] / 1e6 : 0.0, errors.get(), elapsedNanos / 1e9);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            return sorted.length > 0 ? sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6 : 0.0;
+        }
+    }
+}
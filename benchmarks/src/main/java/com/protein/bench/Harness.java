@@ -0,0 +1,37 @@
+package com.protein.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 简单的计时工具：先预热，再重复执行取中位数。单次很慢的任务在超过时间预算后少执行几次，但至少执行 MIN_ROUNDS 次
+final class Harness {
+    private static final int MIN_ROUNDS = 3;
+
+    @FunctionalInterface
+    interface Task {
+        void run() throws Exception;
+    }
+
+    private Harness() {
+    }
+
+    // 单次执行的耗时中位数（毫秒）
+    static double medianMillis(int warmups, int maxRounds, long budgetMillis, Task task) throws Exception {
+        for (int i = 0; i < warmups; i++) {
+            task.run();
+        }
+        List<Double> timings = new ArrayList<>();
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000;
+        while (timings.size() < maxRounds && (timings.size() < MIN_ROUNDS || System.nanoTime() < deadline)) {
+            long start = System.nanoTime();
+            task.run();
+            timings.add((System.nanoTime() - start) / 1_000_000.0);
+        }
+        timings.sort(null);
+        return timings.get(timings.size() / 2);
+    }
+
+    static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,191 @@
+package com.protein.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.protein.data.Sequence;
+import com.protein.schema.SchemaManager;
+import com.protein.schema.SchemaMigrations;
+
+// 结构迁移前后的查询延迟对比。对每个数据量：
+//   1. 只执行第 1 个迁移（与原来 ddl-auto=update 建出的表相同，没有二级索引），写入合成数据，测量各查询；
+//   2. 执行其余迁移并 ANALYZE，再测量同样的查询。
+// 查询与 QueryEngine 生成的 SQL 形式相同，取第一页（LIMIT 51）。输出每个查询的中位数延迟（毫秒）。
+// 用法：IndexBenchmark [行数...]，默认 100000 1000000 10000000；数据库文件写在临时目录，结束后删除
+public class IndexBenchmark {
+    private static final int PAGE = 51;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int MAX_ITERATIONS = 15;
+    private static final long MAX_NANOS_PER_QUERY = 10_000_000_000L;
+    private static final int RARE_ORGS = SyntheticSequences.TAXONOMY_IDS[SyntheticSequences.TAXONOMY_IDS.length - 1];
+
+    // 同一个查询在迁移前后的写法。迁移前没有 sequence_length 列和 sequence_term 表，用原来的方式表达
+    private static class Query {
+        final String name;
+        final String before;
+        final Object[] beforeParameters;
+        final String after;
+        final Object[] afterParameters;
+
+        Query(String name, String before, Object[] beforeParameters, String after, Object[] afterParameters) {
+            this.name = name;
+            this.before = before;
+            this.beforeParameters = beforeParameters;
+            this.after = after;
+            this.afterParameters = afterParameters;
+        }
+
+        // 迁移前后写法相同的查询
+        Query(String name, String sql, Object... parameters) {
+            this(name, sql, parameters, sql, parameters);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[] {100_000, 1_000_000, 10_000_000};
+        for (int rows : sizes) {
+            run(rows);
+        }
+    }
+
+    private static void run(int rows) throws SQLException, IOException {
+        Path directory = Files.createTempDirectory("index-benchmark-");
+        Path file = directory.resolve("sequences.db");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file)) {
+            SchemaManager.migrate(connection, SchemaMigrations.all().subList(0, 1));
+            long start = System.nanoTime();
+            load(connection, rows);
+            System.out.printf("%n== %,d rows (loaded in %.1f s, %,d MB)%n",
+                    rows, seconds(start), Files.size(file) / (1024 * 1024));
+
+            List<Query> queries = queries(rows);
+            double[] before = new double[queries.size()];
+            for (int i = 0; i < queries.size(); i++) {
+                before[i] = measure(connection, queries.get(i).before, queries.get(i).beforeParameters);
+            }
+
+            start = System.nanoTime();
+            SchemaManager.migrate(connection, SchemaMigrations.all());
+            double migrateSeconds = seconds(start);
+            start = System.nanoTime();
+            SchemaManager.analyze(connection, 1000);
+            System.out.printf("migrations %.1f s, ANALYZE %.3f s, database %,d MB%n",
+                    migrateSeconds, seconds(start), Files.size(file) / (1024 * 1024));
+
+            System.out.printf("%-28s %12s %12s %9s%n", "query", "before (ms)", "after (ms)", "speedup");
+            for (int i = 0; i < queries.size(); i++) {
+                double after = measure(connection, queries.get(i).after, queries.get(i).afterParameters);
+                System.out.printf("%-28s %12.3f %12.3f %8.0fx%n",
+                        queries.get(i).name, before[i], after, before[i] / Math.max(after, 0.001));
+            }
+        } finally {
+            for (String suffix : new String[] {"", "-wal", "-shm", "-journal"}) {
+                Files.deleteIfExists(directory.resolve("sequences.db" + suffix));
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static List<Query> queries(int rows) {
+        String select = "SELECT s.id, s.index_number, s.proteins, s.accessions, s.sequence, s.annotations, " +
+                "s.interpros, s.orgs FROM sequence s WHERE s.id > 0 AND ";
+        String page = " ORDER BY s.id LIMIT " + PAGE;
+        String protein = SyntheticSequences.proteinName(rows / 3);
+        String accession = SyntheticSequences.accession('P', rows / 2);
+        List<Query> queries = new ArrayList<>();
+        queries.add(new Query("index = n", select + "s.index_number = ?" + page, rows / 2));
+        queries.add(new Query("orgs = rare", select + "s.orgs = ?" + page, RARE_ORGS));
+        queries.add(new Query("count orgs = rare", "SELECT COUNT(*) FROM sequence s WHERE s.orgs = ?", RARE_ORGS));
+        queries.add(new Query("proteins prefix",
+                select + "s.proteins LIKE ? ESCAPE '\\'" + page, protein + "\\_%"));
+        queries.add(new Query("length 2000..2010",
+                select + "length(s.sequence) BETWEEN ? AND ?" + page, new Object[] {2000, 2010},
+                select + "s.sequence_length BETWEEN ? AND ?" + page, new Object[] {2000, 2010}));
+        // 迁移前只能按子串匹配登录号，迁移后按词条精确查找
+        queries.add(new Query("accession term",
+                select + "s.accessions LIKE ? ESCAPE '\\'" + page, new Object[] {"%" + accession + "%"},
+                select + "s.id IN (SELECT sequence_id FROM sequence_term WHERE field = 1 AND term = ?)" + page,
+                new Object[] {accession}));
+        return queries;
+    }
+
+    // 多次执行取中位数；单次很慢的查询（迁移前的全表扫描）执行次数会少一些
+    private static double measure(Connection connection, String sql, Object[] parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            execute(statement);
+            List<Double> timings = new ArrayList<>();
+            long deadline = System.nanoTime() + MAX_NANOS_PER_QUERY;
+            while (timings.size() < MAX_ITERATIONS && (timings.size() < 3 || System.nanoTime() < deadline)) {
+                long start = System.nanoTime();
+                execute(statement);
+                timings.add((System.nanoTime() - start) / 1_000_000.0);
+            }
+            timings.sort(null);
+            return timings.get(timings.size() / 2);
+        }
+    }
+
+    private static void execute(PreparedStatement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                resultSet.getString(1);
+            }
+        }
+    }
+
+    private static void load(Connection connection, int rows) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=OFF");
+        }
+        SyntheticSequences generator = new SyntheticSequences(42);
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO sequence (index_number, proteins, accessions, sequence, annotations, interpros, orgs) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                Sequence sequence = generator.next(i);
+                insert.setInt(1, sequence.getIndexNumber());
+                insert.setString(2, sequence.getProteins());
+                insert.setString(3, sequence.getAccessions());
+                insert.setString(4, sequence.getSequence());
+                insert.setString(5, sequence.getAnnotations());
+                insert.setString(6, sequence.getInterpros());
+                if (sequence.getOrgs() != null) {
+                    insert.setInt(7, sequence.getOrgs());
+                } else {
+                    insert.setNull(7, Types.INTEGER);
+                }
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.protein.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.protein.parser.SequenceParser;
+import com.protein.parser.SequenceReader;
+
+// 三种格式的解析吞吐量。对每个大小（MB）和格式，在临时目录生成合成文件，
+// 用 SequenceParser.open 逐条读完整个文件（导入流水线的用法；parse 只是把同样的记录收集到列表中），
+// 输出耗时中位数、MB/s 和每秒记录数。用法：ParserBenchmark [MB...]，默认 1 100
+public class ParserBenchmark {
+    private static final int WARMUPS = 2;
+    private static final int MAX_ROUNDS = 15;
+    private static final long BUDGET_MILLIS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[] {1, 100};
+        System.out.printf("%-8s %8s %12s %10s %10s %14s%n", "format", "MB", "records", "ms", "MB/s", "records/s");
+        Path directory = Files.createTempDirectory("parser-benchmark-");
+        try {
+            for (int megabytes : sizes) {
+                for (SyntheticFiles.Format format : SyntheticFiles.Format.values()) {
+                    Path file = directory.resolve("sequences" + format.getSuffix());
+                    int records = SyntheticFiles.write(file, format, megabytes * 1024L * 1024L, Integer.MAX_VALUE, 42);
+                    double bytes = Files.size(file);
+                    double millis = Harness.medianMillis(WARMUPS, MAX_ROUNDS, BUDGET_MILLIS, () -> parse(file, records));
+                    System.out.printf("%-8s %8d %,12d %10.1f %10.1f %,14.0f%n", format.name().toLowerCase(), megabytes,
+                            records, millis, bytes / (1024 * 1024) / (millis / 1000), records / (millis / 1000));
+                    Files.delete(file);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static void parse(Path file, int expected) throws IOException {
+        int count = 0;
+        try (InputStream inputStream = Files.newInputStream(file);
+             SequenceReader reader = SequenceParser.open(inputStream, file.getFileName().toString())) {
+            while (reader.read() != null) {
+                count++;
+            }
+        }
+        if (count != expected) {
+            throw new IllegalStateException("Parsed " + count + " records from " + file + ", expected " + expected);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.protein.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.protein.ProteinSequenceManagementApplication;
+import com.protein.ingest.IngestPipeline;
+import com.protein.ingest.IngestSource;
+import com.protein.ingest.IngestStats;
+import com.protein.query.Predicate;
+import com.protein.query.QueryParser;
+import com.protein.query.SearchField;
+import com.protein.schema.SchemaManager;
+import com.protein.store.ColumnarSequenceStore;
+import com.protein.store.SequenceStore;
+import com.protein.store.SqliteSequenceStore;
+
+// 在进程内启动后端（不启动 Web 服务器）并启用列式存储，导入 rows 行合成数据后，
+// 对同样的条件分别在 SqliteSequenceStore 和 ColumnarSequenceStore 上测量计数、分组计数、/facets 的多维分组和只取部分列的浏览的延迟中位数。
+// 用法：StoreBenchmark [行数]，默认 1000000；数据库和列式文件写在临时目录，结束后删除
+public class StoreBenchmark {
+    private static final int PAGE = 51;
+    private static final int WARMUPS = 2;
+    private static final int MAX_ROUNDS = 25;
+    private static final long BUDGET_MILLIS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path directory = Files.createTempDirectory("store-benchmark-");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProteinSequenceManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:sqlite:" + directory.resolve("sequences.db"),
+                        "--protein.index.kmer.enabled=false",
+                        "--protein.store.type=columnar",
+                        "--protein.store.columnar.path=" + directory.resolve("columns"),
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN")) {
+            Path file = directory.resolve("sequences.tsv");
+            SyntheticFiles.write(file, SyntheticFiles.Format.TSV, Long.MAX_VALUE, rows, 42);
+            long start = System.nanoTime();
+            IngestStats stats = context.getBean(IngestPipeline.class)
+                    .ingest(List.of(IngestSource.of(file, "sequences.tsv")), new IngestStats());
+            Files.delete(file);
+            context.getBean(SchemaManager.class).analyze();
+            ColumnarSequenceStore columnar = context.getBean(ColumnarSequenceStore.class);
+            while (!columnar.isReady()) {
+                Thread.sleep(50);
+            }
+            System.out.printf("%,d rows ingested in %.1f s%n", stats.getRows(), Harness.seconds(start));
+            run(context.getBean(SqliteSequenceStore.class), columnar, rows);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static void run(SequenceStore sqlite, SequenceStore columnar, int rows) throws Exception {
+        String org = String.valueOf(SyntheticSequences.TAXONOMY_IDS[0]);
+        String[][] counts = {
+                {"", ""},
+                {"orgs:" + org, ""},
+                {"orgs:" + org + " AND length:100..500", ""},
+                {"PROT1*", "proteins"},
+                {"_MOUSE", "proteins"},
+                {"P000", "accessions"},
+                {"index:" + rows / 2 + "..", ""},
+        };
+        System.out.printf("%-44s %-8s %10s %12s %12s%n", "query", "op", "rows", "sqlite ms", "columnar ms");
+        for (String[] query : counts) {
+            Predicate predicate = QueryParser.parse(query[0], query[1]);
+            long found = columnar.count(predicate);
+            print(query, "count", found,
+                    Harness.medianMillis(WARMUPS, MAX_ROUNDS, BUDGET_MILLIS, () -> sqlite.count(predicate)),
+                    Harness.medianMillis(WARMUPS, MAX_ROUNDS, BUDGET_MILLIS, () -> columnar.count(predicate)));
+        }
+        for (SearchField column : List.of(SearchField.ORGS, SearchField.LENGTH)) {
+            Predicate predicate = QueryParser.parse("length:100..", "");
+            print(new String[] {"length:100.. BY " + column.getCategory(), ""}, "facet",
+                    columnar.facet(predicate, column, 20).size(),
+                    Harness.medianMillis(WARMUPS, MAX_ROUNDS, BUDGET_MILLIS, () -> sqlite.facet(predicate, column, 20)),
+                    Harness.medianMillis(WARMUPS, MAX_ROUNDS, BUDGET_MILLIS, () -> columnar.facet(predicate, column, 20)));
+        }
+        for (String query : new String[] {"", "length:100.."}) {
+            Predicate predicate = QueryParser.parse(query, "");
+            print(new String[] {(query.isEmpty() ? "(all)" : query) + " facets", ""}, "facets",
+                    columnar.facets(predicate, 20, 100).getTotal(),
+                    Harness.medianMillis(WARMUPS, MAX_ROUNDS, BUDGET_MILLIS, () -> sqlite.facets(predicate, 20, 100)),
+                    Harness.medianMillis(WARMUPS, MAX_ROUNDS, BUDGET_MILLIS, () -> columnar.facets(predicate, 20, 100)));
+        }
+        Predicate predicate = QueryParser.parse("orgs:" + org, "");
+        Set<SearchField> columns = SequenceStore.parseColumns("proteins,accessions");
+        print(new String[] {"orgs:" + org + " proteins,accessions", ""}, "page",
+                columnar.findPage(predicate, rows / 2, PAGE, columns).size(),
+                Harness.medianMillis(WARMUPS, MAX_ROUNDS, BUDGET_MILLIS,
+                        () -> sqlite.findPage(predicate, rows / 2, PAGE, columns)),
+                Harness.medianMillis(WARMUPS, MAX_ROUNDS, BUDGET_MILLIS,
+                        () -> columnar.findPage(predicate, rows / 2, PAGE, columns)));
+    }
+
+    private static void print(String[] query, String op, long rows, double sqliteMillis, double columnarMillis) {
+        String label = query[1].isEmpty() ? query[0] : query[1] + ": " + query[0];
+        System.out.printf("%-44s %-8s %,10d %12.3f %12.3f%n", label.isEmpty() ? "(all)" : label, op, rows,
+                sqliteMillis, columnarMillis);
+    }
+}
@@ -0,0 +1,105 @@
+package com.protein.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import com.protein.data.Sequence;
+import com.protein.export.TsvRowWriter;
+
+// 用 SyntheticSequences 生成可导入的文件，格式与 SequenceParser 支持的三种相同：
+//   fasta：'>' 开头的名称行，残基每 60 个字符换行；
+//   tsv：第二种表头（index、proteins、accessions、sequences、annotations、interpros、orgs）；
+//   txt：与 TSV 导出相同的 8 列（含 ID）。
+// 同样的种子和大小总是得到同样的文件。也可以单独运行生成数据：SyntheticFiles 格式 MB 输出文件
+public final class SyntheticFiles {
+    public enum Format {
+        FASTA(".fasta"), TSV(".tsv"), TXT(".txt");
+
+        private final String suffix;
+
+        Format(String suffix) {
+            this.suffix = suffix;
+        }
+
+        public String getSuffix() {
+            return suffix;
+        }
+    }
+
+    private static final int FASTA_LINE_LENGTH = 60;
+
+    private SyntheticFiles() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("usage: SyntheticFiles fasta|tsv|txt MB output-file");
+            System.exit(2);
+        }
+        Format format = Format.valueOf(args[0].toUpperCase(Locale.ROOT));
+        long bytes = Long.parseLong(args[1]) * 1024 * 1024;
+        int records = write(Paths.get(args[2]), format, bytes, Integer.MAX_VALUE, 42);
+        System.out.printf("wrote %,d records to %s%n", records, args[2]);
+    }
+
+    // 写入记录直到文件达到 bytes 字节或写满 maxRecords 条，返回记录数
+    public static int write(Path file, Format format, long bytes, int maxRecords, long seed) throws IOException {
+        SyntheticSequences generator = new SyntheticSequences(seed);
+        TsvRowWriter tsvRowWriter = new TsvRowWriter();
+        long written = 0;
+        int count = 0;
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            if (format == Format.TSV) {
+                written += write(out, "index\tproteins\taccessions\tsequences\tannotations\tinterpros\torgs\n");
+            } else if (format == Format.TXT) {
+                StringWriter header = new StringWriter();
+                tsvRowWriter.writeHeader(header);
+                written += write(out, header.getBuffer());
+            }
+            StringWriter recordWriter = new StringWriter();
+            StringBuffer record = recordWriter.getBuffer();
+            while (written < bytes && count < maxRecords) {
+                Sequence sequence = generator.next(count);
+                record.setLength(0);
+                switch (format) {
+                    case FASTA:
+                        record.append('>').append(sequence.getProteins()).append('\n');
+                        String residues = sequence.getSequence();
+                        for (int i = 0; i < residues.length(); i += FASTA_LINE_LENGTH) {
+                            record.append(residues, i, Math.min(residues.length(), i + FASTA_LINE_LENGTH)).append('\n');
+                        }
+                        break;
+                    case TSV:
+                        record.append(sequence.getIndexNumber()).append('\t')
+                                .append(sequence.getProteins()).append('\t')
+                                .append(sequence.getAccessions()).append('\t')
+                                .append(sequence.getSequence()).append('\t')
+                                .append(sequence.getAnnotations()).append('\t')
+                                .append(sequence.getInterpros()).append('\t')
+                                .append(sequence.getOrgs()).append('\n');
+                        break;
+                    default:
+                        sequence.setId((long) count + 1);
+                        tsvRowWriter.writeRow(recordWriter, sequence);
+                        break;
+                }
+                written += write(out, record);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // 生成的记录都是 ASCII，字符数就是字节数
+    private static int write(Writer out, CharSequence text) throws IOException {
+        out.append(text);
+        return text.length();
+    }
+}
@@ -0,0 +1,98 @@
+package com.protein.bench;
+
+import java.util.SplittableRandom;
+
+import com.protein.data.Sequence;
+
+// 生成类似 UniProt 的合成记录，同样的种子总是得到同样的数据，离线也能复现基准测试。
+// 物种、注释和 InterPro 条目的出现频率是偏斜的（少数取值占大多数记录），与真实数据相近，
+// 这样等值查询既有命中很多行的常见取值，也有只命中少数行的稀有取值
+public class SyntheticSequences {
+    // 按 UniProt 中的大致频率排列的氨基酸，前面的更常见
+    private static final String AMINO_ACIDS = "LAGVESIKRDTPNQFYMHCW";
+    private static final int[] AMINO_ACID_WEIGHTS = {99, 83, 71, 69, 68, 66, 59, 58, 55, 55, 53, 47, 41, 39, 39, 29, 24, 23, 14, 11};
+    private static final String[] SPECIES = {"HUMAN", "MOUSE", "RAT", "BOVIN", "YEAST", "ARATH", "ECOLI", "DROME", "CAEEL", "DANRE"};
+    public static final int[] TAXONOMY_IDS = {9606, 10090, 10116, 9913, 559292, 3702, 83333, 7227, 6239, 7955};
+    private static final String[] ANNOTATIONS = {
+            "kinase", "membrane", "ATP binding", "nucleus", "cytoplasm", "transferase", "hydrolase",
+            "DNA binding", "zinc finger", "signal peptide", "transmembrane helix", "phosphoprotein",
+            "metal ion binding", "oxidoreductase", "ribosomal protein", "transport", "glycoprotein"};
+
+    private final SplittableRandom random;
+    private final int[] aminoAcidTable;
+
+    public SyntheticSequences(long seed) {
+        this.random = new SplittableRandom(seed);
+        int total = 0;
+        for (int weight : AMINO_ACID_WEIGHTS) {
+            total += weight;
+        }
+        aminoAcidTable = new int[total];
+        int position = 0;
+        for (int i = 0; i < AMINO_ACID_WEIGHTS.length; i++) {
+            for (int j = 0; j < AMINO_ACID_WEIGHTS[i]; j++) {
+                aminoAcidTable[position++] = i;
+            }
+        }
+    }
+
+    // 第 index 条记录（从 0 开始），id 留空由数据库分配
+    public Sequence next(int index) {
+        int species = skewed(SPECIES.length);
+        Sequence sequence = new Sequence();
+        sequence.setIndexNumber(index);
+        sequence.setProteins(proteinName(index) + "_" + SPECIES[species]);
+        sequence.setAccessions(accession('P', index) + "; " + accession('Q', random.nextInt(1_000_000)));
+        sequence.setSequence(residues(length()));
+        sequence.setAnnotations(annotations());
+        sequence.setInterpros("IPR" + pad(skewed(20_000), 6) + ", IPR" + pad(random.nextInt(1_000_000), 6));
+        sequence.setOrgs(TAXONOMY_IDS[species]);
+        return sequence;
+    }
+
+    public String residues(int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = AMINO_ACIDS.charAt(aminoAcidTable[random.nextInt(aminoAcidTable.length)]);
+        }
+        return new String(chars);
+    }
+
+    public static String proteinName(int index) {
+        return "PROT" + Integer.toString(index, 36).toUpperCase();
+    }
+
+    public static String accession(char prefix, int number) {
+        return prefix + pad(number, 5);
+    }
+
+    // 长度大致服从对数正态分布，中位数约 300，与 UniProtKB 相近
+    private int length() {
+        double gaussian = random.nextDouble() + random.nextDouble() + random.nextDouble() - 1.5;
+        int length = (int) Math.round(Math.exp(5.7 + gaussian * 0.9));
+        return Math.max(30, Math.min(length, 5000));
+    }
+
+    private String annotations() {
+        int count = 1 + random.nextInt(4);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(ANNOTATIONS[skewed(ANNOTATIONS.length)]);
+        }
+        return builder.toString();
+    }
+
+    // 0..bound-1 之间的偏斜取值，较小的值出现得多
+    private int skewed(int bound) {
+        double value = random.nextDouble();
+        return (int) (value * value * value * bound);
+    }
+
+    private static String pad(int number, int width) {
+        String digits = Integer.toString(number);
+        return digits.length() >= width ? digits : "0".repeat(width - digits.length()) + digits;
+    }
+}